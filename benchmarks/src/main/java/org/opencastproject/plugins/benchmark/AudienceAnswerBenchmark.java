@@ -0,0 +1,99 @@
+package org.opencastproject.plugins.benchmark;
+
+import org.opencastproject.poll.plugin.service.PollDataStore;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Free-text answers to an audience poll that already has many answers, submitted as typed by the first
+ * audience member and as retyped with different case and spacing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AudienceAnswerBenchmark {
+
+  @Param({
+      PollStoreFixture.MOCK,
+      PollStoreFixture.MEMORY,
+      PollStoreFixture.OPENCAST_H2
+  })
+  public String store;
+
+  @Param({"100", "10000"})
+  public int optionCount;
+
+  @Param({"2000"})
+  public int voterCount;
+
+  private PollStoreFixture fixture;
+  private PollDataStore dataStore;
+  private String pollId;
+  private String[] answers;
+  private String[] retypedAnswers;
+  private String[] voterIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    fixture = new PollStoreFixture(store);
+    dataStore = fixture.store();
+
+    PollDefinition poll = dataStore.createAudiencePoll("What did you learn today?", "presenter");
+    pollId = poll.eventId();
+
+    answers = new String[optionCount];
+    retypedAnswers = new String[optionCount];
+    for (int i = 0; i < optionCount; i++) {
+      answers[i] = "Answer number " + i;
+      retypedAnswers[i] = "  " + answers[i].toUpperCase(Locale.ROOT).replace(" ", "   ") + " ";
+      dataStore.submitAudienceAnswer(pollId, answers[i], "seed-" + i);
+    }
+    voterIds = new String[voterCount];
+    for (int i = 0; i < voterCount; i++) {
+      voterIds[i] = "voter-" + i;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    fixture.close();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public PollVoteResult submitExistingAnswer() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return dataStore.submitAudienceAnswer(pollId, answers[random.nextInt(answers.length)],
+        voterIds[random.nextInt(voterIds.length)]);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public PollVoteResult submitRetypedAnswer() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return dataStore.submitAudienceAnswer(pollId, retypedAnswers[random.nextInt(retypedAnswers.length)],
+        voterIds[random.nextInt(voterIds.length)]);
+  }
+}
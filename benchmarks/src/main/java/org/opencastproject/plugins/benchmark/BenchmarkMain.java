@@ -0,0 +1,38 @@
+package org.opencastproject.plugins.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Runs the benchmarks with the usual JMH command line and writes the results as JSON to
+ * {@code target/benchmarks/jmh-<timestamp>.json} unless {@code -rf}/{@code -rff} say otherwise.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (!commandLine.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!commandLine.getResult().hasValue()) {
+      File directory = new File("target/benchmarks");
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IllegalStateException("Cannot create " + directory);
+      }
+      String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+      options.result(new File(directory, "jmh-" + timestamp + ".json").getPath());
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,89 @@
+package org.opencastproject.plugins.benchmark;
+
+import org.opencastproject.db.DBSessionFactory;
+import org.opencastproject.db.DBTestEnv;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * In-memory H2 database in MySQL mode for one persistence unit. The tables are created by the plugin's own schema
+ * code if one is given, so the benchmarks measure the real schema, and by EclipseLink from the entities otherwise.
+ */
+public final class EmbeddedDatabase implements AutoCloseable {
+
+  /** Creates the tables of a persistence unit, e.g. {@code PollSchemaInitializer::createSchema}. */
+  @FunctionalInterface
+  public interface Schema {
+    void create(Connection connection) throws SQLException;
+  }
+
+  private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+  private final String url;
+  private final EntityManagerFactory entityManagerFactory;
+  private final DBSessionFactory dbSessionFactory;
+
+  public EmbeddedDatabase(String persistenceUnit, Schema schema) {
+    this(persistenceUnit, schema, "org.h2.Driver", "jdbc:");
+  }
+
+  /**
+   * Connects the persistence unit through another JDBC driver, which gets the H2 url with its leading
+   * {@code jdbc:} replaced by {@code jdbcUrlPrefix}. The schema is still created on H2 directly.
+   */
+  public EmbeddedDatabase(String persistenceUnit, Schema schema, String jdbcDriver, String jdbcUrlPrefix) {
+    this.url = "jdbc:h2:mem:benchmark" + SEQUENCE.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    if (schema != null) {
+      try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+        schema.create(connection);
+      } catch (SQLException e) {
+        throw new IllegalStateException("Failed to create the schema of " + persistenceUnit, e);
+      }
+    }
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("javax.persistence.nonJtaDataSource", "");
+    properties.put("javax.persistence.jdbc.driver", jdbcDriver);
+    properties.put("javax.persistence.jdbc.url", jdbcUrlPrefix + url.substring("jdbc:".length()));
+    properties.put("javax.persistence.jdbc.user", "sa");
+    properties.put("javax.persistence.jdbc.password", "");
+    // The H2 platform of EclipseLink 2.7 reads generated ids with CALL IDENTITY(), which H2 2 no longer has
+    properties.put("eclipselink.target-database", "MySQL");
+    properties.put("eclipselink.ddl-generation", schema != null ? "none" : "create-tables");
+    properties.put("eclipselink.ddl-generation.output-mode", "database");
+    properties.put("eclipselink.connection-pool.default.max", "64");
+    properties.put("eclipselink.logging.level", "SEVERE");
+    this.entityManagerFactory = Persistence.createEntityManagerFactory(persistenceUnit, properties);
+    // Deploys the unit, which creates the entity tables if there is no schema
+    entityManagerFactory.createEntityManager().close();
+    this.dbSessionFactory = DBTestEnv.getDbSessionFactory();
+  }
+
+  public EntityManagerFactory getEntityManagerFactory() {
+    return entityManagerFactory;
+  }
+
+  public DBSessionFactory getDbSessionFactory() {
+    return dbSessionFactory;
+  }
+
+  @Override
+  public void close() {
+    entityManagerFactory.close();
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+         Statement statement = connection.createStatement()) {
+      statement.execute("SHUTDOWN");
+    } catch (SQLException e) {
+      // Already gone
+    }
+  }
+}
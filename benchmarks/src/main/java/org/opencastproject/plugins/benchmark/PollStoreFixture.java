@@ -0,0 +1,62 @@
+package org.opencastproject.plugins.benchmark;
+
+import org.opencastproject.poll.plugin.persistence.PollSchemaInitializer;
+import org.opencastproject.poll.plugin.service.InMemoryPollDataStore;
+import org.opencastproject.poll.plugin.service.MockPollDataStore;
+import org.opencastproject.poll.plugin.service.OpencastPollDataStore;
+import org.opencastproject.poll.plugin.service.PollDataStore;
+import org.opencastproject.poll.plugin.service.PollIdAllocator;
+import org.opencastproject.poll.plugin.service.VoteWriteBuffer;
+
+/**
+ * Creates the poll store selected by a benchmark's {@code store} parameter.
+ */
+final class PollStoreFixture implements AutoCloseable {
+
+  static final String MOCK = "mock";
+  static final String MEMORY = "memory";
+  static final String OPENCAST_H2 = "opencast-h2";
+  static final String OPENCAST_H2_BUFFERED = "opencast-h2-buffered";
+
+  private final PollDataStore store;
+  private final EmbeddedDatabase database;
+  private final VoteWriteBuffer voteBuffer;
+
+  PollStoreFixture(String name) {
+    switch (name) {
+      case MOCK:
+        store = new MockPollDataStore();
+        database = null;
+        voteBuffer = null;
+        break;
+      case MEMORY:
+        store = new InMemoryPollDataStore(10000, 1000000, 3600000L);
+        database = null;
+        voteBuffer = null;
+        break;
+      case OPENCAST_H2:
+      case OPENCAST_H2_BUFFERED:
+        database = new EmbeddedDatabase("org.opencastproject.poll", PollSchemaInitializer::createSchema);
+        voteBuffer = OPENCAST_H2_BUFFERED.equals(name) ? new VoteWriteBuffer(500L, 5000) : null;
+        store = new OpencastPollDataStore(database.getDbSessionFactory(), database.getEntityManagerFactory(),
+            voteBuffer, new PollIdAllocator(0));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown poll store: " + name);
+    }
+  }
+
+  PollDataStore store() {
+    return store;
+  }
+
+  @Override
+  public void close() {
+    if (voteBuffer != null) {
+      voteBuffer.close();
+    }
+    if (database != null) {
+      database.close();
+    }
+  }
+}
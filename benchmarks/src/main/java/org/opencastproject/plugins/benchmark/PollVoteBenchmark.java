@@ -0,0 +1,130 @@
+package org.opencastproject.plugins.benchmark;
+
+import org.opencastproject.poll.plugin.service.PollDataStore;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollOption;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.input.PollInput;
+import org.opencastproject.poll.plugin.type.input.PollVoteInput;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Votes on one event poll from many threads, and tally reads with and without concurrent votes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PollVoteBenchmark {
+
+  private static final String EVENT_ID = "benchmark-event";
+
+  @Param({
+      PollStoreFixture.MOCK,
+      PollStoreFixture.MEMORY,
+      PollStoreFixture.OPENCAST_H2,
+      PollStoreFixture.OPENCAST_H2_BUFFERED
+  })
+  public String store;
+
+  @Param({"4"})
+  public int optionCount;
+
+  @Param({"2000"})
+  public int voterCount;
+
+  private PollStoreFixture fixture;
+  private PollDataStore dataStore;
+  private String pollId;
+  private String[] optionIds;
+  private String[] voterIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    fixture = new PollStoreFixture(store);
+    dataStore = fixture.store();
+
+    List<String> labels = new ArrayList<>();
+    for (int i = 1; i <= optionCount; i++) {
+      labels.add("Option " + i);
+    }
+    PollInput input = new PollInput();
+    input.setQuestion("Which option?");
+    input.setOptions(labels);
+    input.setIsActive(true);
+    PollDefinition poll = dataStore.createPoll(EVENT_ID, input, "presenter");
+
+    pollId = poll.id();
+    optionIds = new String[poll.options().size()];
+    for (int i = 0; i < optionIds.length; i++) {
+      PollOption option = poll.options().get(i);
+      optionIds[i] = option.id();
+    }
+    voterIds = new String[voterCount];
+    for (int i = 0; i < voterCount; i++) {
+      voterIds[i] = "voter-" + i;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    fixture.close();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public PollVoteResult vote() {
+    return submitRandomVote();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public PollDefinition readTally() {
+    return dataStore.getPollDefinition(EVENT_ID);
+  }
+
+  @Benchmark
+  @Group("voteWhileReading")
+  @GroupThreads(7)
+  public PollVoteResult voteWhileReadingVotes() {
+    return submitRandomVote();
+  }
+
+  @Benchmark
+  @Group("voteWhileReading")
+  @GroupThreads(1)
+  public PollDefinition voteWhileReadingTally() {
+    return dataStore.getPollDefinition(EVENT_ID);
+  }
+
+  private PollVoteResult submitRandomVote() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    PollVoteInput vote = new PollVoteInput();
+    vote.setPollId(pollId);
+    vote.setOptionId(optionIds[random.nextInt(optionIds.length)]);
+    return dataStore.submitVote(EVENT_ID, vote, voterIds[random.nextInt(voterIds.length)]);
+  }
+}
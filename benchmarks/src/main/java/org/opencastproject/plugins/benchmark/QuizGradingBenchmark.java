@@ -0,0 +1,142 @@
+package org.opencastproject.plugins.benchmark;
+
+import org.opencastproject.quiz.plugin.service.MockQuizDataStore;
+import org.opencastproject.quiz.plugin.service.OpencastQuizDataStore;
+import org.opencastproject.quiz.plugin.service.QuizDataStore;
+import org.opencastproject.quiz.plugin.type.Question;
+import org.opencastproject.quiz.plugin.type.QuizDefinition;
+import org.opencastproject.quiz.plugin.type.QuizSubmissionResult;
+import org.opencastproject.quiz.plugin.type.input.AnswerInput;
+import org.opencastproject.quiz.plugin.type.input.QuestionInput;
+import org.opencastproject.quiz.plugin.type.input.QuizAnswersInput;
+import org.opencastproject.quiz.plugin.type.input.QuizInput;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grades and stores quiz submissions with a mix of single choice, multiple choice and text questions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QuizGradingBenchmark {
+
+  private static final String EVENT_ID = "benchmark-event";
+
+  @Param({"mock", "opencast-h2"})
+  public String store;
+
+  @Param({"20"})
+  public int questionCount;
+
+  @Param({"2000"})
+  public int studentCount;
+
+  private EmbeddedDatabase database;
+  private QuizDataStore dataStore;
+  private QuizAnswersInput answers;
+  private String[] studentIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    if ("opencast-h2".equals(store)) {
+      database = new EmbeddedDatabase("org.opencastproject.quiz", null);
+      dataStore = new OpencastQuizDataStore(database.getDbSessionFactory(), database.getEntityManagerFactory());
+    } else {
+      dataStore = new MockQuizDataStore();
+    }
+
+    List<QuestionInput> questions = new ArrayList<>();
+    for (int i = 0; i < questionCount; i++) {
+      QuestionInput question = new QuestionInput();
+      question.setQuestion("Question " + i);
+      question.setPoints(1);
+      switch (i % 3) {
+        case 0:
+          question.setType("single_choice");
+          question.setOptions(Arrays.asList("A", "B", "C", "D"));
+          question.setCorrectAnswer("B");
+          break;
+        case 1:
+          question.setType("multiple_choice");
+          question.setOptions(Arrays.asList("A", "B", "C", "D"));
+          question.setCorrectAnswer(Arrays.asList("A", "C"));
+          break;
+        default:
+          question.setType("text");
+          question.setCorrectAnswer("photosynthesis");
+          break;
+      }
+      questions.add(question);
+    }
+    QuizInput input = new QuizInput();
+    input.setTitle("Benchmark quiz");
+    input.setQuestions(questions);
+    input.setIsActive(true);
+    QuizDefinition quiz = dataStore.createQuiz(EVENT_ID, input, "presenter");
+
+    // Every other answer is correct, so grading walks both outcomes
+    List<AnswerInput> answerInputs = new ArrayList<>();
+    for (int i = 0; i < quiz.questions().size(); i++) {
+      Question question = quiz.questions().get(i);
+      AnswerInput answer = new AnswerInput();
+      answer.setQuestionId(question.id());
+      boolean correct = i % 2 == 0;
+      switch (i % 3) {
+        case 0:
+          answer.setAnswer(correct ? "B" : "D");
+          break;
+        case 1:
+          answer.setAnswer(correct ? Arrays.asList("C", "A") : Arrays.asList("A"));
+          break;
+        default:
+          answer.setAnswer(correct ? "photosynthesis" : "osmosis");
+          break;
+      }
+      answerInputs.add(answer);
+    }
+    answers = new QuizAnswersInput();
+    answers.setQuizId(quiz.id());
+    answers.setAnswers(answerInputs);
+
+    studentIds = new String[studentCount];
+    for (int i = 0; i < studentCount; i++) {
+      studentIds[i] = "student-" + i;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (database != null) {
+      database.close();
+    }
+  }
+
+  @Benchmark
+  @Threads(4)
+  public QuizSubmissionResult submitQuiz() {
+    return dataStore.submitQuiz(EVENT_ID, answers, studentIds[ThreadLocalRandom.current().nextInt(studentCount)]);
+  }
+}
@@ -0,0 +1,141 @@
+package org.opencastproject.plugins.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver that delegates {@code jdbc:counting:<url>} to the driver for {@code jdbc:<url>} and counts
+ * database round trips: statement executions, commits and rollbacks. Round trips are added to the counter
+ * opened with {@link #begin()} on the calling thread, or to the background counter when there is none, e.g.
+ * for buffered vote flushes.
+ */
+public final class CountingDriver implements Driver {
+
+  public static final String URL_PREFIX = "jdbc:counting:";
+
+  private static final ThreadLocal<long[]> CURRENT = new ThreadLocal<>();
+
+  private static final LongAdder BACKGROUND = new LongAdder();
+
+  static {
+    try {
+      DriverManager.registerDriver(new CountingDriver());
+    } catch (SQLException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /** Starts counting the round trips of the calling thread. */
+  static void begin() {
+    CURRENT.set(new long[1]);
+  }
+
+  /** Stops counting on the calling thread and returns the round trips since {@link #begin()}. */
+  static long end() {
+    long[] counter = CURRENT.get();
+    CURRENT.remove();
+    return counter == null ? 0 : counter[0];
+  }
+
+  static long backgroundRoundTrips() {
+    return BACKGROUND.sum();
+  }
+
+  static void resetBackground() {
+    BACKGROUND.reset();
+  }
+
+  private static void count() {
+    long[] counter = CURRENT.get();
+    if (counter != null) {
+      counter[0]++;
+    } else {
+      BACKGROUND.increment();
+    }
+  }
+
+  @Override
+  public Connection connect(String url, Properties info) throws SQLException {
+    if (!acceptsURL(url)) {
+      return null;
+    }
+    Connection connection = DriverManager.getConnection("jdbc:" + url.substring(URL_PREFIX.length()), info);
+    return wrap(connection, Connection.class);
+  }
+
+  @Override
+  public boolean acceptsURL(String url) {
+    return url != null && url.startsWith(URL_PREFIX);
+  }
+
+  @Override
+  public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+    return new DriverPropertyInfo[0];
+  }
+
+  @Override
+  public int getMajorVersion() {
+    return 1;
+  }
+
+  @Override
+  public int getMinorVersion() {
+    return 0;
+  }
+
+  @Override
+  public boolean jdbcCompliant() {
+    return false;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  private static <T> T wrap(T target, Class<T> type) {
+    InvocationHandler handler = (proxy, method, args) -> invoke(target, method, args);
+    return type.cast(Proxy.newProxyInstance(CountingDriver.class.getClassLoader(), new Class<?>[] { type }, handler));
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    String name = method.getName();
+    if (target instanceof Statement && name.startsWith("execute")
+        || target instanceof Connection && ("commit".equals(name) || "rollback".equals(name))) {
+      count();
+    }
+
+    Object result;
+    try {
+      result = method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+
+    // Statements are wrapped so their executions are counted as well
+    if (result instanceof CallableStatement && method.getReturnType() == CallableStatement.class) {
+      return wrap((CallableStatement) result, CallableStatement.class);
+    }
+    if (result instanceof PreparedStatement && method.getReturnType() == PreparedStatement.class) {
+      return wrap((PreparedStatement) result, PreparedStatement.class);
+    }
+    if (result instanceof Statement && method.getReturnType() == Statement.class) {
+      return wrap((Statement) result, Statement.class);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,315 @@
+package org.opencastproject.plugins.loadtest;
+
+import org.opencastproject.plugins.benchmark.EmbeddedDatabase;
+import org.opencastproject.poll.plugin.persistence.PollSchemaInitializer;
+import org.opencastproject.poll.plugin.service.PollService;
+import org.opencastproject.security.api.User;
+
+import graphql.ExecutionResult;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs one scenario: sets up a poll service with a fresh embedded database, creates the poll as presenter
+ * and lets every voter act on its own thread while presenters read the results, then reports.
+ */
+final class LoadRun {
+
+  private static final String EVENT_ID = "loadtest-event";
+
+  private static final String CREATE_POLL =
+      "mutation CreatePoll($eventId: String!, $question: String!, $options: [String]!) {"
+          + " poll { createPoll(eventId: $eventId, poll: {question: $question, options: $options, isActive: true})"
+          + " { id options { id } } } }";
+
+  private static final String CREATE_AUDIENCE_POLL =
+      "mutation CreateAudiencePoll($question: String!) { poll { createAudiencePoll(question: $question)"
+          + " { eventId } } }";
+
+  private static final String VOTE =
+      "mutation Vote($eventId: String!, $pollId: String!, $optionId: String!) {"
+          + " poll { vote(eventId: $eventId, vote: {pollId: $pollId, optionId: $optionId}) { success totalVotes } } }";
+
+  private static final String SUBMIT_ANSWER =
+      "mutation SubmitAnswer($pollId: String!, $answer: String!, $voterId: String) {"
+          + " poll { submitAudienceAnswer(pollId: $pollId, answer: $answer, voterId: $voterId)"
+          + " { success totalVotes } } }";
+
+  private static final String READ_AUDIENCE_POLL =
+      "query ReadAudiencePoll($pollId: String) { audiencePoll(pollId: $pollId)"
+          + " { question options { id label voteCount } } }";
+
+  private final Scenario scenario;
+  private final PollGraphQLClient client;
+  private final User presenter = PollGraphQLClient.user("presenter");
+  private final OperationStats voterStats;
+  private final OperationStats presenterStats = new OperationStats("audiencePoll");
+
+  private String pollId;
+  private List<String> optionIds;
+  private String[] answers;
+
+  private LoadRun(Scenario scenario, PollGraphQLClient client) {
+    this.scenario = scenario;
+    this.client = client;
+    this.voterStats = new OperationStats(
+        scenario.pollKind() == Scenario.PollKind.EVENT ? "vote" : "submitAudienceAnswer");
+  }
+
+  /**
+   * Runs a scenario and prints its report.
+   *
+   * @return whether every operation kind stayed within the scenario's {@code maxErrorRate}
+   */
+  static boolean run(Scenario scenario, PrintStream out) throws Exception {
+    if (scenario.pollKind() == Scenario.PollKind.EVENT && scenario.presenters() > 0) {
+      throw new IllegalArgumentException("Scenario " + scenario.name()
+          + ": event polls are read through Opencast events, so presenters need poll=audience");
+    }
+
+    EmbeddedDatabase database = scenario.usesDatabase()
+        ? new EmbeddedDatabase("org.opencastproject.poll", PollSchemaInitializer::createSchema,
+            CountingDriver.class.getName(), CountingDriver.URL_PREFIX)
+        : null;
+    PollService service = new PollService();
+    LoadRun run = new LoadRun(scenario, new PollGraphQLClient());
+    long elapsedNanos;
+    try {
+      if (database != null) {
+        inject(service, "dbSessionFactory", database.getDbSessionFactory());
+        inject(service, "entityManagerFactory", database.getEntityManagerFactory());
+      }
+      // Activation makes this the instance the GraphQL fields use
+      service.activate(scenario.serviceConfig());
+      run.setUp();
+      CountingDriver.resetBackground();
+      elapsedNanos = run.execute();
+    } finally {
+      // Flushes buffered votes, so their round trips are part of the background count
+      service.deactivate();
+      if (database != null) {
+        database.close();
+      }
+    }
+    return run.report(out, elapsedNanos, CountingDriver.backgroundRoundTrips());
+  }
+
+  /** Sets a reference field the way the component runtime injects it. */
+  private static void inject(PollService service, String fieldName, Object value)
+      throws ReflectiveOperationException {
+    Field field = PollService.class.getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(service, value);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void setUp() {
+    Map<String, Object> variables = new HashMap<>();
+    if (scenario.pollKind() == Scenario.PollKind.EVENT) {
+      List<String> labels = new ArrayList<>();
+      for (int i = 1; i <= scenario.options(); i++) {
+        labels.add("Option " + i);
+      }
+      variables.put("eventId", EVENT_ID);
+      variables.put("question", "Which option?");
+      variables.put("options", labels);
+      Map<String, Object> poll = field(client.executeOrFail(CREATE_POLL, variables, presenter), "createPoll");
+      pollId = (String) poll.get("id");
+      optionIds = new ArrayList<>();
+      for (Map<String, Object> option : (List<Map<String, Object>>) poll.get("options")) {
+        optionIds.add((String) option.get("id"));
+      }
+    } else {
+      variables.put("question", "What did you learn today?");
+      Map<String, Object> poll = field(client.executeOrFail(CREATE_AUDIENCE_POLL, variables, presenter),
+          "createAudiencePoll");
+      pollId = (String) poll.get("eventId");
+      answers = new String[scenario.answers()];
+      for (int i = 0; i < answers.length; i++) {
+        answers[i] = "Answer number " + i;
+      }
+    }
+  }
+
+  private long execute() throws InterruptedException {
+    CountDownLatch votersDone = new CountDownLatch(scenario.voters());
+    long startNanos = System.nanoTime();
+    ExecutorService executor = newVoterExecutor();
+    try {
+      for (int i = 0; i < scenario.voters(); i++) {
+        int voter = i;
+        executor.execute(() -> {
+          try {
+            runVoter(voter, startNanos);
+          } finally {
+            votersDone.countDown();
+          }
+        });
+      }
+      for (int i = 0; i < scenario.presenters(); i++) {
+        executor.execute(() -> runPresenter(votersDone));
+      }
+      votersDone.await();
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+    return System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Returns a virtual-thread-per-task executor on Java 21 or newer, looked up reflectively so the module builds
+   * with the Java 17 release of the other modules, and a cached pool of platform threads otherwise.
+   */
+  private static ExecutorService newVoterExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  private void runVoter(int voter, long startNanos) {
+    User user = PollGraphQLClient.user("voter-" + voter);
+    long rampUpNanos = TimeUnit.MILLISECONDS.toNanos(scenario.rampUpMs());
+    try {
+      sleepUntil(startNanos + rampUpNanos * voter / scenario.voters());
+      for (int action = 0; action < scenario.actionsPerVoter(); action++) {
+        if (action > 0 && scenario.thinkTimeMs() > 0) {
+          long thinkTimeMs = scenario.thinkTimeMs();
+          Thread.sleep(ThreadLocalRandom.current().nextLong(thinkTimeMs / 2, thinkTimeMs * 3 / 2 + 1));
+        }
+        if (scenario.pollKind() == Scenario.PollKind.EVENT) {
+          vote(user);
+        } else {
+          submitAnswer(user);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void vote(User user) {
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("eventId", EVENT_ID);
+    variables.put("pollId", pollId);
+    variables.put("optionId", optionIds.get(ThreadLocalRandom.current().nextInt(optionIds.size())));
+    timed(voterStats, VOTE, variables, user, "vote");
+  }
+
+  private void submitAnswer(User user) {
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("pollId", pollId);
+    variables.put("answer", retype(answers[ThreadLocalRandom.current().nextInt(answers.length)]));
+    variables.put("voterId", user.getUsername());
+    timed(voterStats, SUBMIT_ANSWER, variables, user, "submitAudienceAnswer");
+  }
+
+  /** Types an answer the way different people would: as is, in other case or with extra spaces. */
+  private static String retype(String answer) {
+    switch (ThreadLocalRandom.current().nextInt(4)) {
+      case 0:
+        return answer.toUpperCase(Locale.ROOT);
+      case 1:
+        return answer.toLowerCase(Locale.ROOT);
+      case 2:
+        return "  " + answer.replace(" ", "  ") + " ";
+      default:
+        return answer;
+    }
+  }
+
+  private void runPresenter(CountDownLatch votersDone) {
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("pollId", pollId);
+    try {
+      do {
+        timed(presenterStats, READ_AUDIENCE_POLL, variables, presenter, null);
+      } while (!votersDone.await(scenario.presenterIntervalMs(), TimeUnit.MILLISECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Executes an operation and records its latency, round trips and error. A mutation whose result reports
+   * {@code success: false} counts as failed.
+   */
+  private void timed(OperationStats stats, String operation, Map<String, Object> variables, User user,
+      String mutationField) {
+    CountingDriver.begin();
+    long started = System.nanoTime();
+    String error;
+    try {
+      ExecutionResult result = client.execute(operation, variables, user);
+      error = PollGraphQLClient.firstError(result);
+      if (error == null && mutationField != null
+          && Boolean.FALSE.equals(field(result.getData(), mutationField).get("success"))) {
+        error = mutationField + " returned success: false";
+      }
+    } catch (RuntimeException e) {
+      error = e.toString();
+    }
+    long latencyNanos = System.nanoTime() - started;
+    stats.record(latencyNanos, CountingDriver.end(), error);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> field(Map<String, Object> data, String mutationField) {
+    Map<String, Object> poll = (Map<String, Object>) data.get("poll");
+    return (Map<String, Object>) poll.get(mutationField);
+  }
+
+  private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+    long remaining = deadlineNanos - System.nanoTime();
+    if (remaining > 0) {
+      TimeUnit.NANOSECONDS.sleep(remaining);
+    }
+  }
+
+  private boolean report(PrintStream out, long elapsedNanos, long backgroundRoundTrips) {
+    out.printf(Locale.ROOT, "%nScenario %s: %s%n", scenario.name(), scenario.description());
+    out.printf(Locale.ROOT, "  %d voters, %d presenters, store %s, %.1f s%n", scenario.voters(),
+        scenario.presenters(), scenario.serviceConfig().store(), elapsedNanos / 1e9);
+    out.printf(Locale.ROOT, "  %-22s %8s %8s %9s %9s %9s %12s%n",
+        "operation", "count", "errors", "p50 ms", "p95 ms", "p99 ms", "db trips/op");
+
+    List<OperationStats> operations = new ArrayList<>();
+    operations.add(voterStats);
+    if (presenterStats.count() > 0) {
+      operations.add(presenterStats);
+    }
+    boolean passed = true;
+    for (OperationStats stats : operations) {
+      out.printf(Locale.ROOT, "  %-22s %8d %7.2f%% %9.2f %9.2f %9.2f %12.2f%n", stats.name(), stats.count(),
+          stats.errorRate() * 100.0, stats.percentileMs(50), stats.percentileMs(95), stats.percentileMs(99),
+          stats.roundTripsPerOperation());
+      passed &= stats.errorRate() <= scenario.maxErrorRate();
+    }
+
+    int votes = voterStats.count();
+    out.printf(Locale.ROOT, "  DB round trips per vote: %.2f in the request, %.2f in background writes%n",
+        voterStats.roundTripsPerOperation(), votes == 0 ? 0.0 : (double) backgroundRoundTrips / votes);
+
+    for (OperationStats stats : operations) {
+      for (Map.Entry<String, Integer> error : stats.errors().entrySet()) {
+        out.printf(Locale.ROOT, "  %s error x%d: %s%n", stats.name(), error.getValue(), error.getKey());
+      }
+    }
+    out.printf(Locale.ROOT, "  %s (max error rate %.2f%%)%n", passed ? "PASSED" : "FAILED",
+        scenario.maxErrorRate() * 100.0);
+    return passed;
+  }
+}
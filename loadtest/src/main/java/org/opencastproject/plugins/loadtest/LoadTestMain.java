@@ -0,0 +1,24 @@
+package org.opencastproject.plugins.loadtest;
+
+/**
+ * Runs the scenarios given by name or file path, or all bundled scenarios, and exits with status 1 if any
+ * scenario exceeded its error rate.
+ */
+public final class LoadTestMain {
+
+  private static final String[] BUNDLED_SCENARIOS = { "vote-spike", "free-text-flood", "presenter-polling" };
+
+  private LoadTestMain() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    String[] scenarios = args.length == 0 ? BUNDLED_SCENARIOS : args;
+    boolean passed = true;
+    for (String scenario : scenarios) {
+      passed &= LoadRun.run(Scenario.load(scenario), System.out);
+    }
+    if (!passed) {
+      System.exit(1);
+    }
+  }
+}
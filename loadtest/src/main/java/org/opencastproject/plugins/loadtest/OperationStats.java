@@ -0,0 +1,74 @@
+package org.opencastproject.plugins.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies, errors and database round trips of one kind of GraphQL operation.
+ */
+final class OperationStats {
+
+  private static final int MAX_ERROR_MESSAGE_LENGTH = 160;
+
+  private final String name;
+  private final Map<String, Integer> errors = new TreeMap<>();
+  private long[] latenciesNanos = new long[1024];
+  private int count;
+  private int errorCount;
+  private long roundTrips;
+
+  OperationStats(String name) {
+    this.name = name;
+  }
+
+  String name() {
+    return name;
+  }
+
+  synchronized void record(long latencyNanos, long operationRoundTrips, String error) {
+    if (count == latenciesNanos.length) {
+      latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+    }
+    latenciesNanos[count++] = latencyNanos;
+    roundTrips += operationRoundTrips;
+    if (error != null) {
+      errorCount++;
+      String message = error.length() > MAX_ERROR_MESSAGE_LENGTH
+          ? error.substring(0, MAX_ERROR_MESSAGE_LENGTH) + "..."
+          : error;
+      errors.merge(message, 1, Integer::sum);
+    }
+  }
+
+  synchronized int count() {
+    return count;
+  }
+
+  synchronized int errorCount() {
+    return errorCount;
+  }
+
+  synchronized double errorRate() {
+    return count == 0 ? 0.0 : (double) errorCount / count;
+  }
+
+  synchronized double roundTripsPerOperation() {
+    return count == 0 ? 0.0 : (double) roundTrips / count;
+  }
+
+  synchronized Map<String, Integer> errors() {
+    return new TreeMap<>(errors);
+  }
+
+  /** Returns the latency at the given percentile (0-100) in milliseconds, using the nearest rank. */
+  synchronized double percentileMs(double percentile) {
+    if (count == 0) {
+      return 0.0;
+    }
+    long[] sorted = Arrays.copyOf(latenciesNanos, count);
+    Arrays.sort(sorted);
+    int rank = (int) Math.ceil(percentile / 100.0 * count);
+    return sorted[Math.max(0, Math.min(count, rank) - 1)] / 1_000_000.0;
+  }
+}
@@ -0,0 +1,73 @@
+package org.opencastproject.plugins.loadtest;
+
+import org.opencastproject.poll.plugin.PollMutationExtension;
+import org.opencastproject.poll.plugin.PollQueryExtension;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.User;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.annotations.processor.GraphQLAnnotations;
+import graphql.schema.GraphQLSchema;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Runs GraphQL operations in-process against the poll plugin fields. The root types carry only the fields of
+ * {@link PollQueryExtension} and {@link PollMutationExtension}, which Opencast merges into its own
+ * {@code Query} and {@code Mutation}; event fields need the Opencast search index and are left out.
+ */
+final class PollGraphQLClient {
+
+  private final GraphQL graphQL;
+
+  PollGraphQLClient() {
+    GraphQLAnnotations annotations = new GraphQLAnnotations();
+    GraphQLSchema schema = GraphQLSchema.newSchema()
+        .query(annotations.object(PollQueryExtension.class))
+        .mutation(annotations.object(PollMutationExtension.class))
+        .codeRegistry(annotations.getContainer().getCodeRegistryBuilder().build())
+        .build();
+    this.graphQL = GraphQL.newGraphQL(schema).build();
+  }
+
+  static User user(String username) {
+    return new JaxbUser(username, "loadtest", new DefaultOrganization());
+  }
+
+  /**
+   * Executes an operation as the given user, who is passed in the GraphQL context the way the plugin resolves
+   * users.
+   */
+  ExecutionResult execute(String operation, Map<String, Object> variables, User user) {
+    ExecutionInput input = ExecutionInput.newExecutionInput()
+        .query(operation)
+        .variables(variables == null ? Collections.emptyMap() : variables)
+        .graphQLContext(Collections.singletonMap("user", user))
+        .build();
+    return graphQL.execute(input);
+  }
+
+  /** Executes an operation and returns its data, failing on any GraphQL error. */
+  Map<String, Object> executeOrFail(String operation, Map<String, Object> variables, User user) {
+    ExecutionResult result = execute(operation, variables, user);
+    String error = firstError(result);
+    if (error != null) {
+      throw new IllegalStateException("GraphQL operation failed: " + error);
+    }
+    return result.getData();
+  }
+
+  /** Returns the message of the first error of a result, or {@code null} if it has none. */
+  static String firstError(ExecutionResult result) {
+    if (result.getErrors() == null || result.getErrors().isEmpty()) {
+      return null;
+    }
+    GraphQLError error = result.getErrors().get(0);
+    return error.getMessage();
+  }
+}
@@ -0,0 +1,168 @@
+package org.opencastproject.plugins.loadtest;
+
+import org.opencastproject.poll.plugin.service.PollService.PollServiceConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * A load scenario read from a properties file: the poll the audience works on, how the voters and presenters
+ * behave and the {@code service.*} overrides of the poll service configuration.
+ */
+final class Scenario {
+
+  enum PollKind {
+    /** Event poll; voters use the {@code vote} mutation. */
+    EVENT,
+    /** Audience poll; voters use {@code submitAudienceAnswer}, presenters read {@code audiencePoll}. */
+    AUDIENCE
+  }
+
+  private static final String SERVICE_PREFIX = "service.";
+
+  private final String name;
+  private final Properties properties;
+
+  private Scenario(String name, Properties properties) {
+    this.name = name;
+    this.properties = properties;
+  }
+
+  /**
+   * Loads {@code /scenarios/<name>.properties} from the class path, or the given file if there is no such
+   * scenario.
+   */
+  static Scenario load(String nameOrPath) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + nameOrPath + ".properties")) {
+      if (in != null) {
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+          properties.load(reader);
+        }
+        return new Scenario(nameOrPath, properties);
+      }
+    }
+
+    Path path = Paths.get(nameOrPath);
+    if (!Files.isRegularFile(path)) {
+      throw new IllegalArgumentException("Unknown scenario: " + nameOrPath);
+    }
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    String fileName = path.getFileName().toString();
+    return new Scenario(fileName.replaceFirst("\\.properties$", ""), properties);
+  }
+
+  String name() {
+    return name;
+  }
+
+  String description() {
+    return properties.getProperty("description", "");
+  }
+
+  PollKind pollKind() {
+    return PollKind.valueOf(properties.getProperty("poll", "event").trim().toUpperCase(Locale.ROOT));
+  }
+
+  /** Number of options of an event poll. */
+  int options() {
+    return intValue("options", 4);
+  }
+
+  /** Number of distinct free-text answers the audience picks from. */
+  int answers() {
+    return intValue("answers", 100);
+  }
+
+  int voters() {
+    return intValue("voters", 2000);
+  }
+
+  /** Window over which the voters' first actions are spread evenly. */
+  long rampUpMs() {
+    return longValue("rampUpMs", 0L);
+  }
+
+  int actionsPerVoter() {
+    return intValue("actionsPerVoter", 1);
+  }
+
+  /** Mean pause between two actions of one voter; every pause is drawn between half and one and a half of it. */
+  long thinkTimeMs() {
+    return longValue("thinkTimeMs", 0L);
+  }
+
+  int presenters() {
+    return intValue("presenters", 0);
+  }
+
+  long presenterIntervalMs() {
+    return longValue("presenterIntervalMs", 1000L);
+  }
+
+  /** Highest share of failed operations, per operation kind, for the scenario to pass. */
+  double maxErrorRate() {
+    String value = properties.getProperty("maxErrorRate");
+    return value == null ? 0.01 : Double.parseDouble(value.trim());
+  }
+
+  /** True if the service uses the Opencast store, which then runs against the embedded database. */
+  boolean usesDatabase() {
+    return "opencast".equalsIgnoreCase(serviceConfig().store());
+  }
+
+  /**
+   * Returns the poll service configuration: {@code service.<attribute>} properties where given, the
+   * attribute defaults otherwise.
+   */
+  PollServiceConfig serviceConfig() {
+    return (PollServiceConfig) Proxy.newProxyInstance(PollServiceConfig.class.getClassLoader(),
+        new Class<?>[] { PollServiceConfig.class }, (proxy, method, args) -> {
+          if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(properties, args);
+          }
+          String value = properties.getProperty(SERVICE_PREFIX + method.getName());
+          if (value == null) {
+            return method.getDefaultValue();
+          }
+          return convert(value.trim(), method.getReturnType());
+        });
+  }
+
+  private static Object convert(String value, Class<?> type) {
+    if (type == int.class) {
+      return Integer.parseInt(value);
+    }
+    if (type == long.class) {
+      return Long.parseLong(value);
+    }
+    if (type == double.class) {
+      return Double.parseDouble(value);
+    }
+    if (type == boolean.class) {
+      return Boolean.parseBoolean(value);
+    }
+    return value;
+  }
+
+  private int intValue(String key, int defaultValue) {
+    String value = properties.getProperty(key);
+    return value == null ? defaultValue : Integer.parseInt(value.trim());
+  }
+
+  private long longValue(String key, long defaultValue) {
+    String value = properties.getProperty(key);
+    return value == null ? defaultValue : Long.parseLong(value.trim());
+  }
+}
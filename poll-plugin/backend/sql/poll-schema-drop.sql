@@ -1,3 +1,8 @@
+DROP TABLE IF EXISTS oc_poll_snapshot;
+DROP TABLE IF EXISTS oc_poll_voter;
+DROP TABLE IF EXISTS oc_poll_idempotency;
+DROP TABLE IF EXISTS oc_poll_option_tally;
 DROP TABLE IF EXISTS oc_poll_vote;
 DROP TABLE IF EXISTS oc_poll_option;
 DROP TABLE IF EXISTS oc_poll;
+DROP TABLE IF EXISTS oc_poll_schema_version;
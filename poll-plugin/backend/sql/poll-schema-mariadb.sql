@@ -1,3 +1,11 @@
+-- Schema version 2, as migrated by PollSchemaInitializer
+CREATE TABLE IF NOT EXISTS oc_poll_schema_version (
+  version INT NOT NULL,
+  description VARCHAR(255) NOT NULL,
+  installed_at DATETIME NOT NULL,
+  PRIMARY KEY (version)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 CREATE TABLE IF NOT EXISTS oc_poll (
   id BIGINT NOT NULL AUTO_INCREMENT,
   event_id VARCHAR(128) NOT NULL,
@@ -6,8 +14,10 @@ CREATE TABLE IF NOT EXISTS oc_poll (
   created_by VARCHAR(255),
   created_at DATETIME,
   updated_at DATETIME,
+  version BIGINT NOT NULL DEFAULT 0,
   PRIMARY KEY (id),
-  UNIQUE KEY uq_oc_poll_event_id (event_id)
+  UNIQUE KEY uq_oc_poll_event_id (event_id),
+  KEY idx_oc_poll_updated_at_id (updated_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE TABLE IF NOT EXISTS oc_poll_option (
@@ -16,21 +26,71 @@ CREATE TABLE IF NOT EXISTS oc_poll_option (
   position INT,
   option_id VARCHAR(128) NOT NULL,
   label VARCHAR(1024) NOT NULL,
+  normalized_label VARCHAR(255) COLLATE utf8mb4_bin NULL,
   PRIMARY KEY (id),
-  KEY idx_oc_poll_option_poll_id (poll_id),
   UNIQUE KEY uq_oc_poll_option_poll_option_id (poll_id, option_id),
+  UNIQUE KEY uq_oc_poll_option_normalized_label (poll_id, normalized_label),
   CONSTRAINT FK_oc_poll_option_poll_id FOREIGN KEY (poll_id) REFERENCES oc_poll (id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE TABLE IF NOT EXISTS oc_poll_vote (
   id BIGINT NOT NULL AUTO_INCREMENT,
   poll_id BIGINT NOT NULL,
-  user_id VARCHAR(255) NOT NULL,
+  voter_hash BINARY(16) NOT NULL,
   option_id VARCHAR(128) NOT NULL,
   voted_at DATETIME,
   PRIMARY KEY (id),
-  KEY idx_oc_poll_vote_poll_id (poll_id),
-  KEY idx_oc_poll_vote_option_id (option_id),
-  UNIQUE KEY uq_oc_poll_vote_poll_user (poll_id, user_id),
+  KEY idx_oc_poll_vote_poll_option (poll_id, option_id),
+  UNIQUE KEY uq_oc_poll_vote_poll_voter (poll_id, voter_hash),
   CONSTRAINT FK_oc_poll_vote_poll_id FOREIGN KEY (poll_id) REFERENCES oc_poll (id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Optional: user ids behind the hashed voter ids (first 16 bytes of SHA-256)
+CREATE TABLE IF NOT EXISTS oc_poll_voter (
+  voter_hash BINARY(16) NOT NULL,
+  user_id VARCHAR(255) NOT NULL,
+  PRIMARY KEY (voter_hash)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS oc_poll_option_tally (
+  poll_id BIGINT NOT NULL,
+  option_id VARCHAR(128) NOT NULL,
+  shard SMALLINT NOT NULL DEFAULT 0,
+  vote_count BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (poll_id, option_id, shard),
+  CONSTRAINT FK_oc_poll_option_tally_poll_id FOREIGN KEY (poll_id) REFERENCES oc_poll (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS oc_poll_idempotency (
+  request_key CHAR(64) NOT NULL,
+  result_json LONGTEXT NOT NULL,
+  created_at DATETIME NOT NULL,
+  PRIMARY KEY (request_key),
+  KEY idx_oc_poll_idempotency_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Frozen results of closed polls
+CREATE TABLE IF NOT EXISTS oc_poll_snapshot (
+  poll_id BIGINT NOT NULL,
+  event_id VARCHAR(128) NOT NULL,
+  result_json LONGTEXT NOT NULL,
+  total_votes BIGINT NOT NULL DEFAULT 0,
+  closed_at DATETIME NOT NULL,
+  votes_purged TINYINT(1) NOT NULL DEFAULT 0,
+  PRIMARY KEY (poll_id),
+  UNIQUE KEY uq_oc_poll_snapshot_event_id (event_id),
+  KEY idx_oc_poll_snapshot_purge (votes_purged, closed_at),
+  CONSTRAINT FK_oc_poll_snapshot_poll_id FOREIGN KEY (poll_id) REFERENCES oc_poll (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Backfill tallies for existing votes
+INSERT INTO oc_poll_option_tally (poll_id, option_id, vote_count)
+SELECT o.poll_id, o.option_id, COUNT(v.id)
+FROM oc_poll_option o
+LEFT JOIN oc_poll_vote v ON v.poll_id = o.poll_id AND v.option_id = o.option_id
+WHERE NOT EXISTS (SELECT 1 FROM oc_poll_option_tally t WHERE t.poll_id = o.poll_id AND t.option_id = o.option_id)
+GROUP BY o.poll_id, o.option_id;
+
+INSERT IGNORE INTO oc_poll_schema_version (version, description, installed_at) VALUES
+  (1, 'Poll tables, voter hashes, tally shards and foreign keys', NOW()),
+  (2, 'Covering index on oc_poll_vote (poll_id, option_id)', NOW());
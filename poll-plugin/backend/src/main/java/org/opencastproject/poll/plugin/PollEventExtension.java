@@ -4,6 +4,7 @@ import org.opencastproject.graphql.event.GqlEvent;
 import org.opencastproject.poll.plugin.service.PollService;
 import org.opencastproject.poll.plugin.type.PollDefinition;
 
+import graphql.annotations.annotationTypes.GraphQLDataFetcher;
 import graphql.annotations.annotationTypes.GraphQLField;
 import graphql.annotations.annotationTypes.GraphQLTypeExtension;
 import graphql.schema.DataFetchingEnvironment;
@@ -18,6 +19,7 @@ public final class PollEventExtension {
   }
 
   @GraphQLField
+  @GraphQLDataFetcher(PollInfoDataFetcher.class)
   public PollInfo pollInfo(DataFetchingEnvironment environment) {
     return PollService.getInstance().getPollInfo(event.getEvent().getIdentifier());
   }
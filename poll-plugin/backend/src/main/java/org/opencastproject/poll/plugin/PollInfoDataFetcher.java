@@ -0,0 +1,44 @@
+package org.opencastproject.poll.plugin;
+
+import org.opencastproject.graphql.event.GqlEvent;
+import org.opencastproject.poll.plugin.service.PollService;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.MappedBatchLoader;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves Event.pollInfo through a per-request DataLoader, so a page of events costs one batched lookup.
+ * Falls back to a single lookup when the GraphQL execution has no DataLoader registry.
+ */
+public final class PollInfoDataFetcher implements DataFetcher<Object> {
+
+  static final String LOADER_KEY = "org.opencastproject.poll.plugin.pollInfo";
+
+  private static final MappedBatchLoader<String, PollInfo> BATCH_LOADER =
+      eventIds -> CompletableFuture.completedFuture(PollService.getInstance().getPollInfos(eventIds));
+
+  @Override
+  public Object get(DataFetchingEnvironment environment) {
+    GqlEvent event = environment.getSource();
+    String eventId = event.getEvent().getIdentifier();
+
+    DataLoader<String, PollInfo> loader;
+    try {
+      loader = environment.getDataLoaderRegistry()
+          .computeIfAbsent(LOADER_KEY, key -> DataLoaderFactory.newMappedDataLoader(BATCH_LOADER));
+    } catch (IllegalStateException | UnsupportedOperationException e) {
+      loader = null;
+    }
+
+    if (loader == null) {
+      return PollService.getInstance().getPollInfo(eventId);
+    }
+    return loader.load(eventId);
+  }
+}
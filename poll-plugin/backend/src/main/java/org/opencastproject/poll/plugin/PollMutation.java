@@ -20,11 +20,8 @@ import graphql.annotations.annotationTypes.GraphQLName;
 import graphql.annotations.annotationTypes.GraphQLNonNull;
 import graphql.schema.DataFetchingEnvironment;
 
-import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.IdentityHashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 
 @GraphQLName("PollMutation")
 public class PollMutation {
@@ -45,6 +42,7 @@ public class PollMutation {
   public PollDefinition createPoll(
       @GraphQLName("eventId") @GraphQLNonNull String eventId,
       @GraphQLName("poll") @GraphQLNonNull PollInput pollInput,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
 
     try {
@@ -74,7 +72,9 @@ public class PollMutation {
         actualPollInput.setOptions(Arrays.asList("Option A", "Option B", "Option C"));
       }
 
-      return pollService.createPoll(eventId, actualPollInput, userId);
+      PollInput input = actualPollInput;
+      return pollService.runOnce("createPoll:" + eventId, userId, requestId, PollDefinition.class,
+          () -> pollService.createPoll(eventId, input, userId));
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
     }
@@ -86,6 +86,7 @@ public class PollMutation {
   public PollVoteResult vote(
       @GraphQLName("eventId") @GraphQLNonNull String eventId,
       @GraphQLName("vote") @GraphQLNonNull PollVoteInput voteInput,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
 
     try {
@@ -105,7 +106,9 @@ public class PollMutation {
         }
       }
 
-      return pollService.submitVote(eventId, actualVoteInput, userId);
+      PollVoteInput input = actualVoteInput;
+      return pollService.runOnce("vote:" + eventId, userId, requestId, PollVoteResult.class,
+          () -> pollService.submitVote(eventId, input, userId));
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
     }
@@ -116,10 +119,12 @@ public class PollMutation {
   @GraphQLDescription("Create a new public audience poll")
   public PollDefinition createAudiencePoll(
       @GraphQLName("question") @GraphQLNonNull String question,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
     try {
       String userId = requireAuthenticatedUser(environment);
-      return pollService.createAudiencePoll(question, userId);
+      return pollService.runOnce("createAudiencePoll", userId, requestId, PollDefinition.class,
+          () -> pollService.createAudiencePoll(question, userId));
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
     }
@@ -130,10 +135,12 @@ public class PollMutation {
   @GraphQLDescription("Delete an audience poll (creator only)")
   public boolean deleteAudiencePoll(
       @GraphQLName("pollId") @GraphQLNonNull String pollId,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
     try {
       String userId = requireAuthenticatedUser(environment);
-      return pollService.deleteAudiencePoll(pollId, userId);
+      return pollService.runOnce("deleteAudiencePoll:" + pollId, userId, requestId, Boolean.class,
+          () -> pollService.deleteAudiencePoll(pollId, userId));
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
     }
@@ -146,10 +153,12 @@ public class PollMutation {
       @GraphQLName("pollId") @GraphQLNonNull String pollId,
       @GraphQLName("answer") @GraphQLNonNull String answer,
       @GraphQLName("voterId") String voterId,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
     try {
       String effectiveVoterId = resolveVoterId(voterId, environment);
-      return pollService.submitAudienceAnswer(pollId, answer, effectiveVoterId);
+      return pollService.runOnce("submitAudienceAnswer:" + pollId, effectiveVoterId, requestId,
+          PollVoteResult.class, () -> pollService.submitAudienceAnswer(pollId, answer, effectiveVoterId));
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
     }
@@ -162,10 +171,80 @@ public class PollMutation {
       @GraphQLName("pollId") @GraphQLNonNull String pollId,
       @GraphQLName("answerId") @GraphQLNonNull String answerId,
       @GraphQLName("voterId") String voterId,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
     try {
       String effectiveVoterId = resolveVoterId(voterId, environment);
-      return pollService.voteAudienceAnswer(pollId, answerId, effectiveVoterId);
+      return pollService.runOnce("voteAudienceAnswer:" + pollId, effectiveVoterId, requestId,
+          PollVoteResult.class, () -> pollService.voteAudienceAnswer(pollId, answerId, effectiveVoterId));
+    } catch (Exception e) {
+      throw new GraphQLRuntimeException(e);
+    }
+  }
+
+  @GraphQLField
+  @GraphQLNonNull
+  @GraphQLDescription("Merge audience answers into one answer, moving their votes (creator only)")
+  public PollDefinition mergeAudienceAnswers(
+      @GraphQLName("pollId") @GraphQLNonNull String pollId,
+      @GraphQLName("targetAnswerId") @GraphQLNonNull String targetAnswerId,
+      @GraphQLName("sourceAnswerIds") @GraphQLNonNull List<String> sourceAnswerIds,
+      @GraphQLName("requestId") String requestId,
+      final DataFetchingEnvironment environment) {
+    try {
+      String userId = requireAuthenticatedUser(environment);
+      return pollService.runOnce("mergeAudienceAnswers:" + pollId, userId, requestId, PollDefinition.class,
+          () -> pollService.mergeAudienceAnswers(pollId, targetAnswerId, sourceAnswerIds, userId));
+    } catch (Exception e) {
+      throw new GraphQLRuntimeException(e);
+    }
+  }
+
+  @GraphQLField
+  @GraphQLNonNull
+  @GraphQLDescription("Split an answer text off an audience answer it was clustered into (creator only)")
+  public PollDefinition splitAudienceAnswer(
+      @GraphQLName("pollId") @GraphQLNonNull String pollId,
+      @GraphQLName("answerId") @GraphQLNonNull String answerId,
+      @GraphQLName("answer") @GraphQLNonNull String answer,
+      @GraphQLName("requestId") String requestId,
+      final DataFetchingEnvironment environment) {
+    try {
+      String userId = requireAuthenticatedUser(environment);
+      return pollService.runOnce("splitAudienceAnswer:" + pollId, userId, requestId, PollDefinition.class,
+          () -> pollService.splitAudienceAnswer(pollId, answerId, answer, userId));
+    } catch (Exception e) {
+      throw new GraphQLRuntimeException(e);
+    }
+  }
+
+  @GraphQLField
+  @GraphQLNonNull
+  @GraphQLDescription("Close a poll and freeze its results (creator only)")
+  public PollDefinition closePoll(
+      @GraphQLName("pollId") @GraphQLNonNull String pollId,
+      @GraphQLName("requestId") String requestId,
+      final DataFetchingEnvironment environment) {
+    try {
+      String userId = requireAuthenticatedUser(environment);
+      return pollService.runOnce("closePoll:" + pollId, userId, requestId, PollDefinition.class,
+          () -> pollService.closePoll(pollId, userId));
+    } catch (Exception e) {
+      throw new GraphQLRuntimeException(e);
+    }
+  }
+
+  @GraphQLField
+  @GraphQLNonNull
+  @GraphQLDescription("Reopen a closed poll for voting (creator only)")
+  public PollDefinition reopenPoll(
+      @GraphQLName("pollId") @GraphQLNonNull String pollId,
+      @GraphQLName("requestId") String requestId,
+      final DataFetchingEnvironment environment) {
+    try {
+      String userId = requireAuthenticatedUser(environment);
+      return pollService.runOnce("reopenPoll:" + pollId, userId, requestId, PollDefinition.class,
+          () -> pollService.reopenPoll(pollId, userId));
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
     }
@@ -229,7 +308,7 @@ public class PollMutation {
   }
 
   private String extractUserId(DataFetchingEnvironment environment) {
-    User user = resolveUser(environment);
+    User user = UserResolver.resolve(environment);
     if (user != null) {
       String username = user.getUsername();
       if (username != null && !username.trim().isEmpty()) {
@@ -240,124 +319,14 @@ public class PollMutation {
   }
 
   private String requireAuthenticatedUser(DataFetchingEnvironment environment) {
-    User user = resolveUser(environment);
-    if (user == null) {
-      logAuthDebug(environment);
-      throw new IllegalStateException("Authentication required");
-    }
-
-    String username = user.getUsername();
-    if (username == null || username.trim().isEmpty() || "anonymous".equalsIgnoreCase(username)) {
+    String username = UserResolver.authenticatedUsername(UserResolver.resolve(environment));
+    if (username == null) {
       logAuthDebug(environment);
       throw new IllegalStateException("Authentication required");
     }
     return username;
   }
 
-  private User resolveUser(DataFetchingEnvironment environment) {
-    Set<Object> visited = java.util.Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
-
-    User fromContext = resolveUserFromObject(environment.getContext(), visited, 0);
-    if (fromContext != null) {
-      return fromContext;
-    }
-
-    try {
-      Object graphQlContext = environment.getGraphQlContext();
-      User fromGraphQlContext = resolveUserFromObject(graphQlContext, visited, 0);
-      if (fromGraphQlContext != null) {
-        return fromGraphQlContext;
-      }
-    } catch (Exception e) {
-      logger.debug("Could not resolve user from GraphQL context", e);
-    }
-
-    try {
-      OpencastContext opencastContext = OpencastContextManager.getCurrentContext();
-      if (opencastContext == null) {
-        return null;
-      }
-      SecurityService securityService = opencastContext.getService(SecurityService.class);
-      if (securityService == null) {
-        return null;
-      }
-      return securityService.getUser();
-    } catch (Exception e) {
-      logger.debug("Could not resolve user from Opencast context", e);
-      return null;
-    }
-  }
-
-  private User resolveUserFromObject(Object candidate, Set<Object> visited, int depth) {
-    if (candidate == null || depth > 4) {
-      return null;
-    }
-    if (!visited.add(candidate)) {
-      return null;
-    }
-
-    if (candidate instanceof User) {
-      return (User) candidate;
-    }
-    if (candidate instanceof SecurityService) {
-      try {
-        return ((SecurityService) candidate).getUser();
-      } catch (Exception e) {
-        logger.debug("Could not resolve user from SecurityService instance", e);
-      }
-    }
-
-    if (candidate instanceof Map<?, ?>) {
-      Map<?, ?> map = (Map<?, ?>) candidate;
-      Object[] keys = new Object[] { "user", "currentUser", "securityService", "security", "context" };
-      for (Object key : keys) {
-        User nested = resolveUserFromObject(map.get(key), visited, depth + 1);
-        if (nested != null) {
-          return nested;
-        }
-      }
-    }
-
-    String[] noArgMethods =
-        new String[] { "getUser", "user", "getCurrentUser", "getSecurityService", "getContext", "getDelegate" };
-    for (String methodName : noArgMethods) {
-      User nested = resolveUserFromObject(invokeNoArg(candidate, methodName), visited, depth + 1);
-      if (nested != null) {
-        return nested;
-      }
-    }
-
-    Object fromStringKeyGet = invokeGetWithKey(candidate, "user");
-    User nestedUser = resolveUserFromObject(fromStringKeyGet, visited, depth + 1);
-    if (nestedUser != null) {
-      return nestedUser;
-    }
-
-    Object fromCurrentUserKeyGet = invokeGetWithKey(candidate, "currentUser");
-    return resolveUserFromObject(fromCurrentUserKeyGet, visited, depth + 1);
-  }
-
-  private Object invokeNoArg(Object target, String methodName) {
-    try {
-      Method method = target.getClass().getMethod(methodName);
-      if (method.getParameterCount() == 0) {
-        return method.invoke(target);
-      }
-    } catch (Exception e) {
-      // ignore; method may not exist on this context wrapper
-    }
-    return null;
-  }
-
-  private Object invokeGetWithKey(Object target, String key) {
-    try {
-      Method getMethod = target.getClass().getMethod("get", Object.class);
-      return getMethod.invoke(target, key);
-    } catch (Exception e) {
-      return null;
-    }
-  }
-
   private void logAuthDebug(DataFetchingEnvironment environment) {
     try {
       String contextClass = environment.getContext() == null
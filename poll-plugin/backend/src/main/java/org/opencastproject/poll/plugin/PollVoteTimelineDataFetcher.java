@@ -0,0 +1,27 @@
+package org.opencastproject.poll.plugin;
+
+import org.opencastproject.poll.plugin.service.PollService;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+
+/**
+ * Resolves PollDefinition.voteTimeline: closed polls carry the downsampled timeline of their snapshot, active
+ * polls read the in-memory ring buffers of this node.
+ */
+public final class PollVoteTimelineDataFetcher implements DataFetcher<PollVoteTimeline> {
+
+  @Override
+  public PollVoteTimeline get(DataFetchingEnvironment environment) {
+    PollDefinition poll = environment.getSource();
+    if (poll == null) {
+      return null;
+    }
+    if (poll.voteTimeline() != null) {
+      return poll.voteTimeline();
+    }
+    return PollService.getInstance().getVoteTimeline(poll.eventId());
+  }
+}
@@ -0,0 +1,169 @@
+package org.opencastproject.poll.plugin.export;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes export rows as CSV (RFC 4180, with a header line) or as newline-delimited JSON objects. Rows go straight
+ * to the output stream through a fixed-size buffer.
+ */
+public final class ExportWriter implements Flushable {
+
+  public enum Format {
+    CSV("text/csv; charset=utf-8", "csv"),
+    NDJSON("application/x-ndjson; charset=utf-8", "ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+    Format(String mediaType, String extension) {
+      this.mediaType = mediaType;
+      this.extension = extension;
+    }
+
+    public String mediaType() {
+      return mediaType;
+    }
+
+    public String extension() {
+      return extension;
+    }
+
+    /** Returns the format with the given name, ignoring case, or {@code null}. */
+    public static Format of(String name) {
+      if (name == null) {
+        return null;
+      }
+      switch (name.trim().toLowerCase(Locale.ROOT)) {
+        case "csv":
+          return CSV;
+        case "ndjson":
+        case "jsonl":
+          return NDJSON;
+        default:
+          return null;
+      }
+    }
+  }
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Format format;
+  private final String[] columns;
+  private final Writer out;
+
+  public ExportWriter(Format format, OutputStream out, String... columns) throws IOException {
+    this.format = format;
+    this.columns = columns;
+    this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    if (format == Format.CSV) {
+      for (int i = 0; i < columns.length; i++) {
+        if (i > 0) {
+          this.out.write(',');
+        }
+        writeCsv(columns[i]);
+      }
+      this.out.write("\r\n");
+    }
+  }
+
+  /** Writes one row; values are strings, numbers, booleans or {@code null}, in column order. */
+  public void row(Object... values) throws IOException {
+    if (format == Format.CSV) {
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          out.write(',');
+        }
+        if (values[i] != null) {
+          writeCsv(values[i] instanceof String ? (String) values[i] : String.valueOf(values[i]));
+        }
+      }
+      out.write("\r\n");
+      return;
+    }
+
+    out.write('{');
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      writeJsonString(columns[i]);
+      out.write(':');
+      Object value = values[i];
+      if (value == null || value instanceof Number || value instanceof Boolean) {
+        out.write(String.valueOf(value));
+      } else {
+        writeJsonString(value.toString());
+      }
+    }
+    out.write("}\n");
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  private void writeCsv(String value) throws IOException {
+    // Spreadsheets evaluate cells starting with these as formulas; free-text answers must stay text
+    boolean formula = !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+    boolean quote = formula;
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+    }
+    if (!quote) {
+      out.write(value);
+      return;
+    }
+    out.write('"');
+    if (formula) {
+      out.write('\'');
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        out.write('"');
+      }
+      out.write(c);
+    }
+    out.write('"');
+  }
+
+  private void writeJsonString(String value) throws IOException {
+    out.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          out.write("\\\"");
+          break;
+        case '\\':
+          out.write("\\\\");
+          break;
+        case '\n':
+          out.write("\\n");
+          break;
+        case '\r':
+          out.write("\\r");
+          break;
+        case '\t':
+          out.write("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            out.write(String.format("\\u%04x", (int) c));
+          } else {
+            out.write(c);
+          }
+      }
+    }
+    out.write('"');
+  }
+}
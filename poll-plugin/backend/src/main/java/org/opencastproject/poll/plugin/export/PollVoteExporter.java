@@ -0,0 +1,127 @@
+package org.opencastproject.poll.plugin.export;
+
+import org.opencastproject.poll.plugin.persistence.SqlDialect;
+import org.opencastproject.poll.plugin.persistence.VoterHash;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * Streams the rows of oc_poll_vote, with their poll, option label and voter name, through a forward-only cursor.
+ * Memory use does not depend on the number of votes, and the plain SELECT reads a snapshot without locking rows.
+ */
+public class PollVoteExporter {
+
+  static final String[] COLUMNS =
+      { "poll_id", "question", "option_id", "option_label", "voter_hash", "voter", "voted_at" };
+
+  private static final String SELECT_VOTES_SQL =
+      "SELECT p.event_id, p.question, v.option_id, o.label, v.voter_hash, n.user_id, v.voted_at "
+          + "FROM oc_poll_vote v "
+          + "JOIN oc_poll p ON p.id = v.poll_id "
+          + "LEFT JOIN oc_poll_option o ON o.poll_id = v.poll_id AND o.option_id = v.option_id "
+          + "LEFT JOIN oc_poll_voter n ON n.voter_hash = v.voter_hash "
+          + "WHERE 1 = 1";
+
+  private static final int FETCH_SIZE = 1000;
+
+  private final DataSource dataSource;
+
+  public PollVoteExporter(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Writes the matching votes to {@code out} and returns their number.
+   *
+   * @param pollId event id or audience poll id, or {@code null} for all polls
+   * @param from first vote time included, or {@code null}
+   * @param to first vote time excluded, or {@code null}
+   * @param createdBy only export polls created by this user, or {@code null} for all creators
+   */
+  public long export(String pollId, Instant from, Instant to, String createdBy, ExportWriter.Format format,
+                     OutputStream out) throws SQLException, IOException {
+    StringBuilder sql = new StringBuilder(SELECT_VOTES_SQL);
+    List<Object> parameters = new ArrayList<>();
+    if (pollId != null) {
+      sql.append(" AND p.event_id = ?");
+      parameters.add(pollId);
+    }
+    if (from != null) {
+      sql.append(" AND v.voted_at >= ?");
+      parameters.add(Timestamp.from(from));
+    }
+    if (to != null) {
+      sql.append(" AND v.voted_at < ?");
+      parameters.add(Timestamp.from(to));
+    }
+    if (createdBy != null) {
+      sql.append(" AND p.created_by = ?");
+      parameters.add(createdBy);
+    }
+
+    ExportWriter writer = new ExportWriter(format, out, COLUMNS);
+    long rows = 0;
+    try (Connection connection = dataSource.getConnection()) {
+      // PostgreSQL only uses a cursor inside a transaction
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement(
+          sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+        statement.setFetchSize(fetchSize(connection));
+        for (int i = 0; i < parameters.size(); i++) {
+          statement.setObject(i + 1, parameters.get(i));
+        }
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            byte[] voterHash = rs.getBytes(5);
+            Timestamp votedAt = rs.getTimestamp(7);
+            writer.row(
+                rs.getString(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                voterHash == null ? null : VoterHash.toHex(voterHash),
+                rs.getString(6),
+                votedAt == null ? null : votedAt.toInstant().toString()
+            );
+            rows++;
+          }
+        } catch (IOException e) {
+          // The client went away; closing a streaming result set would otherwise read all remaining rows
+          statement.cancel();
+          throw e;
+        }
+      } finally {
+        connection.rollback();
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+    writer.flush();
+    return rows;
+  }
+
+  /**
+   * MySQL Connector/J only streams with a fetch size of {@code Integer.MIN_VALUE}; MariaDB Connector/J and the
+   * other drivers fetch that many rows per round trip.
+   */
+  static int fetchSize(Connection connection) throws SQLException {
+    if (SqlDialect.of(connection) == SqlDialect.MYSQL) {
+      String driver = connection.getMetaData().getDriverName();
+      if (driver != null && !driver.toLowerCase().contains("mariadb")) {
+        return Integer.MIN_VALUE;
+      }
+    }
+    return FETCH_SIZE;
+  }
+}
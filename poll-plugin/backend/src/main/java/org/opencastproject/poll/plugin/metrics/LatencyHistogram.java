@@ -0,0 +1,57 @@
+package org.opencastproject.poll.plugin.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets; recording is lock-free.
+ */
+final class LatencyHistogram {
+
+  /** Upper bucket bounds in seconds, as published. */
+  static final double[] BOUNDS_SECONDS = {
+      0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0
+  };
+
+  private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+
+  static {
+    for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+      BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+    }
+  }
+
+  // One count per bucket plus the overflow bucket; not cumulative
+  private final LongAdder[] counts = new LongAdder[BOUNDS_NANOS.length + 1];
+  private final LongAdder sumNanos = new LongAdder();
+
+  LatencyHistogram() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  void record(long nanos) {
+    int bucket = 0;
+    while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+      bucket++;
+    }
+    counts[bucket].increment();
+    sumNanos.add(nanos);
+  }
+
+  /** Returns the cumulative counts per bound, the last entry being the total count. */
+  long[] cumulativeCounts() {
+    long[] cumulative = new long[counts.length];
+    long total = 0L;
+    for (int i = 0; i < counts.length; i++) {
+      total += counts[i].sum();
+      cumulative[i] = total;
+    }
+    return cumulative;
+  }
+
+  double sumSeconds() {
+    return sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+}
@@ -0,0 +1,16 @@
+package org.opencastproject.poll.plugin.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency of one service operation.
+ */
+final class OperationMetrics {
+
+  final LatencyHistogram latency = new LatencyHistogram();
+  final LongAdder successes = new LongAdder();
+  final LongAdder failures = new LongAdder();
+  final LongAdder rejections = new LongAdder();
+  final LongAdder statements = new LongAdder();
+  final LongAdder sessions = new LongAdder();
+}
@@ -0,0 +1,172 @@
+package org.opencastproject.poll.plugin.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, outcomes and database work per poll service operation, published in the Prometheus text format.
+ *
+ * <p>JDBC statements and DB sessions count toward the outermost operation on the current thread. Work done
+ * outside of any operation, such as vote buffer flushes, is published as operation {@value #BACKGROUND}.
+ */
+public final class PollMetrics {
+
+  public static final String BACKGROUND = "background";
+
+  private static final PollMetrics INSTANCE = new PollMetrics();
+
+  private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+
+  private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+  private final OperationMetrics background = operation(BACKGROUND);
+
+  private PollMetrics() {
+  }
+
+  public static PollMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts timing an operation. The sample must be closed; one closed without an outcome counts as failed.
+   */
+  public Sample start(String operation) {
+    Sample outer = CURRENT.get();
+    Sample sample = new Sample(operation(operation), outer == null);
+    if (outer == null) {
+      CURRENT.set(sample);
+    }
+    return sample;
+  }
+
+  public static void countStatement() {
+    Sample sample = CURRENT.get();
+    if (sample != null) {
+      sample.statements++;
+    } else {
+      INSTANCE.background.statements.increment();
+    }
+  }
+
+  public static void countSession() {
+    Sample sample = CURRENT.get();
+    if (sample != null) {
+      sample.sessions++;
+    } else {
+      INSTANCE.background.sessions.increment();
+    }
+  }
+
+  /** Appends all operation metrics in the Prometheus text exposition format. */
+  public void writePrometheus(StringBuilder out) {
+    Map<String, OperationMetrics> sorted = new TreeMap<>(operations);
+
+    out.append("# HELP poll_operation_duration_seconds Latency of poll service operations.\n");
+    out.append("# TYPE poll_operation_duration_seconds histogram\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      if (BACKGROUND.equals(entry.getKey())) {
+        continue;
+      }
+      String label = "operation=\"" + entry.getKey() + "\"";
+      LatencyHistogram latency = entry.getValue().latency;
+      long[] counts = latency.cumulativeCounts();
+      for (int i = 0; i < LatencyHistogram.BOUNDS_SECONDS.length; i++) {
+        sample(out, "poll_operation_duration_seconds_bucket",
+            label + ",le=\"" + LatencyHistogram.BOUNDS_SECONDS[i] + "\"", counts[i]);
+      }
+      sample(out, "poll_operation_duration_seconds_bucket", label + ",le=\"+Inf\"", counts[counts.length - 1]);
+      out.append("poll_operation_duration_seconds_sum{").append(label).append("} ")
+          .append(String.format(Locale.ROOT, "%.6f", latency.sumSeconds())).append('\n');
+      sample(out, "poll_operation_duration_seconds_count", label, counts[counts.length - 1]);
+    }
+
+    out.append("# HELP poll_operations_total Completed poll service operations by outcome.\n");
+    out.append("# TYPE poll_operations_total counter\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      if (BACKGROUND.equals(entry.getKey())) {
+        continue;
+      }
+      String label = "operation=\"" + entry.getKey() + "\"";
+      sample(out, "poll_operations_total", label + ",outcome=\"success\"", entry.getValue().successes.sum());
+      sample(out, "poll_operations_total", label + ",outcome=\"failure\"", entry.getValue().failures.sum());
+      sample(out, "poll_operations_total", label + ",outcome=\"rejected\"", entry.getValue().rejections.sum());
+    }
+
+    out.append("# HELP poll_jdbc_statements_total JDBC statements executed, by operation.\n");
+    out.append("# TYPE poll_jdbc_statements_total counter\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      sample(out, "poll_jdbc_statements_total", "operation=\"" + entry.getKey() + "\"",
+          entry.getValue().statements.sum());
+    }
+
+    out.append("# HELP poll_db_sessions_total DB sessions opened, by operation.\n");
+    out.append("# TYPE poll_db_sessions_total counter\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      sample(out, "poll_db_sessions_total", "operation=\"" + entry.getKey() + "\"",
+          entry.getValue().sessions.sum());
+    }
+  }
+
+  private OperationMetrics operation(String name) {
+    OperationMetrics metrics = operations.get(name);
+    return metrics != null ? metrics : operations.computeIfAbsent(name, key -> new OperationMetrics());
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, long value) {
+    out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+  }
+
+  /**
+   * One running operation. Not thread-safe; it belongs to the thread that started it.
+   */
+  public static final class Sample implements AutoCloseable {
+
+    private final OperationMetrics metrics;
+    private final boolean outermost;
+    private final long startNanos = System.nanoTime();
+    private long statements;
+    private long sessions;
+    private boolean finished;
+
+    private Sample(OperationMetrics metrics, boolean outermost) {
+      this.metrics = metrics;
+      this.outermost = outermost;
+    }
+
+    public void succeeded() {
+      finish(metrics.successes);
+    }
+
+    public void failed() {
+      finish(metrics.failures);
+    }
+
+    public void rejected() {
+      finish(metrics.rejections);
+    }
+
+    @Override
+    public void close() {
+      failed();
+    }
+
+    private void finish(LongAdder outcome) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      metrics.latency.record(System.nanoTime() - startNanos);
+      outcome.increment();
+      if (outermost) {
+        CURRENT.remove();
+        metrics.statements.add(statements);
+        metrics.sessions.add(sessions);
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.opencastproject.poll.plugin.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes answer labels for oc_poll_option.normalized_label: accents stripped, case folded and whitespace
+ * collapsed, so "  CAFE  au Lait" and "cafe au lait" are the same answer.
+ */
+public final class PollLabelNormalizer {
+
+  public static final int MAX_LENGTH = 255;
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern WHITESPACE = Pattern.compile("[\\s\\p{Z}]+");
+
+  private PollLabelNormalizer() {
+  }
+
+  public static String normalize(String label) {
+    if (label == null) {
+      return "";
+    }
+    String decomposed = Normalizer.normalize(label, Normalizer.Form.NFKD);
+    String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    // Upper then lower case approximates Unicode case folding (e.g. sharp s to "ss")
+    String folded = stripped.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    String collapsed = WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    if (collapsed.length() <= MAX_LENGTH) {
+      return collapsed;
+    }
+    // Keep long answers distinct within the column width
+    String digest = sha256(collapsed);
+    return collapsed.substring(0, MAX_LENGTH - digest.length() - 1) + "#" + digest;
+  }
+
+  private static String sha256(String value) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -6,12 +6,17 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "oc_poll_option")
+@Table(name = "oc_poll_option",
+    indexes = {
+      @Index(name = "uq_oc_poll_option_normalized_label", columnList = "poll_id, normalized_label", unique = true)
+    }
+)
 public class PollOptionEntity {
 
   @Id
@@ -28,6 +33,9 @@ public class PollOptionEntity {
   @Column(name = "label", nullable = false, length = 1024)
   private String label;
 
+  @Column(name = "normalized_label", length = 255)
+  private String normalizedLabel;
+
   public PollOptionEntity() {
   }
 
@@ -62,4 +70,12 @@ public class PollOptionEntity {
   public void setLabel(String label) {
     this.label = label;
   }
+
+  public String getNormalizedLabel() {
+    return normalizedLabel;
+  }
+
+  public void setNormalizedLabel(String normalizedLabel) {
+    this.normalizedLabel = normalizedLabel;
+  }
 }
@@ -11,12 +11,19 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.annotation.Annotation;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -28,45 +35,156 @@ import javax.sql.DataSource;
 @Designate(ocd = PollSchemaInitializer.PollSchemaConfig.class)
 public class PollSchemaInitializer {
 
+  // Table statements hold type placeholders such as ${identity}, filled in by SchemaDdl.render
+
   private static final Logger logger = LoggerFactory.getLogger(PollSchemaInitializer.class);
 
+  private static final String CREATE_TABLE_SCHEMA_VERSION =
+      "CREATE TABLE IF NOT EXISTS oc_poll_schema_version ("
+          + "version INT NOT NULL,"
+          + "description VARCHAR(255) NOT NULL,"
+          + "installed_at ${timestamp} NOT NULL,"
+          + "PRIMARY KEY (version)"
+          + ")${tableOptions}";
+
+  private static final String SELECT_SCHEMA_VERSION =
+      "SELECT COALESCE(MAX(version), 0) FROM oc_poll_schema_version";
+
+  private static final String INSERT_SCHEMA_VERSION =
+      "INSERT INTO oc_poll_schema_version (version, description, installed_at) VALUES (?, ?, ?)";
+
+  // Nodes of a cluster activate at the same time; the lock lets one of them migrate while the others wait
+  private static final String LOCK_NAME = "oc_poll_schema";
+
+  private static final int LOCK_TIMEOUT_SECONDS = 300;
+
+  // Non-unique indexes are created separately, as only MariaDB accepts them inside CREATE TABLE
   private static final String CREATE_TABLE_POLL =
       "CREATE TABLE IF NOT EXISTS oc_poll ("
-          + "id BIGINT NOT NULL AUTO_INCREMENT,"
+          + "id ${identity},"
           + "event_id VARCHAR(128) NOT NULL,"
           + "question VARCHAR(2048) NOT NULL,"
-          + "is_active TINYINT(1) DEFAULT 0,"
+          + "is_active ${boolean},"
           + "created_by VARCHAR(255),"
-          + "created_at DATETIME,"
-          + "updated_at DATETIME,"
+          + "created_at ${timestamp},"
+          + "updated_at ${timestamp},"
+          + "version BIGINT NOT NULL DEFAULT 0,"
           + "PRIMARY KEY (id),"
-          + "UNIQUE KEY uq_oc_poll_event_id (event_id)"
-          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+          + "CONSTRAINT uq_oc_poll_event_id UNIQUE (event_id)"
+          + ")${tableOptions}";
 
   private static final String CREATE_TABLE_OPTION =
       "CREATE TABLE IF NOT EXISTS oc_poll_option ("
-          + "id BIGINT NOT NULL AUTO_INCREMENT,"
+          + "id ${identity},"
           + "poll_id BIGINT NOT NULL,"
           + "position INT,"
           + "option_id VARCHAR(128) NOT NULL,"
           + "label VARCHAR(1024) NOT NULL,"
+          + "normalized_label VARCHAR(255)${binaryCollation} NULL,"
           + "PRIMARY KEY (id),"
-          + "KEY idx_oc_poll_option_poll_id (poll_id),"
-          + "UNIQUE KEY uq_oc_poll_option_poll_option_id (poll_id, option_id)"
-          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+          + "CONSTRAINT uq_oc_poll_option_poll_option_id UNIQUE (poll_id, option_id),"
+          + "CONSTRAINT uq_oc_poll_option_normalized_label UNIQUE (poll_id, normalized_label)"
+          + ")${tableOptions}";
 
   private static final String CREATE_TABLE_VOTE =
       "CREATE TABLE IF NOT EXISTS oc_poll_vote ("
-          + "id BIGINT NOT NULL AUTO_INCREMENT,"
+          + "id ${identity},"
           + "poll_id BIGINT NOT NULL,"
-          + "user_id VARCHAR(255) NOT NULL,"
+          + "voter_hash ${binary16} NOT NULL,"
           + "option_id VARCHAR(128) NOT NULL,"
-          + "voted_at DATETIME,"
+          + "voted_at ${timestamp},"
           + "PRIMARY KEY (id),"
-          + "KEY idx_oc_poll_vote_poll_id (poll_id),"
-          + "KEY idx_oc_poll_vote_option_id (option_id),"
-          + "UNIQUE KEY uq_oc_poll_vote_poll_user (poll_id, user_id)"
-          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+          + "CONSTRAINT uq_oc_poll_vote_poll_voter UNIQUE (poll_id, voter_hash)"
+          + ")${tableOptions}";
+
+  private static final String CREATE_TABLE_VOTER =
+      "CREATE TABLE IF NOT EXISTS oc_poll_voter ("
+          + "voter_hash ${binary16} NOT NULL,"
+          + "user_id VARCHAR(255) NOT NULL,"
+          + "PRIMARY KEY (voter_hash)"
+          + ")${tableOptions}";
+
+  private static final String CREATE_TABLE_TALLY =
+      "CREATE TABLE IF NOT EXISTS oc_poll_option_tally ("
+          + "poll_id BIGINT NOT NULL,"
+          + "option_id VARCHAR(128) NOT NULL,"
+          + "shard SMALLINT NOT NULL DEFAULT 0,"
+          + "vote_count BIGINT NOT NULL DEFAULT 0,"
+          + "PRIMARY KEY (poll_id, option_id, shard)"
+          + ")${tableOptions}";
+
+  private static final String CREATE_TABLE_IDEMPOTENCY =
+      "CREATE TABLE IF NOT EXISTS oc_poll_idempotency ("
+          + "request_key CHAR(64) NOT NULL,"
+          + "result_json ${text} NOT NULL,"
+          + "created_at ${timestamp} NOT NULL,"
+          + "PRIMARY KEY (request_key)"
+          + ")${tableOptions}";
+
+  private static final String CREATE_TABLE_SNAPSHOT =
+      "CREATE TABLE IF NOT EXISTS oc_poll_snapshot ("
+          + "poll_id BIGINT NOT NULL,"
+          + "event_id VARCHAR(128) NOT NULL,"
+          + "result_json ${text} NOT NULL,"
+          + "total_votes BIGINT NOT NULL DEFAULT 0,"
+          + "closed_at ${timestamp} NOT NULL,"
+          + "votes_purged ${flag} NOT NULL DEFAULT 0,"
+          + "PRIMARY KEY (poll_id),"
+          + "CONSTRAINT uq_oc_poll_snapshot_event_id UNIQUE (event_id)"
+          + ")${tableOptions}";
+
+  /** Table, index name and columns of the non-unique indexes of the version 1 tables. */
+  private static final String[][] BASELINE_INDEXES = {
+      { "oc_poll", "idx_oc_poll_updated_at_id", "updated_at, id" },
+      { "oc_poll_option", "idx_oc_poll_option_poll_id", "poll_id" },
+      { "oc_poll_vote", "idx_oc_poll_vote_poll_id", "poll_id" },
+      { "oc_poll_vote", "idx_oc_poll_vote_option_id", "option_id" },
+      { "oc_poll_idempotency", "idx_oc_poll_idempotency_created_at", "created_at" },
+      { "oc_poll_snapshot", "idx_oc_poll_snapshot_purge", "votes_purged, closed_at" }
+  };
+
+  private static final String ADD_COLUMN_POLL_VERSION =
+      "ALTER TABLE oc_poll ADD COLUMN version BIGINT NOT NULL DEFAULT 0";
+
+  // Binary collation: the normalizer already folds case and accents, the index must not fold further
+  private static final String ADD_COLUMN_OPTION_NORMALIZED_LABEL =
+      "ALTER TABLE oc_poll_option ADD COLUMN normalized_label VARCHAR(255) COLLATE utf8mb4_bin NULL";
+
+  private static final String ADD_INDEX_OPTION_NORMALIZED_LABEL =
+      "CREATE UNIQUE INDEX uq_oc_poll_option_normalized_label ON oc_poll_option (poll_id, normalized_label)";
+
+  private static final String SELECT_OPTION_LABELS =
+      "SELECT id, poll_id, label, normalized_label FROM oc_poll_option ORDER BY poll_id, id";
+
+  private static final String UPDATE_OPTION_NORMALIZED_LABEL =
+      "UPDATE oc_poll_option SET normalized_label = ? WHERE id = ?";
+
+  private static final String ADD_COLUMN_VOTE_VOTER_HASH =
+      "ALTER TABLE oc_poll_vote ADD COLUMN voter_hash BINARY(16) NULL AFTER poll_id";
+
+  // Must match VoterHash.of: the first 16 bytes of the SHA-256 of the user id
+  private static final String BACKFILL_VOTE_VOTER_HASH =
+      "UPDATE oc_poll_vote SET voter_hash = UNHEX(LEFT(SHA2(user_id, 256), 32)) "
+          + "WHERE voter_hash IS NULL LIMIT 10000";
+
+  private static final String BACKFILL_VOTER_NAMES =
+      "INSERT IGNORE INTO oc_poll_voter (voter_hash, user_id) "
+          + "SELECT voter_hash, MIN(user_id) FROM oc_poll_vote GROUP BY voter_hash";
+
+  private static final String ADD_INDEX_VOTE_POLL_VOTER =
+      "CREATE UNIQUE INDEX uq_oc_poll_vote_poll_voter ON oc_poll_vote (poll_id, voter_hash)";
+
+  private static final String DROP_VOTE_USER_ID =
+      "ALTER TABLE oc_poll_vote DROP INDEX uq_oc_poll_vote_poll_user, DROP COLUMN user_id, "
+          + "MODIFY voter_hash BINARY(16) NOT NULL";
+
+  // Existing counts become shard 0, the row compaction folds the other shards into
+  private static final String ADD_COLUMN_TALLY_SHARD =
+      "ALTER TABLE oc_poll_option_tally ADD COLUMN shard SMALLINT NOT NULL DEFAULT 0 AFTER option_id, "
+          + "DROP PRIMARY KEY, ADD PRIMARY KEY (poll_id, option_id, shard)";
+
+  private static final String BACKFILL_POLL_UPDATED_AT =
+      "UPDATE oc_poll SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL";
 
   private static final String ADD_FK_OPTION =
       "ALTER TABLE oc_poll_option "
@@ -80,9 +198,40 @@ public class PollSchemaInitializer {
           + "FOREIGN KEY (poll_id) REFERENCES oc_poll (id) "
           + "ON DELETE CASCADE";
 
+  private static final String ADD_FK_TALLY =
+      "ALTER TABLE oc_poll_option_tally "
+          + "ADD CONSTRAINT FK_oc_poll_option_tally_poll_id "
+          + "FOREIGN KEY (poll_id) REFERENCES oc_poll (id) "
+          + "ON DELETE CASCADE";
+
+  private static final String ADD_FK_SNAPSHOT =
+      "ALTER TABLE oc_poll_snapshot "
+          + "ADD CONSTRAINT FK_oc_poll_snapshot_poll_id "
+          + "FOREIGN KEY (poll_id) REFERENCES oc_poll (id) "
+          + "ON DELETE CASCADE";
+
+  // Polls whose votes were purged after closing keep their tallies; there is nothing left to count them from
+  private static final String CLEAR_TALLIES =
+      "DELETE FROM oc_poll_option_tally "
+          + "WHERE poll_id NOT IN (SELECT poll_id FROM oc_poll_snapshot WHERE votes_purged = 1)";
+
+  private static final String BACKFILL_TALLIES =
+      "INSERT INTO oc_poll_option_tally (poll_id, option_id, vote_count) "
+          + "SELECT o.poll_id, o.option_id, COUNT(v.id) FROM oc_poll_option o "
+          + "LEFT JOIN oc_poll_vote v ON v.poll_id = o.poll_id AND v.option_id = o.option_id "
+          + "WHERE o.poll_id NOT IN (SELECT poll_id FROM oc_poll_snapshot WHERE votes_purged = 1) "
+          + "GROUP BY o.poll_id, o.option_id";
+
   @Reference(target = "(osgi.jndi.service.name=jdbc/opencast)")
   private DataSource dataSource;
 
+  /** Applied in order and recorded in oc_poll_schema_version. Append new steps; never change an applied one. */
+  private final List<Migration> migrations = Arrays.asList(
+      new Migration(1, "Poll tables, voter hashes, tally shards and foreign keys", this::createBaseline),
+      new Migration(2, "Covering index on oc_poll_vote (poll_id, option_id)", this::addVoteOptionIndex),
+      new Migration(3, "PostgreSQL partial and BRIN indexes", this::addPostgresIndexes)
+  );
+
   @Activate
   public void activate(PollSchemaConfig config) {
     maybeInitialize(config);
@@ -100,34 +249,315 @@ public class PollSchemaInitializer {
     }
 
     try (Connection connection = dataSource.getConnection()) {
-      DatabaseMetaData meta = connection.getMetaData();
-      String productName = meta.getDatabaseProductName();
-      if (!isMariaDbOrMySql(productName)) {
-        logger.warn("Poll schema auto-create skipped: unsupported database {}", productName);
-        return;
+      initialize(connection, config);
+    } catch (SQLException e) {
+      logger.warn("Poll schema auto-create failed", e);
+    }
+  }
+
+  /**
+   * Creates or migrates the poll tables with the default configuration, for databases outside OSGi such as the
+   * embedded H2 database of the benchmarks, the load test and the store tests.
+   */
+  public static void createSchema(Connection connection) throws SQLException {
+    new PollSchemaInitializer().initialize(connection, new PollSchemaConfig() {
+      @Override
+      public Class<? extends Annotation> annotationType() {
+        return PollSchemaConfig.class;
+      }
+
+      @Override
+      public boolean autoCreate() {
+        return true;
       }
 
+      @Override
+      public boolean onlineIndexes() {
+        return false;
+      }
+
+      @Override
+      public boolean rebuildTallies() {
+        return false;
+      }
+    });
+  }
+
+  private void initialize(Connection connection, PollSchemaConfig config) throws SQLException {
+    DatabaseMetaData meta = connection.getMetaData();
+    String productName = meta.getDatabaseProductName();
+    SchemaDdl ddl = SchemaDdl.of(productName);
+    if (ddl == null) {
+      logger.warn("Poll schema auto-create skipped: unsupported database {}", productName);
+      return;
+    }
+
+    int latest = migrations.get(migrations.size() - 1).version;
+    // Once the schema is current, activation costs one query and runs no DDL
+    int version = tableExists(connection, "oc_poll_schema_version") ? schemaVersion(connection) : 0;
+    if (version < latest) {
+      migrate(connection, ddl, config);
+    } else {
+      logger.debug("Poll schema is at version {}", version);
+    }
+
+    if (config.rebuildTallies()) {
+      rebuildTallies(connection);
+    }
+  }
+
+  private void migrate(Connection connection, SchemaDdl ddl, PollSchemaConfig config) throws SQLException {
+    if (!acquireLock(connection, ddl)) {
+      logger.warn("Poll schema migration skipped: another node holds the schema lock");
+      return;
+    }
+    try {
       try (Statement statement = connection.createStatement()) {
-        statement.execute(CREATE_TABLE_POLL);
-        statement.execute(CREATE_TABLE_OPTION);
-        statement.execute(CREATE_TABLE_VOTE);
+        statement.execute(ddl.render(CREATE_TABLE_SCHEMA_VERSION));
       }
+      // Another node may have migrated while this one waited for the lock
+      int version = schemaVersion(connection);
+      for (Migration migration : migrations) {
+        if (migration.version <= version) {
+          continue;
+        }
+        logger.info("Migrating poll schema to version {}: {}", migration.version, migration.description);
+        migration.step.apply(connection, ddl, config);
+        recordVersion(connection, migration);
+      }
+      logger.info("Poll schema is at version {}", migrations.get(migrations.size() - 1).version);
+    } finally {
+      releaseLock(connection, ddl);
+    }
+  }
+
+  /**
+   * The schema before versioned migrations. Each step checks what exists, so installations created by any earlier
+   * plugin release reach the same state.
+   */
+  private void createBaseline(Connection connection, SchemaDdl ddl, PollSchemaConfig config) throws SQLException {
+    boolean tallyTableExisted = tableExists(connection, "oc_poll_option_tally");
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(ddl.render(CREATE_TABLE_POLL));
+      statement.execute(ddl.render(CREATE_TABLE_OPTION));
+      statement.execute(ddl.render(CREATE_TABLE_VOTE));
+      statement.execute(ddl.render(CREATE_TABLE_TALLY));
+      statement.execute(ddl.render(CREATE_TABLE_IDEMPOTENCY));
+      statement.execute(ddl.render(CREATE_TABLE_VOTER));
+      statement.execute(ddl.render(CREATE_TABLE_SNAPSHOT));
+    }
+    for (String[] index : BASELINE_INDEXES) {
+      ensureIndex(connection, index[0], index[1], ddl.createIndex(index[1], index[0], index[2], false));
+    }
 
-      ensureConstraint(connection, "oc_poll_option", "FK_oc_poll_option_poll_id", ADD_FK_OPTION);
-      ensureConstraint(connection, "oc_poll_vote", "FK_oc_poll_vote_poll_id", ADD_FK_VOTE);
+    // Earlier releases only created the schema on MariaDB/MySQL, so only there can it lack later columns
+    if (ddl == SchemaDdl.MARIADB) {
+      ensureColumn(connection, "oc_poll", "version", ADD_COLUMN_POLL_VERSION);
+      if (ensureColumn(connection, "oc_poll_option", "normalized_label", ADD_COLUMN_OPTION_NORMALIZED_LABEL)) {
+        backfillNormalizedLabels(connection);
+      }
+      ensureIndex(connection, "oc_poll_option", "uq_oc_poll_option_normalized_label",
+          ADD_INDEX_OPTION_NORMALIZED_LABEL);
+      if (columnExists(connection, "oc_poll_vote", "user_id")) {
+        migrateVoterHashes(connection);
+      }
+      ensureColumn(connection, "oc_poll_option_tally", "shard", ADD_COLUMN_TALLY_SHARD);
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate(BACKFILL_POLL_UPDATED_AT);
+      }
+    }
+
+    ensureConstraint(connection, "oc_poll_option", "FK_oc_poll_option_poll_id", ADD_FK_OPTION);
+    ensureConstraint(connection, "oc_poll_vote", "FK_oc_poll_vote_poll_id", ADD_FK_VOTE);
+    ensureConstraint(connection, "oc_poll_option_tally", "FK_oc_poll_option_tally_poll_id", ADD_FK_TALLY);
+    ensureConstraint(connection, "oc_poll_snapshot", "FK_oc_poll_snapshot_poll_id", ADD_FK_SNAPSHOT);
+
+    // A separate rebuild follows in maybeInitialize when it is configured
+    if (!tallyTableExisted && !config.rebuildTallies()) {
+      rebuildTallies(connection);
+    }
+  }
+
+  /**
+   * Adds (poll_id, option_id) to oc_poll_vote and drops the single-column indexes it makes redundant; the foreign
+   * key on poll_id is served by the new index and the unique (poll_id, voter_hash) key.
+   */
+  private void addVoteOptionIndex(Connection connection, SchemaDdl ddl, PollSchemaConfig config)
+      throws SQLException {
+    boolean online = config.onlineIndexes();
+    // Covers the per-option vote counts and the answer merge, which otherwise read the row of every vote
+    ensureIndex(connection, "oc_poll_vote", "idx_oc_poll_vote_poll_option",
+        ddl.createIndex("idx_oc_poll_vote_poll_option", "oc_poll_vote", "poll_id, option_id", online));
+    dropIndex(connection, ddl, "oc_poll_vote", "idx_oc_poll_vote_poll_id", online);
+    dropIndex(connection, ddl, "oc_poll_vote", "idx_oc_poll_vote_option_id", online);
+    // uq_oc_poll_option_poll_option_id starts with poll_id as well
+    dropIndex(connection, ddl, "oc_poll_option", "idx_oc_poll_option_poll_id", online);
+  }
+
+  /**
+   * Replaces indexes whose queries only look at a small or time-ordered part of a table. The tally compaction
+   * only reads shards other than 0 and the vote purge only snapshots whose votes are left, so partial indexes
+   * hold just those rows. Votes and idempotency keys are inserted in time order, so BRIN indexes on their
+   * timestamps serve the export and purge range scans at a fraction of the size of a B-tree. The queries name
+   * the partial index conditions as literals, which lets the planner match them.
+   */
+  private void addPostgresIndexes(Connection connection, SchemaDdl ddl, PollSchemaConfig config)
+      throws SQLException {
+    if (ddl != SchemaDdl.POSTGRESQL) {
+      return;
+    }
+    boolean online = config.onlineIndexes();
+    ensureIndex(connection, "oc_poll_option_tally", "idx_oc_poll_option_tally_unfolded",
+        postgresIndex("idx_oc_poll_option_tally_unfolded", "oc_poll_option_tally", "(poll_id) WHERE shard <> 0",
+            online));
+    ensureIndex(connection, "oc_poll_snapshot", "idx_oc_poll_snapshot_unpurged",
+        postgresIndex("idx_oc_poll_snapshot_unpurged", "oc_poll_snapshot", "(closed_at) WHERE votes_purged = 0",
+            online));
+    dropIndex(connection, ddl, "oc_poll_snapshot", "idx_oc_poll_snapshot_purge", online);
+    ensureIndex(connection, "oc_poll_vote", "idx_oc_poll_vote_voted_at_brin",
+        postgresIndex("idx_oc_poll_vote_voted_at_brin", "oc_poll_vote", "USING BRIN (voted_at)", online));
+    ensureIndex(connection, "oc_poll_idempotency", "idx_oc_poll_idempotency_created_at_brin",
+        postgresIndex("idx_oc_poll_idempotency_created_at_brin", "oc_poll_idempotency", "USING BRIN (created_at)",
+            online));
+    dropIndex(connection, ddl, "oc_poll_idempotency", "idx_oc_poll_idempotency_created_at", online);
+  }
+
+  private static String postgresIndex(String name, String table, String definition, boolean online) {
+    return "CREATE INDEX " + (online ? "CONCURRENTLY " : "") + "IF NOT EXISTS " + name + " ON " + table + " "
+        + definition;
+  }
+
+  private int schemaVersion(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery(SELECT_SCHEMA_VERSION)) {
+      return rs.next() ? rs.getInt(1) : 0;
+    }
+  }
 
-      logger.info("Poll schema auto-create completed");
+  private void recordVersion(Connection connection, Migration migration) throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement(INSERT_SCHEMA_VERSION)) {
+      ps.setInt(1, migration.version);
+      ps.setString(2, migration.description);
+      ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+      ps.executeUpdate();
     } catch (SQLException e) {
-      logger.warn("Poll schema auto-create failed", e);
+      // Integrity constraint violation: another node recorded it first
+      if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+        throw e;
+      }
+      logger.info("Poll schema version {} was already recorded", migration.version);
     }
   }
 
-  private boolean isMariaDbOrMySql(String productName) {
-    if (productName == null) {
-      return false;
+  private boolean acquireLock(Connection connection, SchemaDdl ddl) throws SQLException {
+    if (ddl == SchemaDdl.H2) {
+      // Embedded, so there are no other nodes
+      return true;
+    }
+    // pg_advisory_lock waits as long as it takes; GET_LOCK gives up after the timeout and returns 0
+    String sql = ddl == SchemaDdl.POSTGRESQL
+        ? "SELECT pg_advisory_lock(hashtext(?))"
+        : "SELECT GET_LOCK(?, " + LOCK_TIMEOUT_SECONDS + ")";
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      ps.setString(1, LOCK_NAME);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() && (ddl == SchemaDdl.POSTGRESQL || rs.getInt(1) == 1);
+      }
     }
-    String normalized = productName.toLowerCase();
-    return normalized.contains("mariadb") || normalized.contains("mysql");
+  }
+
+  private void releaseLock(Connection connection, SchemaDdl ddl) {
+    if (ddl == SchemaDdl.H2) {
+      return;
+    }
+    String sql = ddl == SchemaDdl.POSTGRESQL ? "SELECT pg_advisory_unlock(hashtext(?))" : "SELECT RELEASE_LOCK(?)";
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      ps.setString(1, LOCK_NAME);
+      ps.executeQuery().close();
+    } catch (SQLException e) {
+      logger.warn("Could not release the poll schema lock", e);
+    }
+  }
+
+  private void rebuildTallies(Connection connection) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(CLEAR_TALLIES);
+      int rows = statement.executeUpdate(BACKFILL_TALLIES);
+      connection.commit();
+      logger.info("Rebuilt {} poll option tallies from oc_poll_vote", rows);
+    } catch (SQLException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private void backfillNormalizedLabels(Connection connection) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    int updated = 0;
+    int duplicates = 0;
+    try (Statement select = connection.createStatement();
+         PreparedStatement update = connection.prepareStatement(UPDATE_OPTION_NORMALIZED_LABEL);
+         ResultSet rs = select.executeQuery(SELECT_OPTION_LABELS)) {
+      long currentPollId = -1L;
+      Set<String> seen = new HashSet<>();
+      while (rs.next()) {
+        long pollId = rs.getLong(2);
+        if (pollId != currentPollId) {
+          currentPollId = pollId;
+          seen.clear();
+        }
+        if (rs.getString(4) != null) {
+          seen.add(rs.getString(4));
+          continue;
+        }
+        String normalized = PollLabelNormalizer.normalize(rs.getString(3));
+        if (!seen.add(normalized)) {
+          // Older free-text answers that only differ in case or accents keep a NULL label and stay unique
+          duplicates++;
+          continue;
+        }
+        update.setString(1, normalized);
+        update.setLong(2, rs.getLong(1));
+        update.addBatch();
+        if (++updated % 500 == 0) {
+          update.executeBatch();
+        }
+      }
+      update.executeBatch();
+      connection.commit();
+      logger.info("Backfilled {} normalized poll option labels ({} duplicates left empty)", updated, duplicates);
+    } catch (SQLException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private void migrateVoterHashes(Connection connection) throws SQLException {
+    ensureColumn(connection, "oc_poll_vote", "voter_hash", ADD_COLUMN_VOTE_VOTER_HASH);
+    long hashed = 0;
+    try (Statement statement = connection.createStatement()) {
+      // Small batches keep row locks short on large vote tables
+      int rows;
+      do {
+        rows = statement.executeUpdate(BACKFILL_VOTE_VOTER_HASH);
+        hashed += rows;
+      } while (rows > 0);
+      int names = statement.executeUpdate(BACKFILL_VOTER_NAMES);
+      logger.info("Hashed {} poll voter ids, recorded {} voter names", hashed, names);
+    }
+    ensureIndex(connection, "oc_poll_vote", "uq_oc_poll_vote_poll_voter", ADD_INDEX_VOTE_POLL_VOTER);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(DROP_VOTE_USER_ID);
+    }
+    logger.info("Replaced oc_poll_vote.user_id with voter_hash");
   }
 
   private void ensureConstraint(Connection connection, String table, String constraintName, String ddl)
@@ -146,34 +576,156 @@ public class PollSchemaInitializer {
     }
   }
 
+  private boolean ensureColumn(Connection connection, String table, String column, String ddl)
+      throws SQLException {
+    if (columnExists(connection, table, column)) {
+      return false;
+    }
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    }
+    logger.info("Added column {} to {}", column, table);
+    return true;
+  }
+
+  private void ensureIndex(Connection connection, String table, String index, String ddl) throws SQLException {
+    if (indexExists(connection, table, index)) {
+      return;
+    }
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    }
+    logger.info("Added index {} to {}", index, table);
+  }
+
+  private void dropIndex(Connection connection, SchemaDdl ddl, String table, String index, boolean online)
+      throws SQLException {
+    if (!indexExists(connection, table, index)) {
+      return;
+    }
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(ddl.dropIndex(index, table, online));
+    } catch (SQLException e) {
+      // H2 INDEX_BELONGS_TO_CONSTRAINT: H2 backs a foreign key with the index it found when adding the key and
+      // does not move it to another index that covers the columns
+      if (ddl == SchemaDdl.H2 && "90085".equals(e.getSQLState())) {
+        logger.info("Kept index {} on {}, which H2 uses for a foreign key", index, table);
+        return;
+      }
+      throw e;
+    }
+    logger.info("Dropped index {} from {}", index, table);
+  }
+
+  // The checks below use the JDBC metadata, which every database answers for the current catalog and schema
+
+  private boolean indexExists(Connection connection, String table, String index) throws SQLException {
+    DatabaseMetaData meta = connection.getMetaData();
+    try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(),
+        storedName(meta, table), false, true)) {
+      while (rs.next()) {
+        if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private boolean columnExists(Connection connection, String table, String column) throws SQLException {
+    DatabaseMetaData meta = connection.getMetaData();
+    try (ResultSet rs = meta.getColumns(connection.getCatalog(), connection.getSchema(),
+        namePattern(meta, table), namePattern(meta, column))) {
+      return rs.next();
+    }
+  }
+
   private boolean constraintExists(Connection connection, String table, String constraintName)
       throws SQLException {
-    String sql = "SELECT COUNT(*) FROM information_schema.table_constraints "
-        + "WHERE constraint_schema = DATABASE() AND table_name = ? AND constraint_name = ?";
-    try (PreparedStatement ps = connection.prepareStatement(sql)) {
-      ps.setString(1, table);
-      ps.setString(2, constraintName);
-      try (ResultSet rs = ps.executeQuery()) {
-        rs.next();
-        return rs.getInt(1) > 0;
+    DatabaseMetaData meta = connection.getMetaData();
+    try (ResultSet rs = meta.getImportedKeys(connection.getCatalog(), connection.getSchema(),
+        storedName(meta, table))) {
+      while (rs.next()) {
+        if (constraintName.equalsIgnoreCase(rs.getString("FK_NAME"))) {
+          return true;
+        }
       }
+      return false;
     }
   }
 
+  private boolean tableExists(Connection connection, String table) throws SQLException {
+    DatabaseMetaData meta = connection.getMetaData();
+    try (ResultSet rs = meta.getTables(connection.getCatalog(), connection.getSchema(),
+        namePattern(meta, table), new String[] { "TABLE" })) {
+      return rs.next();
+    }
+  }
+
+  /** Unquoted names are stored in upper case by H2 and in lower case by PostgreSQL. */
+  private static String storedName(DatabaseMetaData meta, String name) throws SQLException {
+    if (meta.storesUpperCaseIdentifiers()) {
+      return name.toUpperCase(Locale.ROOT);
+    }
+    return meta.storesLowerCaseIdentifiers() ? name.toLowerCase(Locale.ROOT) : name;
+  }
+
+  /** The underscores of table names are wildcards in metadata patterns. */
+  private static String namePattern(DatabaseMetaData meta, String name) throws SQLException {
+    String escape = meta.getSearchStringEscape();
+    String stored = storedName(meta, name);
+    return escape == null || escape.isEmpty() ? stored : stored.replace("_", escape + "_");
+  }
+
   private boolean isDuplicateConstraintError(SQLException e) {
+    // PostgreSQL duplicate_object, H2 CONSTRAINT_ALREADY_EXISTS, MariaDB errno 121
+    if ("42710".equals(e.getSQLState()) || "90045".equals(e.getSQLState())) {
+      return true;
+    }
     String message = e.getMessage();
     return message != null && message.contains("Duplicate key") && message.contains("errno: 121");
   }
 
+  @FunctionalInterface
+  private interface MigrationStep {
+    void apply(Connection connection, SchemaDdl ddl, PollSchemaConfig config) throws SQLException;
+  }
+
+  private static final class Migration {
+
+    private final int version;
+    private final String description;
+    private final MigrationStep step;
+
+    private Migration(int version, String description, MigrationStep step) {
+      this.version = version;
+      this.description = description;
+      this.step = step;
+    }
+  }
+
   @ObjectClassDefinition(
       name = "Poll Plugin Schema",
-      description = "Auto-creates poll tables for MariaDB/MySQL"
+      description = "Auto-creates poll tables for MariaDB/MySQL, PostgreSQL and H2"
   )
   public @interface PollSchemaConfig {
     @AttributeDefinition(
         name = "Auto-create schema",
-        description = "Create poll tables and constraints if missing (MariaDB/MySQL only)"
+        description = "Migrate the poll tables to the current schema version"
     )
     boolean autoCreate() default true;
+
+    @AttributeDefinition(
+        name = "Online index changes",
+        description = "Add and drop indexes without blocking writes (ALGORITHM=INPLACE, LOCK=NONE on MariaDB/MySQL, "
+            + "CONCURRENTLY on PostgreSQL); disable for servers that reject it"
+    )
+    boolean onlineIndexes() default true;
+
+    @AttributeDefinition(
+        name = "Rebuild tallies",
+        description = "Recompute oc_poll_option_tally from oc_poll_vote on activation"
+    )
+    boolean rebuildTallies() default false;
   }
 }
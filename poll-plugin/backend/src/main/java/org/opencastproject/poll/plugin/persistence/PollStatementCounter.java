@@ -0,0 +1,18 @@
+package org.opencastproject.poll.plugin.persistence;
+
+import org.opencastproject.poll.plugin.metrics.PollMetrics;
+
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+/**
+ * Counts the SQL calls EclipseLink executes for the poll persistence unit. Registered as session event
+ * listener in persistence.xml; statements the store runs on the raw connection are counted where they run.
+ */
+public class PollStatementCounter extends SessionEventAdapter {
+
+  @Override
+  public void preExecuteCall(SessionEvent event) {
+    PollMetrics.countStatement();
+  }
+}
@@ -26,8 +26,8 @@ public class PollVoteEntity {
   @JoinColumn(name = "poll_id")
   private PollEntity poll;
 
-  @Column(name = "user_id", nullable = false, length = 255)
-  private String userId;
+  @Column(name = "voter_hash", nullable = false, length = VoterHash.LENGTH)
+  private byte[] voterHash;
 
   @Column(name = "option_id", nullable = false, length = 128)
   private String optionId;
@@ -55,12 +55,12 @@ public class PollVoteEntity {
     this.poll = poll;
   }
 
-  public String getUserId() {
-    return userId;
+  public byte[] getVoterHash() {
+    return voterHash == null ? null : voterHash.clone();
   }
 
-  public void setUserId(String userId) {
-    this.userId = userId;
+  public void setVoterHash(byte[] voterHash) {
+    this.voterHash = voterHash == null ? null : voterHash.clone();
   }
 
   public String getOptionId() {
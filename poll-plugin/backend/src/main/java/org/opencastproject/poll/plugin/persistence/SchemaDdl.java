@@ -0,0 +1,118 @@
+package org.opencastproject.poll.plugin.persistence;
+
+import java.util.Locale;
+
+/**
+ * Column types, table options and index statements of the databases the schema initializer supports.
+ */
+enum SchemaDdl {
+  MARIADB,
+  POSTGRESQL,
+  H2;
+
+  /** Returns the DDL flavour for a JDBC product name, or {@code null} if the database is not supported. */
+  static SchemaDdl of(String productName) {
+    if (productName == null) {
+      return null;
+    }
+    String normalized = productName.toLowerCase(Locale.ROOT);
+    if (normalized.contains("mariadb") || normalized.contains("mysql")) {
+      return MARIADB;
+    }
+    if (normalized.contains("postgresql")) {
+      return POSTGRESQL;
+    }
+    if (normalized.equals("h2")) {
+      return H2;
+    }
+    return null;
+  }
+
+  /**
+   * Replaces the type placeholders of a statement: {@code ${identity}}, {@code ${boolean}}, {@code ${flag}},
+   * {@code ${timestamp}}, {@code ${text}}, {@code ${binary16}}, {@code ${binaryCollation}} and
+   * {@code ${tableOptions}}.
+   */
+  String render(String template) {
+    return template
+        .replace("${identity}", identity())
+        .replace("${boolean}", bool())
+        .replace("${flag}", flag())
+        .replace("${timestamp}", timestamp())
+        .replace("${text}", text())
+        .replace("${binary16}", binary(16))
+        .replace("${binaryCollation}", binaryCollation())
+        .replace("${tableOptions}", tableOptions());
+  }
+
+  String identity() {
+    return this == MARIADB ? "BIGINT NOT NULL AUTO_INCREMENT" : "BIGINT GENERATED BY DEFAULT AS IDENTITY";
+  }
+
+  /** A boolean mapped by JPA. */
+  String bool() {
+    return this == MARIADB ? "TINYINT(1) DEFAULT 0" : "BOOLEAN DEFAULT FALSE";
+  }
+
+  /** A 0/1 flag compared with number literals in native queries. */
+  String flag() {
+    return this == MARIADB ? "TINYINT(1)" : "SMALLINT";
+  }
+
+  String timestamp() {
+    return this == MARIADB ? "DATETIME" : "TIMESTAMP";
+  }
+
+  String text() {
+    switch (this) {
+      case MARIADB:
+        return "LONGTEXT";
+      case POSTGRESQL:
+        return "TEXT";
+      default:
+        // Native queries read it as a string, which a CLOB would not be
+        return "VARCHAR(1000000)";
+    }
+  }
+
+  String binary(int length) {
+    return this == POSTGRESQL ? "BYTEA" : "BINARY(" + length + ")";
+  }
+
+  /** Exact comparison for a column that is already normalized; the defaults of the other databases are exact. */
+  String binaryCollation() {
+    return this == MARIADB ? " COLLATE utf8mb4_bin" : "";
+  }
+
+  String tableOptions() {
+    return this == MARIADB ? " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4" : "";
+  }
+
+  /**
+   * @param online build the index without blocking writes: in place on MariaDB, concurrently on PostgreSQL
+   */
+  String createIndex(String name, String table, String columns, boolean online) {
+    switch (this) {
+      case MARIADB:
+        return online
+            ? "ALTER TABLE " + table + " ADD INDEX " + name + " (" + columns + "), ALGORITHM=INPLACE, LOCK=NONE"
+            : "CREATE INDEX " + name + " ON " + table + " (" + columns + ")";
+      case POSTGRESQL:
+        return "CREATE INDEX " + (online ? "CONCURRENTLY " : "") + "IF NOT EXISTS " + name + " ON " + table
+            + " (" + columns + ")";
+      default:
+        return "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " (" + columns + ")";
+    }
+  }
+
+  String dropIndex(String name, String table, boolean online) {
+    switch (this) {
+      case MARIADB:
+        return "ALTER TABLE " + table + " DROP INDEX " + name + (online ? ", ALGORITHM=INPLACE, LOCK=NONE" : "");
+      case POSTGRESQL:
+        return "DROP INDEX " + (online ? "CONCURRENTLY " : "") + "IF EXISTS " + name;
+      default:
+        return "DROP INDEX IF EXISTS " + name;
+    }
+  }
+}
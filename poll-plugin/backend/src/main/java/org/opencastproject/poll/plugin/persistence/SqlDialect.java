@@ -0,0 +1,28 @@
+package org.opencastproject.poll.plugin.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public enum SqlDialect {
+  MYSQL,
+  POSTGRESQL,
+  OTHER;
+
+  public static SqlDialect of(Connection connection) throws SQLException {
+    return fromProductName(connection.getMetaData().getDatabaseProductName());
+  }
+
+  public static SqlDialect fromProductName(String productName) {
+    if (productName == null) {
+      return OTHER;
+    }
+    String normalized = productName.toLowerCase();
+    if (normalized.contains("mariadb") || normalized.contains("mysql")) {
+      return MYSQL;
+    }
+    if (normalized.contains("postgresql")) {
+      return POSTGRESQL;
+    }
+    return OTHER;
+  }
+}
@@ -0,0 +1,49 @@
+package org.opencastproject.poll.plugin.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fixed-width voter identities for oc_poll_vote.voter_hash: the first 16 bytes of the SHA-256 of the voter key.
+ *
+ * MariaDB computes the same value as UNHEX(LEFT(SHA2(voter_key, 256), 32)), which the schema migration uses for
+ * existing rows; both must stay in sync.
+ */
+public final class VoterHash {
+
+  public static final int LENGTH = 16;
+
+  private VoterHash() {
+  }
+
+  public static byte[] of(String voterKey) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(voterKey.getBytes(StandardCharsets.UTF_8));
+      byte[] hash = new byte[LENGTH];
+      System.arraycopy(digest, 0, hash, 0, LENGTH);
+      return hash;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  public static String toHex(byte[] hash) {
+    StringBuilder hex = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  public static byte[] fromHex(String hex) {
+    if (hex == null || hex.length() != LENGTH * 2) {
+      throw new IllegalArgumentException("Invalid voter hash: " + hex);
+    }
+    byte[] hash = new byte[LENGTH];
+    for (int i = 0; i < LENGTH; i++) {
+      hash[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,130 @@
+package org.opencastproject.poll.plugin.rest;
+
+import org.opencastproject.poll.plugin.export.ExportWriter;
+import org.opencastproject.poll.plugin.export.PollVoteExporter;
+import org.opencastproject.security.api.SecurityConstants;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.jaxrs.whiteboard.propertytypes.JaxrsResource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+import javax.sql.DataSource;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams poll votes as CSV or NDJSON. Administrators may export every poll, other users only the polls they
+ * created.
+ */
+@Path("/poll-plugin/export")
+@Component(
+    immediate = true,
+    service = PollExportResource.class,
+    property = {
+        "service.description=Poll Plugin Export",
+        "opencast.service.type=org.opencastproject.poll.plugin.rest.PollExportResource",
+        "opencast.service.path=/poll-plugin/export"
+    }
+)
+@JaxrsResource
+public class PollExportResource {
+
+  private static final Logger logger = LoggerFactory.getLogger(PollExportResource.class);
+
+  @Reference(target = "(osgi.jndi.service.name=jdbc/opencast)")
+  private DataSource dataSource;
+
+  @Reference
+  private SecurityService securityService;
+
+  private PollVoteExporter exporter;
+
+  @Activate
+  public void activate() {
+    exporter = new PollVoteExporter(dataSource);
+  }
+
+  @GET
+  @Path("votes")
+  @Produces({ "text/csv", "application/x-ndjson" })
+  public Response exportVotes(
+      @QueryParam("format") @DefaultValue("csv") String format,
+      @QueryParam("pollId") String pollId,
+      @QueryParam("from") String from,
+      @QueryParam("to") String to) {
+    ExportWriter.Format exportFormat = ExportWriter.Format.of(format);
+    if (exportFormat == null) {
+      throw badRequest("Unknown export format: " + format);
+    }
+    String poll = pollId == null || pollId.trim().isEmpty() ? null : pollId.trim();
+    Instant fromTime = parseTime("from", from);
+    Instant toTime = parseTime("to", to);
+    String createdBy = exportingCreator();
+
+    StreamingOutput body = out -> {
+      try {
+        long rows = exporter.export(poll, fromTime, toTime, createdBy, exportFormat, out);
+        logger.debug("Exported {} poll votes", rows);
+      } catch (SQLException e) {
+        // The status line is already sent; the client sees a truncated download
+        logger.error("Failed to export poll votes", e);
+        throw new WebApplicationException(e);
+      }
+    };
+    String fileName = "poll-votes" + (poll == null ? "" : "-" + poll.replaceAll("[^A-Za-z0-9_-]", "_"))
+        + "." + exportFormat.extension();
+    return Response.ok(body, exportFormat.mediaType())
+        .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+        .header("Cache-Control", "no-store")
+        .build();
+  }
+
+  /** Returns the user whose polls may be exported, or {@code null} for administrators. */
+  private String exportingCreator() {
+    User user = securityService.getUser();
+    String username = user == null ? null : user.getUsername();
+    if (username == null || username.trim().isEmpty() || "anonymous".equalsIgnoreCase(username)) {
+      throw new WebApplicationException(Response.Status.FORBIDDEN);
+    }
+    return user.hasRole(SecurityConstants.GLOBAL_ADMIN_ROLE) ? null : username;
+  }
+
+  /** Accepts an ISO-8601 instant or a date, which stands for its start in UTC. */
+  static Instant parseTime(String name, String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return null;
+    }
+    String trimmed = value.trim();
+    try {
+      return trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay(ZoneOffset.UTC).toInstant()
+          : Instant.parse(trimmed);
+    } catch (DateTimeParseException e) {
+      throw badRequest("Invalid " + name + " time: " + value);
+    }
+  }
+
+  private static WebApplicationException badRequest(String message) {
+    return new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+        .type("text/plain")
+        .entity(message)
+        .build());
+  }
+}
@@ -0,0 +1,70 @@
+package org.opencastproject.poll.plugin.rest;
+
+import org.opencastproject.poll.plugin.metrics.PollMetrics;
+import org.opencastproject.poll.plugin.service.PollAdmissionStats;
+import org.opencastproject.poll.plugin.service.PollCacheStats;
+import org.opencastproject.poll.plugin.service.PollService;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.jaxrs.whiteboard.propertytypes.JaxrsResource;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Poll plugin metrics in the Prometheus text exposition format.
+ */
+@Path("/poll-plugin/metrics")
+@Component(
+    immediate = true,
+    service = PollMetricsResource.class,
+    property = {
+        "service.description=Poll Plugin Metrics",
+        "opencast.service.type=org.opencastproject.poll.plugin.rest.PollMetricsResource",
+        "opencast.service.path=/poll-plugin/metrics"
+    }
+)
+@JaxrsResource
+public class PollMetricsResource {
+
+  static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+  @GET
+  @Produces(PROMETHEUS_TEXT)
+  public String metrics() {
+    StringBuilder out = new StringBuilder(8192);
+    PollMetrics.getInstance().writePrometheus(out);
+
+    PollService service = PollService.getInstance();
+    PollCacheStats cache = service.getCacheStats();
+    counter(out, "poll_cache_hits_total", "Poll read cache hits.", cache.hits());
+    counter(out, "poll_cache_misses_total", "Poll read cache misses.", cache.misses());
+    counter(out, "poll_cache_evictions_total", "Poll read cache evictions.", cache.evictions());
+    gauge(out, "poll_cache_entries", "Entries in the poll read cache.", cache.size());
+
+    PollAdmissionStats admission = service.getAdmissionStats();
+    counter(out, "poll_admission_admitted_total", "Votes admitted by admission control.", admission.admitted());
+    counter(out, "poll_admission_rejected_poll_total", "Votes rejected by the per-poll rate.",
+        admission.rejectedByPoll());
+    counter(out, "poll_admission_rejected_voter_total", "Votes rejected by the per-voter rate.",
+        admission.rejectedByVoter());
+    gauge(out, "poll_admission_tracked_keys", "Polls and voters tracked by admission control.",
+        admission.trackedKeys());
+    return out.toString();
+  }
+
+  private static void counter(StringBuilder out, String name, String help, long value) {
+    metric(out, name, help, "counter", value);
+  }
+
+  private static void gauge(StringBuilder out, String name, String help, long value) {
+    metric(out, name, help, "gauge", value);
+  }
+
+  private static void metric(StringBuilder out, String name, String help, String type, long value) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    out.append(name).append(' ').append(value).append('\n');
+  }
+}
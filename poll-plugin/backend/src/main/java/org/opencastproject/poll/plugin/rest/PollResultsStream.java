@@ -0,0 +1,201 @@
+package org.opencastproject.poll.plugin.rest;
+
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollOption;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+/**
+ * Pushes poll results to SSE subscribers. Each poll with subscribers is loaded once per interval and the frame is
+ * broadcast to all of its subscribers, and only when the results changed.
+ */
+final class PollResultsStream {
+
+  private static final Logger logger = LoggerFactory.getLogger(PollResultsStream.class);
+
+  static final String EVENT_NAME = "results";
+
+  private final long intervalMs;
+  private final long heartbeatIntervalMs;
+  private final Function<String, PollDefinition> loader;
+  private final Map<String, Channel> channels = new HashMap<>();
+  private final ScheduledExecutorService scheduler;
+
+  PollResultsStream(long intervalMs, long heartbeatIntervalMs, Function<String, PollDefinition> loader) {
+    this.intervalMs = Math.max(50L, intervalMs);
+    this.heartbeatIntervalMs = Math.max(this.intervalMs, heartbeatIntervalMs);
+    this.loader = loader;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "poll-results-stream");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::publishQuietly, this.intervalMs, this.intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Sends the current results to the sink and registers it for updates. The poll is loaded before the sink is
+   * registered, so a failed load leaves no subscriber behind.
+   */
+  void subscribe(String pollId, SseEventSink sink, Sse sse) {
+    String payload;
+    try {
+      payload = toPayload(pollId, loader.apply(pollId));
+    } catch (RuntimeException e) {
+      logger.warn("Failed to load poll {} for a new results subscriber", pollId, e);
+      throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+    }
+    sink.send(newEvent(sse, payload));
+
+    synchronized (channels) {
+      Channel channel = channels.get(pollId);
+      if (channel == null) {
+        // The first frame is the channel's baseline, so the next publish does not send it again
+        channel = new Channel(sse);
+        channel.lastPayload = payload;
+        channels.put(pollId, channel);
+      }
+      channel.register(sink);
+    }
+  }
+
+  void close() {
+    scheduler.shutdownNow();
+    List<Channel> closing;
+    synchronized (channels) {
+      closing = new ArrayList<>(channels.values());
+      channels.clear();
+    }
+    for (Channel channel : closing) {
+      channel.broadcaster.close();
+    }
+  }
+
+  private void publishQuietly() {
+    try {
+      publish();
+    } catch (RuntimeException e) {
+      logger.warn("Failed to publish poll results", e);
+    }
+  }
+
+  private void publish() {
+    Map<String, Channel> active = new HashMap<>();
+    synchronized (channels) {
+      channels.entrySet().removeIf(entry -> {
+        if (entry.getValue().isIdle()) {
+          entry.getValue().broadcaster.close();
+          return true;
+        }
+        return false;
+      });
+      active.putAll(channels);
+    }
+
+    long now = System.currentTimeMillis();
+    for (Map.Entry<String, Channel> entry : active.entrySet()) {
+      Channel channel = entry.getValue();
+      String payload;
+      try {
+        payload = toPayload(entry.getKey(), loader.apply(entry.getKey()));
+      } catch (RuntimeException e) {
+        logger.warn("Failed to load poll {} for its results stream", entry.getKey(), e);
+        continue;
+      }
+      if (!payload.equals(channel.lastPayload)) {
+        channel.lastPayload = payload;
+        channel.lastSentAt = now;
+        channel.broadcaster.broadcast(newEvent(channel.sse, payload));
+      } else if (now - channel.lastSentAt >= heartbeatIntervalMs) {
+        channel.lastSentAt = now;
+        channel.broadcaster.broadcast(channel.sse.newEventBuilder().comment("keep-alive").build());
+      }
+    }
+  }
+
+  private static OutboundSseEvent newEvent(Sse sse, String payload) {
+    return sse.newEventBuilder()
+        .name(EVENT_NAME)
+        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+        .data(String.class, payload)
+        .build();
+  }
+
+  static String toPayload(String pollId, PollDefinition poll) {
+    JsonObject frame = new JsonObject();
+    if (poll == null) {
+      frame.addProperty("eventId", pollId);
+      frame.addProperty("hasPoll", false);
+      return frame.toString();
+    }
+
+    JsonArray options = new JsonArray();
+    int totalVotes = 0;
+    for (PollOption option : poll.options()) {
+      JsonObject item = new JsonObject();
+      item.addProperty("id", option.id());
+      item.addProperty("label", option.label());
+      item.addProperty("voteCount", option.voteCount());
+      options.add(item);
+      totalVotes += option.voteCount();
+    }
+
+    frame.addProperty("hasPoll", true);
+    frame.addProperty("id", poll.id());
+    frame.addProperty("eventId", poll.eventId());
+    frame.addProperty("question", poll.question());
+    frame.addProperty("isActive", poll.isActive());
+    frame.addProperty("totalVotes", totalVotes);
+    frame.add("options", options);
+    return frame.toString();
+  }
+
+  private static final class Channel {
+
+    private final Sse sse;
+    private final SseBroadcaster broadcaster;
+    private final Set<SseEventSink> sinks = ConcurrentHashMap.newKeySet();
+    private volatile String lastPayload;
+    private volatile long lastSentAt = System.currentTimeMillis();
+
+    private Channel(Sse sse) {
+      this.sse = sse;
+      this.broadcaster = sse.newBroadcaster();
+      broadcaster.onClose(sinks::remove);
+      broadcaster.onError((sink, error) -> sinks.remove(sink));
+    }
+
+    private void register(SseEventSink sink) {
+      sinks.add(sink);
+      broadcaster.register(sink);
+    }
+
+    private boolean isIdle() {
+      sinks.removeIf(SseEventSink::isClosed);
+      return sinks.isEmpty();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package org.opencastproject.poll.plugin.rest;
+
+import org.opencastproject.poll.plugin.service.PollService;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.jaxrs.whiteboard.propertytypes.JaxrsResource;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+/**
+ * Server-sent events stream of live poll results, keyed by event id or audience poll id.
+ */
+@Path("/poll-plugin/stream")
+@Component(
+    immediate = true,
+    service = PollStreamResource.class,
+    property = {
+        "service.description=Poll Plugin Results Stream",
+        "opencast.service.type=org.opencastproject.poll.plugin.rest.PollStreamResource",
+        "opencast.service.path=/poll-plugin/stream"
+    }
+)
+@Designate(ocd = PollStreamResource.PollStreamConfig.class)
+@JaxrsResource
+public class PollStreamResource {
+
+  private volatile PollResultsStream stream;
+
+  @Activate
+  public void activate(PollStreamConfig config) {
+    configure(config);
+  }
+
+  @Modified
+  public void modified(PollStreamConfig config) {
+    configure(config);
+  }
+
+  @Deactivate
+  public void deactivate() {
+    PollResultsStream current = stream;
+    stream = null;
+    if (current != null) {
+      current.close();
+    }
+  }
+
+  @GET
+  @Path("{pollId}")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  public void streamResults(@PathParam("pollId") String pollId, @Context SseEventSink sink, @Context Sse sse) {
+    PollResultsStream current = stream;
+    if (current == null) {
+      throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+    }
+    if (pollId == null || pollId.trim().isEmpty()) {
+      throw new WebApplicationException(Response.Status.BAD_REQUEST);
+    }
+    current.subscribe(pollId.trim(), sink, sse);
+  }
+
+  private void configure(PollStreamConfig config) {
+    PollResultsStream previous = stream;
+    stream = new PollResultsStream(
+        config.intervalMs(),
+        config.heartbeatIntervalMs(),
+        pollId -> PollService.getInstance().getPollDefinition(pollId)
+    );
+    if (previous != null) {
+      previous.close();
+    }
+  }
+
+  @ObjectClassDefinition(
+      name = "Poll Plugin Results Stream",
+      description = "Server-sent events stream of live poll results"
+  )
+  public @interface PollStreamConfig {
+    @AttributeDefinition(
+        name = "Interval",
+        description = "Minimum milliseconds between two result frames of the same poll"
+    )
+    long intervalMs() default 1000L;
+
+    @AttributeDefinition(
+        name = "Heartbeat interval",
+        description = "Milliseconds without changes after which a keep-alive comment is sent"
+    )
+    long heartbeatIntervalMs() default 15000L;
+  }
+}
@@ -0,0 +1,289 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.persistence.PollLabelNormalizer;
+import org.opencastproject.poll.plugin.type.PollOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps free-text audience answers onto existing options of a poll when they are near duplicates, e.g. "React",
+ * "react.js" and "ReactJS".
+ *
+ * Answers are reduced to their letters and digits and compared by MinHash sketches of character bigrams. Each
+ * option is a cluster with the sketch of its own label plus the sketches of answers the presenter merged into it.
+ * A new answer joins the most similar cluster if the estimated Jaccard similarity reaches the threshold and its
+ * digits are the same, so "Python2" never joins "Python3" and "Option 1" never joins "Option 2". Sketches
+ * are built incrementally as options appear and are kept per poll in memory (least recently used polls are
+ * dropped), so matching costs one sketch and a scan over the options of one poll.
+ */
+final class AnswerClusterIndex {
+
+  private static final int NUM_HASHES = 128;
+  private static final int SHINGLE_SIZE = 2;
+  private static final int MIN_FUZZY_LENGTH = 3;
+  private static final long[] SEEDS = new long[NUM_HASHES];
+
+  static {
+    long seed = 0x9E3779B97F4A7C15L;
+    for (int i = 0; i < NUM_HASHES; i++) {
+      seed = mix(seed + i);
+      SEEDS[i] = seed;
+    }
+  }
+
+  private final double threshold;
+  private final int maxPolls;
+  private final LinkedHashMap<String, PollClusters> polls;
+
+  AnswerClusterIndex(double threshold, int maxPolls) {
+    this.threshold = threshold;
+    this.maxPolls = Math.max(1, maxPolls);
+    this.polls = new LinkedHashMap<String, PollClusters>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, PollClusters> eldest) {
+        return size() > AnswerClusterIndex.this.maxPolls;
+      }
+    };
+  }
+
+  /**
+   * @return the id of the option the answer belongs to, or null if it is a new answer
+   */
+  String match(String pollId, String answer, List<PollOption> options) {
+    String key = toKey(answer);
+    if (key.isEmpty()) {
+      return null;
+    }
+    PollClusters clusters = clusters(pollId);
+    synchronized (clusters) {
+      clusters.sync(options);
+      return clusters.match(key, threshold);
+    }
+  }
+
+  void learn(String pollId, String answer, String optionId) {
+    String key = toKey(answer);
+    if (key.isEmpty() || optionId == null) {
+      return;
+    }
+    PollClusters clusters = clusters(pollId);
+    synchronized (clusters) {
+      clusters.alias(key, optionId);
+    }
+  }
+
+  void merge(String pollId, String targetOptionId, Collection<String> sourceLabels) {
+    PollClusters clusters = clusters(pollId);
+    synchronized (clusters) {
+      for (String label : sourceLabels) {
+        String key = toKey(label);
+        if (!key.isEmpty()) {
+          clusters.addMember(targetOptionId, key);
+        }
+      }
+    }
+  }
+
+  void split(String pollId, String optionId, String label, String newOptionId) {
+    String key = toKey(label);
+    if (key.isEmpty()) {
+      return;
+    }
+    PollClusters clusters = clusters(pollId);
+    synchronized (clusters) {
+      clusters.separate(key, optionId);
+      clusters.alias(key, newOptionId);
+    }
+  }
+
+  void forget(String pollId) {
+    synchronized (polls) {
+      polls.remove(pollId);
+    }
+  }
+
+  private PollClusters clusters(String pollId) {
+    synchronized (polls) {
+      return polls.computeIfAbsent(pollId, id -> new PollClusters());
+    }
+  }
+
+  static String toKey(String answer) {
+    String normalized = PollLabelNormalizer.normalize(answer);
+    StringBuilder key = new StringBuilder(normalized.length());
+    for (int i = 0; i < normalized.length(); i++) {
+      char c = normalized.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        key.append(c);
+      }
+    }
+    return key.toString();
+  }
+
+  static String digits(String key) {
+    StringBuilder digits = new StringBuilder();
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (Character.isDigit(c)) {
+        digits.append(c);
+      }
+    }
+    return digits.toString();
+  }
+
+  static int[] sketch(String key) {
+    int[] signature = new int[NUM_HASHES];
+    Arrays.fill(signature, Integer.MAX_VALUE);
+    String padded = "^" + key + "$";
+    for (int i = 0; i + SHINGLE_SIZE <= padded.length(); i++) {
+      long shingle = ((long) padded.charAt(i) << 16) | padded.charAt(i + 1);
+      for (int h = 0; h < NUM_HASHES; h++) {
+        int value = (int) (mix(shingle ^ SEEDS[h]) >>> 33);
+        if (value < signature[h]) {
+          signature[h] = value;
+        }
+      }
+    }
+    return signature;
+  }
+
+  static double similarity(int[] a, int[] b) {
+    int equal = 0;
+    for (int i = 0; i < NUM_HASHES; i++) {
+      if (a[i] == b[i]) {
+        equal++;
+      }
+    }
+    return (double) equal / NUM_HASHES;
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static final class PollClusters {
+
+    private final Map<String, Cluster> clustersByOptionId = new LinkedHashMap<>();
+    private final Map<String, String> optionIdByKey = new HashMap<>();
+    private final Set<String> separated = new HashSet<>();
+
+    private void sync(List<PollOption> options) {
+      if (options == null) {
+        return;
+      }
+      Set<String> current = new HashSet<>();
+      for (PollOption option : options) {
+        current.add(option.id());
+        if (!clustersByOptionId.containsKey(option.id())) {
+          Cluster cluster = new Cluster();
+          clustersByOptionId.put(option.id(), cluster);
+          String key = toKey(option.label());
+          if (!key.isEmpty()) {
+            cluster.members.add(new Member(key));
+            optionIdByKey.putIfAbsent(key, option.id());
+          }
+        }
+      }
+      if (current.size() == clustersByOptionId.size()) {
+        return;
+      }
+      // Options were removed, e.g. merged into another one
+      clustersByOptionId.keySet().retainAll(current);
+      Iterator<Map.Entry<String, String>> aliases = optionIdByKey.entrySet().iterator();
+      while (aliases.hasNext()) {
+        if (!current.contains(aliases.next().getValue())) {
+          aliases.remove();
+        }
+      }
+    }
+
+    private String match(String key, double threshold) {
+      // Sketches of one or two characters say nothing, and dropping punctuation would equate "C++" and "C#";
+      // short answers are left to the exact label match of the store
+      if (key.length() < MIN_FUZZY_LENGTH) {
+        return null;
+      }
+      String exact = optionIdByKey.get(key);
+      if (exact != null && clustersByOptionId.containsKey(exact)) {
+        return exact;
+      }
+
+      int[] signature = sketch(key);
+      String digits = digits(key);
+      String best = null;
+      double bestSimilarity = threshold;
+      for (Map.Entry<String, Cluster> entry : clustersByOptionId.entrySet()) {
+        if (separated.contains(key + '\n' + entry.getKey())) {
+          continue;
+        }
+        for (Member member : entry.getValue().members) {
+          if (!digits.equals(member.digits)) {
+            continue;
+          }
+          double similarity = similarity(signature, member.sketch);
+          if (similarity >= bestSimilarity) {
+            bestSimilarity = similarity;
+            best = entry.getKey();
+          }
+        }
+      }
+      if (best != null) {
+        optionIdByKey.put(key, best);
+      }
+      return best;
+    }
+
+    private void alias(String key, String optionId) {
+      optionIdByKey.put(key, optionId);
+    }
+
+    private void addMember(String optionId, String key) {
+      Cluster cluster = clustersByOptionId.computeIfAbsent(optionId, id -> new Cluster());
+      cluster.members.add(new Member(key));
+      optionIdByKey.put(key, optionId);
+      separated.remove(key + '\n' + optionId);
+    }
+
+    private void separate(String key, String optionId) {
+      separated.add(key + '\n' + optionId);
+      Cluster cluster = clustersByOptionId.get(optionId);
+      if (cluster != null && cluster.members.size() > 1) {
+        int[] signature = sketch(key);
+        // Keep the option's own label sketch, which is always the first member
+        for (int i = cluster.members.size() - 1; i > 0; i--) {
+          if (Arrays.equals(cluster.members.get(i).sketch, signature)) {
+            cluster.members.remove(i);
+          }
+        }
+      }
+      if (optionId.equals(optionIdByKey.get(key))) {
+        optionIdByKey.remove(key);
+      }
+    }
+  }
+
+  private static final class Cluster {
+    private final List<Member> members = new ArrayList<>();
+  }
+
+  private static final class Member {
+    private final int[] sketch;
+    private final String digits;
+
+    private Member(String key) {
+      this.sketch = sketch(key);
+      this.digits = digits(key);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.type.AudiencePollPage;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cursor paging over an in-memory, newest-first list of audience polls. The cursor is the event id of the last
+ * poll on the page.
+ */
+final class AudiencePollPages {
+
+  private AudiencePollPages() {
+  }
+
+  static AudiencePollPage page(List<PollDefinition> newestFirst, int first, String after) {
+    int start = 0;
+    if (after != null && !after.trim().isEmpty()) {
+      String afterEventId;
+      try {
+        afterEventId = new String(Base64.getUrlDecoder().decode(after.trim()), StandardCharsets.UTF_8);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid audience poll cursor: " + after);
+      }
+      start = newestFirst.size();
+      for (int i = 0; i < newestFirst.size(); i++) {
+        if (afterEventId.equals(newestFirst.get(i).eventId())) {
+          start = i + 1;
+          break;
+        }
+      }
+    }
+
+    int end = Math.min(newestFirst.size(), start + first);
+    List<PollDefinition> polls = new ArrayList<>(newestFirst.subList(start, end));
+    String endCursor = polls.isEmpty()
+        ? null
+        : Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(polls.get(polls.size() - 1).eventId().getBytes(StandardCharsets.UTF_8));
+    return new AudiencePollPage(polls, endCursor, end < newestFirst.size());
+  }
+}
@@ -0,0 +1,218 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.persistence.PollLabelNormalizer;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollOption;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory vote state of one poll in buffered vote mode. Once loaded it is authoritative for the poll on
+ * this node; pending votes are drained into oc_poll_vote by {@link VoteWriteBuffer}.
+ */
+final class BufferedPoll {
+
+  static final int VOTE_DETACHED = -1;
+  static final int VOTE_REPLACED_PENDING = 0;
+  static final int VOTE_ADDED_PENDING = 1;
+
+  private final long pollId;
+  private final String eventId;
+  private final String question;
+  private final boolean active;
+  private final String createdBy;
+  private final LinkedHashMap<String, String> labelsByOptionId = new LinkedHashMap<>();
+  private final Map<String, String> optionIdByNormalizedLabel = new HashMap<>();
+  private final Map<String, Integer> voteCounts = new HashMap<>();
+  private final Map<String, String> optionIdByVoter = new HashMap<>();
+  private final Map<String, String> persistedOptionIdByVoter = new HashMap<>();
+  private final LinkedHashMap<String, PendingVote> pendingByVoter = new LinkedHashMap<>();
+  private long lastAccess = System.currentTimeMillis();
+  private boolean detached;
+  private int failedWrites;
+
+  BufferedPoll(long pollId, String eventId, String question, boolean active, String createdBy) {
+    this.pollId = pollId;
+    this.eventId = eventId;
+    this.question = question;
+    this.active = active;
+    this.createdBy = createdBy;
+  }
+
+  long getPollId() {
+    return pollId;
+  }
+
+  String getEventId() {
+    return eventId;
+  }
+
+  synchronized void addOption(String optionId, String label) {
+    labelsByOptionId.put(optionId, label);
+    optionIdByNormalizedLabel.putIfAbsent(PollLabelNormalizer.normalize(label), optionId);
+    voteCounts.putIfAbsent(optionId, 0);
+  }
+
+  synchronized void addPersistedVote(String voterKey, String optionId) {
+    optionIdByVoter.put(voterKey, optionId);
+    persistedOptionIdByVoter.put(voterKey, optionId);
+    voteCounts.merge(optionId, 1, Integer::sum);
+  }
+
+  synchronized boolean hasOption(String optionId) {
+    return labelsByOptionId.containsKey(optionId);
+  }
+
+  synchronized String findOptionIdByLabel(String label) {
+    return optionIdByNormalizedLabel.get(PollLabelNormalizer.normalize(label));
+  }
+
+  synchronized int vote(String voterKey, String optionId, Date votedAt) {
+    if (detached) {
+      return VOTE_DETACHED;
+    }
+    touch();
+    String previousOptionId = optionIdByVoter.put(voterKey, optionId);
+    if (previousOptionId != null) {
+      voteCounts.computeIfPresent(previousOptionId, (id, count) -> Math.max(0, count - 1));
+    }
+    voteCounts.merge(optionId, 1, Integer::sum);
+    PendingVote previousPending = pendingByVoter.put(voterKey, new PendingVote(pollId, voterKey, optionId, votedAt));
+    return previousPending == null ? VOTE_ADDED_PENDING : VOTE_REPLACED_PENDING;
+  }
+
+  synchronized boolean detachIfIdle(long idleSince) {
+    if (lastAccess < idleSince && pendingByVoter.isEmpty()) {
+      detached = true;
+    }
+    return detached;
+  }
+
+  synchronized List<PendingVote> detach() {
+    detached = true;
+    return drainPending();
+  }
+
+  synchronized List<PendingVote> drainPending() {
+    List<PendingVote> drained = new ArrayList<>(pendingByVoter.size());
+    for (PendingVote vote : pendingByVoter.values()) {
+      drained.add(vote.withPreviousOptionId(persistedOptionIdByVoter.get(vote.getVoterKey())));
+    }
+    pendingByVoter.clear();
+    return drained;
+  }
+
+  synchronized void markPersisted(List<PendingVote> votes) {
+    failedWrites = 0;
+    for (PendingVote vote : votes) {
+      persistedOptionIdByVoter.put(vote.getVoterKey(), vote.getOptionId());
+    }
+  }
+
+  /**
+   * @return the number of consecutive failed writes, including this one
+   */
+  synchronized int failedWrite() {
+    return ++failedWrites;
+  }
+
+  synchronized int requeue(List<PendingVote> votes) {
+    if (detached) {
+      return 0;
+    }
+    int requeued = 0;
+    for (PendingVote vote : votes) {
+      if (!pendingByVoter.containsKey(vote.getVoterKey())) {
+        pendingByVoter.put(vote.getVoterKey(), vote);
+        requeued++;
+      }
+    }
+    return requeued;
+  }
+
+  synchronized PollInfo toInfo() {
+    touch();
+    return new PollInfo(true, String.valueOf(pollId), active, question, labelsByOptionId.size(), totalVotes());
+  }
+
+  synchronized PollDefinition toDefinition() {
+    touch();
+    return new PollDefinition(String.valueOf(pollId), eventId, question, active, createdBy, toOptions());
+  }
+
+  synchronized PollVoteResult toVoteResult(String optionId) {
+    return new PollVoteResult(String.valueOf(pollId), optionId, totalVotes(), true, toOptions());
+  }
+
+  private List<PollOption> toOptions() {
+    List<PollOption> options = new ArrayList<>(labelsByOptionId.size());
+    for (Map.Entry<String, String> option : labelsByOptionId.entrySet()) {
+      options.add(new PollOption(option.getKey(), option.getValue(), voteCounts.getOrDefault(option.getKey(), 0)));
+    }
+    return options;
+  }
+
+  private int totalVotes() {
+    return optionIdByVoter.size();
+  }
+
+  private void touch() {
+    lastAccess = System.currentTimeMillis();
+  }
+
+  static final class PendingVote {
+
+    private final long pollId;
+    private final String voterKey;
+    private final String optionId;
+    private final Date votedAt;
+    private final String previousOptionId;
+
+    PendingVote(long pollId, String voterKey, String optionId, Date votedAt) {
+      this(pollId, voterKey, optionId, votedAt, null);
+    }
+
+    private PendingVote(long pollId, String voterKey, String optionId, Date votedAt, String previousOptionId) {
+      this.pollId = pollId;
+      this.voterKey = voterKey;
+      this.optionId = optionId;
+      this.votedAt = votedAt;
+      this.previousOptionId = previousOptionId;
+    }
+
+    private PendingVote withPreviousOptionId(String previousOptionId) {
+      return new PendingVote(pollId, voterKey, optionId, votedAt, previousOptionId);
+    }
+
+    long getPollId() {
+      return pollId;
+    }
+
+    String getVoterKey() {
+      return voterKey;
+    }
+
+    String getOptionId() {
+      return optionId;
+    }
+
+    Date getVotedAt() {
+      return votedAt;
+    }
+
+    String getPreviousOptionId() {
+      return previousOptionId;
+    }
+
+    boolean isInsert() {
+      return previousOptionId == null;
+    }
+  }
+}
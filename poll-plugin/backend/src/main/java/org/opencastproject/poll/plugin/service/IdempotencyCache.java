@@ -0,0 +1,171 @@
+package org.opencastproject.poll.plugin.service;
+
+import com.google.gson.Gson;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the results of mutations by client request id, so a retried mutation returns the original result
+ * instead of running again.
+ *
+ * Results are kept in a bounded LRU and, if a backing store is configured, as JSON in the database so retries
+ * that reach another node or arrive after a restart are answered as well. Concurrent retries of the same request
+ * on one node wait for the first one.
+ */
+final class IdempotencyCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(IdempotencyCache.class);
+
+  private static final long PURGE_INTERVAL_MS = 10 * 60 * 1000L;
+
+  interface Backing {
+    String load(String key, long notBefore) throws Exception;
+
+    void save(String key, String json) throws Exception;
+
+    int purgeBefore(long createdBefore) throws Exception;
+  }
+
+  private final int maxEntries;
+  private final long ttlMs;
+  private final Backing backing;
+  private final Gson gson = new Gson();
+  private final LinkedHashMap<String, Entry> entries;
+  private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private volatile long lastPurge;
+
+  IdempotencyCache(int maxEntries, long ttlMs, Backing backing) {
+    this.maxEntries = Math.max(1, maxEntries);
+    this.ttlMs = Math.max(1000L, ttlMs);
+    this.backing = backing;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > IdempotencyCache.this.maxEntries;
+      }
+    };
+  }
+
+  <T> T execute(String operation, String userId, String requestId, Class<T> resultType, Supplier<T> action) {
+    String key = toKey(operation, userId, requestId);
+    while (true) {
+      T cached = lookup(key, resultType);
+      if (cached != null) {
+        return cached;
+      }
+
+      CompletableFuture<Object> running = new CompletableFuture<>();
+      CompletableFuture<Object> other = inFlight.putIfAbsent(key, running);
+      if (other != null) {
+        try {
+          return resultType.cast(other.join());
+        } catch (CompletionException e) {
+          // The first attempt failed; this retry runs the mutation itself
+          continue;
+        }
+      }
+
+      try {
+        T result = action.get();
+        remember(key, result);
+        running.complete(result);
+        return result;
+      } catch (RuntimeException e) {
+        running.completeExceptionally(e);
+        throw e;
+      } finally {
+        inFlight.remove(key, running);
+      }
+    }
+  }
+
+  private <T> T lookup(String key, Class<T> resultType) {
+    long now = System.currentTimeMillis();
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        if (now - entry.createdAt <= ttlMs) {
+          return resultType.cast(entry.result);
+        }
+        entries.remove(key);
+      }
+    }
+
+    if (backing == null) {
+      return null;
+    }
+    try {
+      String json = backing.load(key, now - ttlMs);
+      if (json == null) {
+        return null;
+      }
+      T result = gson.fromJson(json, resultType);
+      synchronized (entries) {
+        entries.put(key, new Entry(result, now));
+      }
+      return result;
+    } catch (Exception e) {
+      logger.warn("Failed to look up idempotent result {}", key, e);
+      return null;
+    }
+  }
+
+  private void remember(String key, Object result) {
+    if (result == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    synchronized (entries) {
+      entries.put(key, new Entry(result, now));
+    }
+    if (backing == null) {
+      return;
+    }
+    try {
+      backing.save(key, gson.toJson(result));
+      if (now - lastPurge > PURGE_INTERVAL_MS) {
+        lastPurge = now;
+        int purged = backing.purgeBefore(now - ttlMs);
+        logger.debug("Purged {} expired idempotent results", purged);
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to store idempotent result {}", key, e);
+    }
+  }
+
+  private static String toKey(String operation, String userId, String requestId) {
+    String raw = operation + '\n' + (userId == null ? "" : userId) + '\n' + requestId;
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static final class Entry {
+
+    private final Object result;
+    private final long createdAt;
+
+    private Entry(Object result, long createdAt) {
+      this.result = result;
+      this.createdAt = createdAt;
+    }
+  }
+}
@@ -0,0 +1,515 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.persistence.PollLabelNormalizer;
+import org.opencastproject.poll.plugin.type.AudiencePollPage;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollOption;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
+import org.opencastproject.poll.plugin.type.input.PollInput;
+import org.opencastproject.poll.plugin.type.input.PollVoteInput;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-persistent poll store for single-node, ephemeral events. Votes only touch the voter's stripe and the
+ * per-option counters, so voting does not serialize on a shared lock.
+ */
+public class InMemoryPollDataStore implements PollDataStore {
+
+  private static final int VOTER_STRIPES = stripeCount();
+
+  private final int maxPolls;
+  private final int maxVotersPerPoll;
+  private final long closedPollTtlMs;
+  private final ConcurrentMap<String, MemoryPoll> pollsByEventId = new ConcurrentHashMap<>();
+  private final AtomicLong creationSequence = new AtomicLong();
+  private final PollIdAllocator idAllocator = new PollIdAllocator(0);
+
+  public InMemoryPollDataStore(int maxPolls, int maxVotersPerPoll, long closedPollTtlMs) {
+    this.maxPolls = Math.max(1, maxPolls);
+    this.maxVotersPerPoll = Math.max(1, maxVotersPerPoll);
+    this.closedPollTtlMs = Math.max(0L, closedPollTtlMs);
+  }
+
+  /** Whether a store built with the given limits would behave like this one, so it can be kept on reconfiguration. */
+  boolean hasLimits(int maxPolls, int maxVotersPerPoll, long closedPollTtlMs) {
+    return this.maxPolls == Math.max(1, maxPolls)
+        && this.maxVotersPerPoll == Math.max(1, maxVotersPerPoll)
+        && this.closedPollTtlMs == Math.max(0L, closedPollTtlMs);
+  }
+
+  @Override
+  public PollInfo getPollInfo(String eventId) {
+    MemoryPoll poll = pollsByEventId.get(eventId);
+    if (poll == null) {
+      return new PollInfo(false, null, false, null, null, null);
+    }
+    poll.touch();
+    return new PollInfo(true, poll.pollId, poll.active, poll.question, poll.options.size(), poll.totalVotes());
+  }
+
+  @Override
+  public Map<String, PollInfo> getPollInfos(Collection<String> eventIds) {
+    Map<String, PollInfo> infos = new LinkedHashMap<>();
+    for (String eventId : eventIds) {
+      infos.put(eventId, getPollInfo(eventId));
+    }
+    return infos;
+  }
+
+  @Override
+  public PollDefinition getPollDefinition(String eventId) {
+    MemoryPoll poll = pollsByEventId.get(eventId);
+    if (poll == null) {
+      return null;
+    }
+    poll.touch();
+    return poll.toDefinition();
+  }
+
+  @Override
+  public String getPollVersion(String eventId) {
+    MemoryPoll poll = pollsByEventId.get(eventId);
+    return poll == null ? null : poll.pollId + ":" + poll.version.sum();
+  }
+
+  @Override
+  public PollDefinition createPoll(String eventId, PollInput pollInput, String userId) {
+    if (pollInput == null) {
+      throw new IllegalArgumentException("Poll input is required");
+    }
+
+    String question = normalize(pollInput.getQuestion());
+    if (question.isEmpty()) {
+      throw new IllegalArgumentException("Poll question is required");
+    }
+
+    MemoryPoll poll = new MemoryPoll(eventId, question, pollInput.getIsActive(), userId,
+        creationSequence.incrementAndGet());
+    for (String label : normalizeOptions(pollInput.getOptions())) {
+      poll.addOption(label);
+    }
+    store(eventId, poll);
+    return poll.toDefinition();
+  }
+
+  @Override
+  public PollVoteResult submitVote(String eventId, PollVoteInput voteInput, String userId) {
+    if (voteInput == null) {
+      throw new IllegalArgumentException("Vote input is required");
+    }
+
+    MemoryPoll poll = pollsByEventId.get(eventId);
+    if (poll == null) {
+      throw new IllegalArgumentException("No poll exists for event: " + eventId);
+    }
+
+    if (voteInput.getPollId() != null && !poll.pollId.equals(voteInput.getPollId())) {
+      throw new IllegalArgumentException("Poll id does not match event poll");
+    }
+
+    MemoryOption option = poll.optionsById.get(normalize(voteInput.getOptionId()));
+    if (option == null) {
+      throw new IllegalArgumentException("Unknown poll option: " + normalize(voteInput.getOptionId()));
+    }
+
+    return vote(poll, option, userId);
+  }
+
+  @Override
+  public PollDefinition getAudiencePoll(String pollId) {
+    String normalizedPollId = normalize(pollId);
+    if (normalizedPollId.isEmpty()) {
+      return null;
+    }
+    return getPollDefinition(normalizedPollId);
+  }
+
+  @Override
+  public AudiencePollPage listAudiencePolls(int first, String after, String createdBy) {
+    String creator = normalize(createdBy);
+    List<MemoryPoll> audiencePolls = new ArrayList<>();
+    for (MemoryPoll poll : pollsByEventId.values()) {
+      if (isAudiencePollId(poll.eventId) && (creator.isEmpty() || creator.equals(poll.createdBy))) {
+        audiencePolls.add(poll);
+      }
+    }
+    audiencePolls.sort(Comparator.comparingLong((MemoryPoll poll) -> poll.sequence).reversed());
+
+    List<PollDefinition> polls = new ArrayList<>(audiencePolls.size());
+    for (MemoryPoll poll : audiencePolls) {
+      polls.add(poll.toDefinition());
+    }
+    return AudiencePollPages.page(polls, first, after);
+  }
+
+  @Override
+  public PollDefinition createAudiencePoll(String question, String userId) {
+    String normalizedQuestion = normalize(question);
+    if (normalizedQuestion.isEmpty()) {
+      throw new IllegalArgumentException("Poll question is required");
+    }
+
+    MemoryPoll poll;
+    do {
+      poll = new MemoryPoll(idAllocator.next(), normalizedQuestion, true, userId, creationSequence.incrementAndGet());
+    } while (!storeIfAbsent(poll.eventId, poll));
+    return poll.toDefinition();
+  }
+
+  @Override
+  public boolean deleteAudiencePoll(String pollId, String userId) {
+    String normalizedPollId = normalize(pollId);
+    if (normalizedPollId.isEmpty()) {
+      throw new IllegalArgumentException("Poll id is required");
+    }
+
+    MemoryPoll poll = pollsByEventId.get(normalizedPollId);
+    if (poll == null || !isAudiencePollId(normalizedPollId)) {
+      return false;
+    }
+
+    String normalizedUserId = normalize(userId);
+    if (normalizedUserId.isEmpty() || !normalizedUserId.equals(poll.createdBy)) {
+      throw new IllegalStateException("Only the poll creator can delete this poll");
+    }
+
+    return pollsByEventId.remove(normalizedPollId, poll);
+  }
+
+  @Override
+  public PollVoteResult submitAudienceAnswer(String pollId, String answer, String userId) {
+    String normalizedPollId = normalize(pollId);
+    MemoryPoll poll = pollsByEventId.get(normalizedPollId);
+    if (poll == null) {
+      throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
+    }
+
+    String normalizedAnswer = normalize(answer);
+    if (normalizedAnswer.isEmpty()) {
+      throw new IllegalArgumentException("Answer text is required");
+    }
+
+    return vote(poll, poll.findOrAddOption(normalizedAnswer), userId);
+  }
+
+  @Override
+  public PollVoteResult voteAudienceAnswer(String pollId, String answerId, String userId) {
+    String normalizedPollId = normalize(pollId);
+    MemoryPoll poll = pollsByEventId.get(normalizedPollId);
+    if (poll == null) {
+      throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
+    }
+
+    String normalizedAnswerId = normalize(answerId);
+    MemoryOption option = poll.optionsById.get(normalizedAnswerId);
+    if (option == null) {
+      throw new IllegalArgumentException("Unknown audience answer id: " + normalizedAnswerId);
+    }
+
+    return vote(poll, option, userId);
+  }
+
+  @Override
+  public PollDefinition addAudienceAnswer(String pollId, String answer, String userId) {
+    MemoryPoll poll = requireOwnedAudiencePoll(pollId, userId);
+    String normalizedAnswer = normalize(answer);
+    if (normalizedAnswer.isEmpty()) {
+      throw new IllegalArgumentException("Answer text is required");
+    }
+    poll.findOrAddOption(normalizedAnswer);
+    return poll.toDefinition();
+  }
+
+  @Override
+  public PollDefinition mergeAudienceAnswers(String pollId, String targetAnswerId, List<String> sourceAnswerIds,
+                                             String userId) {
+    MemoryPoll poll = requireOwnedAudiencePoll(pollId, userId);
+    MemoryOption target = poll.optionsById.get(normalize(targetAnswerId));
+    if (target == null) {
+      throw new IllegalArgumentException("Unknown audience answer id: " + normalize(targetAnswerId));
+    }
+    for (String sourceAnswerId : sourceAnswerIds) {
+      MemoryOption source = poll.optionsById.get(normalize(sourceAnswerId));
+      if (source == null) {
+        throw new IllegalArgumentException("Unknown audience answer id: " + normalize(sourceAnswerId));
+      }
+      if (source != target) {
+        poll.mergeOption(source, target);
+      }
+    }
+    return poll.toDefinition();
+  }
+
+  @Override
+  public PollDefinition closePoll(String pollId, String userId, PollVoteTimeline voteTimeline) {
+    MemoryPoll poll = requireOwnedPoll(pollId, userId);
+    if (voteTimeline != null) {
+      poll.voteTimeline = voteTimeline;
+    }
+    // Closed polls become eligible for eviction after closedPollTtlMs
+    poll.setActive(false);
+    return poll.toDefinition();
+  }
+
+  @Override
+  public PollDefinition reopenPoll(String pollId, String userId) {
+    MemoryPoll poll = requireOwnedPoll(pollId, userId);
+    poll.setActive(true);
+    return poll.toDefinition();
+  }
+
+  @Override
+  public int purgeClosedPollVotes(long closedBefore) {
+    return 0;
+  }
+
+  @Override
+  public int compactTallies(int maxPolls) {
+    return 0;
+  }
+
+  private MemoryPoll requireOwnedPoll(String pollId, String userId) {
+    String normalizedPollId = normalize(pollId);
+    MemoryPoll poll = pollsByEventId.get(normalizedPollId);
+    if (poll == null) {
+      throw new IllegalArgumentException("No poll exists for id: " + normalizedPollId);
+    }
+    String normalizedUserId = normalize(userId);
+    if (normalizedUserId.isEmpty() || !normalizedUserId.equals(poll.createdBy)) {
+      throw new IllegalStateException("Only the poll creator can close or reopen this poll");
+    }
+    poll.touch();
+    return poll;
+  }
+
+  private MemoryPoll requireOwnedAudiencePoll(String pollId, String userId) {
+    String normalizedPollId = normalize(pollId);
+    MemoryPoll poll = pollsByEventId.get(normalizedPollId);
+    if (poll == null || !isAudiencePollId(normalizedPollId)) {
+      throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
+    }
+    String normalizedUserId = normalize(userId);
+    if (normalizedUserId.isEmpty() || !normalizedUserId.equals(poll.createdBy)) {
+      throw new IllegalStateException("Only the poll creator can change answers of this poll");
+    }
+    return poll;
+  }
+
+  private PollVoteResult vote(MemoryPoll poll, MemoryOption option, String userId) {
+    if (!poll.active) {
+      throw new IllegalStateException("Poll is not active");
+    }
+
+    String voterKey = normalize(userId);
+    if (voterKey.isEmpty()) {
+      voterKey = "anonymous";
+    }
+
+    poll.vote(voterKey, option, maxVotersPerPoll);
+    return new PollVoteResult(poll.pollId, option.id, poll.totalVotes(), true, poll.toOptions());
+  }
+
+  private void store(String eventId, MemoryPoll poll) {
+    makeRoom();
+    pollsByEventId.put(eventId, poll);
+  }
+
+  private boolean storeIfAbsent(String eventId, MemoryPoll poll) {
+    makeRoom();
+    return pollsByEventId.putIfAbsent(eventId, poll) == null;
+  }
+
+  private void makeRoom() {
+    long now = System.currentTimeMillis();
+    pollsByEventId.values().removeIf(poll -> !poll.active && now - poll.lastAccess >= closedPollTtlMs);
+    if (pollsByEventId.size() < maxPolls) {
+      return;
+    }
+
+    MemoryPoll oldestClosed = null;
+    for (MemoryPoll poll : pollsByEventId.values()) {
+      if (!poll.active && (oldestClosed == null || poll.lastAccess < oldestClosed.lastAccess)) {
+        oldestClosed = poll;
+      }
+    }
+    if (oldestClosed == null || !pollsByEventId.remove(oldestClosed.eventId, oldestClosed)) {
+      throw new IllegalStateException("In-memory poll store is full (" + maxPolls + " polls)");
+    }
+  }
+
+  private static boolean isAudiencePollId(String pollId) {
+    return pollId != null && pollId.startsWith("poll-");
+  }
+
+  private static String normalize(String value) {
+    return value == null ? "" : value.trim();
+  }
+
+  private static List<String> normalizeOptions(List<String> options) {
+    List<String> normalized = new ArrayList<>();
+    if (options == null) {
+      return normalized;
+    }
+    for (String option : options) {
+      String trimmed = normalize(option);
+      if (!trimmed.isEmpty()) {
+        normalized.add(trimmed);
+      }
+    }
+    return normalized;
+  }
+
+  private static int stripeCount() {
+    int stripes = 1;
+    while (stripes < Runtime.getRuntime().availableProcessors() * 2 && stripes < 64) {
+      stripes <<= 1;
+    }
+    return stripes;
+  }
+
+  private static final class MemoryPoll {
+
+    private final String pollId = UUID.randomUUID().toString();
+    private final String eventId;
+    private final String question;
+    private volatile boolean active;
+    private final String createdBy;
+    private final long sequence;
+    private volatile PollVoteTimeline voteTimeline;
+    private final List<MemoryOption> options = new CopyOnWriteArrayList<>();
+    private final Map<String, MemoryOption> optionsById = new ConcurrentHashMap<>();
+    private final Map<String, MemoryOption> optionsByLabel = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, MemoryOption>[] voterStripes = new ConcurrentHashMap[VOTER_STRIPES];
+    private final LongAdder voters = new LongAdder();
+    private final LongAdder version = new LongAdder();
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    private MemoryPoll(String eventId, String question, boolean active, String createdBy, long sequence) {
+      this.eventId = eventId;
+      this.question = question;
+      this.active = active;
+      this.createdBy = normalize(createdBy);
+      this.sequence = sequence;
+      for (int i = 0; i < voterStripes.length; i++) {
+        voterStripes[i] = new ConcurrentHashMap<>();
+      }
+    }
+
+    private MemoryOption addOption(String label) {
+      MemoryOption option = new MemoryOption(UUID.randomUUID().toString(), label);
+      optionsByLabel.putIfAbsent(PollLabelNormalizer.normalize(label), option);
+      optionsById.put(option.id, option);
+      options.add(option);
+      return option;
+    }
+
+    private MemoryOption findOrAddOption(String label) {
+      String key = PollLabelNormalizer.normalize(label);
+      MemoryOption existing = optionsByLabel.get(key);
+      if (existing != null) {
+        return existing;
+      }
+      synchronized (options) {
+        existing = optionsByLabel.get(key);
+        if (existing != null) {
+          return existing;
+        }
+        MemoryOption option = addOption(label);
+        version.increment();
+        return option;
+      }
+    }
+
+    private void mergeOption(MemoryOption source, MemoryOption target) {
+      synchronized (options) {
+        // Unlisted first so new votes cannot pick the source; a vote already past the lookup may still land on it
+        optionsById.remove(source.id);
+        options.remove(source);
+        optionsByLabel.replaceAll((label, option) -> option == source ? target : option);
+        for (ConcurrentHashMap<String, MemoryOption> stripe : voterStripes) {
+          for (String voterKey : stripe.keySet()) {
+            if (stripe.replace(voterKey, source, target)) {
+              source.votes.decrement();
+              target.votes.increment();
+            }
+          }
+        }
+        version.increment();
+      }
+    }
+
+    private void vote(String voterKey, MemoryOption option, int maxVoters) {
+      ConcurrentHashMap<String, MemoryOption> stripe = voterStripes[(voterKey.hashCode() & 0x7fffffff)
+          % voterStripes.length];
+      if (!stripe.containsKey(voterKey) && voters.sum() >= maxVoters) {
+        throw new IllegalStateException("Poll has reached the maximum number of voters");
+      }
+
+      MemoryOption previous = stripe.put(voterKey, option);
+      if (previous == null) {
+        voters.increment();
+      } else if (previous != option) {
+        previous.votes.decrement();
+      }
+      if (previous != option) {
+        option.votes.increment();
+      }
+      touch();
+    }
+
+    private int totalVotes() {
+      return (int) voters.sum();
+    }
+
+    private void touch() {
+      lastAccess = System.currentTimeMillis();
+    }
+
+    private void setActive(boolean active) {
+      if (this.active != active) {
+        this.active = active;
+        version.increment();
+      }
+    }
+
+    private List<PollOption> toOptions() {
+      List<PollOption> result = new ArrayList<>(options.size());
+      for (MemoryOption option : options) {
+        result.add(new PollOption(option.id, option.label, (int) Math.max(0L, option.votes.sum())));
+      }
+      return result;
+    }
+
+    private PollDefinition toDefinition() {
+      return new PollDefinition(pollId, eventId, question, active, createdBy, toOptions(),
+          active ? null : voteTimeline);
+    }
+  }
+
+  private static final class MemoryOption {
+
+    private final String id;
+    private final String label;
+    private final LongAdder votes = new LongAdder();
+
+    private MemoryOption(String id, String label) {
+      this.id = id;
+      this.label = label;
+    }
+  }
+}
@@ -1,14 +1,19 @@
 package org.opencastproject.poll.plugin.service;
 
 import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.persistence.PollLabelNormalizer;
+import org.opencastproject.poll.plugin.type.AudiencePollPage;
 import org.opencastproject.poll.plugin.type.PollDefinition;
 import org.opencastproject.poll.plugin.type.PollOption;
 import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
 import org.opencastproject.poll.plugin.type.input.PollInput;
 import org.opencastproject.poll.plugin.type.input.PollVoteInput;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +41,15 @@ public class MockPollDataStore implements PollDataStore {
     );
   }
 
+  @Override
+  public synchronized Map<String, PollInfo> getPollInfos(Collection<String> eventIds) {
+    Map<String, PollInfo> infos = new LinkedHashMap<>();
+    for (String eventId : eventIds) {
+      infos.put(eventId, getPollInfo(eventId));
+    }
+    return infos;
+  }
+
   @Override
   public synchronized PollDefinition getPollDefinition(String eventId) {
     PollState state = pollsByEventId.get(eventId);
@@ -45,6 +59,12 @@ public class MockPollDataStore implements PollDataStore {
     return state.toDefinition();
   }
 
+  @Override
+  public synchronized String getPollVersion(String eventId) {
+    PollState state = pollsByEventId.get(eventId);
+    return state == null ? null : state.pollId + ":" + state.version;
+  }
+
   @Override
   public synchronized PollDefinition createPoll(String eventId, PollInput pollInput, String userId) {
     if (pollInput == null) {
@@ -102,15 +122,16 @@ public class MockPollDataStore implements PollDataStore {
   }
 
   @Override
-  public synchronized List<PollDefinition> listAudiencePolls() {
+  public synchronized AudiencePollPage listAudiencePolls(int first, String after, String createdBy) {
+    String creator = normalize(createdBy);
     List<PollDefinition> polls = new ArrayList<>();
     for (Map.Entry<String, PollState> entry : pollsByEventId.entrySet()) {
-      if (isAudiencePollId(entry.getKey())) {
+      if (isAudiencePollId(entry.getKey()) && (creator.isEmpty() || creator.equals(entry.getValue().createdBy))) {
         polls.add(entry.getValue().toDefinition());
       }
     }
     Collections.reverse(polls);
-    return polls;
+    return AudiencePollPages.page(polls, first, after);
   }
 
   @Override
@@ -192,6 +213,99 @@ public class MockPollDataStore implements PollDataStore {
     return voteInState(state, normalizedAnswerId, userId);
   }
 
+  @Override
+  public synchronized PollDefinition addAudienceAnswer(String pollId, String answer, String userId) {
+    PollState state = requireOwnedAudiencePoll(pollId, userId);
+    String normalizedAnswer = normalize(answer);
+    if (normalizedAnswer.isEmpty()) {
+      throw new IllegalArgumentException("Answer text is required");
+    }
+    if (state.findOptionIdByLabel(normalizedAnswer) == null) {
+      state.addOption(normalizedAnswer);
+    }
+    return state.toDefinition();
+  }
+
+  @Override
+  public synchronized PollDefinition mergeAudienceAnswers(String pollId, String targetAnswerId,
+                                                          List<String> sourceAnswerIds, String userId) {
+    PollState state = requireOwnedAudiencePoll(pollId, userId);
+    String target = normalize(targetAnswerId);
+    if (!state.optionsById.containsKey(target)) {
+      throw new IllegalArgumentException("Unknown audience answer id: " + target);
+    }
+    for (String sourceAnswerId : sourceAnswerIds) {
+      String source = normalize(sourceAnswerId);
+      if (source.equals(target)) {
+        continue;
+      }
+      if (!state.optionsById.containsKey(source)) {
+        throw new IllegalArgumentException("Unknown audience answer id: " + source);
+      }
+      state.mergeOption(source, target);
+    }
+    return state.toDefinition();
+  }
+
+  @Override
+  public synchronized PollDefinition closePoll(String pollId, String userId, PollVoteTimeline voteTimeline) {
+    PollState state = requireOwnedPoll(pollId, userId);
+    if (voteTimeline != null) {
+      state.voteTimeline = voteTimeline;
+    }
+    if (state.active) {
+      state.active = false;
+      state.version++;
+    }
+    return state.toDefinition();
+  }
+
+  @Override
+  public synchronized PollDefinition reopenPoll(String pollId, String userId) {
+    PollState state = requireOwnedPoll(pollId, userId);
+    if (!state.active) {
+      state.active = true;
+      state.version++;
+    }
+    return state.toDefinition();
+  }
+
+  @Override
+  public int purgeClosedPollVotes(long closedBefore) {
+    return 0;
+  }
+
+  @Override
+  public int compactTallies(int maxPolls) {
+    return 0;
+  }
+
+  private PollState requireOwnedPoll(String pollId, String userId) {
+    String normalizedPollId = normalize(pollId);
+    PollState state = pollsByEventId.get(normalizedPollId);
+    if (state == null) {
+      throw new IllegalArgumentException("No poll exists for id: " + normalizedPollId);
+    }
+    String normalizedUserId = normalize(userId);
+    if (normalizedUserId.isEmpty() || !normalizedUserId.equals(state.createdBy)) {
+      throw new IllegalStateException("Only the poll creator can close or reopen this poll");
+    }
+    return state;
+  }
+
+  private PollState requireOwnedAudiencePoll(String pollId, String userId) {
+    String normalizedPollId = normalize(pollId);
+    PollState state = pollsByEventId.get(normalizedPollId);
+    if (state == null || !isAudiencePollId(normalizedPollId)) {
+      throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
+    }
+    String normalizedUserId = normalize(userId);
+    if (normalizedUserId.isEmpty() || !normalizedUserId.equals(state.createdBy)) {
+      throw new IllegalStateException("Only the poll creator can change answers of this poll");
+    }
+    return state;
+  }
+
   private PollVoteResult voteInState(PollState state, String optionId, String userId) {
     if (!state.active) {
       throw new IllegalStateException("Poll is not active");
@@ -265,11 +379,14 @@ public class MockPollDataStore implements PollDataStore {
     private final String pollId;
     private final String eventId;
     private final String question;
-    private final boolean active;
+    private boolean active;
     private final String createdBy;
     private final LinkedHashMap<String, String> optionsById;
     private final LinkedHashMap<String, Integer> voteCounts;
     private final Map<String, String> votesByUserId;
+    private final Map<String, String> optionIdByNormalizedLabel = new HashMap<>();
+    private long version;
+    private PollVoteTimeline voteTimeline;
 
     private PollState(String pollId, String eventId, String question, boolean active, String createdBy,
                       LinkedHashMap<String, String> optionsById,
@@ -283,6 +400,9 @@ public class MockPollDataStore implements PollDataStore {
       this.optionsById = optionsById;
       this.voteCounts = voteCounts;
       this.votesByUserId = votesByUserId;
+      for (Map.Entry<String, String> option : optionsById.entrySet()) {
+        optionIdByNormalizedLabel.putIfAbsent(PollLabelNormalizer.normalize(option.getValue()), option.getKey());
+      }
     }
 
     private static PollState fromInput(String eventId, String question,
@@ -328,23 +448,36 @@ public class MockPollDataStore implements PollDataStore {
     }
 
     private PollDefinition toDefinition() {
-      return new PollDefinition(pollId, eventId, question, active, createdBy, toOptions());
+      return new PollDefinition(pollId, eventId, question, active, createdBy, toOptions(),
+          active ? null : voteTimeline);
     }
 
     private String findOptionIdByLabel(String label) {
-      String target = label.toLowerCase();
-      for (Map.Entry<String, String> option : optionsById.entrySet()) {
-        if (option.getValue() != null && option.getValue().trim().toLowerCase().equals(target)) {
-          return option.getKey();
+      return optionIdByNormalizedLabel.get(PollLabelNormalizer.normalize(label));
+    }
+
+    private void mergeOption(String sourceId, String targetId) {
+      int moved = 0;
+      for (Map.Entry<String, String> vote : votesByUserId.entrySet()) {
+        if (sourceId.equals(vote.getValue())) {
+          vote.setValue(targetId);
+          moved++;
         }
       }
-      return null;
+      optionsById.remove(sourceId);
+      voteCounts.remove(sourceId);
+      voteCounts.merge(targetId, moved, Integer::sum);
+      // Retyping a merged answer keeps landing on the target
+      optionIdByNormalizedLabel.replaceAll((label, optionId) -> sourceId.equals(optionId) ? targetId : optionId);
+      version++;
     }
 
     private String addOption(String label) {
       String optionId = UUID.randomUUID().toString();
       optionsById.put(optionId, label);
+      optionIdByNormalizedLabel.putIfAbsent(PollLabelNormalizer.normalize(label), optionId);
       voteCounts.put(optionId, 0);
+      version++;
       return optionId;
     }
   }
@@ -0,0 +1,76 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.db.DBSession;
+import org.opencastproject.db.DBSessionFactory;
+import org.opencastproject.poll.plugin.metrics.PollMetrics;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Keeps idempotent mutation results in oc_poll_idempotency.
+ */
+final class OpencastIdempotencyStore implements IdempotencyCache.Backing {
+
+  private static final String SELECT_RESULT_SQL =
+      "SELECT result_json FROM oc_poll_idempotency WHERE request_key = ? AND created_at >= ?";
+
+  private static final String INSERT_RESULT_SQL =
+      "INSERT INTO oc_poll_idempotency (request_key, result_json, created_at) VALUES (?, ?, ?)";
+
+  private static final String PURGE_SQL = "DELETE FROM oc_poll_idempotency WHERE created_at < ?";
+
+  private final DBSessionFactory dbSessionFactory;
+  private final EntityManagerFactory entityManagerFactory;
+
+  OpencastIdempotencyStore(DBSessionFactory dbSessionFactory, EntityManagerFactory entityManagerFactory) {
+    this.dbSessionFactory = dbSessionFactory;
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  @Override
+  public String load(String key, long notBefore) {
+    try (DBSession session = openSession()) {
+      return session.exec(em -> {
+        List<?> rows = em.createNativeQuery(SELECT_RESULT_SQL)
+            .setParameter(1, key)
+            .setParameter(2, new Timestamp(notBefore))
+            .setMaxResults(1)
+            .getResultList();
+        return rows.isEmpty() || rows.get(0) == null ? null : rows.get(0).toString();
+      });
+    }
+  }
+
+  @Override
+  public void save(String key, String json) {
+    try (DBSession session = openSession()) {
+      session.execTx(em -> {
+        em.createNativeQuery(INSERT_RESULT_SQL)
+            .setParameter(1, key)
+            .setParameter(2, json)
+            .setParameter(3, new Timestamp(System.currentTimeMillis()))
+            .executeUpdate();
+      });
+    }
+  }
+
+  @Override
+  public int purgeBefore(long createdBefore) {
+    try (DBSession session = openSession()) {
+      return session.execTx(em -> {
+        int purged = em.createNativeQuery(PURGE_SQL)
+            .setParameter(1, new Timestamp(createdBefore))
+            .executeUpdate();
+        return purged;
+      });
+    }
+  }
+
+  private DBSession openSession() {
+    PollMetrics.countSession();
+    return dbSessionFactory.createSession(entityManagerFactory);
+  }
+}
@@ -3,48 +3,271 @@ package org.opencastproject.poll.plugin.service;
 import org.opencastproject.db.DBSession;
 import org.opencastproject.db.DBSessionFactory;
 import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.metrics.PollMetrics;
 import org.opencastproject.poll.plugin.persistence.PollEntity;
+import org.opencastproject.poll.plugin.persistence.PollLabelNormalizer;
 import org.opencastproject.poll.plugin.persistence.PollOptionEntity;
 import org.opencastproject.poll.plugin.persistence.PollVoteEntity;
+import org.opencastproject.poll.plugin.persistence.SqlDialect;
+import org.opencastproject.poll.plugin.persistence.VoterHash;
+import org.opencastproject.poll.plugin.type.AudiencePollPage;
 import org.opencastproject.poll.plugin.type.PollDefinition;
 import org.opencastproject.poll.plugin.type.PollOption;
 import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
 import org.opencastproject.poll.plugin.type.input.PollInput;
 import org.opencastproject.poll.plugin.type.input.PollVoteInput;
 
+import com.google.gson.Gson;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 
 public class OpencastPollDataStore implements PollDataStore {
 
   private static final Logger logger = LoggerFactory.getLogger(OpencastPollDataStore.class);
 
+  private static final int VOTE_BATCH_SIZE = 500;
+
+  private static final String INSERT_VOTE_SQL =
+      "INSERT INTO oc_poll_vote (poll_id, voter_hash, option_id, voted_at) VALUES (?, ?, ?, ?)";
+
+  private static final String UPDATE_VOTE_SQL =
+      "UPDATE oc_poll_vote SET option_id = ?, voted_at = ? WHERE poll_id = ? AND voter_hash = ?";
+
+  private static final String UPDATE_VOTE_OPTION_SQL =
+      "UPDATE oc_poll_vote SET option_id = ?, voted_at = ? WHERE poll_id = ? AND voter_hash = ? AND option_id = ?";
+
+  private static final String SELECT_VOTE_OPTION_SQL =
+      "SELECT option_id FROM oc_poll_vote WHERE poll_id = ? AND voter_hash = ?";
+
+  private static final String SELECT_VOTE_OPTION_FOR_UPDATE_SQL =
+      "SELECT option_id FROM oc_poll_vote WHERE poll_id = ? AND voter_hash = ? FOR UPDATE";
+
+  /** MariaDB/MySQL error code of a duplicate key; other integrity violations share SQLState 23000. */
+  private static final int MYSQL_DUPLICATE_KEY_ERROR = 1062;
+
+  private static final String UPSERT_VOTE_POSTGRESQL_SQL =
+      "WITH previous AS ("
+          + "SELECT option_id FROM oc_poll_vote WHERE poll_id = ? AND voter_hash = ?"
+          + "), upserted AS ("
+          + "INSERT INTO oc_poll_vote (poll_id, voter_hash, option_id, voted_at) VALUES (?, ?, ?, ?) "
+          + "ON CONFLICT (poll_id, voter_hash) DO UPDATE "
+          + "SET option_id = EXCLUDED.option_id, voted_at = EXCLUDED.voted_at "
+          + "RETURNING (xmax <> 0) AS updated"
+          + ") SELECT upserted.updated, (SELECT option_id FROM previous) FROM upserted";
+
+  // The next position keeps the JPA order column of the options list dense
+  private static final String INSERT_OPTION_MYSQL_SQL =
+      "INSERT IGNORE INTO oc_poll_option (poll_id, position, option_id, label, normalized_label) "
+          + "SELECT ?, COALESCE(MAX(position), -1) + 1, ?, ?, ? FROM oc_poll_option WHERE poll_id = ?";
+
+  private static final String INSERT_OPTION_POSTGRESQL_SQL =
+      "INSERT INTO oc_poll_option (poll_id, position, option_id, label, normalized_label) "
+          + "SELECT ?, COALESCE(MAX(position), -1) + 1, ?, ?, ? FROM oc_poll_option WHERE poll_id = ? "
+          + "ON CONFLICT (poll_id, normalized_label) DO NOTHING";
+
+  // Reads the option a concurrent transaction added, which a consistent read of this transaction would not see
+  private static final String SELECT_OPTION_BY_LABEL_FOR_UPDATE_SQL =
+      "SELECT option_id FROM oc_poll_option WHERE poll_id = ? AND normalized_label = ? FOR UPDATE";
+
+  private static final String SELECT_OPTIONS_WITH_TALLIES_SQL =
+      "SELECT o.option_id, o.label, COALESCE(SUM(t.vote_count), 0) FROM oc_poll_option o "
+          + "LEFT JOIN oc_poll_option_tally t ON t.poll_id = o.poll_id AND t.option_id = o.option_id "
+          + "WHERE o.poll_id = ? GROUP BY o.id, o.option_id, o.label, o.position ORDER BY o.position, o.id";
+
+  private static final String INSERT_VOTER_MYSQL_SQL =
+      "INSERT IGNORE INTO oc_poll_voter (voter_hash, user_id) VALUES (?, ?)";
+
+  private static final String INSERT_VOTER_POSTGRESQL_SQL =
+      "INSERT INTO oc_poll_voter (voter_hash, user_id) VALUES (?, ?) ON CONFLICT (voter_hash) DO NOTHING";
+
+  private static final String INSERT_VOTER_SQL =
+      "INSERT INTO oc_poll_voter (voter_hash, user_id) "
+          + "SELECT ?, ? FROM oc_poll_voter WHERE voter_hash = ? HAVING COUNT(*) = 0";
+
+  private static final int MAX_RECORDED_VOTERS = 100_000;
+
+  private static final String INSERT_TALLY_SQL =
+      "INSERT INTO oc_poll_option_tally (poll_id, option_id, shard, vote_count) VALUES (?, ?, ?, ?)";
+
+  private static final String UPDATE_TALLY_SQL =
+      "UPDATE oc_poll_option_tally SET vote_count = vote_count + ? "
+          + "WHERE poll_id = ? AND option_id = ? AND shard = ?";
+
+  private static final String ADD_TALLY_MYSQL_SQL =
+      "INSERT INTO oc_poll_option_tally (poll_id, option_id, shard, vote_count) VALUES (?, ?, ?, ?) "
+          + "ON DUPLICATE KEY UPDATE vote_count = vote_count + ?";
+
+  private static final String ADD_TALLY_POSTGRESQL_SQL =
+      "INSERT INTO oc_poll_option_tally (poll_id, option_id, shard, vote_count) VALUES (?, ?, ?, ?) "
+          + "ON CONFLICT (poll_id, option_id, shard) "
+          + "DO UPDATE SET vote_count = oc_poll_option_tally.vote_count + EXCLUDED.vote_count";
+
+  // Moves one vote between the tallies of two options; rows are passed in option id order so moves lock alike
+  private static final String MOVE_TALLY_MYSQL_SQL =
+      "INSERT INTO oc_poll_option_tally (poll_id, option_id, shard, vote_count) VALUES (?, ?, ?, ?), (?, ?, ?, ?) "
+          + "ON DUPLICATE KEY UPDATE vote_count = vote_count + CASE WHEN option_id = ? THEN 1 ELSE -1 END";
+
+  private static final String MOVE_TALLY_POSTGRESQL_SQL =
+      "INSERT INTO oc_poll_option_tally (poll_id, option_id, shard, vote_count) VALUES (?, ?, ?, ?), (?, ?, ?, ?) "
+          + "ON CONFLICT (poll_id, option_id, shard) "
+          + "DO UPDATE SET vote_count = oc_poll_option_tally.vote_count + EXCLUDED.vote_count";
+
+  private static final String MOVE_TALLY_SQL =
+      "UPDATE oc_poll_option_tally SET vote_count = vote_count + CASE WHEN option_id = ? THEN 1 ELSE -1 END "
+          + "WHERE poll_id = ? AND option_id IN (?, ?) AND shard = 0";
+
+  private static final String MOVE_VOTES_SQL =
+      "UPDATE oc_poll_vote SET option_id = ? WHERE poll_id = ? AND option_id = ?";
+
+  private static final String CLEAR_POLL_TALLIES_SQL = "DELETE FROM oc_poll_option_tally WHERE poll_id = ?";
+
+  private static final String RECOUNT_POLL_TALLIES_SQL =
+      "INSERT INTO oc_poll_option_tally (poll_id, option_id, shard, vote_count) "
+          + "SELECT o.poll_id, o.option_id, 0, COUNT(v.id) FROM oc_poll_option o "
+          + "LEFT JOIN oc_poll_vote v ON v.poll_id = o.poll_id AND v.option_id = o.option_id "
+          + "WHERE o.poll_id = ? GROUP BY o.poll_id, o.option_id";
+
+  private static final String SELECT_TALLIES_SQL =
+      "SELECT option_id, SUM(vote_count) FROM oc_poll_option_tally WHERE poll_id = ? GROUP BY option_id";
+
+  private static final String SELECT_SHARDED_POLLS_SQL =
+      "SELECT DISTINCT poll_id FROM oc_poll_option_tally WHERE shard <> 0";
+
+  private static final String SELECT_TALLY_SHARDS_SQL =
+      "SELECT option_id, shard, vote_count FROM oc_poll_option_tally WHERE poll_id = ? AND shard <> 0";
+
+  private static final String DELETE_EMPTY_TALLY_SHARDS_SQL =
+      "DELETE FROM oc_poll_option_tally WHERE poll_id = ? AND shard <> 0 AND vote_count = 0";
+
+  private static final String COUNT_POLL_SQL = "SELECT COUNT(*) FROM oc_poll WHERE id = ?";
+
+  private static final String LOCK_POLL_SQL = "SELECT id FROM oc_poll WHERE event_id = ? FOR UPDATE";
+
+  private static final String SELECT_POLL_ACTIVE_MYSQL_SQL =
+      "SELECT is_active FROM oc_poll WHERE id = ? LOCK IN SHARE MODE";
+
+  private static final String SELECT_POLL_ACTIVE_POSTGRESQL_SQL =
+      "SELECT is_active FROM oc_poll WHERE id = ? FOR SHARE";
+
+  private static final String SELECT_POLL_ACTIVE_SQL = "SELECT is_active FROM oc_poll WHERE id = ? FOR UPDATE";
+
+  private static final String BUMP_POLL_VERSION_SQL =
+      "UPDATE oc_poll SET version = version + 1 WHERE id = ?";
+
+  private static final String SELECT_POLL_VERSION_SQL =
+      "SELECT id, version FROM oc_poll WHERE event_id = ?";
+
+  private static final int IN_LIST_BATCH_SIZE = 500;
+
+  private static final int MAX_POLL_ID_ATTEMPTS = 5;
+
+  private static final String SELECT_SNAPSHOT_SQL =
+      "SELECT result_json FROM oc_poll_snapshot WHERE event_id = ?";
+
+  private static final String INSERT_SNAPSHOT_SQL =
+      "INSERT INTO oc_poll_snapshot (poll_id, event_id, result_json, total_votes, closed_at, votes_purged) "
+          + "VALUES (?, ?, ?, ?, ?, 0)";
+
+  private static final String DELETE_SNAPSHOT_SQL = "DELETE FROM oc_poll_snapshot WHERE poll_id = ?";
+
+  private static final String SELECT_SNAPSHOT_PURGED_SQL =
+      "SELECT votes_purged FROM oc_poll_snapshot WHERE poll_id = ?";
+
+  private static final String SELECT_PURGEABLE_SNAPSHOTS_SQL =
+      "SELECT poll_id FROM oc_poll_snapshot WHERE votes_purged = 0 AND closed_at < ?";
+
+  private static final String DELETE_POLL_VOTES_SQL = "DELETE FROM oc_poll_vote WHERE poll_id = ?";
+
+  private static final String MARK_SNAPSHOT_PURGED_SQL =
+      "UPDATE oc_poll_snapshot SET votes_purged = 1 WHERE poll_id = ?";
+
+  private static final String SELECT_TOTAL_VOTES_SQL =
+      "SELECT COALESCE(SUM(vote_count), 0) FROM oc_poll_option_tally WHERE poll_id = ?";
+
   private final DBSessionFactory dbSessionFactory;
   private final EntityManagerFactory entityManagerFactory;
+  private final VoteWriteBuffer voteBuffer;
+  private final PollIdAllocator idAllocator;
+  private final boolean storeVoterNames;
+  private final TallyShards tallyShards;
+  private final Gson gson = new Gson();
+  // Voters whose name is known to be in oc_poll_voter, and names of buffered votes not yet written
+  private final Set<String> recordedVoters = ConcurrentHashMap.newKeySet();
+  private final Map<String, String> pendingVoterNames = new ConcurrentHashMap<>();
+  private volatile SqlDialect dialect;
 
   public OpencastPollDataStore(DBSessionFactory dbSessionFactory, EntityManagerFactory entityManagerFactory) {
+    this(dbSessionFactory, entityManagerFactory, null, new PollIdAllocator(PollIdAllocator.localNodeId()));
+  }
+
+  public OpencastPollDataStore(DBSessionFactory dbSessionFactory, EntityManagerFactory entityManagerFactory,
+                               VoteWriteBuffer voteBuffer, PollIdAllocator idAllocator) {
+    this(dbSessionFactory, entityManagerFactory, voteBuffer, idAllocator, true);
+  }
+
+  public OpencastPollDataStore(DBSessionFactory dbSessionFactory, EntityManagerFactory entityManagerFactory,
+                               VoteWriteBuffer voteBuffer, PollIdAllocator idAllocator, boolean storeVoterNames) {
+    this(dbSessionFactory, entityManagerFactory, voteBuffer, idAllocator, storeVoterNames, 1);
+  }
+
+  public OpencastPollDataStore(DBSessionFactory dbSessionFactory, EntityManagerFactory entityManagerFactory,
+                               VoteWriteBuffer voteBuffer, PollIdAllocator idAllocator, boolean storeVoterNames,
+                               int tallyShards) {
     this.dbSessionFactory = dbSessionFactory;
     this.entityManagerFactory = entityManagerFactory;
+    this.voteBuffer = voteBuffer;
+    this.idAllocator = idAllocator;
+    this.storeVoterNames = storeVoterNames;
+    this.tallyShards = new TallyShards(tallyShards);
+    if (voteBuffer != null) {
+      voteBuffer.start(this::writeBufferedVotes);
+    }
   }
 
   @Override
   public PollInfo getPollInfo(String eventId) {
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    BufferedPoll buffered = voteBuffer == null ? null : voteBuffer.get(eventId);
+    if (buffered != null) {
+      return buffered.toInfo();
+    }
+
+    try (DBSession session = openSession()) {
       return session.exec(em -> {
         PollEntity poll = findActivePollByEventId(em, eventId);
         if (poll == null) {
-          return new PollInfo(false, null, false, null, null, null);
+          // Only closed polls have a snapshot row
+          PollDefinition snapshot = loadSnapshot(em, eventId);
+          return snapshot != null ? toPollInfo(snapshot) : new PollInfo(false, null, false, null, null, null);
         }
 
         int totalVotes = countTotalVotes(em, poll.getId());
@@ -65,12 +288,63 @@ public class OpencastPollDataStore implements PollDataStore {
     }
   }
 
+  @Override
+  public Map<String, PollInfo> getPollInfos(Collection<String> eventIds) {
+    Map<String, PollInfo> infos = new LinkedHashMap<>();
+    List<String> toLoad = new ArrayList<>();
+    for (String eventId : eventIds) {
+      BufferedPoll buffered = voteBuffer == null ? null : voteBuffer.get(eventId);
+      if (buffered != null) {
+        infos.put(eventId, buffered.toInfo());
+      } else if (!toLoad.contains(eventId)) {
+        toLoad.add(eventId);
+      }
+    }
+
+    if (!toLoad.isEmpty()) {
+      try (DBSession session = openSession()) {
+        session.exec(em -> {
+          for (int from = 0; from < toLoad.size(); from += IN_LIST_BATCH_SIZE) {
+            List<String> batch = toLoad.subList(from, Math.min(toLoad.size(), from + IN_LIST_BATCH_SIZE));
+            loadPollInfos(em, batch, infos);
+            List<String> closed = new ArrayList<>();
+            for (String eventId : batch) {
+              if (!infos.containsKey(eventId)) {
+                closed.add(eventId);
+              }
+            }
+            if (!closed.isEmpty()) {
+              loadSnapshotInfos(em, closed, infos);
+            }
+          }
+          return null;
+        });
+      } catch (Exception e) {
+        logger.error("Failed to fetch poll info for {} events", toLoad.size(), e);
+      }
+    }
+
+    for (String eventId : eventIds) {
+      infos.putIfAbsent(eventId, new PollInfo(false, null, false, null, null, null));
+    }
+    return infos;
+  }
+
   @Override
   public PollDefinition getPollDefinition(String eventId) {
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    BufferedPoll buffered = voteBuffer == null ? null : voteBuffer.get(eventId);
+    if (buffered != null) {
+      return buffered.toDefinition();
+    }
+
+    try (DBSession session = openSession()) {
       return session.exec(em -> {
         PollEntity poll = findActivePollByEventId(em, eventId);
-        return poll == null ? null : toPollDefinition(em, poll);
+        if (poll != null) {
+          return toPollDefinition(em, poll);
+        }
+        // Closed polls are served from their snapshot row without reading options or tallies
+        return loadSnapshot(em, eventId);
       });
     } catch (Exception e) {
       logger.error("Failed to fetch poll definition for event {}", eventId, e);
@@ -78,6 +352,51 @@ public class OpencastPollDataStore implements PollDataStore {
     }
   }
 
+  @Override
+  public String getPollVersion(String eventId) {
+    try (DBSession session = openSession()) {
+      return session.exec(em -> {
+        List<?> rows = em.createNativeQuery(SELECT_POLL_VERSION_SQL)
+            .setParameter(1, eventId)
+            .setMaxResults(1)
+            .getResultList();
+        if (rows.isEmpty()) {
+          return null;
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return row[0] + ":" + row[1];
+      });
+    }
+  }
+
+  @Override
+  public Map<String, String> getPollVersions(Collection<String> eventIds) {
+    List<String> toLoad = new ArrayList<>(new LinkedHashSet<>(eventIds));
+    Map<String, String> versions = new HashMap<>();
+    if (toLoad.isEmpty()) {
+      return versions;
+    }
+    try (DBSession session = openSession()) {
+      return session.exec(em -> {
+        for (int from = 0; from < toLoad.size(); from += IN_LIST_BATCH_SIZE) {
+          List<String> batch = toLoad.subList(from, Math.min(toLoad.size(), from + IN_LIST_BATCH_SIZE));
+          String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+          Query query = em.createNativeQuery(
+              "SELECT event_id, id, version FROM oc_poll WHERE event_id IN (" + placeholders + ")"
+          );
+          for (int i = 0; i < batch.size(); i++) {
+            query.setParameter(i + 1, batch.get(i));
+          }
+          for (Object rowObj : query.getResultList()) {
+            Object[] row = (Object[]) rowObj;
+            versions.put((String) row[0], row[1] + ":" + row[2]);
+          }
+        }
+        return versions;
+      });
+    }
+  }
+
   @Override
   public PollDefinition createPoll(String eventId, PollInput pollInput, String userId) {
     if (pollInput == null) {
@@ -91,28 +410,46 @@ public class OpencastPollDataStore implements PollDataStore {
 
     List<String> normalizedOptions = normalizeOptions(pollInput.getOptions());
 
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    if (voteBuffer != null) {
+      voteBuffer.discard(eventId);
+    }
+    return insertPoll(eventId, question, normalizedOptions, pollInput.getIsActive(), userId, true);
+  }
+
+  /**
+   * Inserts a poll with its options; an existing poll of the event is replaced if requested and otherwise makes
+   * the insert fail on the unique event id.
+   */
+  private PollDefinition insertPoll(String eventId, String question, List<String> normalizedOptions,
+                                    Boolean active, String userId, boolean replaceExisting) {
+    try (DBSession session = openSession()) {
       return session.execTx(em -> {
-        PollEntity existing = findPollByEventId(em, eventId);
-        if (existing != null) {
-          em.remove(existing);
-          em.flush();
+        if (replaceExisting) {
+          PollEntity existing = findPollByEventId(em, eventId);
+          if (existing != null) {
+            em.remove(existing);
+            em.flush();
+          }
         }
 
         PollEntity poll = new PollEntity();
         poll.setEventId(eventId);
         poll.setQuestion(question);
-        poll.setActive(pollInput.getIsActive());
+        poll.setActive(active);
         poll.setCreatedBy(userId);
         poll.setCreatedAt(new Date());
         poll.setUpdatedAt(new Date());
 
         List<PollOptionEntity> options = new ArrayList<>();
+        Set<String> normalizedLabels = new HashSet<>();
         for (String label : normalizedOptions) {
           PollOptionEntity option = new PollOptionEntity();
           option.setPoll(poll);
           option.setOptionId(UUID.randomUUID().toString());
           option.setLabel(label);
+          // Presenter-defined options may repeat a label; only the first one is found by free-text answers
+          String normalizedLabel = PollLabelNormalizer.normalize(label);
+          option.setNormalizedLabel(normalizedLabels.add(normalizedLabel) ? normalizedLabel : null);
           options.add(option);
         }
 
@@ -121,6 +458,10 @@ public class OpencastPollDataStore implements PollDataStore {
         em.persist(poll);
         em.flush();
 
+        for (PollOptionEntity option : options) {
+          insertTally(em, poll.getId(), option.getOptionId());
+        }
+
         return toPollDefinition(em, poll);
       });
     }
@@ -132,7 +473,11 @@ public class OpencastPollDataStore implements PollDataStore {
       throw new IllegalArgumentException("Vote input is required");
     }
 
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    if (voteBuffer != null) {
+      return submitBufferedVote(eventId, voteInput, userId);
+    }
+
+    try (DBSession session = openSession()) {
       return session.execTx(em -> {
         PollEntity poll = findActivePollByEventId(em, eventId);
         if (poll == null) {
@@ -147,6 +492,9 @@ public class OpencastPollDataStore implements PollDataStore {
         if (!optionExists(poll, optionId)) {
           throw new IllegalArgumentException("Unknown poll option: " + optionId);
         }
+        if (!lockActivePoll(em, getDialect(em), poll.getId())) {
+          throw new IllegalArgumentException("No active poll exists for event: " + eventId);
+        }
 
         return upsertVote(em, poll, optionId, userId);
       });
@@ -163,36 +511,99 @@ public class OpencastPollDataStore implements PollDataStore {
   }
 
   @Override
-  public List<PollDefinition> listAudiencePolls() {
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+  public AudiencePollPage listAudiencePolls(int first, String after, String createdBy) {
+    long[] cursor = decodeCursor(after);
+    String creator = normalize(createdBy);
+
+    try (DBSession session = openSession()) {
       return session.exec(em -> {
-        TypedQuery<PollEntity> query = em.createQuery(
-            "SELECT DISTINCT p FROM PollEntity p LEFT JOIN FETCH p.options "
-                + "WHERE p.eventId LIKE :audiencePrefix ORDER BY p.updatedAt DESC",
+        StringBuilder jpql = new StringBuilder("SELECT p.id, p.updatedAt FROM PollEntity p "
+            + "WHERE p.eventId LIKE :audiencePrefix");
+        if (!creator.isEmpty()) {
+          jpql.append(" AND p.createdBy = :createdBy");
+        }
+        if (cursor != null) {
+          jpql.append(" AND (p.updatedAt < :updatedAt OR (p.updatedAt = :updatedAt AND p.id < :id))");
+        }
+        jpql.append(" ORDER BY p.updatedAt DESC, p.id DESC");
+
+        TypedQuery<Object[]> pageQuery = em.createQuery(jpql.toString(), Object[].class);
+        pageQuery.setParameter("audiencePrefix", "poll-%");
+        if (!creator.isEmpty()) {
+          pageQuery.setParameter("createdBy", creator);
+        }
+        if (cursor != null) {
+          pageQuery.setParameter("updatedAt", new Date(cursor[0]));
+          pageQuery.setParameter("id", cursor[1]);
+        }
+        pageQuery.setMaxResults(first + 1);
+        List<Object[]> keys = pageQuery.getResultList();
+
+        boolean hasNextPage = keys.size() > first;
+        if (hasNextPage) {
+          keys = keys.subList(0, first);
+        }
+        if (keys.isEmpty()) {
+          return new AudiencePollPage(new ArrayList<PollDefinition>(), null, false);
+        }
+
+        List<Long> pollIds = new ArrayList<>(keys.size());
+        for (Object[] key : keys) {
+          pollIds.add(((Number) key[0]).longValue());
+        }
+
+        TypedQuery<PollEntity> pollQuery = em.createQuery(
+            "SELECT DISTINCT p FROM PollEntity p LEFT JOIN FETCH p.options WHERE p.id IN :ids",
             PollEntity.class
         );
-        query.setParameter("audiencePrefix", "poll-%");
-        List<PollEntity> entities = query.getResultList();
-        List<PollDefinition> polls = new ArrayList<>();
-        for (PollEntity poll : entities) {
-          polls.add(toPollDefinition(em, poll));
+        pollQuery.setParameter("ids", pollIds);
+        Map<Long, PollEntity> pollsById = new HashMap<>();
+        for (PollEntity poll : pollQuery.getResultList()) {
+          pollsById.put(poll.getId(), poll);
+        }
+        Map<Long, Map<String, Integer>> tallies = countVotesByOption(em, pollIds);
+
+        List<PollDefinition> polls = new ArrayList<>(pollIds.size());
+        for (Long pollId : pollIds) {
+          PollEntity poll = pollsById.get(pollId);
+          if (poll == null) {
+            continue;
+          }
+          BufferedPoll buffered = voteBuffer == null ? null : voteBuffer.get(poll.getEventId());
+          polls.add(buffered != null
+              ? buffered.toDefinition()
+              : toPollDefinition(poll, tallies.getOrDefault(pollId, Collections.<String, Integer>emptyMap())));
         }
-        return polls;
+
+        Object[] last = keys.get(keys.size() - 1);
+        String endCursor = encodeCursor((Date) last[1], ((Number) last[0]).longValue());
+        return new AudiencePollPage(polls, endCursor, hasNextPage);
       });
     } catch (Exception e) {
       logger.error("Failed to list audience polls", e);
-      return new ArrayList<PollDefinition>();
+      return new AudiencePollPage(new ArrayList<PollDefinition>(), null, false);
     }
   }
 
   @Override
   public PollDefinition createAudiencePoll(String question, String userId) {
-    String pollPublicId = generatePollPublicId();
-    PollInput input = new PollInput();
-    input.setQuestion(question);
-    input.setOptions(new ArrayList<String>());
-    input.setIsActive(true);
-    return createPoll(pollPublicId, input, userId);
+    String normalizedQuestion = normalize(question);
+    if (normalizedQuestion.isEmpty()) {
+      throw new IllegalArgumentException("Poll question is required");
+    }
+
+    // A node id shared with another node can produce a taken id; the plain insert fails and a fresh id is tried
+    for (int attempt = 1; ; attempt++) {
+      String pollPublicId = idAllocator.next();
+      try {
+        return insertPoll(pollPublicId, normalizedQuestion, new ArrayList<String>(), true, userId, false);
+      } catch (RuntimeException e) {
+        if (!isUniqueViolation(e) || attempt >= MAX_POLL_ID_ATTEMPTS) {
+          throw e;
+        }
+        logger.warn("Audience poll id {} is taken; check that every node has its own pollIdNodeId", pollPublicId);
+      }
+    }
   }
 
   @Override
@@ -207,8 +618,8 @@ public class OpencastPollDataStore implements PollDataStore {
       throw new IllegalStateException("Authenticated user is required");
     }
 
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
-      return session.execTx(em -> {
+    try (DBSession session = openSession()) {
+      boolean deleted = session.execTx(em -> {
         PollEntity poll = findPollByEventId(em, normalizedPollId);
         if (poll == null || !isAudiencePollId(poll.getEventId())) {
           return false;
@@ -223,6 +634,10 @@ public class OpencastPollDataStore implements PollDataStore {
         em.flush();
         return true;
       });
+      if (deleted && voteBuffer != null) {
+        voteBuffer.discard(normalizedPollId);
+      }
+      return deleted;
     }
   }
 
@@ -238,33 +653,44 @@ public class OpencastPollDataStore implements PollDataStore {
       throw new IllegalArgumentException("Answer text is required");
     }
 
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
-      return session.execTx(em -> {
-        PollEntity poll = findActivePollByEventId(em, normalizedPollId);
-        if (poll == null) {
-          throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
-        }
+    if (voteBuffer != null) {
+      return submitBufferedAudienceAnswer(normalizedPollId, normalizedAnswer, userId);
+    }
 
-        PollOptionEntity option = findOptionByLabel(poll, normalizedAnswer);
-        if (option == null) {
-          option = new PollOptionEntity();
-          option.setPoll(poll);
-          option.setOptionId(UUID.randomUUID().toString());
-          option.setLabel(normalizedAnswer);
-          em.persist(option);
+    for (int attempt = 0; ; attempt++) {
+      AtomicBoolean optionAdded = new AtomicBoolean();
+      try (DBSession session = openSession()) {
+        PollVoteResult result = session.execTx(em -> {
+          SqlDialect currentDialect = getDialect(em);
+          if (currentDialect != SqlDialect.OTHER) {
+            Long id = requireActivePollId(em, normalizedPollId);
+            if (!lockActivePoll(em, currentDialect, id)) {
+              throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
+            }
+            String optionId = findOrInsertOption(em, currentDialect, id, normalizedAnswer, optionAdded);
+            return upsertVote(em, currentDialect, id, optionId, userId);
+          }
 
-          List<PollOptionEntity> options = poll.getOptions();
-          if (options == null) {
-            options = new ArrayList<>();
-            poll.setOptions(options);
+          PollEntity poll = findActivePollByEventId(em, normalizedPollId);
+          if (poll == null || !lockActivePoll(em, currentDialect, poll.getId())) {
+            throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
           }
-          options.add(option);
-          em.merge(poll);
-          em.flush();
+          PollOptionEntity option = findOptionByLabel(em, poll, normalizedAnswer);
+          if (option == null) {
+            option = addOption(em, poll, normalizedAnswer);
+          }
+          return upsertVote(em, poll, option.getOptionId(), userId);
+        });
+        if (optionAdded.get()) {
+          evictPoll(Long.valueOf(result.pollId()));
         }
-
-        return upsertVote(em, poll, option.getOptionId(), userId);
-      });
+        return result;
+      } catch (RuntimeException e) {
+        // Without an upsert, a concurrent request may add the same answer first; the retry finds its option
+        if (attempt > 0 || !isUniqueViolation(e)) {
+          throw e;
+        }
+      }
     }
   }
 
@@ -280,7 +706,12 @@ public class OpencastPollDataStore implements PollDataStore {
       throw new IllegalArgumentException("Answer id is required");
     }
 
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    if (voteBuffer != null) {
+      return submitBufferedVote(normalizedPollId, normalizedAnswerId, userId,
+          "No audience poll exists for id: ", "Unknown audience answer id: ");
+    }
+
+    try (DBSession session = openSession()) {
       return session.execTx(em -> {
         PollEntity poll = findActivePollByEventId(em, normalizedPollId);
         if (poll == null) {
@@ -290,135 +721,1091 @@ public class OpencastPollDataStore implements PollDataStore {
         if (!optionExists(poll, normalizedAnswerId)) {
           throw new IllegalArgumentException("Unknown audience answer id: " + normalizedAnswerId);
         }
+        if (!lockActivePoll(em, getDialect(em), poll.getId())) {
+          throw new IllegalArgumentException("No audience poll exists for id: " + normalizedPollId);
+        }
 
         return upsertVote(em, poll, normalizedAnswerId, userId);
       });
     }
   }
 
-  private PollVoteResult upsertVote(EntityManager em, PollEntity poll, String optionId, String userId) {
-    String voterKey = normalize(userId);
-    if (voterKey.isEmpty()) {
-      voterKey = "anonymous";
+  @Override
+  public PollDefinition addAudienceAnswer(String pollId, String answer, String userId) {
+    String normalizedPollId = normalize(pollId);
+    String normalizedAnswer = normalize(answer);
+    if (normalizedAnswer.isEmpty()) {
+      throw new IllegalArgumentException("Answer text is required");
     }
 
-    PollVoteEntity existingVote = findVoteByPollAndUser(em, poll.getId(), voterKey);
-    if (existingVote == null) {
-      PollVoteEntity vote = new PollVoteEntity();
-      vote.setPoll(poll);
-      vote.setUserId(voterKey);
-      vote.setOptionId(optionId);
-      vote.setVotedAt(new Date());
-      em.persist(vote);
-    } else {
-      existingVote.setOptionId(optionId);
-      existingVote.setVotedAt(new Date());
-      em.merge(existingVote);
+    PollOptionEntity option = null;
+    for (int attempt = 0; option == null; attempt++) {
+      try (DBSession session = openSession()) {
+        option = session.execTx(em -> {
+          PollEntity poll = findOwnedAudiencePoll(em, normalizedPollId, userId);
+          PollOptionEntity existing = findOptionByLabel(em, poll, normalizedAnswer);
+          return existing != null ? existing : addOption(em, poll, normalizedAnswer);
+        });
+      } catch (RuntimeException e) {
+        if (attempt > 0 || !isUniqueViolation(e)) {
+          throw e;
+        }
+      }
     }
 
-    em.flush();
+    BufferedPoll buffered = voteBuffer == null ? null : voteBuffer.get(normalizedPollId);
+    if (buffered != null && !buffered.hasOption(option.getOptionId())) {
+      buffered.addOption(option.getOptionId(), option.getLabel());
+    }
+    return getPollDefinition(normalizedPollId);
+  }
 
-    PollDefinition definition = toPollDefinition(em, poll);
-    int totalVotes = 0;
-    for (PollOption option : definition.options()) {
-      totalVotes += option.voteCount();
+  @Override
+  public PollDefinition mergeAudienceAnswers(String pollId, String targetAnswerId, List<String> sourceAnswerIds,
+                                             String userId) {
+    String normalizedPollId = normalize(pollId);
+    String target = normalize(targetAnswerId);
+    Set<String> sources = new HashSet<>();
+    for (String sourceAnswerId : sourceAnswerIds) {
+      String source = normalize(sourceAnswerId);
+      if (!source.equals(target)) {
+        sources.add(source);
+      }
     }
 
-    return new PollVoteResult(
-        String.valueOf(poll.getId()),
-        optionId,
-        totalVotes,
-        true,
-        definition.options()
-    );
-  }
+    if (voteBuffer != null) {
+      // Pending votes for the merged answers have to reach the database before they are moved
+      voteBuffer.flushAndEvict(normalizedPollId);
+    }
 
-  private String generatePollPublicId() {
-    String candidate;
-    do {
-      candidate = "poll-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
-    } while (pollExistsByEventId(candidate));
-    return candidate;
-  }
+    try (DBSession session = openSession()) {
+      return session.execTx(em -> {
+        PollEntity poll = findOwnedAudiencePoll(em, normalizedPollId, userId);
+        if (!optionExists(poll, target)) {
+          throw new IllegalArgumentException("Unknown audience answer id: " + target);
+        }
+        for (String source : sources) {
+          if (!optionExists(poll, source)) {
+            throw new IllegalArgumentException("Unknown audience answer id: " + source);
+          }
+        }
+        if (sources.isEmpty()) {
+          return toPollDefinition(em, poll);
+        }
 
-  private boolean pollExistsByEventId(String eventId) {
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
-      return session.exec(em -> findPollByEventId(em, eventId) != null);
+        for (String source : sources) {
+          em.createNativeQuery(MOVE_VOTES_SQL)
+              .setParameter(1, target)
+              .setParameter(2, poll.getId())
+              .setParameter(3, source)
+              .executeUpdate();
+        }
+        poll.getOptions().removeIf(option -> sources.contains(option.getOptionId()));
+        poll.setUpdatedAt(new Date());
+        em.flush();
+        recountTallies(em, poll.getId());
+        bumpPollVersion(em, poll.getId());
+        return toPollDefinition(em, poll);
+      });
     }
   }
 
-  private PollEntity findActivePollByEventId(EntityManager em, String eventId) {
-    TypedQuery<PollEntity> query = em.createQuery(
-        "SELECT p FROM PollEntity p LEFT JOIN FETCH p.options "
-            + "WHERE p.eventId = :eventId AND p.active = true",
-        PollEntity.class
-    );
-    query.setParameter("eventId", eventId);
-    query.setMaxResults(1);
-    List<PollEntity> results = query.getResultList();
-    return results.isEmpty() ? null : results.get(0);
+  private PollEntity findOwnedAudiencePoll(EntityManager em, String pollId, String userId) {
+    PollEntity poll = findPollByEventId(em, pollId);
+    if (poll == null || !isAudiencePollId(poll.getEventId())) {
+      throw new IllegalArgumentException("No audience poll exists for id: " + pollId);
+    }
+    String createdBy = normalize(poll.getCreatedBy());
+    if (createdBy.isEmpty() || !createdBy.equals(normalize(userId))) {
+      throw new IllegalStateException("Only the poll creator can change answers of this poll");
+    }
+    if (!poll.isActive()) {
+      throw new IllegalStateException("Poll is not active");
+    }
+    return poll;
   }
 
-  private PollEntity findPollByEventId(EntityManager em, String eventId) {
-    TypedQuery<PollEntity> query = em.createQuery(
-        "SELECT p FROM PollEntity p LEFT JOIN FETCH p.options WHERE p.eventId = :eventId",
-        PollEntity.class
-    );
-    query.setParameter("eventId", eventId);
-    query.setMaxResults(1);
-    List<PollEntity> results = query.getResultList();
-    return results.isEmpty() ? null : results.get(0);
-  }
+  @Override
+  public PollDefinition closePoll(String pollId, String userId, PollVoteTimeline voteTimeline) {
+    String normalizedPollId = normalize(pollId);
+    if (normalizedPollId.isEmpty()) {
+      throw new IllegalArgumentException("Poll id is required");
+    }
 
-  private PollVoteEntity findVoteByPollAndUser(EntityManager em, Long pollId, String userId) {
-    TypedQuery<PollVoteEntity> query = em.createQuery(
-        "SELECT v FROM PollVoteEntity v WHERE v.poll.id = :pollId AND v.userId = :userId",
-        PollVoteEntity.class
-    );
-    query.setParameter("pollId", pollId);
-    query.setParameter("userId", userId);
-    query.setMaxResults(1);
-    List<PollVoteEntity> results = query.getResultList();
-    return results.isEmpty() ? null : results.get(0);
-  }
+    if (voteBuffer != null) {
+      // Pending votes have to be counted before the tally is frozen, and no new ones are buffered meanwhile
+      voteBuffer.beginClose(normalizedPollId);
+    }
+    try {
+      if (voteBuffer != null) {
+        voteBuffer.flushAndEvict(normalizedPollId);
+      }
 
-  private PollDefinition toPollDefinition(EntityManager em, PollEntity poll) {
-    Map<String, Integer> voteCountByOptionId = countVotesByOption(em, poll.getId());
+      try (DBSession session = openSession()) {
+        return session.execTx(em -> {
+          // Votes re-read the active flag under a shared lock, so none of them commits after the snapshot is taken
+          em.createNativeQuery(LOCK_POLL_SQL)
+              .setParameter(1, normalizedPollId)
+              .getResultList();
+          PollEntity poll = findOwnedPoll(em, normalizedPollId, userId);
+          if (!poll.isActive()) {
+            PollDefinition snapshot = loadSnapshot(em, normalizedPollId);
+            if (snapshot != null) {
+              return snapshot;
+            }
+          }
 
-    List<PollOption> options = new ArrayList<>();
-    if (poll.getOptions() != null) {
-      for (PollOptionEntity option : poll.getOptions()) {
-        int voteCount = voteCountByOptionId.getOrDefault(option.getOptionId(), 0);
-        options.add(new PollOption(option.getOptionId(), option.getLabel(), voteCount));
+          poll.setActive(false);
+          poll.setUpdatedAt(new Date());
+          em.merge(poll);
+          em.flush();
+
+          // The snapshot JSON carries the downsampled vote timeline, so closed polls need no extra table
+          PollDefinition definition = toPollDefinition(em, poll).withVoteTimeline(voteTimeline);
+          em.createNativeQuery(DELETE_SNAPSHOT_SQL)
+              .setParameter(1, poll.getId())
+              .executeUpdate();
+          em.createNativeQuery(INSERT_SNAPSHOT_SQL)
+              .setParameter(1, poll.getId())
+              .setParameter(2, poll.getEventId())
+              .setParameter(3, gson.toJson(definition))
+              .setParameter(4, totalVotes(definition))
+              .setParameter(5, new Timestamp(poll.getUpdatedAt().getTime()))
+              .executeUpdate();
+          bumpPollVersion(em, poll.getId());
+          return definition;
+        });
+      }
+    } finally {
+      if (voteBuffer != null) {
+        voteBuffer.endClose(normalizedPollId);
       }
     }
-
-    return new PollDefinition(
-        String.valueOf(poll.getId()),
-        poll.getEventId(),
-        poll.getQuestion(),
-        poll.isActive(),
-        poll.getCreatedBy(),
-        options
-    );
   }
 
-  private int countTotalVotes(EntityManager em, Long pollId) {
-    Number result = em.createQuery(
-        "SELECT COUNT(v) FROM PollVoteEntity v WHERE v.poll.id = :pollId",
-        Number.class
-    )
-        .setParameter("pollId", pollId)
-        .getSingleResult();
-    return result.intValue();
+  @Override
+  public PollDefinition reopenPoll(String pollId, String userId) {
+    String normalizedPollId = normalize(pollId);
+    if (normalizedPollId.isEmpty()) {
+      throw new IllegalArgumentException("Poll id is required");
+    }
+
+    try (DBSession session = openSession()) {
+      return session.execTx(em -> {
+        PollEntity poll = findOwnedPoll(em, normalizedPollId, userId);
+        if (poll.isActive()) {
+          return toPollDefinition(em, poll);
+        }
+
+        List<?> purged = em.createNativeQuery(SELECT_SNAPSHOT_PURGED_SQL)
+            .setParameter(1, poll.getId())
+            .getResultList();
+        if (!purged.isEmpty() && isTrue(purged.get(0))) {
+          // Without the vote rows a returning voter could not replace their earlier vote
+          throw new IllegalStateException("Votes of this poll were purged; it cannot be reopened");
+        }
+
+        em.createNativeQuery(DELETE_SNAPSHOT_SQL)
+            .setParameter(1, poll.getId())
+            .executeUpdate();
+        poll.setActive(true);
+        poll.setUpdatedAt(new Date());
+        em.merge(poll);
+        em.flush();
+        bumpPollVersion(em, poll.getId());
+        return toPollDefinition(em, poll);
+      });
+    }
   }
 
-  private Map<String, Integer> countVotesByOption(EntityManager em, Long pollId) {
-    List<?> rows = em.createQuery(
-        "SELECT v.optionId, COUNT(v) FROM PollVoteEntity v "
-            + "WHERE v.poll.id = :pollId GROUP BY v.optionId"
+  @Override
+  public int purgeClosedPollVotes(long closedBefore) {
+    List<Long> pollIds = new ArrayList<>();
+    try (DBSession session = openSession()) {
+      session.exec(em -> {
+        for (Object pollId : em.createNativeQuery(SELECT_PURGEABLE_SNAPSHOTS_SQL)
+            .setParameter(1, new Timestamp(closedBefore))
+            .getResultList()) {
+          pollIds.add(((Number) pollId).longValue());
+        }
+        return null;
+      });
+    }
+
+    int purged = 0;
+    for (Long pollId : pollIds) {
+      // One transaction per poll keeps locks on oc_poll_vote short
+      try (DBSession session = openSession()) {
+        purged += session.execTx(em -> {
+          int deleted = em.createNativeQuery(DELETE_POLL_VOTES_SQL)
+              .setParameter(1, pollId)
+              .executeUpdate();
+          em.createNativeQuery(MARK_SNAPSHOT_PURGED_SQL)
+              .setParameter(1, pollId)
+              .executeUpdate();
+          return deleted;
+        });
+      }
+    }
+    return purged;
+  }
+
+  @Override
+  public int compactTallies(int maxPolls) {
+    List<Long> pollIds = new ArrayList<>();
+    try (DBSession session = openSession()) {
+      session.exec(em -> {
+        for (Object pollId : em.createNativeQuery(SELECT_SHARDED_POLLS_SQL)
+            .setMaxResults(maxPolls)
+            .getResultList()) {
+          pollIds.add(((Number) pollId).longValue());
+        }
+        return null;
+      });
+    }
+
+    for (Long pollId : pollIds) {
+      try (DBSession session = openSession()) {
+        session.execTx(em -> {
+          compactTallies(em, pollId);
+          return null;
+        });
+      }
+    }
+    return pollIds.size();
+  }
+
+  /**
+   * Moves the counts of all shards of a poll into shard 0. Each count read is subtracted from its shard rather
+   * than the row being deleted, so votes added meanwhile, or a compaction running on another node, are kept.
+   */
+  private void compactTallies(EntityManager em, Long pollId) {
+    Map<String, Long> compacted = new LinkedHashMap<>();
+    for (Object rowObj : em.createNativeQuery(SELECT_TALLY_SHARDS_SQL)
+        .setParameter(1, pollId)
+        .getResultList()) {
+      Object[] row = (Object[]) rowObj;
+      long count = ((Number) row[2]).longValue();
+      if (count == 0) {
+        continue;
+      }
+      String optionId = String.valueOf(row[0]);
+      em.createNativeQuery(UPDATE_TALLY_SQL)
+          .setParameter(1, -count)
+          .setParameter(2, pollId)
+          .setParameter(3, optionId)
+          .setParameter(4, ((Number) row[1]).intValue())
+          .executeUpdate();
+      compacted.merge(optionId, count, Long::sum);
+    }
+    for (Map.Entry<String, Long> option : compacted.entrySet()) {
+      addToTally(em, pollId, option.getKey(), 0, option.getValue());
+    }
+    em.createNativeQuery(DELETE_EMPTY_TALLY_SHARDS_SQL)
+        .setParameter(1, pollId)
+        .executeUpdate();
+  }
+
+  private PollEntity findOwnedPoll(EntityManager em, String pollId, String userId) {
+    PollEntity poll = findPollByEventId(em, pollId);
+    if (poll == null) {
+      throw new IllegalArgumentException("No poll exists for id: " + pollId);
+    }
+    String createdBy = normalize(poll.getCreatedBy());
+    if (createdBy.isEmpty() || !createdBy.equals(normalize(userId))) {
+      throw new IllegalStateException("Only the poll creator can close or reopen this poll");
+    }
+    return poll;
+  }
+
+  private PollDefinition loadSnapshot(EntityManager em, String eventId) {
+    List<?> rows = em.createNativeQuery(SELECT_SNAPSHOT_SQL)
+        .setParameter(1, eventId)
+        .setMaxResults(1)
+        .getResultList();
+    return rows.isEmpty() ? null : gson.fromJson(toStringValue(rows.get(0)), PollDefinition.class);
+  }
+
+  private void loadSnapshotInfos(EntityManager em, List<String> eventIds, Map<String, PollInfo> infos) {
+    String placeholders = String.join(", ", Collections.nCopies(eventIds.size(), "?"));
+    Query query = em.createNativeQuery(
+        "SELECT result_json FROM oc_poll_snapshot WHERE event_id IN (" + placeholders + ")"
+    );
+    for (int i = 0; i < eventIds.size(); i++) {
+      query.setParameter(i + 1, eventIds.get(i));
+    }
+    for (Object json : query.getResultList()) {
+      PollDefinition snapshot = gson.fromJson(toStringValue(json), PollDefinition.class);
+      infos.put(snapshot.eventId(), toPollInfo(snapshot));
+    }
+  }
+
+  private static PollInfo toPollInfo(PollDefinition definition) {
+    return new PollInfo(
+        true,
+        definition.id(),
+        definition.isActive(),
+        definition.question(),
+        definition.options().size(),
+        totalVotes(definition)
+    );
+  }
+
+  private static int totalVotes(PollDefinition definition) {
+    int total = 0;
+    for (PollOption option : definition.options()) {
+      total += option.voteCount();
+    }
+    return total;
+  }
+
+  private static boolean isTrue(Object value) {
+    return value instanceof Boolean ? (Boolean) value : value instanceof Number && ((Number) value).intValue() != 0;
+  }
+
+  private PollVoteResult submitBufferedVote(String eventId, PollVoteInput voteInput, String userId) {
+    BufferedPoll poll = voteBuffer.getOrLoad(eventId, this::loadBufferedPoll);
+    if (poll != null && voteInput.getPollId() != null
+        && !voteInput.getPollId().equals(String.valueOf(poll.getPollId()))) {
+      throw new IllegalArgumentException("Poll id does not match event poll");
+    }
+    return submitBufferedVote(eventId, normalize(voteInput.getOptionId()), userId,
+        "No active poll exists for event: ", "Unknown poll option: ");
+  }
+
+  private PollVoteResult submitBufferedVote(String eventId, String optionId, String userId,
+                                            String missingPollMessage, String unknownOptionMessage) {
+    String voterName = toVoterKey(userId);
+    String voterKey = VoterHash.toHex(VoterHash.of(voterName));
+    if (storeVoterNames && !recordedVoters.contains(voterKey)) {
+      pendingVoterNames.putIfAbsent(voterKey, voterName);
+    }
+    while (true) {
+      BufferedPoll poll = voteBuffer.getOrLoad(eventId, this::loadBufferedPoll);
+      if (poll == null) {
+        throw new IllegalArgumentException(missingPollMessage + eventId);
+      }
+      if (!poll.hasOption(optionId)) {
+        throw new IllegalArgumentException(unknownOptionMessage + optionId);
+      }
+      if (voteBuffer.vote(poll, voterKey, optionId, new Date())) {
+        return poll.toVoteResult(optionId);
+      }
+    }
+  }
+
+  private PollVoteResult submitBufferedAudienceAnswer(String pollId, String answer, String userId) {
+    BufferedPoll poll = voteBuffer.getOrLoad(pollId, this::loadBufferedPoll);
+    if (poll == null) {
+      throw new IllegalArgumentException("No audience poll exists for id: " + pollId);
+    }
+
+    String optionId = poll.findOptionIdByLabel(answer);
+    if (optionId == null) {
+      optionId = findOrAddOptionId(pollId, poll.getPollId(), answer);
+      poll.addOption(optionId, answer);
+    }
+
+    return submitBufferedVote(pollId, optionId, userId,
+        "No audience poll exists for id: ", "Unknown audience answer id: ");
+  }
+
+  private String findOrAddOptionId(String pollId, long id, String answer) {
+    for (int attempt = 0; ; attempt++) {
+      AtomicBoolean optionAdded = new AtomicBoolean();
+      try (DBSession session = openSession()) {
+        String optionId = session.execTx(em -> {
+          SqlDialect currentDialect = getDialect(em);
+          if (currentDialect != SqlDialect.OTHER) {
+            requireActivePollId(em, pollId);
+            return findOrInsertOption(em, currentDialect, id, answer, optionAdded);
+          }
+
+          PollEntity entity = findActivePollByEventId(em, pollId);
+          if (entity == null) {
+            throw new IllegalArgumentException("No audience poll exists for id: " + pollId);
+          }
+          PollOptionEntity existing = findOptionByLabel(em, entity, answer);
+          return existing != null ? existing.getOptionId() : addOption(em, entity, answer).getOptionId();
+        });
+        if (optionAdded.get()) {
+          evictPoll(id);
+        }
+        return optionId;
+      } catch (RuntimeException e) {
+        if (attempt > 0 || !isUniqueViolation(e)) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private BufferedPoll loadBufferedPoll(String eventId) {
+    try (DBSession session = openSession()) {
+      return session.exec(em -> {
+        PollEntity poll = findActivePollByEventId(em, eventId);
+        if (poll == null) {
+          return null;
+        }
+
+        BufferedPoll buffered = new BufferedPoll(
+            poll.getId(),
+            poll.getEventId(),
+            poll.getQuestion(),
+            poll.isActive(),
+            poll.getCreatedBy()
+        );
+        if (poll.getOptions() != null) {
+          for (PollOptionEntity option : poll.getOptions()) {
+            buffered.addOption(option.getOptionId(), option.getLabel());
+          }
+        }
+
+        List<?> rows = em.createQuery(
+            "SELECT v.voterHash, v.optionId FROM PollVoteEntity v WHERE v.poll.id = :pollId"
+        )
+            .setParameter("pollId", poll.getId())
+            .getResultList();
+        for (Object rowObj : rows) {
+          Object[] row = (Object[]) rowObj;
+          buffered.addPersistedVote(VoterHash.toHex((byte[]) row[0]), String.valueOf(row[1]));
+        }
+        return buffered;
+      });
+    }
+  }
+
+  /**
+   * Writes the pending votes of one poll, or returns false if the poll was deleted or replaced meanwhile.
+   */
+  private boolean writeBufferedVotes(List<BufferedPoll.PendingVote> votes) {
+    Long pollId = votes.get(0).getPollId();
+    Map<String, String> voterNames = new HashMap<>();
+    if (storeVoterNames) {
+      for (BufferedPoll.PendingVote vote : votes) {
+        String name = pendingVoterNames.remove(vote.getVoterKey());
+        if (name != null) {
+          voterNames.put(vote.getVoterKey(), name);
+        }
+      }
+    }
+
+    boolean written;
+    try (DBSession session = openSession()) {
+      written = session.execTx(em -> {
+        Number polls = (Number) em.createNativeQuery(COUNT_POLL_SQL)
+            .setParameter(1, pollId)
+            .getSingleResult();
+        if (polls.intValue() == 0) {
+          return false;
+        }
+
+        SqlDialect currentDialect = getDialect(em);
+        Connection connection = em.unwrap(Connection.class);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_VOTE_SQL);
+             PreparedStatement update = connection.prepareStatement(UPDATE_VOTE_SQL)) {
+          int inserts = 0;
+          int updates = 0;
+          for (BufferedPoll.PendingVote vote : votes) {
+            Timestamp votedAt = new Timestamp(vote.getVotedAt().getTime());
+            if (vote.isInsert()) {
+              insert.setLong(1, vote.getPollId());
+              insert.setBytes(2, VoterHash.fromHex(vote.getVoterKey()));
+              insert.setString(3, vote.getOptionId());
+              insert.setTimestamp(4, votedAt);
+              insert.addBatch();
+              if (++inserts % VOTE_BATCH_SIZE == 0) {
+                insert.executeBatch();
+                PollMetrics.countStatement();
+              }
+            } else {
+              update.setString(1, vote.getOptionId());
+              update.setTimestamp(2, votedAt);
+              update.setLong(3, vote.getPollId());
+              update.setBytes(4, VoterHash.fromHex(vote.getVoterKey()));
+              update.addBatch();
+              if (++updates % VOTE_BATCH_SIZE == 0) {
+                update.executeBatch();
+                PollMetrics.countStatement();
+              }
+            }
+          }
+          if (inserts % VOTE_BATCH_SIZE != 0) {
+            insert.executeBatch();
+            PollMetrics.countStatement();
+          }
+          if (updates % VOTE_BATCH_SIZE != 0) {
+            update.executeBatch();
+            PollMetrics.countStatement();
+          }
+          writeTallyDeltas(connection, currentDialect, votes);
+          insertVoterNames(connection, currentDialect, voterNames);
+        } catch (SQLException e) {
+          throw new IllegalStateException("Failed to write buffered poll votes", e);
+        }
+        return true;
+      });
+    } catch (RuntimeException e) {
+      // The votes are retried with the next flush, so are their names
+      voterNames.forEach(pendingVoterNames::putIfAbsent);
+      throw e;
+    }
+    if (written) {
+      markRecorded(voterNames.keySet());
+    } else {
+      voterNames.forEach(pendingVoterNames::putIfAbsent);
+    }
+    return written;
+  }
+
+  private void recordVoterName(EntityManager em, SqlDialect currentDialect, byte[] voterHash, String voterName) {
+    String voterKey = VoterHash.toHex(voterHash);
+    if (!storeVoterNames || recordedVoters.contains(voterKey)) {
+      return;
+    }
+    try {
+      insertVoterNames(em.unwrap(Connection.class), currentDialect,
+          Collections.singletonMap(voterKey, voterName));
+    } catch (SQLException e) {
+      throw new IllegalStateException("Failed to record poll voter", e);
+    }
+    // Marked before the commit; a rolled back vote leaves the name unrecorded until the set is reset
+    markRecorded(Collections.singleton(voterKey));
+  }
+
+  private void insertVoterNames(Connection connection, SqlDialect currentDialect, Map<String, String> voterNames)
+      throws SQLException {
+    if (voterNames.isEmpty()) {
+      return;
+    }
+    String sql = currentDialect == SqlDialect.MYSQL
+        ? INSERT_VOTER_MYSQL_SQL
+        : currentDialect == SqlDialect.POSTGRESQL ? INSERT_VOTER_POSTGRESQL_SQL : INSERT_VOTER_SQL;
+    try (PreparedStatement insert = connection.prepareStatement(sql)) {
+      for (Map.Entry<String, String> voter : voterNames.entrySet()) {
+        byte[] voterHash = VoterHash.fromHex(voter.getKey());
+        insert.setBytes(1, voterHash);
+        insert.setString(2, voter.getValue());
+        if (currentDialect == SqlDialect.OTHER) {
+          insert.setBytes(3, voterHash);
+        }
+        insert.addBatch();
+      }
+      insert.executeBatch();
+      PollMetrics.countStatement();
+    }
+  }
+
+  private void markRecorded(Collection<String> voterKeys) {
+    if (recordedVoters.size() > MAX_RECORDED_VOTERS) {
+      recordedVoters.clear();
+    }
+    recordedVoters.addAll(voterKeys);
+  }
+
+  private void writeTallyDeltas(Connection connection, SqlDialect currentDialect,
+                                List<BufferedPoll.PendingVote> votes) throws SQLException {
+    Map<Long, Map<String, Integer>> deltas = new LinkedHashMap<>();
+    for (BufferedPoll.PendingVote vote : votes) {
+      if (vote.getOptionId().equals(vote.getPreviousOptionId())) {
+        continue;
+      }
+      Map<String, Integer> pollDeltas = deltas.computeIfAbsent(vote.getPollId(), id -> new LinkedHashMap<>());
+      pollDeltas.merge(vote.getOptionId(), 1, Integer::sum);
+      if (vote.getPreviousOptionId() != null) {
+        pollDeltas.merge(vote.getPreviousOptionId(), -1, Integer::sum);
+      }
+    }
+
+    int shard = tallyShard(currentDialect);
+    if (shard == 0) {
+      // Shard 0 rows are created with their option
+      try (PreparedStatement update = connection.prepareStatement(UPDATE_TALLY_SQL)) {
+        for (Map.Entry<Long, Map<String, Integer>> pollDeltas : deltas.entrySet()) {
+          for (Map.Entry<String, Integer> delta : pollDeltas.getValue().entrySet()) {
+            if (delta.getValue() != 0) {
+              update.setInt(1, delta.getValue());
+              update.setLong(2, pollDeltas.getKey());
+              update.setString(3, delta.getKey());
+              update.setInt(4, 0);
+              update.addBatch();
+            }
+          }
+        }
+        update.executeBatch();
+        PollMetrics.countStatement();
+      }
+    } else {
+      String sql = currentDialect == SqlDialect.MYSQL ? ADD_TALLY_MYSQL_SQL : ADD_TALLY_POSTGRESQL_SQL;
+      try (PreparedStatement add = connection.prepareStatement(sql)) {
+        for (Map.Entry<Long, Map<String, Integer>> pollDeltas : deltas.entrySet()) {
+          for (Map.Entry<String, Integer> delta : pollDeltas.getValue().entrySet()) {
+            if (delta.getValue() != 0) {
+              add.setLong(1, pollDeltas.getKey());
+              add.setString(2, delta.getKey());
+              add.setInt(3, shard);
+              add.setInt(4, delta.getValue());
+              if (currentDialect == SqlDialect.MYSQL) {
+                add.setInt(5, delta.getValue());
+              }
+              add.addBatch();
+            }
+          }
+        }
+        add.executeBatch();
+        PollMetrics.countStatement();
+      }
+    }
+  }
+
+  private DBSession openSession() {
+    PollMetrics.countSession();
+    return dbSessionFactory.createSession(entityManagerFactory);
+  }
+
+  private PollOptionEntity addOption(EntityManager em, PollEntity poll, String label) {
+    PollOptionEntity option = new PollOptionEntity();
+    option.setPoll(poll);
+    option.setOptionId(UUID.randomUUID().toString());
+    option.setLabel(label);
+    option.setNormalizedLabel(PollLabelNormalizer.normalize(label));
+    em.persist(option);
+
+    List<PollOptionEntity> options = poll.getOptions();
+    if (options == null) {
+      options = new ArrayList<>();
+      poll.setOptions(options);
+    }
+    options.add(option);
+    em.merge(poll);
+    em.flush();
+    insertTally(em, poll.getId(), option.getOptionId());
+    bumpPollVersion(em, poll.getId());
+    return option;
+  }
+
+  private PollVoteResult upsertVote(EntityManager em, PollEntity poll, String optionId, String userId) {
+    String voterName = toVoterKey(userId);
+    byte[] voterHash = VoterHash.of(voterName);
+
+    SqlDialect currentDialect = getDialect(em);
+    if (currentDialect == SqlDialect.MYSQL || currentDialect == SqlDialect.POSTGRESQL) {
+      upsertVoteNative(em, currentDialect, poll.getId(), voterHash, optionId);
+    } else {
+      upsertVoteEntity(em, poll, voterHash, optionId);
+    }
+    recordVoterName(em, currentDialect, voterHash, voterName);
+
+    em.flush();
+
+    PollDefinition definition = toPollDefinition(em, poll);
+    int totalVotes = 0;
+    for (PollOption option : definition.options()) {
+      totalVotes += option.voteCount();
+    }
+
+    return new PollVoteResult(
+        String.valueOf(poll.getId()),
+        optionId,
+        totalVotes,
+        true,
+        definition.options()
+    );
+  }
+
+  /**
+   * Stores a vote without loading the poll entity; only for databases with native upserts.
+   */
+  private PollVoteResult upsertVote(EntityManager em, SqlDialect currentDialect, Long pollId, String optionId,
+                                    String userId) {
+    String voterName = toVoterKey(userId);
+    byte[] voterHash = VoterHash.of(voterName);
+    upsertVoteNative(em, currentDialect, pollId, voterHash, optionId);
+    recordVoterName(em, currentDialect, voterHash, voterName);
+
+    List<PollOption> options = new ArrayList<>();
+    int totalVotes = 0;
+    List<?> rows = em.createNativeQuery(SELECT_OPTIONS_WITH_TALLIES_SQL)
+        .setParameter(1, pollId)
+        .getResultList();
+    for (Object rowObj : rows) {
+      Object[] row = (Object[]) rowObj;
+      int voteCount = Math.max(0, ((Number) row[2]).intValue());
+      options.add(new PollOption(toStringValue(row[0]), toStringValue(row[1]), voteCount));
+      totalVotes += voteCount;
+    }
+    return new PollVoteResult(String.valueOf(pollId), optionId, totalVotes, true, options);
+  }
+
+  /**
+   * Reads the active flag of a poll under a shared row lock. A vote either commits before a concurrent close
+   * takes its snapshot or waits for the close and then sees the poll inactive.
+   */
+  private boolean lockActivePoll(EntityManager em, SqlDialect currentDialect, Long pollId) {
+    String sql;
+    if (currentDialect == SqlDialect.MYSQL) {
+      sql = SELECT_POLL_ACTIVE_MYSQL_SQL;
+    } else if (currentDialect == SqlDialect.POSTGRESQL) {
+      sql = SELECT_POLL_ACTIVE_POSTGRESQL_SQL;
+    } else {
+      sql = SELECT_POLL_ACTIVE_SQL;
+    }
+    List<?> rows = em.createNativeQuery(sql)
+        .setParameter(1, pollId)
+        .getResultList();
+    return !rows.isEmpty() && isTrue(rows.get(0));
+  }
+
+  private Long requireActivePollId(EntityManager em, String eventId) {
+    List<Long> ids = em.createQuery(
+        "SELECT p.id FROM PollEntity p WHERE p.eventId = :eventId AND p.active = true",
+        Long.class
+    )
+        .setParameter("eventId", eventId)
+        .setMaxResults(1)
+        .getResultList();
+    if (ids.isEmpty()) {
+      throw new IllegalArgumentException("No audience poll exists for id: " + eventId);
+    }
+    return ids.get(0);
+  }
+
+  /**
+   * Returns the option of a poll with the normalized label of the answer, adding the answer as a new option if
+   * there is none. Looks up the single option on its unique key instead of loading the poll's options.
+   */
+  private String findOrInsertOption(EntityManager em, SqlDialect currentDialect, Long pollId, String label,
+                                    AtomicBoolean added) {
+    String normalizedLabel = PollLabelNormalizer.normalize(label);
+    List<String> existing = em.createQuery(
+        "SELECT o.optionId FROM PollOptionEntity o WHERE o.poll.id = :pollId AND o.normalizedLabel = :label",
+        String.class
     )
         .setParameter("pollId", pollId)
+        .setParameter("label", normalizedLabel)
+        .setMaxResults(1)
+        .getResultList();
+    if (!existing.isEmpty()) {
+      return existing.get(0);
+    }
+
+    String optionId = UUID.randomUUID().toString();
+    int inserted = em.createNativeQuery(
+        currentDialect == SqlDialect.MYSQL ? INSERT_OPTION_MYSQL_SQL : INSERT_OPTION_POSTGRESQL_SQL
+    )
+        .setParameter(1, pollId)
+        .setParameter(2, optionId)
+        .setParameter(3, label)
+        .setParameter(4, normalizedLabel)
+        .setParameter(5, pollId)
+        .executeUpdate();
+    if (inserted > 0) {
+      insertTally(em, pollId, optionId);
+      bumpPollVersion(em, pollId);
+      added.set(true);
+      return optionId;
+    }
+
+    // A concurrent request added the same answer first
+    List<?> concurrent = em.createNativeQuery(SELECT_OPTION_BY_LABEL_FOR_UPDATE_SQL)
+        .setParameter(1, pollId)
+        .setParameter(2, normalizedLabel)
+        .getResultList();
+    if (concurrent.isEmpty()) {
+      throw new IllegalStateException("Could not add answer to poll " + pollId);
+    }
+    return toStringValue(concurrent.get(0));
+  }
+
+  /** Options added with native SQL are not in the shared cache's copy of the poll. */
+  private void evictPoll(Long pollId) {
+    entityManagerFactory.getCache().evict(PollEntity.class, pollId);
+  }
+
+  private void upsertVoteNative(EntityManager em, SqlDialect currentDialect, Long pollId, byte[] voterHash,
+                                String optionId) {
+    Timestamp votedAt = new Timestamp(System.currentTimeMillis());
+    boolean updated;
+    String previousOptionId;
+
+    if (currentDialect == SqlDialect.POSTGRESQL) {
+      Object[] row = (Object[]) em.createNativeQuery(UPSERT_VOTE_POSTGRESQL_SQL)
+          .setParameter(1, pollId)
+          .setParameter(2, voterHash)
+          .setParameter(3, pollId)
+          .setParameter(4, voterHash)
+          .setParameter(5, optionId)
+          .setParameter(6, votedAt)
+          .getSingleResult();
+      updated = Boolean.TRUE.equals(row[0]);
+      previousOptionId = toStringValue(row[1]);
+    } else {
+      previousOptionId = upsertVoteMysql(em, pollId, voterHash, optionId, votedAt);
+      updated = previousOptionId != null;
+    }
+
+    if (!updated) {
+      adjustTally(em, pollId, optionId, 1);
+    } else if (previousOptionId == null) {
+      // A concurrent first vote of the same user won the insert; its option is unknown here
+      recountTallies(em, pollId);
+    } else if (!optionId.equals(previousOptionId)) {
+      moveTally(em, pollId, previousOptionId, optionId);
+    }
+  }
+
+  /**
+   * Inserts the vote, or updates it if the voter has voted before, and returns the replaced option id. MariaDB and
+   * MySQL cannot return the replaced value from an upsert, so the vote is read first without a lock and then
+   * inserted, or updated only if it still holds the option that was read; both cost two statements. Neither a failed
+   * insert, whose shared lock deadlocks when two transactions then update the same row, nor a locking read of a
+   * missing row, whose gap lock deadlocks concurrent first votes, happens unless the vote changed in between.
+   */
+  private String upsertVoteMysql(EntityManager em, Long pollId, byte[] voterHash, String optionId,
+                                 Timestamp votedAt) {
+    Connection connection = em.unwrap(Connection.class);
+    try {
+      String previousOptionId = selectVoteOption(connection, SELECT_VOTE_OPTION_SQL, pollId, voterHash);
+      if (previousOptionId == null) {
+        if (insertVote(connection, pollId, voterHash, optionId, votedAt)) {
+          return null;
+        }
+      } else if (previousOptionId.equals(optionId)) {
+        return previousOptionId;
+      } else if (updateVote(connection, UPDATE_VOTE_OPTION_SQL, pollId, voterHash, optionId, votedAt,
+          previousOptionId)) {
+        return previousOptionId;
+      }
+
+      // A concurrent vote of the same voter came first; serialize on its row
+      previousOptionId = selectVoteOption(connection, SELECT_VOTE_OPTION_FOR_UPDATE_SQL, pollId, voterHash);
+      if (previousOptionId == null) {
+        throw new IllegalStateException("Vote of poll " + pollId + " disappeared during update");
+      }
+      updateVote(connection, UPDATE_VOTE_SQL, pollId, voterHash, optionId, votedAt, null);
+      return previousOptionId;
+    } catch (SQLException e) {
+      throw new IllegalStateException("Failed to store vote of poll " + pollId, e);
+    }
+  }
+
+  private static String selectVoteOption(Connection connection, String sql, Long pollId, byte[] voterHash)
+      throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(sql)) {
+      select.setLong(1, pollId);
+      select.setBytes(2, voterHash);
+      PollMetrics.countStatement();
+      try (ResultSet resultSet = select.executeQuery()) {
+        return resultSet.next() ? resultSet.getString(1) : null;
+      }
+    }
+  }
+
+  /** Returns false if the voter's vote exists already; the failed insert only rolls back that statement. */
+  private static boolean insertVote(Connection connection, Long pollId, byte[] voterHash, String optionId,
+                                    Timestamp votedAt) throws SQLException {
+    try (PreparedStatement insert = connection.prepareStatement(INSERT_VOTE_SQL)) {
+      insert.setLong(1, pollId);
+      insert.setBytes(2, voterHash);
+      insert.setString(3, optionId);
+      insert.setTimestamp(4, votedAt);
+      PollMetrics.countStatement();
+      insert.executeUpdate();
+      return true;
+    } catch (SQLException e) {
+      if (e.getErrorCode() != MYSQL_DUPLICATE_KEY_ERROR) {
+        throw e;
+      }
+      return false;
+    }
+  }
+
+  private static boolean updateVote(Connection connection, String sql, Long pollId, byte[] voterHash,
+                                    String optionId, Timestamp votedAt, String expectedOptionId)
+      throws SQLException {
+    try (PreparedStatement update = connection.prepareStatement(sql)) {
+      update.setString(1, optionId);
+      update.setTimestamp(2, votedAt);
+      update.setLong(3, pollId);
+      update.setBytes(4, voterHash);
+      if (expectedOptionId != null) {
+        update.setString(5, expectedOptionId);
+      }
+      PollMetrics.countStatement();
+      return update.executeUpdate() > 0;
+    }
+  }
+
+  private void upsertVoteEntity(EntityManager em, PollEntity poll, byte[] voterHash, String optionId) {
+    PollVoteEntity existingVote = findVoteByPollAndVoter(em, poll.getId(), voterHash);
+    if (existingVote == null) {
+      PollVoteEntity vote = new PollVoteEntity();
+      vote.setPoll(poll);
+      vote.setVoterHash(voterHash);
+      vote.setOptionId(optionId);
+      vote.setVotedAt(new Date());
+      em.persist(vote);
+      adjustTally(em, poll.getId(), optionId, 1);
+    } else {
+      String previousOptionId = existingVote.getOptionId();
+      existingVote.setOptionId(optionId);
+      existingVote.setVotedAt(new Date());
+      em.merge(existingVote);
+      if (!optionId.equals(previousOptionId)) {
+        moveTally(em, poll.getId(), previousOptionId, optionId);
+      }
+    }
+  }
+
+  private SqlDialect getDialect(EntityManager em) {
+    SqlDialect current = dialect;
+    if (current == null) {
+      try {
+        current = SqlDialect.of(em.unwrap(Connection.class));
+      } catch (SQLException | RuntimeException e) {
+        logger.warn("Could not determine database dialect; using JPA vote upserts", e);
+        current = SqlDialect.OTHER;
+      }
+      dialect = current;
+    }
+    return current;
+  }
+
+  private void recountTallies(EntityManager em, Long pollId) {
+    em.createNativeQuery(CLEAR_POLL_TALLIES_SQL)
+        .setParameter(1, pollId)
+        .executeUpdate();
+    em.createNativeQuery(RECOUNT_POLL_TALLIES_SQL)
+        .setParameter(1, pollId)
+        .executeUpdate();
+  }
+
+  private static String toStringValue(Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof byte[]) {
+      return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+    return value.toString();
+  }
+
+  private PollEntity findActivePollByEventId(EntityManager em, String eventId) {
+    TypedQuery<PollEntity> query = em.createQuery(
+        "SELECT p FROM PollEntity p LEFT JOIN FETCH p.options "
+            + "WHERE p.eventId = :eventId AND p.active = true",
+        PollEntity.class
+    );
+    query.setParameter("eventId", eventId);
+    query.setMaxResults(1);
+    List<PollEntity> results = query.getResultList();
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  private PollEntity findPollByEventId(EntityManager em, String eventId) {
+    TypedQuery<PollEntity> query = em.createQuery(
+        "SELECT p FROM PollEntity p LEFT JOIN FETCH p.options WHERE p.eventId = :eventId",
+        PollEntity.class
+    );
+    query.setParameter("eventId", eventId);
+    query.setMaxResults(1);
+    List<PollEntity> results = query.getResultList();
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  private PollVoteEntity findVoteByPollAndVoter(EntityManager em, Long pollId, byte[] voterHash) {
+    TypedQuery<PollVoteEntity> query = em.createQuery(
+        "SELECT v FROM PollVoteEntity v WHERE v.poll.id = :pollId AND v.voterHash = :voterHash",
+        PollVoteEntity.class
+    );
+    query.setParameter("pollId", pollId);
+    query.setParameter("voterHash", voterHash);
+    query.setMaxResults(1);
+    List<PollVoteEntity> results = query.getResultList();
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  private PollDefinition toPollDefinition(EntityManager em, PollEntity poll) {
+    return toPollDefinition(poll, countVotesByOption(em, poll.getId()));
+  }
+
+  private PollDefinition toPollDefinition(PollEntity poll, Map<String, Integer> voteCountByOptionId) {
+    List<PollOption> options = new ArrayList<>();
+    if (poll.getOptions() != null) {
+      for (PollOptionEntity option : poll.getOptions()) {
+        int voteCount = voteCountByOptionId.getOrDefault(option.getOptionId(), 0);
+        options.add(new PollOption(option.getOptionId(), option.getLabel(), voteCount));
+      }
+    }
+
+    return new PollDefinition(
+        String.valueOf(poll.getId()),
+        poll.getEventId(),
+        poll.getQuestion(),
+        poll.isActive(),
+        poll.getCreatedBy(),
+        options
+    );
+  }
+
+
+  private int countTotalVotes(EntityManager em, Long pollId) {
+    Number result = (Number) em.createNativeQuery(SELECT_TOTAL_VOTES_SQL)
+        .setParameter(1, pollId)
+        .getSingleResult();
+    return result == null ? 0 : result.intValue();
+  }
+
+  private void loadPollInfos(EntityManager em, List<String> eventIds, Map<String, PollInfo> infos) {
+    List<Object[]> polls = em.createQuery(
+        "SELECT p.id, p.eventId, p.question, SIZE(p.options) FROM PollEntity p "
+            + "WHERE p.eventId IN :eventIds AND p.active = true",
+        Object[].class
+    ).setParameter("eventIds", eventIds).getResultList();
+    if (polls.isEmpty()) {
+      return;
+    }
+
+    List<Long> pollIds = new ArrayList<>(polls.size());
+    for (Object[] poll : polls) {
+      pollIds.add(((Number) poll[0]).longValue());
+    }
+    Map<Long, Integer> totalVotesByPollId = countTotalVotes(em, pollIds);
+
+    for (Object[] poll : polls) {
+      Long pollId = ((Number) poll[0]).longValue();
+      infos.put((String) poll[1], new PollInfo(
+          true,
+          String.valueOf(pollId),
+          true,
+          (String) poll[2],
+          ((Number) poll[3]).intValue(),
+          totalVotesByPollId.getOrDefault(pollId, 0)
+      ));
+    }
+  }
+
+  private Map<Long, Integer> countTotalVotes(EntityManager em, List<Long> pollIds) {
+    String placeholders = String.join(", ", Collections.nCopies(pollIds.size(), "?"));
+    Query query = em.createNativeQuery(
+        "SELECT poll_id, COALESCE(SUM(vote_count), 0) FROM oc_poll_option_tally "
+            + "WHERE poll_id IN (" + placeholders + ") GROUP BY poll_id"
+    );
+    for (int i = 0; i < pollIds.size(); i++) {
+      query.setParameter(i + 1, pollIds.get(i));
+    }
+
+    Map<Long, Integer> totals = new HashMap<>();
+    for (Object rowObj : query.getResultList()) {
+      Object[] row = (Object[]) rowObj;
+      totals.put(((Number) row[0]).longValue(), Math.max(0, ((Number) row[1]).intValue()));
+    }
+    return totals;
+  }
+
+  private Map<String, Integer> countVotesByOption(EntityManager em, Long pollId) {
+    List<?> rows = em.createNativeQuery(SELECT_TALLIES_SQL)
+        .setParameter(1, pollId)
         .getResultList();
 
     Map<String, Integer> voteCountByOptionId = new LinkedHashMap<>();
@@ -426,11 +1813,143 @@ public class OpencastPollDataStore implements PollDataStore {
       Object[] row = (Object[]) rowObj;
       String optionId = String.valueOf(row[0]);
       Number count = (Number) row[1];
-      voteCountByOptionId.put(optionId, count.intValue());
+      voteCountByOptionId.put(optionId, Math.max(0, count.intValue()));
     }
     return voteCountByOptionId;
   }
 
+  private Map<Long, Map<String, Integer>> countVotesByOption(EntityManager em, List<Long> pollIds) {
+    String placeholders = String.join(", ", Collections.nCopies(pollIds.size(), "?"));
+    Query query = em.createNativeQuery(
+        "SELECT poll_id, option_id, SUM(vote_count) FROM oc_poll_option_tally "
+            + "WHERE poll_id IN (" + placeholders + ") GROUP BY poll_id, option_id"
+    );
+    for (int i = 0; i < pollIds.size(); i++) {
+      query.setParameter(i + 1, pollIds.get(i));
+    }
+
+    Map<Long, Map<String, Integer>> tallies = new HashMap<>();
+    for (Object rowObj : query.getResultList()) {
+      Object[] row = (Object[]) rowObj;
+      tallies.computeIfAbsent(((Number) row[0]).longValue(), id -> new LinkedHashMap<>())
+          .put(String.valueOf(row[1]), Math.max(0, ((Number) row[2]).intValue()));
+    }
+    return tallies;
+  }
+
+  private static String encodeCursor(Date updatedAt, long pollId) {
+    long millis = updatedAt == null ? 0L : updatedAt.getTime();
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((millis + ":" + pollId).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static long[] decodeCursor(String cursor) {
+    String normalized = normalize(cursor);
+    if (normalized.isEmpty()) {
+      return null;
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(normalized), StandardCharsets.UTF_8);
+      int separator = decoded.indexOf(':');
+      return new long[] {
+          Long.parseLong(decoded.substring(0, separator)),
+          Long.parseLong(decoded.substring(separator + 1))
+      };
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Invalid audience poll cursor: " + cursor);
+    }
+  }
+
+  private void bumpPollVersion(EntityManager em, Long pollId) {
+    em.createNativeQuery(BUMP_POLL_VERSION_SQL)
+        .setParameter(1, pollId)
+        .executeUpdate();
+  }
+
+  private void insertTally(EntityManager em, Long pollId, String optionId) {
+    em.createNativeQuery(INSERT_TALLY_SQL)
+        .setParameter(1, pollId)
+        .setParameter(2, optionId)
+        .setParameter(3, 0)
+        .setParameter(4, 0)
+        .executeUpdate();
+  }
+
+  private void adjustTally(EntityManager em, Long pollId, String optionId, int delta) {
+    addToTally(em, pollId, optionId, tallyShard(getDialect(em)), delta);
+  }
+
+  private void moveTally(EntityManager em, Long pollId, String fromOptionId, String toOptionId) {
+    SqlDialect currentDialect = getDialect(em);
+    if (currentDialect == SqlDialect.OTHER) {
+      // Without an upsert all votes are in shard 0, whose rows are created with their option
+      int moved = em.createNativeQuery(MOVE_TALLY_SQL)
+          .setParameter(1, toOptionId)
+          .setParameter(2, pollId)
+          .setParameter(3, fromOptionId)
+          .setParameter(4, toOptionId)
+          .executeUpdate();
+      if (moved != 2) {
+        recountTallies(em, pollId);
+      }
+      return;
+    }
+
+    int shard = tallyShard(currentDialect);
+    boolean fromFirst = fromOptionId.compareTo(toOptionId) < 0;
+    String sql = currentDialect == SqlDialect.MYSQL ? MOVE_TALLY_MYSQL_SQL : MOVE_TALLY_POSTGRESQL_SQL;
+    Query move = em.createNativeQuery(sql)
+        .setParameter(1, pollId)
+        .setParameter(2, fromFirst ? fromOptionId : toOptionId)
+        .setParameter(3, shard)
+        .setParameter(4, fromFirst ? -1 : 1)
+        .setParameter(5, pollId)
+        .setParameter(6, fromFirst ? toOptionId : fromOptionId)
+        .setParameter(7, shard)
+        .setParameter(8, fromFirst ? 1 : -1);
+    if (currentDialect == SqlDialect.MYSQL) {
+      move.setParameter(9, toOptionId);
+    }
+    move.executeUpdate();
+  }
+
+  private void addToTally(EntityManager em, Long pollId, String optionId, int shard, long delta) {
+    SqlDialect currentDialect = getDialect(em);
+    if (currentDialect == SqlDialect.MYSQL || currentDialect == SqlDialect.POSTGRESQL) {
+      String sql = currentDialect == SqlDialect.MYSQL ? ADD_TALLY_MYSQL_SQL : ADD_TALLY_POSTGRESQL_SQL;
+      Query add = em.createNativeQuery(sql)
+          .setParameter(1, pollId)
+          .setParameter(2, optionId)
+          .setParameter(3, shard)
+          .setParameter(4, delta);
+      if (currentDialect == SqlDialect.MYSQL) {
+        add.setParameter(5, delta);
+      }
+      add.executeUpdate();
+      return;
+    }
+
+    int updated = em.createNativeQuery(UPDATE_TALLY_SQL)
+        .setParameter(1, delta)
+        .setParameter(2, pollId)
+        .setParameter(3, optionId)
+        .setParameter(4, shard)
+        .executeUpdate();
+    if (updated == 0 && delta > 0) {
+      em.createNativeQuery(INSERT_TALLY_SQL)
+          .setParameter(1, pollId)
+          .setParameter(2, optionId)
+          .setParameter(3, shard)
+          .setParameter(4, delta)
+          .executeUpdate();
+    }
+  }
+
+  /** Without an upsert, a missing shard row could not be created safely by concurrent votes. */
+  private int tallyShard(SqlDialect currentDialect) {
+    return currentDialect == SqlDialect.OTHER ? 0 : tallyShards.current();
+  }
+
   private boolean optionExists(PollEntity poll, String optionId) {
     if (poll.getOptions() == null) {
       return false;
@@ -443,24 +1962,45 @@ public class OpencastPollDataStore implements PollDataStore {
     return false;
   }
 
-  private PollOptionEntity findOptionByLabel(PollEntity poll, String label) {
-    if (poll.getOptions() == null) {
-      return null;
-    }
-    String target = normalize(label).toLowerCase();
-    for (PollOptionEntity option : poll.getOptions()) {
-      String value = option.getLabel();
-      if (value != null && value.trim().toLowerCase().equals(target)) {
-        return option;
+  private PollOptionEntity findOptionByLabel(EntityManager em, PollEntity poll, String label) {
+    List<PollOptionEntity> options = em.createQuery(
+        "SELECT o FROM PollOptionEntity o WHERE o.poll.id = :pollId AND o.normalizedLabel = :normalizedLabel",
+        PollOptionEntity.class
+    )
+        .setParameter("pollId", poll.getId())
+        .setParameter("normalizedLabel", PollLabelNormalizer.normalize(label))
+        .setMaxResults(1)
+        .getResultList();
+    return options.isEmpty() ? null : options.get(0);
+  }
+
+  private static boolean isUniqueViolation(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLIntegrityConstraintViolationException) {
+        return true;
+      }
+      if (cause instanceof SQLException) {
+        String state = ((SQLException) cause).getSQLState();
+        if (state != null && state.startsWith("23")) {
+          return true;
+        }
+      }
+      if (cause.getCause() == cause) {
+        break;
       }
     }
-    return null;
+    return false;
   }
 
   private static String normalize(String value) {
     return value == null ? "" : value.trim();
   }
 
+  private static String toVoterKey(String userId) {
+    String voterKey = normalize(userId);
+    return voterKey.isEmpty() ? "anonymous" : voterKey;
+  }
+
   private boolean isAudiencePollId(String pollId) {
     return pollId != null && pollId.startsWith("poll-");
   }
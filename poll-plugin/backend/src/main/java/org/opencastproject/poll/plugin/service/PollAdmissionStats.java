@@ -0,0 +1,36 @@
+package org.opencastproject.poll.plugin.service;
+
+public final class PollAdmissionStats {
+
+  private final long admitted;
+  private final long rejectedByPoll;
+  private final long rejectedByVoter;
+  private final int trackedKeys;
+
+  public PollAdmissionStats(long admitted, long rejectedByPoll, long rejectedByVoter, int trackedKeys) {
+    this.admitted = admitted;
+    this.rejectedByPoll = rejectedByPoll;
+    this.rejectedByVoter = rejectedByVoter;
+    this.trackedKeys = trackedKeys;
+  }
+
+  public long admitted() {
+    return admitted;
+  }
+
+  public long rejectedByPoll() {
+    return rejectedByPoll;
+  }
+
+  public long rejectedByVoter() {
+    return rejectedByVoter;
+  }
+
+  public long rejected() {
+    return rejectedByPoll + rejectedByVoter;
+  }
+
+  public int trackedKeys() {
+    return trackedKeys;
+  }
+}
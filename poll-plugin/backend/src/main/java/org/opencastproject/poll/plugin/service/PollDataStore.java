@@ -1,26 +1,53 @@
 package org.opencastproject.poll.plugin.service;
 
 import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.type.AudiencePollPage;
 import org.opencastproject.poll.plugin.type.PollDefinition;
 import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
 import org.opencastproject.poll.plugin.type.input.PollInput;
 import org.opencastproject.poll.plugin.type.input.PollVoteInput;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface PollDataStore {
 
   PollInfo getPollInfo(String eventId);
 
+  Map<String, PollInfo> getPollInfos(Collection<String> eventIds);
+
   PollDefinition getPollDefinition(String eventId);
 
+  /**
+   * Returns a value that changes when the options or the active state of the poll change, or null if there is no
+   * such poll. Votes do not change it.
+   */
+  String getPollVersion(String eventId);
+
+  /**
+   * Returns the versions of the given polls, keyed by event id; polls that do not exist are left out.
+   */
+  default Map<String, String> getPollVersions(Collection<String> eventIds) {
+    Map<String, String> versions = new LinkedHashMap<>();
+    for (String eventId : eventIds) {
+      String version = getPollVersion(eventId);
+      if (version != null) {
+        versions.put(eventId, version);
+      }
+    }
+    return versions;
+  }
+
   PollDefinition createPoll(String eventId, PollInput pollInput, String userId);
 
   PollVoteResult submitVote(String eventId, PollVoteInput voteInput, String userId);
 
   PollDefinition getAudiencePoll(String pollId);
 
-  List<PollDefinition> listAudiencePolls();
+  AudiencePollPage listAudiencePolls(int first, String after, String createdBy);
 
   PollDefinition createAudiencePoll(String question, String userId);
 
@@ -29,4 +56,20 @@ public interface PollDataStore {
   PollVoteResult submitAudienceAnswer(String pollId, String answer, String userId);
 
   PollVoteResult voteAudienceAnswer(String pollId, String answerId, String userId);
+
+  PollDefinition addAudienceAnswer(String pollId, String answer, String userId);
+
+  PollDefinition mergeAudienceAnswers(String pollId, String targetAnswerId, List<String> sourceAnswerIds,
+                                      String userId);
+
+  /**
+   * Closes the poll and keeps {@code voteTimeline}, if given, with its results.
+   */
+  PollDefinition closePoll(String pollId, String userId, PollVoteTimeline voteTimeline);
+
+  PollDefinition reopenPoll(String pollId, String userId);
+
+  int purgeClosedPollVotes(long closedBefore);
+
+  int compactTallies(int maxPolls);
 }
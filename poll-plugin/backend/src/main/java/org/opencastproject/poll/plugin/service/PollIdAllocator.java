@@ -0,0 +1,76 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Allocates public audience poll ids without asking the database whether a candidate is taken.
+ *
+ * An id packs milliseconds since 2024-01-01 (41 bits), the node id (10 bits) and a per-millisecond sequence
+ * (12 bits), so ids from one node never repeat and ids from nodes with different node ids never collide.
+ * Without a configured node id it is derived from the host name, which two hosts may share by chance; callers
+ * insert new ids without replacing existing polls, so a collision fails and a fresh id is taken.
+ */
+public final class PollIdAllocator {
+
+  private static final Logger logger = LoggerFactory.getLogger(PollIdAllocator.class);
+
+  static final String PREFIX = "poll-";
+
+  private static final long EPOCH_MS = 1704067200000L;
+  private static final int NODE_BITS = 10;
+  private static final int SEQUENCE_BITS = 12;
+  private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  private final long nodeId;
+  private long lastTimestamp = -1L;
+  private long sequence;
+
+  public PollIdAllocator(int nodeId) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("Poll id node id must be between 0 and " + MAX_NODE_ID);
+    }
+    this.nodeId = nodeId;
+  }
+
+  /**
+   * Derives a node id from the host name of this machine, or returns 0 if it cannot be resolved.
+   */
+  public static int localNodeId() {
+    try {
+      return nodeIdOf(InetAddress.getLocalHost().getHostName());
+    } catch (UnknownHostException e) {
+      logger.warn("Could not resolve the host name for the poll id node id; using 0", e);
+      return 0;
+    }
+  }
+
+  static int nodeIdOf(String nodeName) {
+    CRC32 crc = new CRC32();
+    crc.update(nodeName.getBytes(StandardCharsets.UTF_8));
+    return (int) (crc.getValue() & MAX_NODE_ID);
+  }
+
+  public synchronized String next() {
+    // Never move backwards if the wall clock does
+    long timestamp = Math.max(System.currentTimeMillis() - EPOCH_MS, lastTimestamp);
+    if (timestamp == lastTimestamp) {
+      sequence = (sequence + 1) & SEQUENCE_MASK;
+      if (sequence == 0) {
+        timestamp++;
+      }
+    } else {
+      sequence = 0;
+    }
+    lastTimestamp = timestamp;
+
+    long id = (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    return PREFIX + Long.toString(id, 36);
+  }
+}
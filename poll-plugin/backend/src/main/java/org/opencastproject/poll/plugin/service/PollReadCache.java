@@ -0,0 +1,226 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded read-through cache for poll definitions and poll info, keyed by event id or public poll id.
+ *
+ * Entries expire after a TTL and are evicted least-recently-used once the cache is full. Writes on this node
+ * invalidate or update entries directly. Changes of options or state on other nodes are noticed through the poll
+ * version column, which is re-checked at most once per version check interval. Votes do not change the version,
+ * so vote counts expire separately after the shorter tally TTL.
+ */
+final class PollReadCache {
+
+  private final int maxEntries;
+  private final long ttlMs;
+  private final long tallyTtlMs;
+  private final long versionCheckIntervalMs;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private final LinkedHashMap<String, Entry> entries;
+
+  PollReadCache(int maxEntries, long ttlMs, long tallyTtlMs, long versionCheckIntervalMs) {
+    this.maxEntries = Math.max(1, maxEntries);
+    this.ttlMs = Math.max(1L, ttlMs);
+    this.tallyTtlMs = tallyTtlMs;
+    this.versionCheckIntervalMs = versionCheckIntervalMs;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > PollReadCache.this.maxEntries) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  PollDefinition getDefinition(String key, PollDataStore store) {
+    Entry entry = lookup(key, store);
+    if (entry != null && entry.definitionLoaded) {
+      hits.increment();
+      return entry.definition;
+    }
+
+    misses.increment();
+    String version = loadVersion(key, store);
+    PollDefinition definition = store.getPollDefinition(key);
+    synchronized (entries) {
+      Entry current = entries.get(key);
+      if (current == null || !Objects.equals(current.version, version)) {
+        current = new Entry(version, System.currentTimeMillis());
+        entries.put(key, current);
+      }
+      current.definition = definition;
+      current.definitionLoaded = true;
+      if (definition == null) {
+        current.info = null;
+      }
+    }
+    return definition;
+  }
+
+  PollInfo getInfo(String key, PollDataStore store) {
+    Entry entry = lookup(key, store);
+    if (entry != null && entry.info != null) {
+      hits.increment();
+      return entry.info;
+    }
+
+    misses.increment();
+    String version = loadVersion(key, store);
+    PollInfo info = store.getPollInfo(key);
+    synchronized (entries) {
+      Entry current = entries.get(key);
+      if (current == null || !Objects.equals(current.version, version)) {
+        current = new Entry(version, System.currentTimeMillis());
+        entries.put(key, current);
+      }
+      current.info = info;
+    }
+    return info;
+  }
+
+  /**
+   * Loads the poll info of several polls in one batch and caches the polls that exist.
+   */
+  Map<String, PollInfo> loadInfos(List<String> keys, PollDataStore store) {
+    Map<String, String> versions = versionCheckIntervalMs > 0 ? store.getPollVersions(keys) : null;
+    Map<String, PollInfo> infos = store.getPollInfos(keys);
+    long now = System.currentTimeMillis();
+    synchronized (entries) {
+      for (Map.Entry<String, PollInfo> info : infos.entrySet()) {
+        if (info.getValue() == null || !info.getValue().hasPoll()) {
+          continue;
+        }
+        String version = versions != null ? versions.get(info.getKey()) : null;
+        if (versions != null && version == null) {
+          // Created after the versions were read; the next read loads it with its version
+          continue;
+        }
+        Entry current = entries.get(info.getKey());
+        if (current == null || !Objects.equals(current.version, version)) {
+          current = new Entry(version, now);
+          entries.put(info.getKey(), current);
+        }
+        current.info = info.getValue();
+      }
+    }
+    return infos;
+  }
+
+  PollInfo getCachedInfo(String key, PollDataStore store) {
+    Entry entry = lookup(key, store);
+    if (entry != null && entry.info != null) {
+      hits.increment();
+      return entry.info;
+    }
+    misses.increment();
+    return null;
+  }
+
+  void updateFromVote(String key, PollVoteResult result) {
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return;
+      }
+      PollDefinition definition = entry.definition;
+      if (definition == null || result == null || !result.success() || result.options() == null) {
+        entries.remove(key);
+        return;
+      }
+      entry.definition = definition.withOptions(result.options());
+      entry.info = new PollInfo(
+          true,
+          definition.id(),
+          definition.isActive(),
+          definition.question(),
+          result.options().size(),
+          result.totalVotes()
+      );
+      entry.countedAt = System.currentTimeMillis();
+    }
+  }
+
+  void invalidate(String key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  PollCacheStats stats() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    return new PollCacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+  }
+
+  private Entry lookup(String key, PollDataStore store) {
+    long now = System.currentTimeMillis();
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (now - entry.loadedAt > ttlMs || (tallyTtlMs > 0 && now - entry.countedAt > tallyTtlMs)) {
+        entries.remove(key);
+        evictions.increment();
+        return null;
+      }
+      if (versionCheckIntervalMs <= 0 || now - entry.validatedAt < versionCheckIntervalMs) {
+        return entry;
+      }
+    }
+
+    String currentVersion = store.getPollVersion(key);
+    synchronized (entries) {
+      if (entries.get(key) != entry) {
+        return null;
+      }
+      if (!Objects.equals(entry.version, currentVersion)) {
+        entries.remove(key);
+        return null;
+      }
+      entry.validatedAt = now;
+      return entry;
+    }
+  }
+
+  private String loadVersion(String key, PollDataStore store) {
+    return versionCheckIntervalMs > 0 ? store.getPollVersion(key) : null;
+  }
+
+  private static final class Entry {
+
+    private final String version;
+    private final long loadedAt;
+    private long validatedAt;
+    private long countedAt;
+    private PollDefinition definition;
+    private boolean definitionLoaded;
+    private PollInfo info;
+
+    private Entry(String version, long now) {
+      this.version = version;
+      this.loadedAt = now;
+      this.validatedAt = now;
+      this.countedAt = now;
+    }
+  }
+}
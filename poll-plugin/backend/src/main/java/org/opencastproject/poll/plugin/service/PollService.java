@@ -1,8 +1,13 @@
 package org.opencastproject.poll.plugin.service;
 
 import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.metrics.PollMetrics;
+import org.opencastproject.poll.plugin.persistence.PollLabelNormalizer;
+import org.opencastproject.poll.plugin.type.AudiencePollPage;
 import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollOption;
 import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
 import org.opencastproject.poll.plugin.type.input.PollInput;
 import org.opencastproject.poll.plugin.type.input.PollVoteInput;
 
@@ -13,6 +18,7 @@ import org.slf4j.LoggerFactory;
 
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -23,7 +29,14 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Component(service = PollService.class, immediate = true)
 @Designate(ocd = PollService.PollServiceConfig.class)
@@ -31,8 +44,14 @@ public final class PollService {
 
   private static final Logger logger = LoggerFactory.getLogger(PollService.class);
 
+  private static final int TALLY_COMPACTION_BATCH_SIZE = 500;
+
   private static PollService instance;
 
+  public static final int DEFAULT_AUDIENCE_PAGE_SIZE = 50;
+
+  public static final int MAX_AUDIENCE_PAGE_SIZE = 500;
+
   @Reference(
       cardinality = ReferenceCardinality.OPTIONAL,
       policy = ReferencePolicy.DYNAMIC
@@ -48,6 +67,24 @@ public final class PollService {
 
   private PollDataStore dataStore;
 
+  private VoteWriteBuffer voteBuffer;
+
+  private volatile PollReadCache readCache;
+
+  private volatile AnswerClusterIndex answerClusters;
+
+  private volatile VoteAdmissionControl admissionControl;
+
+  private volatile IdempotencyCache idempotencyCache;
+
+  private volatile VoteTimelines voteTimelines;
+
+  private ScheduledExecutorService votePurger;
+
+  private ScheduledExecutorService tallyCompactor;
+
+  private final PollMetrics metrics = PollMetrics.getInstance();
+
   public PollService() {
     configureFromEnvironment();
   }
@@ -63,6 +100,13 @@ public final class PollService {
     configureFromConfig(config);
   }
 
+  @Deactivate
+  public void deactivate() {
+    stopVotePurger();
+    stopTallyCompactor();
+    closeVoteBuffer();
+  }
+
   public static synchronized PollService getInstance() {
     if (instance == null) {
       instance = new PollService();
@@ -71,17 +115,53 @@ public final class PollService {
   }
 
   public PollInfo getPollInfo(String eventId) {
-    try {
-      return dataStore.getPollInfo(eventId);
+    try (PollMetrics.Sample sample = metrics.start("getPollInfo")) {
+      PollReadCache cache = readCache;
+      PollInfo info = cache != null ? cache.getInfo(eventId, dataStore) : dataStore.getPollInfo(eventId);
+      sample.succeeded();
+      return info;
     } catch (Exception e) {
       logger.error("Failed to get poll info for event {}", eventId, e);
       return new PollInfo(false, null, false, null, null, null);
     }
   }
 
+  public Map<String, PollInfo> getPollInfos(Collection<String> eventIds) {
+    Map<String, PollInfo> infos = new LinkedHashMap<>();
+    List<String> toLoad = new ArrayList<>();
+    PollReadCache cache = readCache;
+    for (String eventId : eventIds) {
+      PollInfo cached = cache != null ? cache.getCachedInfo(eventId, dataStore) : null;
+      if (cached != null) {
+        infos.put(eventId, cached);
+      } else {
+        toLoad.add(eventId);
+      }
+    }
+
+    if (!toLoad.isEmpty()) {
+      try (PollMetrics.Sample sample = metrics.start("getPollInfos")) {
+        infos.putAll(cache != null ? cache.loadInfos(toLoad, dataStore) : dataStore.getPollInfos(toLoad));
+        sample.succeeded();
+      } catch (Exception e) {
+        logger.error("Failed to get poll info for {} events", toLoad.size(), e);
+      }
+    }
+
+    for (String eventId : eventIds) {
+      infos.putIfAbsent(eventId, new PollInfo(false, null, false, null, null, null));
+    }
+    return infos;
+  }
+
   public PollDefinition getPollDefinition(String eventId) {
-    try {
-      return dataStore.getPollDefinition(eventId);
+    try (PollMetrics.Sample sample = metrics.start("getPollDefinition")) {
+      PollReadCache cache = readCache;
+      PollDefinition poll = cache != null
+          ? cache.getDefinition(eventId, dataStore)
+          : dataStore.getPollDefinition(eventId);
+      sample.succeeded();
+      return poll;
     } catch (Exception e) {
       logger.error("Failed to get poll definition for event {}", eventId, e);
       return null;
@@ -89,8 +169,12 @@ public final class PollService {
   }
 
   public PollDefinition createPoll(String eventId, PollInput pollInput, String userId) {
-    try {
-      return dataStore.createPoll(eventId, pollInput, userId);
+    try (PollMetrics.Sample sample = metrics.start("createPoll")) {
+      PollDefinition poll = dataStore.createPoll(eventId, pollInput, userId);
+      invalidateCache(eventId);
+      forgetTimeline(eventId);
+      sample.succeeded();
+      return poll;
     } catch (Exception e) {
       logger.error("Failed to create poll for event {}", eventId, e);
       throw new RuntimeException("Failed to create poll: " + e.getMessage(), e);
@@ -98,35 +182,81 @@ public final class PollService {
   }
 
   public PollVoteResult submitVote(String eventId, PollVoteInput voteInput, String userId) {
-    try {
-      return dataStore.submitVote(eventId, voteInput, userId);
-    } catch (Exception e) {
-      logger.error("Failed to submit vote for event {}", eventId, e);
-      throw new RuntimeException("Failed to submit vote: " + e.getMessage(), e);
+    try (PollMetrics.Sample sample = metrics.start("submitVote")) {
+      admit(eventId, userId, sample);
+      try {
+        PollVoteResult result = dataStore.submitVote(eventId, voteInput, userId);
+        updateCache(eventId, result);
+        recordVote(eventId, result);
+        sample.succeeded();
+        return result;
+      } catch (Exception e) {
+        logger.error("Failed to submit vote for event {}", eventId, e);
+        throw new RuntimeException("Failed to submit vote: " + e.getMessage(), e);
+      }
     }
   }
 
   public PollDefinition getAudiencePoll(String pollId) {
-    try {
-      return dataStore.getAudiencePoll(pollId);
+    try (PollMetrics.Sample sample = metrics.start("getAudiencePoll")) {
+      PollReadCache cache = readCache;
+      PollDefinition poll = cache == null || pollId == null || pollId.trim().isEmpty()
+          ? dataStore.getAudiencePoll(pollId)
+          : cache.getDefinition(pollId.trim(), dataStore);
+      sample.succeeded();
+      return poll;
     } catch (Exception e) {
       logger.error("Failed to get audience poll {}", pollId, e);
       return null;
     }
   }
 
-  public List<PollDefinition> listAudiencePolls() {
-    try {
-      return dataStore.listAudiencePolls();
+  public AudiencePollPage listAudiencePolls(Integer first, String after, String createdBy) {
+    int pageSize = first == null ? DEFAULT_AUDIENCE_PAGE_SIZE : Math.max(1, Math.min(MAX_AUDIENCE_PAGE_SIZE, first));
+    try (PollMetrics.Sample sample = metrics.start("listAudiencePolls")) {
+      AudiencePollPage page = dataStore.listAudiencePolls(pageSize, after, createdBy);
+      sample.succeeded();
+      return page;
+    } catch (IllegalArgumentException e) {
+      throw e;
     } catch (Exception e) {
       logger.error("Failed to list audience polls", e);
-      return new ArrayList<PollDefinition>();
+      return new AudiencePollPage(new ArrayList<PollDefinition>(), null, false);
+    }
+  }
+
+  /**
+   * Returns all audience polls after the cursor, newest first, loaded page by page. Fails instead of returning a
+   * truncated list.
+   */
+  public List<PollDefinition> listAllAudiencePolls(String after, String createdBy) {
+    try (PollMetrics.Sample sample = metrics.start("listAllAudiencePolls")) {
+      List<PollDefinition> polls = new ArrayList<>();
+      String cursor = after;
+      AudiencePollPage page;
+      do {
+        page = dataStore.listAudiencePolls(MAX_AUDIENCE_PAGE_SIZE, cursor, createdBy);
+        polls.addAll(page.polls());
+        cursor = page.endCursor();
+      } while (page.hasNextPage() && cursor != null);
+      sample.succeeded();
+      return polls;
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (Exception e) {
+      logger.error("Failed to list audience polls", e);
+      throw new IllegalStateException("Failed to list audience polls", e);
     }
   }
 
   public PollDefinition createAudiencePoll(String question, String userId) {
-    try {
-      return dataStore.createAudiencePoll(question, userId);
+    try (PollMetrics.Sample sample = metrics.start("createAudiencePoll")) {
+      PollDefinition poll = dataStore.createAudiencePoll(question, userId);
+      if (poll != null) {
+        invalidateCache(poll.eventId());
+      }
+      sample.succeeded();
+      return poll;
     } catch (Exception e) {
       logger.error("Failed to create audience poll", e);
       throw new RuntimeException("Failed to create audience poll: " + e.getMessage(), e);
@@ -134,8 +264,16 @@ public final class PollService {
   }
 
   public boolean deleteAudiencePoll(String pollId, String userId) {
-    try {
-      return dataStore.deleteAudiencePoll(pollId, userId);
+    try (PollMetrics.Sample sample = metrics.start("deleteAudiencePoll")) {
+      boolean deleted = dataStore.deleteAudiencePoll(pollId, userId);
+      invalidateCache(pollId);
+      forgetTimeline(pollId);
+      AnswerClusterIndex clusters = answerClusters;
+      if (clusters != null && pollId != null) {
+        clusters.forget(pollId.trim());
+      }
+      sample.succeeded();
+      return deleted;
     } catch (Exception e) {
       logger.error("Failed to delete audience poll {}", pollId, e);
       throw new RuntimeException("Failed to delete audience poll: " + e.getMessage(), e);
@@ -143,24 +281,256 @@ public final class PollService {
   }
 
   public PollVoteResult submitAudienceAnswer(String pollId, String answer, String userId) {
-    try {
-      return dataStore.submitAudienceAnswer(pollId, answer, userId);
-    } catch (Exception e) {
-      logger.error("Failed to submit audience answer for poll {}", pollId, e);
-      throw new RuntimeException("Failed to submit audience answer: " + e.getMessage(), e);
+    try (PollMetrics.Sample sample = metrics.start("submitAudienceAnswer")) {
+      admit(pollId, userId, sample);
+      try {
+        AnswerClusterIndex clusters = answerClusters;
+        String key = pollId == null ? "" : pollId.trim();
+        if (clusters != null && !key.isEmpty()) {
+          PollVoteResult clustered = voteClusteredAnswer(clusters, key, answer, userId);
+          if (clustered != null) {
+            recordVote(key, clustered);
+            sample.succeeded();
+            return clustered;
+          }
+        }
+
+        PollVoteResult result = dataStore.submitAudienceAnswer(pollId, answer, userId);
+        updateCache(pollId, result);
+        recordVote(pollId, result);
+        if (clusters != null && result != null && result.success()) {
+          clusters.learn(key, answer, result.selectedOptionId());
+        }
+        sample.succeeded();
+        return result;
+      } catch (Exception e) {
+        logger.error("Failed to submit audience answer for poll {}", pollId, e);
+        throw new RuntimeException("Failed to submit audience answer: " + e.getMessage(), e);
+      }
     }
   }
 
   public PollVoteResult voteAudienceAnswer(String pollId, String answerId, String userId) {
-    try {
-      return dataStore.voteAudienceAnswer(pollId, answerId, userId);
+    try (PollMetrics.Sample sample = metrics.start("voteAudienceAnswer")) {
+      admit(pollId, userId, sample);
+      try {
+        PollVoteResult result = dataStore.voteAudienceAnswer(pollId, answerId, userId);
+        updateCache(pollId, result);
+        recordVote(pollId, result);
+        sample.succeeded();
+        return result;
+      } catch (Exception e) {
+        logger.error("Failed to vote audience answer {} for poll {}", answerId, pollId, e);
+        throw new RuntimeException("Failed to vote audience answer: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  public PollDefinition mergeAudienceAnswers(String pollId, String targetAnswerId, List<String> sourceAnswerIds,
+                                             String userId) {
+    try (PollMetrics.Sample sample = metrics.start("mergeAudienceAnswers")) {
+      PollDefinition before = getAudiencePoll(pollId);
+      PollDefinition poll = dataStore.mergeAudienceAnswers(pollId, targetAnswerId, sourceAnswerIds, userId);
+      invalidateCache(pollId);
+
+      AnswerClusterIndex clusters = answerClusters;
+      if (clusters != null && before != null && before.options() != null) {
+        List<String> mergedLabels = new ArrayList<>();
+        for (PollOption option : before.options()) {
+          if (sourceAnswerIds.contains(option.id()) && !option.id().equals(targetAnswerId)) {
+            mergedLabels.add(option.label());
+          }
+        }
+        clusters.merge(pollId.trim(), targetAnswerId.trim(), mergedLabels);
+      }
+      sample.succeeded();
+      return poll;
+    } catch (Exception e) {
+      logger.error("Failed to merge audience answers of poll {}", pollId, e);
+      throw new RuntimeException("Failed to merge audience answers: " + e.getMessage(), e);
+    }
+  }
+
+  public PollDefinition splitAudienceAnswer(String pollId, String answerId, String answer, String userId) {
+    try (PollMetrics.Sample sample = metrics.start("splitAudienceAnswer")) {
+      PollDefinition poll = dataStore.addAudienceAnswer(pollId, answer, userId);
+      invalidateCache(pollId);
+
+      String newAnswerId = findAnswerId(poll, answer);
+      if (newAnswerId == null) {
+        throw new IllegalStateException("Answer was not added");
+      }
+      if (newAnswerId.equals(answerId.trim())) {
+        throw new IllegalArgumentException("The answer is the label of answer " + answerId.trim());
+      }
+
+      AnswerClusterIndex clusters = answerClusters;
+      if (clusters != null) {
+        clusters.split(pollId.trim(), answerId.trim(), answer, newAnswerId);
+      }
+      sample.succeeded();
+      return poll;
+    } catch (Exception e) {
+      logger.error("Failed to split audience answer {} of poll {}", answerId, pollId, e);
+      throw new RuntimeException("Failed to split audience answer: " + e.getMessage(), e);
+    }
+  }
+
+  public PollDefinition closePoll(String pollId, String userId) {
+    try (PollMetrics.Sample sample = metrics.start("closePoll")) {
+      VoteTimelines timelines = voteTimelines;
+      PollVoteTimeline timeline = timelines != null && pollId != null ? timelines.downsampled(pollId.trim()) : null;
+      PollDefinition poll = dataStore.closePoll(pollId, userId, timeline);
+      invalidateCache(pollId);
+      forgetTimeline(pollId);
+      AnswerClusterIndex clusters = answerClusters;
+      if (clusters != null && pollId != null) {
+        clusters.forget(pollId.trim());
+      }
+      sample.succeeded();
+      return poll;
+    } catch (Exception e) {
+      logger.error("Failed to close poll {}", pollId, e);
+      throw new RuntimeException("Failed to close poll: " + e.getMessage(), e);
+    }
+  }
+
+  public PollDefinition reopenPoll(String pollId, String userId) {
+    try (PollMetrics.Sample sample = metrics.start("reopenPoll")) {
+      PollDefinition poll = dataStore.reopenPoll(pollId, userId);
+      invalidateCache(pollId);
+      sample.succeeded();
+      return poll;
     } catch (Exception e) {
-      logger.error("Failed to vote audience answer {} for poll {}", answerId, pollId, e);
-      throw new RuntimeException("Failed to vote audience answer: " + e.getMessage(), e);
+      logger.error("Failed to reopen poll {}", pollId, e);
+      throw new RuntimeException("Failed to reopen poll: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the votes per second and per minute this node received for an active poll, or null.
+   */
+  public PollVoteTimeline getVoteTimeline(String pollId) {
+    VoteTimelines timelines = voteTimelines;
+    if (timelines == null || pollId == null) {
+      return null;
+    }
+    return timelines.get(pollId.trim());
+  }
+
+  /**
+   * Runs a mutation once per client request id; a retry with the same id returns the first result.
+   */
+  public <T> T runOnce(String operation, String userId, String requestId, Class<T> resultType,
+                       Supplier<T> action) {
+    IdempotencyCache cache = idempotencyCache;
+    if (cache == null || requestId == null || requestId.trim().isEmpty()) {
+      return action.get();
+    }
+    return cache.execute(operation, userId, requestId.trim(), resultType, action);
+  }
+
+  public PollCacheStats getCacheStats() {
+    PollReadCache cache = readCache;
+    return cache != null ? cache.stats() : new PollCacheStats(0L, 0L, 0L, 0);
+  }
+
+  public PollAdmissionStats getAdmissionStats() {
+    VoteAdmissionControl control = admissionControl;
+    return control != null ? control.stats() : new PollAdmissionStats(0L, 0L, 0L, 0);
+  }
+
+  private void admit(String pollId, String userId, PollMetrics.Sample sample) {
+    VoteAdmissionControl control = admissionControl;
+    if (control == null) {
+      return;
+    }
+    String pollKey = pollId == null ? "" : pollId.trim();
+    String voterKey = userId == null ? "" : userId.trim();
+    // Unauthenticated event poll votes all arrive as "anonymous" and are only limited per poll
+    if (voterKey.isEmpty() || "anonymous".equals(voterKey)) {
+      voterKey = null;
+    }
+    int outcome = control.tryAdmit(pollKey, voterKey);
+    if (outcome == VoteAdmissionControl.REJECTED_POLL) {
+      logger.debug("Rejected vote for poll {}: poll rate limit reached", pollKey);
+      sample.rejected();
+      throw new IllegalStateException("Too many votes for this poll right now, please try again");
+    }
+    if (outcome == VoteAdmissionControl.REJECTED_VOTER) {
+      logger.debug("Rejected vote for poll {}: voter rate limit reached", pollKey);
+      sample.rejected();
+      throw new IllegalStateException("Too many votes from this voter, please try again");
+    }
+  }
+
+  private void invalidateCache(String key) {
+    PollReadCache cache = readCache;
+    if (cache != null && key != null) {
+      cache.invalidate(key.trim());
+    }
+  }
+
+  private void updateCache(String key, PollVoteResult result) {
+    PollReadCache cache = readCache;
+    if (cache != null && key != null) {
+      cache.updateFromVote(key.trim(), result);
+    }
+  }
+
+  private void recordVote(String key, PollVoteResult result) {
+    VoteTimelines timelines = voteTimelines;
+    if (timelines != null && key != null && result != null && result.success()) {
+      timelines.record(key.trim());
+    }
+  }
+
+  private void forgetTimeline(String key) {
+    VoteTimelines timelines = voteTimelines;
+    if (timelines != null && key != null) {
+      timelines.forget(key.trim());
     }
   }
 
+  private PollVoteResult voteClusteredAnswer(AnswerClusterIndex clusters, String pollId, String answer,
+                                             String userId) {
+    PollDefinition poll = getAudiencePoll(pollId);
+    if (poll == null) {
+      return null;
+    }
+    String optionId = clusters.match(pollId, answer, poll.options());
+    if (optionId == null) {
+      return null;
+    }
+    try {
+      PollVoteResult result = dataStore.voteAudienceAnswer(pollId, optionId, userId);
+      updateCache(pollId, result);
+      return result;
+    } catch (IllegalArgumentException e) {
+      // The matched option is gone (stale cache or merged meanwhile); store the answer as typed
+      logger.debug("Clustered answer option {} of poll {} is no longer available", optionId, pollId);
+      return null;
+    }
+  }
+
+  private static String findAnswerId(PollDefinition poll, String answer) {
+    if (poll == null || poll.options() == null) {
+      return null;
+    }
+    String normalized = PollLabelNormalizer.normalize(answer);
+    for (PollOption option : poll.options()) {
+      if (PollLabelNormalizer.normalize(option.label()).equals(normalized)) {
+        return option.id();
+      }
+    }
+    return null;
+  }
+
   private void configureFromConfig(PollServiceConfig config) {
+    VoteWriteBuffer previousVoteBuffer = voteBuffer;
+    voteBuffer = null;
+    IdempotencyCache.Backing idempotencyBacking = null;
+
     String store = config.store();
     if (store == null) {
       store = "opencast";
@@ -171,17 +541,151 @@ public final class PollService {
         logger.warn("Initializing PollService with mock data store. Poll data will not persist.");
         dataStore = new MockPollDataStore();
         break;
+      case "memory":
+        // The polls live only in this store, so a configuration change that leaves it alone must not drop them
+        if (dataStore instanceof InMemoryPollDataStore && ((InMemoryPollDataStore) dataStore).hasLimits(
+            config.memoryMaxPolls(), config.memoryMaxVotersPerPoll(), config.memoryClosedPollTtlMs())) {
+          logger.info("Keeping in-memory data store of PollService; its limits are unchanged");
+          break;
+        }
+        logger.info("Initializing PollService with in-memory data store. Poll data will not persist.");
+        dataStore = new InMemoryPollDataStore(
+            config.memoryMaxPolls(),
+            config.memoryMaxVotersPerPoll(),
+            config.memoryClosedPollTtlMs()
+        );
+        break;
       case "opencast":
       default:
         if (dbSessionFactory == null || entityManagerFactory == null) {
           logger.warn("Opencast store selected but persistence is not available; falling back to mock");
           dataStore = new MockPollDataStore();
+        } else if (config.voteBufferEnabled()) {
+          logger.info("Initializing PollService with Opencast JPA backend and buffered votes");
+          voteBuffer = new VoteWriteBuffer(config.voteBufferFlushIntervalMs(), config.voteBufferMaxSize(),
+              config.voteBufferMaxWriteAttempts());
+          dataStore = new OpencastPollDataStore(dbSessionFactory, entityManagerFactory, voteBuffer,
+              createIdAllocator(config), config.storeVoterNames(), config.tallyShards());
+          idempotencyBacking = new OpencastIdempotencyStore(dbSessionFactory, entityManagerFactory);
         } else {
           logger.info("Initializing PollService with Opencast JPA backend");
-          dataStore = new OpencastPollDataStore(dbSessionFactory, entityManagerFactory);
+          dataStore = new OpencastPollDataStore(dbSessionFactory, entityManagerFactory, null,
+              createIdAllocator(config), config.storeVoterNames(), config.tallyShards());
+          idempotencyBacking = new OpencastIdempotencyStore(dbSessionFactory, entityManagerFactory);
         }
         break;
     }
+
+    readCache = config.cacheEnabled()
+        ? new PollReadCache(config.cacheMaxEntries(), config.cacheTtlMs(), config.cacheTallyTtlMs(),
+            config.cacheVersionCheckIntervalMs())
+        : null;
+
+    admissionControl = config.admissionControlEnabled()
+        ? new VoteAdmissionControl(
+            config.admissionPollVotesPerSecond(),
+            config.admissionPollBurst(),
+            config.admissionVoterVotesPerSecond(),
+            config.admissionVoterBurst(),
+            config.admissionMaxTrackedKeys())
+        : null;
+
+    idempotencyCache = config.idempotencyEnabled()
+        ? new IdempotencyCache(config.idempotencyMaxEntries(), config.idempotencyTtlMs(), idempotencyBacking)
+        : null;
+
+    answerClusters = config.answerClusteringEnabled()
+        ? new AnswerClusterIndex(config.answerClusterThreshold(), config.answerClusterMaxPolls())
+        : null;
+
+    voteTimelines = config.voteTimelineMaxPolls() > 0 ? new VoteTimelines(config.voteTimelineMaxPolls()) : null;
+
+    startVotePurger(config.closedPollVoteRetentionMs(), config.closedPollPurgeIntervalMs());
+    startTallyCompactor(config.tallyCompactionIntervalMs());
+
+    if (previousVoteBuffer != null) {
+      previousVoteBuffer.close();
+    }
+  }
+
+  private static PollIdAllocator createIdAllocator(PollServiceConfig config) {
+    if (config.pollIdNodeId() >= 0) {
+      return new PollIdAllocator(config.pollIdNodeId());
+    }
+    int nodeId = PollIdAllocator.localNodeId();
+    logger.info("Using poll id node id {} derived from the host name", nodeId);
+    return new PollIdAllocator(nodeId);
+  }
+
+  private void startVotePurger(long retentionMs, long intervalMs) {
+    stopVotePurger();
+    if (retentionMs <= 0) {
+      return;
+    }
+    long delay = Math.max(60000L, intervalMs);
+    votePurger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "poll-vote-purger");
+      thread.setDaemon(true);
+      return thread;
+    });
+    votePurger.scheduleWithFixedDelay(() -> purgeClosedPollVotes(retentionMs), delay, delay, TimeUnit.MILLISECONDS);
+  }
+
+  private void stopVotePurger() {
+    if (votePurger != null) {
+      votePurger.shutdownNow();
+      votePurger = null;
+    }
+  }
+
+  private void purgeClosedPollVotes(long retentionMs) {
+    try {
+      int purged = dataStore.purgeClosedPollVotes(System.currentTimeMillis() - retentionMs);
+      if (purged > 0) {
+        logger.info("Purged {} votes of closed polls", purged);
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to purge votes of closed polls", e);
+    }
+  }
+
+  private void startTallyCompactor(long intervalMs) {
+    stopTallyCompactor();
+    if (intervalMs <= 0) {
+      return;
+    }
+    long delay = Math.max(1000L, intervalMs);
+    tallyCompactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "poll-tally-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    tallyCompactor.scheduleWithFixedDelay(this::compactTallies, delay, delay, TimeUnit.MILLISECONDS);
+  }
+
+  private void stopTallyCompactor() {
+    if (tallyCompactor != null) {
+      tallyCompactor.shutdownNow();
+      tallyCompactor = null;
+    }
+  }
+
+  private void compactTallies() {
+    try {
+      int polls = dataStore.compactTallies(TALLY_COMPACTION_BATCH_SIZE);
+      if (polls > 0) {
+        logger.debug("Compacted vote tallies of {} polls", polls);
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to compact poll vote tallies", e);
+    }
+  }
+
+  private void closeVoteBuffer() {
+    if (voteBuffer != null) {
+      voteBuffer.close();
+      voteBuffer = null;
+    }
   }
 
   private void configureFromEnvironment() {
@@ -196,8 +700,202 @@ public final class PollService {
   public @interface PollServiceConfig {
     @AttributeDefinition(
         name = "Store",
-        description = "Backend store for poll data (opencast or mock)"
+        description = "Backend store for poll data (opencast, memory or mock)"
     )
     String store() default "opencast";
+
+    @AttributeDefinition(
+        name = "Poll id node id",
+        description = "Node id (0-1023) embedded in public audience poll ids; give every node of a cluster its own "
+            + "value. -1 derives it from the host name"
+    )
+    int pollIdNodeId() default -1;
+
+    @AttributeDefinition(
+        name = "In-memory store maximum polls",
+        description = "Number of polls the memory store keeps; closed polls are evicted first"
+    )
+    int memoryMaxPolls() default 10000;
+
+    @AttributeDefinition(
+        name = "In-memory store maximum voters per poll",
+        description = "Number of distinct voters the memory store accepts per poll"
+    )
+    int memoryMaxVotersPerPoll() default 100000;
+
+    @AttributeDefinition(
+        name = "In-memory store closed poll TTL",
+        description = "Milliseconds after the last access at which the memory store drops a closed poll"
+    )
+    long memoryClosedPollTtlMs() default 3600000L;
+
+    @AttributeDefinition(
+        name = "Closed poll vote retention",
+        description = "Milliseconds after closing a poll at which its individual vote rows are deleted (opencast "
+            + "store); the result snapshot is kept. 0 keeps votes forever"
+    )
+    long closedPollVoteRetentionMs() default 0L;
+
+    @AttributeDefinition(
+        name = "Closed poll purge interval",
+        description = "Milliseconds between runs of the closed poll vote purge"
+    )
+    long closedPollPurgeIntervalMs() default 3600000L;
+
+    @AttributeDefinition(
+        name = "Vote tally shards",
+        description = "Counter rows per poll option that votes are spread over (opencast store, MariaDB/MySQL and "
+            + "PostgreSQL), so concurrent votes on several nodes do not wait on one row. 1 keeps a single row"
+    )
+    int tallyShards() default 8;
+
+    @AttributeDefinition(
+        name = "Tally compaction interval",
+        description = "Milliseconds between runs folding the tally shards of each option into one row. 0 disables"
+    )
+    long tallyCompactionIntervalMs() default 60000L;
+
+    @AttributeDefinition(
+        name = "Store voter names",
+        description = "Keep the user name behind each hashed voter id in oc_poll_voter (opencast store)"
+    )
+    boolean storeVoterNames() default true;
+
+    @AttributeDefinition(
+        name = "Buffered votes",
+        description = "Keep votes in memory and write them to the database in batches (opencast store, single node)"
+    )
+    boolean voteBufferEnabled() default false;
+
+    @AttributeDefinition(
+        name = "Vote buffer flush interval",
+        description = "Milliseconds between background flushes of buffered votes"
+    )
+    long voteBufferFlushIntervalMs() default 500L;
+
+    @AttributeDefinition(
+        name = "Vote buffer maximum size",
+        description = "Number of pending votes that forces an immediate flush"
+    )
+    int voteBufferMaxSize() default 5000;
+
+    @AttributeDefinition(
+        name = "Vote buffer write attempts",
+        description = "Consecutive failed writes after which the buffered votes of a poll are dropped"
+    )
+    int voteBufferMaxWriteAttempts() default 20;
+
+    @AttributeDefinition(
+        name = "Read cache",
+        description = "Cache poll definitions and poll info in memory"
+    )
+    boolean cacheEnabled() default true;
+
+    @AttributeDefinition(
+        name = "Read cache maximum entries",
+        description = "Number of polls kept in the read cache before the least recently used one is evicted"
+    )
+    int cacheMaxEntries() default 2000;
+
+    @AttributeDefinition(
+        name = "Read cache TTL",
+        description = "Milliseconds a cached poll is served before it is loaded again"
+    )
+    long cacheTtlMs() default 30000L;
+
+    @AttributeDefinition(
+        name = "Read cache vote count TTL",
+        description = "Milliseconds cached vote counts are served before the poll is loaded again, which picks up "
+            + "votes from other nodes (0 keeps them until the read cache TTL)"
+    )
+    long cacheTallyTtlMs() default 1000L;
+
+    @AttributeDefinition(
+        name = "Read cache version check interval",
+        description = "Milliseconds between checks of the poll version column, which picks up option and state "
+            + "changes from other nodes (0 disables the check)"
+    )
+    long cacheVersionCheckIntervalMs() default 1000L;
+
+    @AttributeDefinition(
+        name = "Answer clustering",
+        description = "Count near-duplicate free-text audience answers (e.g. \"react.js\" and \"ReactJS\") as one "
+            + "answer"
+    )
+    boolean answerClusteringEnabled() default false;
+
+    @AttributeDefinition(
+        name = "Answer clustering threshold",
+        description = "Estimated similarity (0-1) from which a new answer joins an existing one; answers with "
+            + "different digits never join"
+    )
+    double answerClusterThreshold() default 0.9;
+
+    @AttributeDefinition(
+        name = "Answer clustering maximum polls",
+        description = "Number of polls whose answer sketches are kept in memory"
+    )
+    int answerClusterMaxPolls() default 1000;
+
+    @AttributeDefinition(
+        name = "Vote timeline maximum polls",
+        description = "Number of polls whose votes per second and per minute are kept in memory; the per-minute "
+            + "counts are stored with the results when a poll closes. 0 disables the timeline"
+    )
+    int voteTimelineMaxPolls() default 1000;
+
+    @AttributeDefinition(
+        name = "Vote admission control",
+        description = "Reject votes above the per-poll and per-voter rates before they reach the database"
+    )
+    boolean admissionControlEnabled() default false;
+
+    @AttributeDefinition(
+        name = "Votes per second per poll",
+        description = "Sustained vote rate admitted for one poll"
+    )
+    double admissionPollVotesPerSecond() default 200.0;
+
+    @AttributeDefinition(
+        name = "Vote burst per poll",
+        description = "Votes admitted for one poll at once before the per-poll rate applies"
+    )
+    int admissionPollBurst() default 1000;
+
+    @AttributeDefinition(
+        name = "Votes per second per voter",
+        description = "Sustained vote rate admitted for one voter id"
+    )
+    double admissionVoterVotesPerSecond() default 1.0;
+
+    @AttributeDefinition(
+        name = "Vote burst per voter",
+        description = "Votes admitted for one voter id at once before the per-voter rate applies"
+    )
+    int admissionVoterBurst() default 5;
+
+    @AttributeDefinition(
+        name = "Admission control tracked keys",
+        description = "Number of poll and voter buckets above which idle buckets are dropped"
+    )
+    int admissionMaxTrackedKeys() default 100000;
+
+    @AttributeDefinition(
+        name = "Idempotent mutations",
+        description = "Return the first result for mutations retried with the same requestId"
+    )
+    boolean idempotencyEnabled() default true;
+
+    @AttributeDefinition(
+        name = "Idempotency cache maximum entries",
+        description = "Number of mutation results kept in memory; older ones are read from oc_poll_idempotency"
+    )
+    int idempotencyMaxEntries() default 10000;
+
+    @AttributeDefinition(
+        name = "Idempotency TTL",
+        description = "Milliseconds a mutation result is kept for retries"
+    )
+    long idempotencyTtlMs() default 86400000L;
   }
 }
@@ -0,0 +1,30 @@
+package org.opencastproject.poll.plugin.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the oc_poll_option_tally row a thread adds its votes to. Shard 0 holds the compacted counts; with more
+ * than one shard, votes go to shards 1 to n, chosen by thread and offset per node, so concurrent votes for the
+ * same option rarely update the same row.
+ */
+final class TallyShards {
+
+  private final int shards;
+
+  private final int nodeOffset = ThreadLocalRandom.current().nextInt(Short.MAX_VALUE);
+
+  TallyShards(int shards) {
+    this.shards = Math.max(1, Math.min(shards, Short.MAX_VALUE));
+  }
+
+  boolean isSharded() {
+    return shards > 1;
+  }
+
+  int current() {
+    if (!isSharded()) {
+      return 0;
+    }
+    return 1 + (int) ((nodeOffset + Thread.currentThread().getId()) % shards);
+  }
+}
@@ -0,0 +1,117 @@
+package org.opencastproject.poll.plugin.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket admission control for vote mutations, keyed by poll and by voter. A request needs a token from
+ * both buckets; rejected requests never reach the data store, so one hot poll or one misbehaving client cannot
+ * take over the database pool.
+ */
+final class VoteAdmissionControl {
+
+  static final int ADMITTED = 0;
+  static final int REJECTED_POLL = 1;
+  static final int REJECTED_VOTER = 2;
+
+  private static final long PRUNE_INTERVAL_NANOS = 1_000_000_000L;
+
+  private final double pollRatePerNano;
+  private final double pollBurst;
+  private final double voterRatePerNano;
+  private final double voterBurst;
+  private final int maxTrackedKeys;
+
+  private final Map<String, TokenBucket> pollBuckets = new ConcurrentHashMap<>();
+  private final Map<String, TokenBucket> voterBuckets = new ConcurrentHashMap<>();
+  private final AtomicLong lastPrune = new AtomicLong(System.nanoTime());
+
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder rejectedByPoll = new LongAdder();
+  private final LongAdder rejectedByVoter = new LongAdder();
+
+  VoteAdmissionControl(double pollVotesPerSecond, int pollBurst, double voterVotesPerSecond, int voterBurst,
+                       int maxTrackedKeys) {
+    this.pollRatePerNano = Math.max(0.001, pollVotesPerSecond) / 1e9;
+    this.pollBurst = Math.max(1, pollBurst);
+    this.voterRatePerNano = Math.max(0.001, voterVotesPerSecond) / 1e9;
+    this.voterBurst = Math.max(1, voterBurst);
+    this.maxTrackedKeys = Math.max(100, maxTrackedKeys);
+  }
+
+  /**
+   * @param voterId voter to charge, or null to only apply the poll limit
+   */
+  int tryAdmit(String pollId, String voterId) {
+    return tryAdmit(pollId, voterId, System.nanoTime());
+  }
+
+  int tryAdmit(String pollId, String voterId, long now) {
+    pruneIfNeeded(now);
+
+    if (voterId != null) {
+      TokenBucket voter = voterBuckets.computeIfAbsent(voterId, key -> new TokenBucket(voterBurst, now));
+      if (!voter.tryAcquire(now, voterRatePerNano, voterBurst)) {
+        rejectedByVoter.increment();
+        return REJECTED_VOTER;
+      }
+    }
+    TokenBucket poll = pollBuckets.computeIfAbsent(pollId, key -> new TokenBucket(pollBurst, now));
+    if (!poll.tryAcquire(now, pollRatePerNano, pollBurst)) {
+      rejectedByPoll.increment();
+      return REJECTED_POLL;
+    }
+    admitted.increment();
+    return ADMITTED;
+  }
+
+  PollAdmissionStats stats() {
+    return new PollAdmissionStats(admitted.sum(), rejectedByPoll.sum(), rejectedByVoter.sum(),
+        pollBuckets.size() + voterBuckets.size());
+  }
+
+  private void pruneIfNeeded(long now) {
+    long last = lastPrune.get();
+    if (pollBuckets.size() + voterBuckets.size() <= maxTrackedKeys || now - last < PRUNE_INTERVAL_NANOS
+        || !lastPrune.compareAndSet(last, now)) {
+      return;
+    }
+    // A bucket that has refilled completely behaves like a new one and can be dropped
+    pollBuckets.values().removeIf(bucket -> bucket.isFull(now, pollRatePerNano, pollBurst));
+    voterBuckets.values().removeIf(bucket -> bucket.isFull(now, voterRatePerNano, voterBurst));
+  }
+
+  private static final class TokenBucket {
+
+    private double tokens;
+    private long updatedAt;
+
+    private TokenBucket(double tokens, long now) {
+      this.tokens = tokens;
+      this.updatedAt = now;
+    }
+
+    private synchronized boolean tryAcquire(long now, double ratePerNano, double burst) {
+      refill(now, ratePerNano, burst);
+      if (tokens < 1.0) {
+        return false;
+      }
+      tokens -= 1.0;
+      return true;
+    }
+
+    private synchronized boolean isFull(long now, double ratePerNano, double burst) {
+      refill(now, ratePerNano, burst);
+      return tokens >= burst;
+    }
+
+    private void refill(long now, double ratePerNano, double burst) {
+      if (now > updatedAt) {
+        tokens = Math.min(burst, tokens + (now - updatedAt) * ratePerNano);
+        updatedAt = now;
+      }
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.type.PollVoteBucket;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Vote counts of one poll per second for the last {@value #SECONDS} seconds and per minute for the last
+ * {@value #MINUTES} minutes.
+ *
+ * Each ring slot is one long holding the period it counts (epoch second or minute) in the upper bits and the
+ * count in the lower {@value #COUNT_BITS} bits. A vote increments the slot of its period with a CAS, starting
+ * over when the slot still holds an older period, so recording never allocates or locks and a slot is never
+ * reset under a concurrent increment.
+ */
+final class VoteTimeline {
+
+  static final int SECONDS = 300;
+  static final int MINUTES = 180;
+
+  private static final int COUNT_BITS = 24;
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  private final AtomicLongArray seconds = new AtomicLongArray(SECONDS);
+  private final AtomicLongArray minutes = new AtomicLongArray(MINUTES);
+
+  private volatile long firstVoteMillis;
+  private volatile long lastVoteMillis;
+
+  VoteTimeline(long createdMillis) {
+    this.lastVoteMillis = createdMillis;
+  }
+
+  void record(long nowMillis) {
+    long second = nowMillis / 1000L;
+    increment(seconds, second);
+    increment(minutes, second / 60L);
+    if (firstVoteMillis == 0L) {
+      firstVoteMillis = nowMillis;
+    }
+    lastVoteMillis = nowMillis;
+  }
+
+  long lastVoteMillis() {
+    return lastVoteMillis;
+  }
+
+  PollVoteTimeline snapshot(long nowMillis) {
+    return new PollVoteTimeline(buckets(seconds, 1000L, nowMillis), buckets(minutes, 60000L, nowMillis));
+  }
+
+  /** Keeps the per-minute buckets only, as stored with the snapshot of a closed poll. */
+  PollVoteTimeline downsampled(long nowMillis) {
+    return new PollVoteTimeline(Collections.<PollVoteBucket>emptyList(), buckets(minutes, 60000L, nowMillis));
+  }
+
+  private static void increment(AtomicLongArray ring, long period) {
+    int slot = (int) (period % ring.length());
+    while (true) {
+      long current = ring.get(slot);
+      long slotPeriod = current >>> COUNT_BITS;
+      long next;
+      if (slotPeriod == period) {
+        if ((current & COUNT_MASK) == COUNT_MASK) {
+          return;
+        }
+        next = current + 1;
+      } else if (slotPeriod > period) {
+        // The clock went back past a full turn of the ring; the vote is too old to be kept
+        return;
+      } else {
+        next = (period << COUNT_BITS) | 1L;
+      }
+      if (ring.compareAndSet(slot, current, next)) {
+        return;
+      }
+    }
+  }
+
+  /** Lists every period from the first vote (at most one turn of the ring ago) to now, empty ones included. */
+  private List<PollVoteBucket> buckets(AtomicLongArray ring, long periodMillis, long nowMillis) {
+    long first = firstVoteMillis;
+    if (first == 0L) {
+      return Collections.emptyList();
+    }
+    long last = nowMillis / periodMillis;
+    long start = Math.max(first / periodMillis, last - ring.length() + 1);
+    List<PollVoteBucket> buckets = new ArrayList<>((int) Math.max(0L, last - start + 1));
+    for (long period = start; period <= last; period++) {
+      long value = ring.get((int) (period % ring.length()));
+      int votes = (value >>> COUNT_BITS) == period ? (int) (value & COUNT_MASK) : 0;
+      buckets.add(new PollVoteBucket(Instant.ofEpochMilli(period * periodMillis).toString(), votes));
+    }
+    return buckets;
+  }
+}
@@ -0,0 +1,72 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The vote timelines of the polls this node received votes for, at most {@code maxPolls} of them. Votes for a
+ * poll that already has a timeline cost a map lookup and the CAS increments; only the first vote of a poll
+ * creates a timeline, evicting the one with the oldest last vote when the limit is reached.
+ */
+final class VoteTimelines {
+
+  private final int maxPolls;
+  private final ConcurrentHashMap<String, VoteTimeline> timelines = new ConcurrentHashMap<>();
+
+  VoteTimelines(int maxPolls) {
+    this.maxPolls = Math.max(1, maxPolls);
+  }
+
+  void record(String pollId) {
+    VoteTimeline timeline = timelines.get(pollId);
+    if (timeline == null) {
+      timeline = create(pollId);
+    }
+    timeline.record(System.currentTimeMillis());
+  }
+
+  PollVoteTimeline get(String pollId) {
+    VoteTimeline timeline = timelines.get(pollId);
+    return timeline == null ? null : timeline.snapshot(System.currentTimeMillis());
+  }
+
+  /** Returns the per-minute buckets stored when the poll closes, or null. */
+  PollVoteTimeline downsampled(String pollId) {
+    VoteTimeline timeline = timelines.get(pollId);
+    return timeline == null ? null : timeline.downsampled(System.currentTimeMillis());
+  }
+
+  void forget(String pollId) {
+    timelines.remove(pollId);
+  }
+
+  private synchronized VoteTimeline create(String pollId) {
+    VoteTimeline timeline = timelines.get(pollId);
+    if (timeline != null) {
+      return timeline;
+    }
+    if (timelines.size() >= maxPolls) {
+      evictOldest();
+    }
+    timeline = new VoteTimeline(System.currentTimeMillis());
+    timelines.put(pollId, timeline);
+    return timeline;
+  }
+
+  private void evictOldest() {
+    String oldest = null;
+    long oldestVote = Long.MAX_VALUE;
+    for (Map.Entry<String, VoteTimeline> entry : timelines.entrySet()) {
+      long lastVote = entry.getValue().lastVoteMillis();
+      if (lastVote < oldestVote) {
+        oldest = entry.getKey();
+        oldestVote = lastVote;
+      }
+    }
+    if (oldest != null) {
+      timelines.remove(oldest);
+    }
+  }
+}
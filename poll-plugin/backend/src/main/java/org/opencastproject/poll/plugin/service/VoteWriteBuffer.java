@@ -0,0 +1,276 @@
+package org.opencastproject.poll.plugin.service;
+
+import org.opencastproject.poll.plugin.service.BufferedPoll.PendingVote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Write-behind buffer for poll votes. Votes are kept per poll (latest vote per voter wins) and written to the
+ * database in batches by a background flusher, or synchronously once the buffer reaches its maximum size.
+ * Each poll is written in its own transaction, so a poll whose votes cannot be written does not hold back the
+ * others; its votes are retried a limited number of times and then dropped.
+ *
+ * The in-memory tallies are only coherent on a single node.
+ */
+public final class VoteWriteBuffer {
+
+  private static final Logger logger = LoggerFactory.getLogger(VoteWriteBuffer.class);
+
+  private static final long IDLE_EVICTION_MS = TimeUnit.MINUTES.toMillis(15);
+
+  static final int DEFAULT_MAX_WRITE_ATTEMPTS = 20;
+
+  interface Writer {
+    /**
+     * Writes pending votes of one poll in one transaction.
+     *
+     * @return false if the poll no longer exists; the votes are then dropped
+     */
+    boolean write(List<PendingVote> votes) throws Exception;
+  }
+
+  private final long flushIntervalMs;
+  private final int maxSize;
+  private final int maxWriteAttempts;
+  private final Map<String, BufferedPoll> pollsByEventId = new ConcurrentHashMap<>();
+  private final Map<String, Integer> closingPolls = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private volatile Writer writer;
+  private ScheduledExecutorService scheduler;
+
+  public VoteWriteBuffer(long flushIntervalMs, int maxSize) {
+    this(flushIntervalMs, maxSize, DEFAULT_MAX_WRITE_ATTEMPTS);
+  }
+
+  public VoteWriteBuffer(long flushIntervalMs, int maxSize, int maxWriteAttempts) {
+    this.flushIntervalMs = Math.max(10L, flushIntervalMs);
+    this.maxSize = Math.max(1, maxSize);
+    this.maxWriteAttempts = Math.max(1, maxWriteAttempts);
+  }
+
+  synchronized void start(Writer writer) {
+    this.writer = writer;
+    if (scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "poll-vote-buffer-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    logger.info("Poll vote buffer started (flush interval {} ms, max size {})", flushIntervalMs, maxSize);
+  }
+
+  public void close() {
+    ScheduledExecutorService current;
+    synchronized (this) {
+      current = scheduler;
+      scheduler = null;
+    }
+    if (current != null) {
+      current.shutdown();
+      try {
+        current.awaitTermination(flushIntervalMs * 2, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    flushQuietly();
+    pollsByEventId.clear();
+  }
+
+  BufferedPoll get(String eventId) {
+    return pollsByEventId.get(eventId);
+  }
+
+  BufferedPoll getOrLoad(String eventId, Function<String, BufferedPoll> loader) {
+    BufferedPoll poll = pollsByEventId.get(eventId);
+    if (poll != null) {
+      return poll;
+    }
+    if (closingPolls.containsKey(eventId)) {
+      return null;
+    }
+    BufferedPoll loaded = loader.apply(eventId);
+    if (loaded == null) {
+      return null;
+    }
+    // A close that began meanwhile may have flushed the poll already, so it is not buffered again
+    return pollsByEventId.compute(eventId,
+        (key, current) -> current != null ? current : closingPolls.containsKey(key) ? null : loaded);
+  }
+
+  /**
+   * Stops loading a poll into the buffer until {@link #endClose(String)}; the caller then flushes it with
+   * {@link #flushAndEvict(String)}, after which its votes are refused.
+   */
+  void beginClose(String eventId) {
+    closingPolls.merge(eventId, 1, Integer::sum);
+  }
+
+  void endClose(String eventId) {
+    closingPolls.computeIfPresent(eventId, (key, count) -> count > 1 ? count - 1 : null);
+  }
+
+  void discard(String eventId) {
+    BufferedPoll removed = pollsByEventId.remove(eventId);
+    if (removed != null) {
+      int dropped = removed.detach().size();
+      if (dropped > 0) {
+        pendingCount.addAndGet(-dropped);
+        logger.info("Dropped {} buffered votes of replaced or deleted poll {}", dropped, eventId);
+      }
+    }
+  }
+
+  /**
+   * Writes the pending votes of one poll and drops its in-memory state, so the next vote loads it again.
+   */
+  void flushAndEvict(String eventId) {
+    flushLock.lock();
+    try {
+      BufferedPoll removed = pollsByEventId.remove(eventId);
+      if (removed == null) {
+        return;
+      }
+      List<PendingVote> votes = removed.detach();
+      pendingCount.addAndGet(-votes.size());
+      if (votes.isEmpty()) {
+        return;
+      }
+      Writer currentWriter = writer;
+      if (currentWriter == null) {
+        throw new IllegalStateException("Vote buffer has no writer");
+      }
+      boolean written;
+      try {
+        written = currentWriter.write(votes);
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to write " + votes.size() + " buffered votes of poll " + eventId, e);
+      }
+      if (!written) {
+        logger.warn("Dropped {} buffered votes of poll {}, which no longer exists", votes.size(), eventId);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * @return false if the poll state was evicted concurrently and the caller has to load it again
+   */
+  boolean vote(BufferedPoll poll, String voterKey, String optionId, Date votedAt) {
+    int outcome = poll.vote(voterKey, optionId, votedAt);
+    if (outcome == BufferedPoll.VOTE_DETACHED) {
+      pollsByEventId.remove(poll.getEventId(), poll);
+      return false;
+    }
+    if (outcome == BufferedPoll.VOTE_ADDED_PENDING && pendingCount.incrementAndGet() >= maxSize) {
+      flush();
+    }
+    return true;
+  }
+
+  void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      logger.warn("Failed to flush buffered poll votes", e);
+    }
+  }
+
+  void flush() {
+    flushLock.lock();
+    try {
+      int written = 0;
+      for (BufferedPoll poll : pollsByEventId.values()) {
+        List<PendingVote> votes = poll.drainPending();
+        if (!votes.isEmpty()) {
+          pendingCount.addAndGet(-votes.size());
+          written += write(poll, votes);
+        }
+      }
+      if (written > 0) {
+        logger.debug("Flushed {} buffered poll votes", written);
+      }
+
+      evictIdle();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  int getPendingCount() {
+    return pendingCount.get();
+  }
+
+  /**
+   * Writes the drained votes of one poll and returns their number, or 0 if they were queued again or dropped.
+   */
+  private int write(BufferedPoll poll, List<PendingVote> votes) {
+    Writer currentWriter = writer;
+    try {
+      if (currentWriter == null) {
+        throw new IllegalStateException("Vote buffer has no writer");
+      }
+      if (!currentWriter.write(votes)) {
+        int dropped = votes.size() + evict(poll);
+        logger.warn("Dropped {} buffered votes of poll {}, which no longer exists", dropped, poll.getEventId());
+        return 0;
+      }
+      poll.markPersisted(votes);
+      return votes.size();
+    } catch (Exception e) {
+      int attempts = poll.failedWrite();
+      if (attempts >= maxWriteAttempts) {
+        // The in-memory counts include the dropped votes; the next vote loads the poll from the database again
+        int dropped = votes.size() + evict(poll);
+        logger.error("Dropped {} buffered votes of poll {} after {} failed writes", dropped, poll.getEventId(),
+            attempts, e);
+        return 0;
+      }
+      int requeued = poll.requeue(votes);
+      pendingCount.addAndGet(requeued);
+      logger.warn("Failed to write {} buffered votes of poll {} (attempt {} of {}); {} queued again", votes.size(),
+          poll.getEventId(), attempts, maxWriteAttempts, requeued, e);
+      return 0;
+    }
+  }
+
+  /**
+   * Removes a poll from the buffer and returns the number of its pending votes that are dropped with it.
+   */
+  private int evict(BufferedPoll poll) {
+    pollsByEventId.remove(poll.getEventId(), poll);
+    int dropped = poll.detach().size();
+    pendingCount.addAndGet(-dropped);
+    return dropped;
+  }
+
+  private void evictIdle() {
+    long threshold = System.currentTimeMillis() - IDLE_EVICTION_MS;
+    Iterator<Map.Entry<String, BufferedPoll>> iterator = pollsByEventId.entrySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().getValue().detachIfIdle(threshold)) {
+        iterator.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package org.opencastproject.poll.plugin.type;
+
+import java.util.List;
+
+import graphql.annotations.annotationTypes.GraphQLField;
+import graphql.annotations.annotationTypes.GraphQLName;
+
+@GraphQLName("AudiencePollPage")
+public final class AudiencePollPage {
+
+  private final List<PollDefinition> polls;
+  private final String endCursor;
+  private final boolean hasNextPage;
+
+  public AudiencePollPage(List<PollDefinition> polls, String endCursor, boolean hasNextPage) {
+    this.polls = polls;
+    this.endCursor = endCursor;
+    this.hasNextPage = hasNextPage;
+  }
+
+  @GraphQLField
+  public List<PollDefinition> polls() {
+    return polls;
+  }
+
+  @GraphQLField
+  public String endCursor() {
+    return endCursor;
+  }
+
+  @GraphQLField
+  public boolean hasNextPage() {
+    return hasNextPage;
+  }
+}
@@ -1,7 +1,10 @@
 package org.opencastproject.poll.plugin.type;
 
+import org.opencastproject.poll.plugin.PollVoteTimelineDataFetcher;
+
 import java.util.List;
 
+import graphql.annotations.annotationTypes.GraphQLDataFetcher;
 import graphql.annotations.annotationTypes.GraphQLField;
 import graphql.annotations.annotationTypes.GraphQLName;
 
@@ -14,16 +17,33 @@ public final class PollDefinition {
   private final boolean isActive;
   private final String createdBy;
   private final List<PollOption> options;
+  private final PollVoteTimeline voteTimeline;
 
   public PollDefinition(String id, String eventId, String question, boolean isActive,
                         String createdBy,
                         List<PollOption> options) {
+    this(id, eventId, question, isActive, createdBy, options, null);
+  }
+
+  public PollDefinition(String id, String eventId, String question, boolean isActive,
+                        String createdBy,
+                        List<PollOption> options,
+                        PollVoteTimeline voteTimeline) {
     this.id = id;
     this.eventId = eventId;
     this.question = question;
     this.isActive = isActive;
     this.createdBy = createdBy;
     this.options = options;
+    this.voteTimeline = voteTimeline;
+  }
+
+  public PollDefinition withVoteTimeline(PollVoteTimeline timeline) {
+    return new PollDefinition(id, eventId, question, isActive, createdBy, options, timeline);
+  }
+
+  public PollDefinition withOptions(List<PollOption> newOptions) {
+    return new PollDefinition(id, eventId, question, isActive, createdBy, newOptions, voteTimeline);
   }
 
   @GraphQLField
@@ -60,4 +80,13 @@ public final class PollDefinition {
   public List<PollOption> options() {
     return options;
   }
+
+  /**
+   * The timeline stored with the snapshot of a closed poll; the GraphQL field falls back to the live timeline.
+   */
+  @GraphQLField
+  @GraphQLDataFetcher(PollVoteTimelineDataFetcher.class)
+  public PollVoteTimeline voteTimeline() {
+    return voteTimeline;
+  }
 }
@@ -0,0 +1,27 @@
+package org.opencastproject.poll.plugin.type;
+
+import graphql.annotations.annotationTypes.GraphQLField;
+import graphql.annotations.annotationTypes.GraphQLName;
+
+@GraphQLName("PollVoteBucket")
+public final class PollVoteBucket {
+
+  private final String start;
+  private final int votes;
+
+  public PollVoteBucket(String start, int votes) {
+    this.start = start;
+    this.votes = votes;
+  }
+
+  /** ISO-8601 instant at which the bucket starts. */
+  @GraphQLField
+  public String start() {
+    return start;
+  }
+
+  @GraphQLField
+  public int votes() {
+    return votes;
+  }
+}
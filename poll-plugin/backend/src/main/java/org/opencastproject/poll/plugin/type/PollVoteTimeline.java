@@ -0,0 +1,31 @@
+package org.opencastproject.poll.plugin.type;
+
+import java.util.List;
+
+import graphql.annotations.annotationTypes.GraphQLField;
+import graphql.annotations.annotationTypes.GraphQLName;
+
+/**
+ * Votes per second and per minute, oldest bucket first. Closed polls only keep the per-minute buckets.
+ */
+@GraphQLName("PollVoteTimeline")
+public final class PollVoteTimeline {
+
+  private final List<PollVoteBucket> perSecond;
+  private final List<PollVoteBucket> perMinute;
+
+  public PollVoteTimeline(List<PollVoteBucket> perSecond, List<PollVoteBucket> perMinute) {
+    this.perSecond = perSecond;
+    this.perMinute = perMinute;
+  }
+
+  @GraphQLField
+  public List<PollVoteBucket> perSecond() {
+    return perSecond;
+  }
+
+  @GraphQLField
+  public List<PollVoteBucket> perMinute() {
+    return perMinute;
+  }
+}
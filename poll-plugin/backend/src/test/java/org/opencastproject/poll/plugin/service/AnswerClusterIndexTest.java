@@ -0,0 +1,100 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.opencastproject.poll.plugin.type.PollOption;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class AnswerClusterIndexTest {
+
+  private static final double DEFAULT_THRESHOLD = 0.9;
+
+  @Test
+  public void punctuationAndCaseVariantsMatchExactly() {
+    AnswerClusterIndex index = new AnswerClusterIndex(DEFAULT_THRESHOLD, 10);
+    List<PollOption> options = options("ReactJS");
+
+    assertEquals("o1", index.match("poll", "react.js", options));
+    assertEquals("o1", index.match("poll", "React JS", options));
+  }
+
+  @Test
+  public void answersWithDifferentDigitsNeverMatch() {
+    // Even a low threshold must not join these
+    AnswerClusterIndex index = new AnswerClusterIndex(0.3, 10);
+
+    assertNull(index.match("poll", "Python3", options("Python2")));
+    assertNull(index.match("poll", "Option 2", options("Option 1")));
+    assertNull(index.match("poll", "Windows 11", options("Windows 10")));
+  }
+
+  @Test
+  public void answersWithSameDigitsStillMatch() {
+    AnswerClusterIndex index = new AnswerClusterIndex(0.8, 10);
+
+    assertEquals("o1", index.match("poll", "Windows 10 Professionals", options("Windows 10 Professional")));
+  }
+
+  @Test
+  public void thresholdDecidesFuzzyMatches() {
+    List<PollOption> options = options("kubernetes cluster");
+
+    // Estimated similarity of the two answers is about 0.85
+    assertEquals("o1", new AnswerClusterIndex(0.8, 10).match("poll", "kubernetes clusters", options));
+    assertNull(new AnswerClusterIndex(DEFAULT_THRESHOLD, 10).match("poll", "kubernetes clusters", options));
+  }
+
+  @Test
+  public void defaultThresholdKeepsDistinctAnswersApart() {
+    AnswerClusterIndex index = new AnswerClusterIndex(DEFAULT_THRESHOLD, 10);
+
+    assertNull(index.match("poll", "ReactJS", options("React")));
+    assertNull(index.match("poll", "javasript", options("javascript")));
+  }
+
+  @Test
+  public void shortAnswersOnlyMatchExactly() {
+    AnswerClusterIndex index = new AnswerClusterIndex(0.1, 10);
+
+    assertNull(index.match("poll", "C#", options("C++")));
+    assertNull(index.match("poll", "Go", options("Goo")));
+  }
+
+  @Test
+  public void mergedLabelsJoinTarget() {
+    AnswerClusterIndex index = new AnswerClusterIndex(DEFAULT_THRESHOLD, 10);
+    List<PollOption> options = options("Kubernetes");
+    index.match("poll", "Kubernetes", options);
+
+    index.merge("poll", "o1", Collections.singletonList("k8s"));
+
+    assertEquals("o1", index.match("poll", "K8S", options));
+  }
+
+  @Test
+  public void splitAnswerStopsJoining() {
+    AnswerClusterIndex index = new AnswerClusterIndex(0.8, 10);
+    List<PollOption> options = options("kubernetes cluster");
+    assertEquals("o1", index.match("poll", "kubernetes clusters", options));
+
+    index.split("poll", "o1", "kubernetes clusters", "o2");
+
+    List<PollOption> afterSplit = options("kubernetes cluster", "kubernetes clusters");
+    assertEquals("o2", index.match("poll", "kubernetes clusters", afterSplit));
+    assertEquals("o2", index.match("poll", "Kubernetes-Clusters", afterSplit));
+  }
+
+  private static List<PollOption> options(String... labels) {
+    List<PollOption> options = new ArrayList<>();
+    for (int i = 0; i < labels.length; i++) {
+      options.add(new PollOption("o" + (i + 1), labels[i], 0));
+    }
+    return options;
+  }
+}
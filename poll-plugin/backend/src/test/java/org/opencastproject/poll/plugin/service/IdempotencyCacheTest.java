@@ -0,0 +1,142 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.poll.plugin.type.PollOption;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyCacheTest {
+
+  private final AtomicInteger runs = new AtomicInteger();
+
+  @Test
+  public void retryReturnsOriginalResult() {
+    IdempotencyCache cache = new IdempotencyCache(10, 60000L, null);
+
+    PollVoteResult first = cache.execute("vote", "alice", "request-1", PollVoteResult.class, this::vote);
+    PollVoteResult retry = cache.execute("vote", "alice", "request-1", PollVoteResult.class, this::vote);
+
+    assertSame(first, retry);
+    assertEquals(1, runs.get());
+  }
+
+  @Test
+  public void requestIdsAreScopedToUserAndOperation() {
+    IdempotencyCache cache = new IdempotencyCache(10, 60000L, null);
+
+    cache.execute("vote", "alice", "request-1", PollVoteResult.class, this::vote);
+    cache.execute("vote", "bob", "request-1", PollVoteResult.class, this::vote);
+    cache.execute("submitAudienceAnswer", "alice", "request-1", PollVoteResult.class, this::vote);
+    cache.execute("vote", "alice", "request-2", PollVoteResult.class, this::vote);
+
+    assertEquals(4, runs.get());
+  }
+
+  @Test
+  public void failedMutationIsNotRemembered() {
+    IdempotencyCache cache = new IdempotencyCache(10, 60000L, null);
+    try {
+      cache.execute("vote", "alice", "request-1", PollVoteResult.class, () -> {
+        runs.incrementAndGet();
+        throw new IllegalStateException("Poll is not active");
+      });
+      fail("Failure was swallowed");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    cache.execute("vote", "alice", "request-1", PollVoteResult.class, this::vote);
+
+    assertEquals(2, runs.get());
+  }
+
+  @Test
+  public void retryOnAnotherNodeIsAnsweredFromBacking() {
+    MapBacking backing = new MapBacking();
+    IdempotencyCache first = new IdempotencyCache(10, 60000L, backing);
+    PollVoteResult original = first.execute("vote", "alice", "request-1", PollVoteResult.class, this::vote);
+
+    IdempotencyCache second = new IdempotencyCache(10, 60000L, backing);
+    PollVoteResult replayed = second.execute("vote", "alice", "request-1", PollVoteResult.class, this::vote);
+
+    assertEquals(1, runs.get());
+    assertEquals(original.selectedOptionId(), replayed.selectedOptionId());
+    assertEquals(original.totalVotes(), replayed.totalVotes());
+    assertEquals(original.options().get(0).voteCount(), replayed.options().get(0).voteCount());
+  }
+
+  @Test
+  public void concurrentRetryWaitsForFirstAttempt() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache(10, 60000L, null);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<PollVoteResult> first = executor.submit(() ->
+          cache.execute("vote", "alice", "request-1", PollVoteResult.class, () -> {
+            started.countDown();
+            await(release);
+            return vote();
+          }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      Future<PollVoteResult> retry = executor.submit(() ->
+          cache.execute("vote", "alice", "request-1", PollVoteResult.class, this::vote));
+
+      release.countDown();
+      assertSame(first.get(5, TimeUnit.SECONDS), retry.get(5, TimeUnit.SECONDS));
+      assertEquals(1, runs.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private PollVoteResult vote() {
+    int run = runs.incrementAndGet();
+    return new PollVoteResult("1", "option-a", run, true,
+        Collections.singletonList(new PollOption("option-a", "A", run)));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class MapBacking implements IdempotencyCache.Backing {
+
+    private final Map<String, String> rows = new HashMap<>();
+
+    @Override
+    public synchronized String load(String key, long notBefore) {
+      return rows.get(key);
+    }
+
+    @Override
+    public synchronized void save(String key, String json) {
+      rows.put(key, json);
+    }
+
+    @Override
+    public int purgeBefore(long createdBefore) {
+      return 0;
+    }
+  }
+}
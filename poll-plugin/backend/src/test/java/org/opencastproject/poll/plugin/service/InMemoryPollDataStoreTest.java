@@ -0,0 +1,166 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.input.PollInput;
+import org.opencastproject.poll.plugin.type.input.PollVoteInput;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class InMemoryPollDataStoreTest {
+
+  @Test
+  public void changedVoteMovesCount() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(10, 100, 60000L);
+    PollDefinition poll = createPoll(store, "event-1");
+
+    store.submitVote("event-1", vote(poll, 0), "alice");
+    PollVoteResult result = store.submitVote("event-1", vote(poll, 1), "alice");
+
+    assertEquals(1, result.totalVotes());
+    assertEquals(0, result.options().get(0).voteCount());
+    assertEquals(1, result.options().get(1).voteCount());
+  }
+
+  @Test
+  public void concurrentVotersAreAllCounted() throws Exception {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(10, 10000, 60000L);
+    PollDefinition poll = createPoll(store, "event-1");
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+        String voter = "voter-" + i;
+        PollVoteInput input = vote(poll, i % 2);
+        futures.add(executor.submit(() -> store.submitVote("event-1", input, voter)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    PollDefinition counted = store.getPollDefinition("event-1");
+    assertEquals(1000, counted.options().get(0).voteCount());
+    assertEquals(1000, counted.options().get(1).voteCount());
+    assertEquals(Integer.valueOf(2000), store.getPollInfo("event-1").totalVotes());
+  }
+
+  @Test
+  public void votersPerPollAreLimited() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(10, 2, 60000L);
+    PollDefinition poll = createPoll(store, "event-1");
+    store.submitVote("event-1", vote(poll, 0), "alice");
+    store.submitVote("event-1", vote(poll, 0), "bob");
+
+    // Known voters may still change their vote
+    store.submitVote("event-1", vote(poll, 1), "alice");
+    try {
+      store.submitVote("event-1", vote(poll, 0), "carol");
+      fail("Third voter was admitted");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void closedPollRejectsVotes() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(10, 100, 60000L);
+    PollDefinition poll = createPoll(store, "event-1");
+    store.closePoll("event-1", "teacher", null);
+
+    store.submitVote("event-1", vote(poll, 0), "alice");
+  }
+
+  @Test
+  public void closedPollsMakeRoomForNewOnes() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(2, 100, 60000L);
+    createPoll(store, "event-1");
+    createPoll(store, "event-2");
+    store.closePoll("event-1", "teacher", null);
+
+    createPoll(store, "event-3");
+
+    assertNull(store.getPollDefinition("event-1"));
+    assertNotNull(store.getPollDefinition("event-2"));
+    assertNotNull(store.getPollDefinition("event-3"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fullStoreRejectsNewPolls() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(2, 100, 60000L);
+    createPoll(store, "event-1");
+    createPoll(store, "event-2");
+
+    createPoll(store, "event-3");
+  }
+
+  @Test
+  public void audienceAnswersAreJoinedByNormalizedLabel() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(10, 100, 60000L);
+    String pollId = store.createAudiencePoll("What did you learn?", "teacher").eventId();
+
+    store.submitAudienceAnswer(pollId, "Recursion", "alice");
+    PollVoteResult result = store.submitAudienceAnswer(pollId, "  recursion ", "bob");
+
+    assertEquals(1, result.options().size());
+    assertEquals(2, result.options().get(0).voteCount());
+  }
+
+  @Test
+  public void mergeMovesVotesAndDropsSource() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(10, 100, 60000L);
+    String pollId = store.createAudiencePoll("Favourite language?", "teacher").eventId();
+    String target = store.submitAudienceAnswer(pollId, "Kotlin", "alice").selectedOptionId();
+    String source = store.submitAudienceAnswer(pollId, "Kotlin language", "bob").selectedOptionId();
+    String previousVersion = store.getPollVersion(pollId);
+
+    PollDefinition merged = store.mergeAudienceAnswers(pollId, target, Collections.singletonList(source), "teacher");
+
+    assertEquals(1, merged.options().size());
+    assertEquals(2, merged.options().get(0).voteCount());
+    assertNotEquals(previousVersion, store.getPollVersion(pollId));
+    assertEquals(target, store.submitAudienceAnswer(pollId, "kotlin language", "carol").selectedOptionId());
+  }
+
+  @Test
+  public void limitsAreComparedAfterClamping() {
+    InMemoryPollDataStore store = new InMemoryPollDataStore(0, 100, -1L);
+
+    assertTrue(store.hasLimits(1, 100, 0L));
+    assertFalse(store.hasLimits(1, 101, 0L));
+  }
+
+  private static PollDefinition createPoll(InMemoryPollDataStore store, String eventId) {
+    PollInput input = new PollInput();
+    input.setQuestion("Question");
+    input.setOptions(Arrays.asList("A", "B"));
+    input.setIsActive(true);
+    return store.createPoll(eventId, input, "teacher");
+  }
+
+  private static PollVoteInput vote(PollDefinition poll, int option) {
+    PollVoteInput input = new PollVoteInput();
+    input.setPollId(poll.id());
+    input.setOptionId(poll.options().get(option).id());
+    return input;
+  }
+}
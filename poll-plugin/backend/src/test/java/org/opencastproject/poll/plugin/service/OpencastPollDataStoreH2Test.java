@@ -0,0 +1,145 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.db.DBTestEnv;
+import org.opencastproject.poll.plugin.persistence.PollSchemaInitializer;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.input.PollInput;
+import org.opencastproject.poll.plugin.type.input.PollVoteInput;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Runs the native SQL of the database store against H2 in MySQL mode, with the schema of
+ * {@link PollSchemaInitializer}.
+ */
+public class OpencastPollDataStoreH2Test {
+
+  private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+  private String url;
+  private EntityManagerFactory entityManagerFactory;
+  private OpencastPollDataStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    url = "jdbc:h2:mem:poll-store" + SEQUENCE.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      PollSchemaInitializer.createSchema(connection);
+    }
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("javax.persistence.nonJtaDataSource", "");
+    properties.put("javax.persistence.jdbc.driver", "org.h2.Driver");
+    properties.put("javax.persistence.jdbc.url", url);
+    properties.put("javax.persistence.jdbc.user", "sa");
+    properties.put("javax.persistence.jdbc.password", "");
+    // The H2 platform of EclipseLink 2.7 reads generated ids with CALL IDENTITY(), which H2 2 no longer has
+    properties.put("eclipselink.target-database", "MySQL");
+    properties.put("eclipselink.ddl-generation", "none");
+    properties.put("eclipselink.logging.level", "SEVERE");
+    entityManagerFactory = Persistence.createEntityManagerFactory("org.opencastproject.poll", properties);
+    store = new OpencastPollDataStore(DBTestEnv.getDbSessionFactory(), entityManagerFactory, null,
+        new PollIdAllocator(0));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    entityManagerFactory.close();
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+         Statement statement = connection.createStatement()) {
+      statement.execute("SHUTDOWN");
+    }
+  }
+
+  @Test
+  public void changedVoteMovesCount() {
+    PollDefinition poll = createPoll("event-1");
+
+    store.submitVote("event-1", vote(poll, 0), "alice");
+    store.submitVote("event-1", vote(poll, 0), "bob");
+    PollVoteResult result = store.submitVote("event-1", vote(poll, 1), "alice");
+
+    assertEquals(2, result.totalVotes());
+    assertEquals(1, result.options().get(0).voteCount());
+    assertEquals(1, result.options().get(1).voteCount());
+  }
+
+  @Test
+  public void closedPollRejectsVotesAndKeepsTally() {
+    PollDefinition poll = createPoll("event-1");
+    store.submitVote("event-1", vote(poll, 0), "alice");
+
+    store.closePoll("event-1", "teacher", null);
+    try {
+      store.submitVote("event-1", vote(poll, 1), "bob");
+      fail("Vote on a closed poll was counted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    PollDefinition closed = store.getPollDefinition("event-1");
+    assertFalse(closed.isActive());
+    assertEquals(1, closed.options().get(0).voteCount());
+    assertEquals(0, closed.options().get(1).voteCount());
+  }
+
+  @Test
+  public void audienceAnswersAreCounted() {
+    String pollId = store.createAudiencePoll("What did you learn?", "teacher").eventId();
+
+    String answerId = store.submitAudienceAnswer(pollId, "Recursion", "alice").selectedOptionId();
+    PollVoteResult result = store.voteAudienceAnswer(pollId, answerId, "bob");
+
+    assertEquals(1, result.options().size());
+    assertEquals(2, result.options().get(0).voteCount());
+  }
+
+  @Test
+  public void closedAudiencePollRejectsAnswerVotes() {
+    String pollId = store.createAudiencePoll("What did you learn?", "teacher").eventId();
+    String answerId = store.submitAudienceAnswer(pollId, "Recursion", "alice").selectedOptionId();
+
+    store.closePoll(pollId, "teacher", null);
+    try {
+      store.voteAudienceAnswer(pollId, answerId, "bob");
+      fail("Vote on a closed audience poll was counted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    assertEquals(1, store.getAudiencePoll(pollId).options().get(0).voteCount());
+  }
+
+  private PollDefinition createPoll(String eventId) {
+    PollInput input = new PollInput();
+    input.setQuestion("Question");
+    input.setOptions(Arrays.asList("A", "B"));
+    input.setIsActive(true);
+    return store.createPoll(eventId, input, "teacher");
+  }
+
+  private static PollVoteInput vote(PollDefinition poll, int option) {
+    PollVoteInput input = new PollVoteInput();
+    input.setPollId(poll.id());
+    input.setOptionId(poll.options().get(option).id());
+    return input;
+  }
+}
@@ -0,0 +1,66 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class PollIdAllocatorTest {
+
+  @Test
+  public void idsIncreaseAndNeverRepeat() {
+    PollIdAllocator allocator = new PollIdAllocator(7);
+    Set<String> ids = new HashSet<>();
+    long previous = -1L;
+    // More than the 4096 ids one millisecond can hold, so the sequence wraps at least once
+    for (int i = 0; i < 20000; i++) {
+      String id = allocator.next();
+      assertTrue(id.startsWith(PollIdAllocator.PREFIX));
+      long value = decode(id);
+      assertTrue("Id " + id + " is not greater than its predecessor", value > previous);
+      assertTrue(ids.add(id));
+      previous = value;
+    }
+  }
+
+  @Test
+  public void nodeIdIsEmbedded() {
+    assertEquals(5L, (decode(new PollIdAllocator(5).next()) >> 12) & 1023L);
+    assertEquals(1023L, (decode(new PollIdAllocator(1023).next()) >> 12) & 1023L);
+  }
+
+  @Test
+  public void nodesWithDifferentNodeIdsDoNotCollide() {
+    PollIdAllocator first = new PollIdAllocator(1);
+    PollIdAllocator second = new PollIdAllocator(2);
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < 5000; i++) {
+      assertTrue(ids.add(first.next()));
+      assertTrue(ids.add(second.next()));
+    }
+  }
+
+  @Test
+  public void nodeIdIsDerivedDeterministically() {
+    int nodeId = PollIdAllocator.nodeIdOf("opencast-admin.example.org");
+    assertEquals(nodeId, PollIdAllocator.nodeIdOf("opencast-admin.example.org"));
+    assertTrue(nodeId >= 0 && nodeId <= 1023);
+    assertNotEquals(nodeId, PollIdAllocator.nodeIdOf("opencast-worker.example.org"));
+
+    int localNodeId = PollIdAllocator.localNodeId();
+    assertEquals(localNodeId, PollIdAllocator.localNodeId());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNodeIdOutOfRange() {
+    new PollIdAllocator(1024);
+  }
+
+  private static long decode(String id) {
+    return Long.parseLong(id.substring(PollIdAllocator.PREFIX.length()), 36);
+  }
+}
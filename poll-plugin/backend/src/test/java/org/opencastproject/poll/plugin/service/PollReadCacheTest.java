@@ -0,0 +1,162 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.opencastproject.poll.plugin.PollInfo;
+import org.opencastproject.poll.plugin.type.PollDefinition;
+import org.opencastproject.poll.plugin.type.PollOption;
+import org.opencastproject.poll.plugin.type.PollVoteResult;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
+import org.opencastproject.poll.plugin.type.input.PollInput;
+import org.opencastproject.poll.plugin.type.input.PollVoteInput;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+public class PollReadCacheTest {
+
+  private CountingStore store;
+  private PollDefinition poll;
+
+  @Before
+  public void setUp() {
+    store = new CountingStore();
+    PollInput input = new PollInput();
+    input.setQuestion("Question");
+    input.setOptions(Arrays.asList("A", "B"));
+    input.setIsActive(true);
+    poll = store.createPoll("event-1", input, "teacher");
+    store.createPoll("event-2", input, "teacher");
+  }
+
+  @Test
+  public void cachedDefinitionIsServedWithoutLoading() {
+    PollReadCache cache = new PollReadCache(10, 60000L, 0L, 60000L);
+
+    PollDefinition first = cache.getDefinition("event-1", store);
+    PollDefinition second = cache.getDefinition("event-1", store);
+
+    assertSame(first, second);
+    assertEquals(1, store.definitionLoads);
+  }
+
+  @Test
+  public void votesDoNotInvalidateCachedDefinition() throws Exception {
+    PollReadCache cache = new PollReadCache(10, 60000L, 0L, 1L);
+    cache.getDefinition("event-1", store);
+
+    PollVoteResult result = store.submitVote("event-1", vote(optionId(0)), "alice");
+    cache.updateFromVote("event-1", result);
+    Thread.sleep(5L);
+
+    PollDefinition cached = cache.getDefinition("event-1", store);
+    assertEquals(1, store.definitionLoads);
+    assertEquals(1, cached.options().get(0).voteCount());
+  }
+
+  @Test
+  public void structuralChangeInvalidatesCachedDefinition() throws Exception {
+    PollReadCache cache = new PollReadCache(10, 60000L, 0L, 1L);
+    cache.getDefinition("event-1", store);
+
+    store.closePoll("event-1", "teacher", null);
+    Thread.sleep(5L);
+
+    PollDefinition reloaded = cache.getDefinition("event-1", store);
+    assertEquals(2, store.definitionLoads);
+    assertFalse(reloaded.isActive());
+  }
+
+  @Test
+  public void expiredVoteCountsAreLoadedAgain() throws Exception {
+    PollReadCache cache = new PollReadCache(10, 60000L, 1L, 60000L);
+    cache.getDefinition("event-1", store);
+
+    store.submitVote("event-1", vote(optionId(1)), "bob");
+    Thread.sleep(5L);
+
+    PollDefinition reloaded = cache.getDefinition("event-1", store);
+    assertEquals(2, store.definitionLoads);
+    assertEquals(1, reloaded.options().get(1).voteCount());
+  }
+
+  @Test
+  public void updateFromVoteKeepsVoteTimeline() {
+    PollVoteTimeline timeline = new PollVoteTimeline(Collections.emptyList(), Collections.emptyList());
+    store.closePoll("event-1", "teacher", timeline);
+    PollReadCache cache = new PollReadCache(10, 60000L, 0L, 60000L);
+    PollDefinition cached = cache.getDefinition("event-1", store);
+
+    PollOption option = cached.options().get(0);
+    cache.updateFromVote("event-1", new PollVoteResult(cached.id(), option.id(), 3, true,
+        Collections.singletonList(new PollOption(option.id(), option.label(), 3))));
+
+    PollDefinition updated = cache.getDefinition("event-1", store);
+    assertEquals(1, store.definitionLoads);
+    assertSame(timeline, updated.voteTimeline());
+    assertEquals(3, updated.options().get(0).voteCount());
+  }
+
+  @Test
+  public void batchLoadFillsCache() {
+    PollReadCache cache = new PollReadCache(10, 60000L, 0L, 60000L);
+    assertNull(cache.getCachedInfo("event-1", store));
+
+    Map<String, PollInfo> infos = cache.loadInfos(Arrays.asList("event-1", "event-2", "event-3"), store);
+
+    assertEquals(1, store.batchVersionLoads);
+    assertNotNull(infos.get("event-1"));
+    assertSame(infos.get("event-1"), cache.getCachedInfo("event-1", store));
+    assertSame(infos.get("event-2"), cache.getCachedInfo("event-2", store));
+    assertNull(cache.getCachedInfo("event-3", store));
+  }
+
+  @Test
+  public void invalidateDropsEntry() {
+    PollReadCache cache = new PollReadCache(10, 60000L, 0L, 60000L);
+    cache.getDefinition("event-1", store);
+
+    cache.invalidate("event-1");
+    cache.getDefinition("event-1", store);
+
+    assertEquals(2, store.definitionLoads);
+  }
+
+  private String optionId(int index) {
+    return poll.options().get(index).id();
+  }
+
+  private PollVoteInput vote(String optionId) {
+    PollVoteInput input = new PollVoteInput();
+    input.setPollId(poll.id());
+    input.setOptionId(optionId);
+    return input;
+  }
+
+  private static final class CountingStore extends MockPollDataStore {
+
+    private int definitionLoads;
+    private int batchVersionLoads;
+
+    @Override
+    public synchronized PollDefinition getPollDefinition(String eventId) {
+      definitionLoads++;
+      return super.getPollDefinition(eventId);
+    }
+
+    @Override
+    public synchronized Map<String, String> getPollVersions(Collection<String> eventIds) {
+      batchVersionLoads++;
+      return super.getPollVersions(eventIds);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class VoteAdmissionControlTest {
+
+  private static final long SECOND = 1_000_000_000L;
+  private static final long START = 5 * SECOND;
+
+  @Test
+  public void pollBurstIsAdmittedAtOnce() {
+    VoteAdmissionControl control = new VoteAdmissionControl(10.0, 20, 100.0, 100, 1000);
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", "voter-" + i, START));
+    }
+    assertEquals(VoteAdmissionControl.REJECTED_POLL, control.tryAdmit("poll", "voter-20", START));
+  }
+
+  @Test
+  public void pollBucketRefillsAtItsRate() {
+    VoteAdmissionControl control = new VoteAdmissionControl(10.0, 20, 100.0, 100, 1000);
+    for (int i = 0; i < 20; i++) {
+      control.tryAdmit("poll", null, START);
+    }
+
+    // 10 votes per second: half a second later five tokens are back
+    long later = START + SECOND / 2;
+    for (int i = 0; i < 5; i++) {
+      assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", null, later));
+    }
+    assertEquals(VoteAdmissionControl.REJECTED_POLL, control.tryAdmit("poll", null, later));
+  }
+
+  @Test
+  public void refillIsCappedAtBurst() {
+    VoteAdmissionControl control = new VoteAdmissionControl(10.0, 20, 100.0, 100, 1000);
+    for (int i = 0; i < 20; i++) {
+      control.tryAdmit("poll", null, START);
+    }
+
+    // An idle minute refills 600 tokens, of which only the burst is kept
+    long later = START + 60 * SECOND;
+    for (int i = 0; i < 20; i++) {
+      assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", null, later));
+    }
+    assertEquals(VoteAdmissionControl.REJECTED_POLL, control.tryAdmit("poll", null, later));
+  }
+
+  @Test
+  public void voterLimitIsAppliedPerVoter() {
+    VoteAdmissionControl control = new VoteAdmissionControl(1000.0, 1000, 1.0, 2, 1000);
+
+    assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", "alice", START));
+    assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", "alice", START));
+    assertEquals(VoteAdmissionControl.REJECTED_VOTER, control.tryAdmit("poll", "alice", START));
+    assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", "bob", START));
+
+    assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", "alice", START + SECOND));
+  }
+
+  @Test
+  public void rejectedVoterDoesNotUsePollToken() {
+    VoteAdmissionControl control = new VoteAdmissionControl(0.001, 2, 0.001, 1, 1000);
+
+    assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", "alice", START));
+    assertEquals(VoteAdmissionControl.REJECTED_VOTER, control.tryAdmit("poll", "alice", START));
+    assertEquals(VoteAdmissionControl.ADMITTED, control.tryAdmit("poll", "bob", START));
+
+    PollAdmissionStats stats = control.stats();
+    assertEquals(2L, stats.admitted());
+    assertEquals(1L, stats.rejectedByVoter());
+  }
+}
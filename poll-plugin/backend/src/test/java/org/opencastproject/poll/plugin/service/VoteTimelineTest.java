@@ -0,0 +1,130 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.poll.plugin.type.PollVoteBucket;
+import org.opencastproject.poll.plugin.type.PollVoteTimeline;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+public class VoteTimelineTest {
+
+  // Starts on a full minute
+  private static final long START = 1_700_000_040_000L;
+
+  @Test
+  public void noVotesGiveEmptyTimeline() {
+    PollVoteTimeline timeline = new VoteTimeline(START).snapshot(START + 5000L);
+
+    assertTrue(timeline.perSecond().isEmpty());
+    assertTrue(timeline.perMinute().isEmpty());
+  }
+
+  @Test
+  public void votesAreCountedPerSecondAndMinute() {
+    VoteTimeline timeline = new VoteTimeline(START);
+    timeline.record(START);
+    timeline.record(START + 400L);
+    timeline.record(START + 2500L);
+    timeline.record(START + 61000L);
+
+    PollVoteTimeline snapshot = timeline.snapshot(START + 61500L);
+
+    List<PollVoteBucket> perSecond = snapshot.perSecond();
+    assertEquals(62, perSecond.size());
+    assertEquals(Instant.ofEpochMilli(START).toString(), perSecond.get(0).start());
+    assertEquals(2, perSecond.get(0).votes());
+    assertEquals(0, perSecond.get(1).votes());
+    assertEquals(1, perSecond.get(2).votes());
+    assertEquals(1, perSecond.get(61).votes());
+
+    List<PollVoteBucket> perMinute = snapshot.perMinute();
+    assertEquals(2, perMinute.size());
+    assertEquals(3, perMinute.get(0).votes());
+    assertEquals(1, perMinute.get(1).votes());
+  }
+
+  @Test
+  public void wrappedSlotStartsOverForNewPeriod() {
+    VoteTimeline timeline = new VoteTimeline(START);
+    timeline.record(START);
+    timeline.record(START);
+    // One full turn of the per-second ring later the same slot is reused
+    long wrapped = START + VoteTimeline.SECONDS * 1000L;
+    timeline.record(wrapped);
+
+    List<PollVoteBucket> perSecond = timeline.snapshot(wrapped).perSecond();
+
+    assertEquals(VoteTimeline.SECONDS, perSecond.size());
+    assertEquals(Instant.ofEpochMilli(START + 1000L).toString(), perSecond.get(0).start());
+    assertEquals(1, perSecond.get(perSecond.size() - 1).votes());
+    assertEquals(1, total(perSecond));
+  }
+
+  @Test
+  public void slotsFromEarlierTurnsAreNotReported() {
+    VoteTimeline timeline = new VoteTimeline(START);
+    timeline.record(START + 10000L);
+    timeline.record(START + 20000L);
+
+    // Slot of START + 10 s is not overwritten, but its period has left the window
+    List<PollVoteBucket> perSecond = timeline.snapshot(START + 315000L).perSecond();
+
+    assertEquals(VoteTimeline.SECONDS, perSecond.size());
+    assertEquals(1, total(perSecond));
+  }
+
+  @Test
+  public void voteOlderThanSlotPeriodIsDropped() {
+    VoteTimeline timeline = new VoteTimeline(START);
+    long wrapped = START + VoteTimeline.SECONDS * 1000L;
+    timeline.record(wrapped);
+
+    // The clock went back by a full turn; the late vote must not overwrite the newer period
+    timeline.record(START);
+
+    List<PollVoteBucket> perSecond = timeline.snapshot(wrapped).perSecond();
+    assertEquals(1, perSecond.get(perSecond.size() - 1).votes());
+    assertEquals(1, total(perSecond));
+  }
+
+  @Test
+  public void perMinuteRingWrapsAfterItsLength() {
+    VoteTimeline timeline = new VoteTimeline(START);
+    timeline.record(START);
+    long wrapped = START + VoteTimeline.MINUTES * 60000L;
+    timeline.record(wrapped);
+    timeline.record(wrapped + 1000L);
+
+    List<PollVoteBucket> perMinute = timeline.snapshot(wrapped + 1000L).perMinute();
+
+    assertEquals(VoteTimeline.MINUTES, perMinute.size());
+    assertEquals(2, perMinute.get(perMinute.size() - 1).votes());
+    assertEquals(2, total(perMinute));
+  }
+
+  @Test
+  public void downsampledTimelineKeepsMinutesOnly() {
+    VoteTimeline timeline = new VoteTimeline(START);
+    timeline.record(START);
+    timeline.record(START + 30000L);
+
+    PollVoteTimeline downsampled = timeline.downsampled(START + 30000L);
+
+    assertTrue(downsampled.perSecond().isEmpty());
+    assertEquals(1, downsampled.perMinute().size());
+    assertEquals(2, downsampled.perMinute().get(0).votes());
+  }
+
+  private static int total(List<PollVoteBucket> buckets) {
+    int total = 0;
+    for (PollVoteBucket bucket : buckets) {
+      total += bucket.votes();
+    }
+    return total;
+  }
+}
@@ -0,0 +1,220 @@
+package org.opencastproject.poll.plugin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.poll.plugin.service.BufferedPoll.PendingVote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class VoteWriteBufferTest {
+
+  private final List<List<PendingVote>> written = new ArrayList<>();
+  private final Set<Long> failingPolls = new HashSet<>();
+  private final Set<Long> deletedPolls = new HashSet<>();
+
+  private VoteWriteBuffer buffer;
+
+  @Before
+  public void setUp() {
+    // The background flusher never runs during a test; flushes are triggered explicitly
+    buffer = new VoteWriteBuffer(3600000L, 1000, 3);
+    buffer.start(votes -> {
+      long pollId = votes.get(0).getPollId();
+      if (deletedPolls.contains(pollId)) {
+        return false;
+      }
+      if (failingPolls.contains(pollId)) {
+        throw new IllegalStateException("Write failed for poll " + pollId);
+      }
+      written.add(new ArrayList<>(votes));
+      return true;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    failingPolls.clear();
+    deletedPolls.clear();
+    buffer.close();
+  }
+
+  @Test
+  public void flushWritesEachPollSeparately() {
+    vote("event-1", "alice", "a");
+    vote("event-1", "bob", "b");
+    vote("event-2", "alice", "c");
+
+    buffer.flush();
+
+    assertEquals(2, written.size());
+    for (List<PendingVote> votes : written) {
+      long pollId = votes.get(0).getPollId();
+      for (PendingVote vote : votes) {
+        assertEquals(pollId, vote.getPollId());
+      }
+    }
+    assertEquals(0, buffer.getPendingCount());
+  }
+
+  @Test
+  public void failingPollDoesNotBlockOthers() {
+    vote("event-1", "alice", "a");
+    vote("event-2", "bob", "c");
+    failingPolls.add(1L);
+
+    buffer.flush();
+
+    assertEquals(1, written.size());
+    assertEquals(2L, written.get(0).get(0).getPollId());
+    assertEquals(1, buffer.getPendingCount());
+
+    failingPolls.clear();
+    buffer.flush();
+
+    assertEquals(2, written.size());
+    assertEquals(1L, written.get(1).get(0).getPollId());
+    assertEquals(0, buffer.getPendingCount());
+  }
+
+  @Test
+  public void requeuedVoteIsReplacedByNewerVote() {
+    vote("event-1", "alice", "a");
+    failingPolls.add(1L);
+    buffer.flush();
+
+    vote("event-1", "alice", "b");
+    failingPolls.clear();
+    buffer.flush();
+
+    assertEquals(1, written.size());
+    assertEquals(1, written.get(0).size());
+    PendingVote vote = written.get(0).get(0);
+    assertEquals("b", vote.getOptionId());
+    assertTrue(vote.isInsert());
+    assertEquals(0, buffer.getPendingCount());
+  }
+
+  @Test
+  public void persistedVoteIsWrittenAsUpdate() {
+    vote("event-1", "alice", "a");
+    buffer.flush();
+    vote("event-1", "alice", "b");
+    buffer.flush();
+
+    assertEquals(2, written.size());
+    PendingVote update = written.get(1).get(0);
+    assertEquals("b", update.getOptionId());
+    assertEquals("a", update.getPreviousOptionId());
+  }
+
+  @Test
+  public void votesOfDeletedPollAreDropped() {
+    vote("event-1", "alice", "a");
+    vote("event-2", "bob", "c");
+    deletedPolls.add(1L);
+
+    buffer.flush();
+
+    assertEquals(1, written.size());
+    assertEquals(0, buffer.getPendingCount());
+    assertNull(buffer.get("event-1"));
+    assertNotNull(buffer.get("event-2"));
+  }
+
+  @Test
+  public void votesAreDroppedAfterMaxWriteAttempts() {
+    vote("event-1", "alice", "a");
+    failingPolls.add(1L);
+
+    buffer.flush();
+    buffer.flush();
+    assertEquals(1, buffer.getPendingCount());
+    assertNotNull(buffer.get("event-1"));
+
+    buffer.flush();
+
+    assertTrue(written.isEmpty());
+    assertEquals(0, buffer.getPendingCount());
+    assertNull(buffer.get("event-1"));
+  }
+
+  @Test
+  public void successfulWriteResetsFailedAttempts() {
+    vote("event-1", "alice", "a");
+    failingPolls.add(1L);
+    buffer.flush();
+    buffer.flush();
+    failingPolls.clear();
+    buffer.flush();
+
+    vote("event-1", "bob", "a");
+    failingPolls.add(1L);
+    buffer.flush();
+    buffer.flush();
+
+    assertEquals(1, buffer.getPendingCount());
+  }
+
+  @Test
+  public void closingPollRefusesNewVotes() {
+    vote("event-1", "alice", "a");
+    BufferedPoll poll = buffer.get("event-1");
+
+    buffer.beginClose("event-1");
+    buffer.flushAndEvict("event-1");
+
+    assertEquals(1, written.size());
+    assertFalse(buffer.vote(poll, "bob", "a", new Date()));
+    assertNull(buffer.getOrLoad("event-1", VoteWriteBufferTest::load));
+    assertNull(buffer.get("event-1"));
+
+    buffer.endClose("event-1");
+    assertNotNull(buffer.getOrLoad("event-1", VoteWriteBufferTest::load));
+  }
+
+  @Test
+  public void reachingMaxSizeFlushes() {
+    VoteWriteBuffer small = new VoteWriteBuffer(3600000L, 2, 3);
+    List<PendingVote> smallWritten = new ArrayList<>();
+    small.start(votes -> {
+      smallWritten.addAll(votes);
+      return true;
+    });
+    try {
+      BufferedPoll poll = small.getOrLoad("event-1", VoteWriteBufferTest::load);
+      small.vote(poll, "alice", "a", new Date());
+      assertTrue(smallWritten.isEmpty());
+      small.vote(poll, "bob", "a", new Date());
+      assertEquals(2, smallWritten.size());
+      assertEquals(0, small.getPendingCount());
+    } finally {
+      small.close();
+    }
+  }
+
+  private void vote(String eventId, String voterKey, String optionId) {
+    BufferedPoll poll = buffer.getOrLoad(eventId, VoteWriteBufferTest::load);
+    assertTrue(buffer.vote(poll, voterKey, optionId, new Date()));
+  }
+
+  private static BufferedPoll load(String eventId) {
+    long pollId = Long.parseLong(eventId.substring(eventId.indexOf('-') + 1));
+    BufferedPoll poll = new BufferedPoll(pollId, eventId, "Question", true, "teacher");
+    poll.addOption("a", "A");
+    poll.addOption("b", "B");
+    poll.addOption("c", "C");
+    return poll;
+  }
+}
@@ -1,5 +1,6 @@
 -- Drop quiz plugin tables (MariaDB/MySQL)
 
+DROP TABLE IF EXISTS oc_quiz_idempotency;
 DROP TABLE IF EXISTS oc_quiz_submission;
 DROP TABLE IF EXISTS oc_quiz_question;
 DROP TABLE IF EXISTS oc_quiz;
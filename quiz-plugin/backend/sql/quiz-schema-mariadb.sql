@@ -48,3 +48,11 @@ CREATE TABLE IF NOT EXISTS oc_quiz_submission (
     REFERENCES oc_quiz (id)
     ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS oc_quiz_idempotency (
+  request_key CHAR(64) NOT NULL,
+  result_json LONGTEXT NOT NULL,
+  created_at DATETIME NOT NULL,
+  PRIMARY KEY (request_key),
+  KEY idx_oc_quiz_idempotency_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
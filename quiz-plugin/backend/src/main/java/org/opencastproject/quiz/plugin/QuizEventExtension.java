@@ -24,6 +24,7 @@ package org.opencastproject.quiz.plugin;
 import org.opencastproject.graphql.event.GqlEvent;
 import org.opencastproject.quiz.plugin.service.QuizService;
 
+import graphql.annotations.annotationTypes.GraphQLDataFetcher;
 import graphql.annotations.annotationTypes.GraphQLField;
 import graphql.annotations.annotationTypes.GraphQLTypeExtension;
 import graphql.schema.DataFetchingEnvironment;
@@ -62,9 +63,10 @@ public final class QuizEventExtension {
    * Returns quiz information for this event.
    *
    * This field fetches quiz data from Convex (or other external service)
-   * via the QuizService.
+   * via the QuizService. Lookups of all events in one request are batched by {@link QuizInfoDataFetcher}.
    */
   @GraphQLField
+  @GraphQLDataFetcher(QuizInfoDataFetcher.class)
   public QuizInfo quizInfo(DataFetchingEnvironment environment) {
     QuizService quizService = QuizService.getInstance();
     return quizService.getQuizInfo(event.getEvent().getIdentifier());
@@ -74,9 +76,10 @@ public final class QuizEventExtension {
    * Returns the full quiz definition for this event (including questions).
    *
    * This field fetches the complete quiz data from Convex (or other external service)
-   * via the QuizService.
+   * via the QuizService. Lookups of all events in one request are batched by {@link QuizDefinitionDataFetcher}.
    */
   @GraphQLField
+  @GraphQLDataFetcher(QuizDefinitionDataFetcher.class)
   public org.opencastproject.quiz.plugin.type.QuizDefinition quiz(DataFetchingEnvironment environment) {
     QuizService quizService = QuizService.getInstance();
     return quizService.getQuizDefinition(event.getEvent().getIdentifier());
@@ -0,0 +1,68 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.quiz.plugin;
+
+import org.opencastproject.graphql.event.GqlEvent;
+import org.opencastproject.quiz.plugin.service.QuizService;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.MappedBatchLoader;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Data fetcher for {@code Event.quizInfo}.
+ *
+ * All events of one GraphQL execution are collected by a request-scoped DataLoader and resolved with a single
+ * {@link QuizService#getQuizInfos} call. If the execution has no DataLoader registry, each event is looked up
+ * on its own.
+ */
+public final class QuizInfoDataFetcher implements DataFetcher<Object> {
+
+  static final String LOADER_KEY = "org.opencastproject.quiz.plugin.quizInfo";
+
+  private static final MappedBatchLoader<String, QuizInfo> BATCH_LOADER =
+      eventIds -> CompletableFuture.completedFuture(QuizService.getInstance().getQuizInfos(eventIds));
+
+  @Override
+  public Object get(DataFetchingEnvironment environment) {
+    GqlEvent event = environment.getSource();
+    String eventId = event.getEvent().getIdentifier();
+
+    DataLoader<String, QuizInfo> loader;
+    try {
+      loader = environment.getDataLoaderRegistry()
+          .computeIfAbsent(LOADER_KEY, key -> DataLoaderFactory.newMappedDataLoader(BATCH_LOADER));
+    } catch (IllegalStateException | UnsupportedOperationException e) {
+      loader = null;
+    }
+
+    if (loader == null) {
+      return QuizService.getInstance().getQuizInfo(eventId);
+    }
+    return loader.load(eventId);
+  }
+}
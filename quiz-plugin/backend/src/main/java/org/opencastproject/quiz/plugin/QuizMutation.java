@@ -27,6 +27,7 @@ import org.opencastproject.quiz.plugin.type.QuizDefinition;
 import org.opencastproject.quiz.plugin.type.QuizSubmissionResult;
 import org.opencastproject.quiz.plugin.type.input.QuizAnswersInput;
 import org.opencastproject.quiz.plugin.type.input.QuizInput;
+import org.opencastproject.security.api.User;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +45,9 @@ import graphql.schema.DataFetchingEnvironment;
  * - Creating quizzes
  * - Submitting quiz answers
  * - Getting quiz results
+ *
+ * Mutations accept an optional requestId; clients that retry a mutation with the same id get the original
+ * result back instead of running it twice.
  */
 @GraphQLName("QuizMutation")
 public class QuizMutation {
@@ -70,12 +74,11 @@ public class QuizMutation {
   public QuizDefinition createQuiz(
       @GraphQLName("eventId") @GraphQLNonNull String eventId,
       @GraphQLName("quiz") @GraphQLNonNull QuizInput quizInput,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
 
     try {
-      // Get current user from environment
-      Object userContext = environment.getContext();
-      String userId = extractUserId(userContext);
+      String userId = extractUserId(environment);
 
       if (userId == null) {
         throw new GraphQLRuntimeException(new RuntimeException("User not authenticated"));
@@ -114,8 +117,11 @@ public class QuizMutation {
         throw new GraphQLRuntimeException(new RuntimeException("Quiz must have at least one question"));
       }
 
-      // Create quiz via service (which calls Convex or external DB)
-      return quizService.createQuiz(eventId, actualQuizInput, userId);
+      // Create quiz via service (which calls Convex or external DB); retries with the same requestId
+      // return the quiz created first
+      QuizInput input = actualQuizInput;
+      return quizService.runOnce("createQuiz:" + eventId, userId, requestId, QuizDefinition.class,
+          () -> quizService.createQuiz(eventId, input, userId));
 
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
@@ -167,11 +173,11 @@ public class QuizMutation {
   public QuizSubmissionResult submitQuiz(
       @GraphQLName("eventId") @GraphQLNonNull String eventId,
       @GraphQLName("answers") @GraphQLNonNull QuizAnswersInput answersInput,
+      @GraphQLName("requestId") String requestId,
       final DataFetchingEnvironment environment) {
 
     try {
-      Object userContext = environment.getContext();
-      String userId = extractUserId(userContext);
+      String userId = extractUserId(environment);
 
       if (userId == null) {
         throw new GraphQLRuntimeException(new RuntimeException("User not authenticated"));
@@ -193,8 +199,10 @@ public class QuizMutation {
                   + ", answers count: " + (actualAnswersInput.getAnswers() != null
                       ? actualAnswersInput.getAnswers().size() : "null"));
 
-      // Submit quiz via service
-      return quizService.submitQuiz(eventId, actualAnswersInput, userId);
+      // Submit quiz via service; a retry with the same requestId returns the first submission's result
+      QuizAnswersInput input = actualAnswersInput;
+      return quizService.runOnce("submitQuiz:" + eventId, userId, requestId, QuizSubmissionResult.class,
+          () -> quizService.submitQuiz(eventId, input, userId));
 
     } catch (Exception e) {
       throw new GraphQLRuntimeException(e);
@@ -228,17 +236,13 @@ public class QuizMutation {
   }
 
   /**
-   * Helper to extract user ID from GraphQL context.
-   *
-   * In a real implementation, this would extract the user from Opencast's
-   * security context.
+   * Returns the username of the current user, or {@code "anonymous"} if there is none.
    */
-  private String extractUserId(Object context) {
-    // This is a placeholder - in real implementation, extract from Opencast User object
-    if (context instanceof org.opencastproject.security.api.User) {
-      return ((org.opencastproject.security.api.User) context).getUsername();
+  private String extractUserId(DataFetchingEnvironment environment) {
+    User user = UserResolver.resolve(environment);
+    if (user != null && user.getUsername() != null && !user.getUsername().trim().isEmpty()) {
+      return user.getUsername();
     }
-    // Fallback for development/testing
     return "anonymous";
   }
 
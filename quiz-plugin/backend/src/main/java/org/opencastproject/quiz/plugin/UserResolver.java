@@ -0,0 +1,308 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.quiz.plugin;
+
+import org.opencastproject.graphql.execution.context.OpencastContext;
+import org.opencastproject.graphql.execution.context.OpencastContextManager;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import graphql.GraphQLContext;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the current user in the GraphQL context, the legacy context or the Opencast security service.
+ *
+ * <p>Contexts are searched for a {@link User} or {@link SecurityService} through map keys, getters and
+ * {@code get(Object)}, up to {@value #MAX_DEPTH} levels deep. The accessors of each class are looked up once as
+ * method handles, and the path that led to a user is remembered per context class and tried first next time.
+ * The result is memoized in the GraphQL context, so it is resolved once per execution.
+ */
+final class UserResolver {
+
+  private static final Logger logger = LoggerFactory.getLogger(UserResolver.class);
+
+  private static final int MAX_DEPTH = 4;
+
+  private static final String MEMO_KEY = UserResolver.class.getName() + ".user";
+
+  private static final Object NO_USER = new Object();
+
+  private static final String[] MAP_KEYS = { "user", "currentUser", "securityService", "security", "context" };
+
+  private static final String[] GETTERS =
+      { "getUser", "user", "getCurrentUser", "getSecurityService", "getContext", "getDelegate" };
+
+  private static final String[] GET_KEYS = { "user", "currentUser" };
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final MethodType GET_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+  private static final ClassValue<Step[]> STEPS = new ClassValue<Step[]>() {
+    @Override
+    protected Step[] computeValue(Class<?> type) {
+      return stepsOf(type);
+    }
+  };
+
+  private static final ClassValue<LearnedPath> PATHS = new ClassValue<LearnedPath>() {
+    @Override
+    protected LearnedPath computeValue(Class<?> type) {
+      return new LearnedPath();
+    }
+  };
+
+  private UserResolver() {
+  }
+
+  /**
+   * Returns the user of the execution behind {@code environment}, or {@code null} if there is none.
+   *
+   * @param environment
+   *          the environment of the field being fetched
+   * @return the current user or {@code null}
+   */
+  static User resolve(DataFetchingEnvironment environment) {
+    GraphQLContext graphQlContext = environment.getGraphQlContext();
+    if (graphQlContext != null) {
+      Object memo = graphQlContext.get(MEMO_KEY);
+      if (memo != null) {
+        return memo == NO_USER ? null : (User) memo;
+      }
+    }
+
+    Object legacyContext = environment.getContext();
+    User user = fromContext(legacyContext);
+    if (user == null && graphQlContext != null && graphQlContext != legacyContext) {
+      user = fromContext(graphQlContext);
+    }
+    if (user == null) {
+      user = fromSecurityService();
+    }
+
+    if (graphQlContext != null) {
+      graphQlContext.put(MEMO_KEY, user != null ? user : NO_USER);
+    }
+    return user;
+  }
+
+  private static User fromContext(Object context) {
+    if (context == null) {
+      return null;
+    }
+    LearnedPath learned = PATHS.get(context.getClass());
+    Step[] path = learned.steps;
+    if (path != null) {
+      User user = replay(context, path);
+      if (user != null) {
+        return user;
+      }
+    }
+
+    List<Step> found = new ArrayList<>(MAX_DEPTH);
+    Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    User user = search(context, 0, visited, found);
+    if (user != null) {
+      learned.steps = found.toArray(new Step[0]);
+    }
+    return user;
+  }
+
+  private static User replay(Object context, Step[] path) {
+    Object current = context;
+    for (Step step : path) {
+      if (current == null || !step.appliesTo(current)) {
+        return null;
+      }
+      current = step.apply(current);
+    }
+    return toUser(current);
+  }
+
+  private static User search(Object candidate, int depth, Set<Object> visited, List<Step> path) {
+    if (candidate == null || depth > MAX_DEPTH || !visited.add(candidate)) {
+      return null;
+    }
+    if (candidate instanceof User || candidate instanceof SecurityService) {
+      return toUser(candidate);
+    }
+    for (Step step : STEPS.get(candidate.getClass())) {
+      path.add(step);
+      User user = search(step.apply(candidate), depth + 1, visited, path);
+      if (user != null) {
+        return user;
+      }
+      path.remove(path.size() - 1);
+    }
+    return null;
+  }
+
+  private static User toUser(Object value) {
+    if (value instanceof User) {
+      return (User) value;
+    }
+    if (value instanceof SecurityService) {
+      try {
+        return ((SecurityService) value).getUser();
+      } catch (RuntimeException e) {
+        logger.debug("Could not resolve user from SecurityService instance", e);
+      }
+    }
+    return null;
+  }
+
+  private static User fromSecurityService() {
+    try {
+      OpencastContext opencastContext = OpencastContextManager.getCurrentContext();
+      if (opencastContext == null) {
+        return null;
+      }
+      SecurityService securityService = opencastContext.getService(SecurityService.class);
+      return securityService == null ? null : securityService.getUser();
+    } catch (RuntimeException e) {
+      logger.debug("Could not resolve user from Opencast context", e);
+      return null;
+    }
+  }
+
+  private static Step[] stepsOf(Class<?> type) {
+    List<Step> steps = new ArrayList<>();
+    if (Map.class.isAssignableFrom(type)) {
+      for (String key : MAP_KEYS) {
+        steps.add(new Step(null, key, null));
+      }
+    }
+
+    Map<String, Method> getters = new HashMap<>();
+    Method get = null;
+    for (Method method : type.getMethods()) {
+      if (Modifier.isStatic(method.getModifiers())) {
+        continue;
+      }
+      if (method.getParameterCount() == 0) {
+        getters.putIfAbsent(method.getName(), method);
+      } else if ("get".equals(method.getName()) && method.getParameterCount() == 1
+          && method.getParameterTypes()[0] == Object.class) {
+        get = method;
+      }
+    }
+    for (String name : GETTERS) {
+      MethodHandle handle = handle(type, getters.get(name), GETTER_TYPE);
+      if (handle != null) {
+        steps.add(new Step(type, null, handle));
+      }
+    }
+    // Maps were searched by key already
+    MethodHandle getHandle = Map.class.isAssignableFrom(type) ? null : handle(type, get, GET_TYPE);
+    if (getHandle != null) {
+      for (String key : GET_KEYS) {
+        steps.add(new Step(type, key, getHandle));
+      }
+    }
+    return steps.toArray(new Step[0]);
+  }
+
+  private static MethodHandle handle(Class<?> type, Method method, MethodType methodType) {
+    Method accessible = method == null ? null : publicDeclaration(method.getDeclaringClass(), method);
+    if (accessible == null) {
+      return null;
+    }
+    try {
+      return MethodHandles.publicLookup().unreflect(accessible).asType(methodType);
+    } catch (IllegalAccessException e) {
+      logger.debug("Method {} of {} is not accessible", method.getName(), type.getName());
+      return null;
+    }
+  }
+
+  /** Finds the method in a public class or interface, as methods of non-public classes cannot be called. */
+  private static Method publicDeclaration(Class<?> type, Method method) {
+    if (Modifier.isPublic(type.getModifiers())) {
+      for (Method candidate : type.getMethods()) {
+        if (candidate.getName().equals(method.getName())
+            && Arrays.equals(candidate.getParameterTypes(), method.getParameterTypes())
+            && Modifier.isPublic(candidate.getDeclaringClass().getModifiers())) {
+          return candidate;
+        }
+      }
+    }
+    for (Class<?> supertype : type.getInterfaces()) {
+      Method found = publicDeclaration(supertype, method);
+      if (found != null) {
+        return found;
+      }
+    }
+    return type.getSuperclass() == null ? null : publicDeclaration(type.getSuperclass(), method);
+  }
+
+  /** One way down from a context object: a map key, a getter or {@code get(key)}. */
+  private static final class Step {
+
+    private final Class<?> owner;
+    private final String key;
+    private final MethodHandle handle;
+
+    Step(Class<?> owner, String key, MethodHandle handle) {
+      this.owner = owner;
+      this.key = key;
+      this.handle = handle;
+    }
+
+    boolean appliesTo(Object target) {
+      return handle == null ? target instanceof Map : target.getClass() == owner;
+    }
+
+    Object apply(Object target) {
+      try {
+        if (handle == null) {
+          return ((Map<?, ?>) target).get(key);
+        }
+        return key == null ? (Object) handle.invokeExact(target) : (Object) handle.invokeExact(target, (Object) key);
+      } catch (Throwable e) {
+        logger.debug("Could not read the context of class {}", target.getClass().getName(), e);
+        return null;
+      }
+    }
+  }
+
+  private static final class LearnedPath {
+    private volatile Step[] steps;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.quiz.plugin.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+/**
+ * Streams the rows of oc_quiz_submission, with the title of their quiz, through a forward-only cursor.
+ *
+ * <p>
+ * Rows are written as they are read, so memory use does not depend on the number of submissions. The plain SELECT
+ * reads a consistent snapshot and does not lock the submission rows while a large export is running.
+ */
+public class QuizSubmissionExporter {
+
+  static final String[] COLUMNS = { "event_id", "quiz_title", "user_id", "score", "max_score", "percentage",
+      "success", "answers_json", "submitted_at" };
+
+  private static final String SELECT_SUBMISSIONS_SQL =
+      "SELECT s.event_id, q.title, s.user_id, s.score, s.max_score, s.percentage, s.success, s.answers_json, "
+          + "s.submitted_at "
+          + "FROM oc_quiz_submission s "
+          + "JOIN oc_quiz q ON q.id = s.quiz_id "
+          + "WHERE 1 = 1";
+
+  private static final int FETCH_SIZE = 1000;
+
+  private final DataSource dataSource;
+
+  /**
+   * Creates an exporter reading from the given data source.
+   *
+   * @param dataSource
+   *          the Opencast data source
+   */
+  public QuizSubmissionExporter(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Writes the matching submissions to {@code out}.
+   *
+   * @param eventId
+   *          the event of the quiz, or {@code null} for all quizzes
+   * @param from
+   *          the first submission time included, or {@code null}
+   * @param to
+   *          the first submission time excluded, or {@code null}
+   * @param createdBy
+   *          only export quizzes created by this user, or {@code null} for all creators
+   * @param format
+   *          the output format
+   * @param out
+   *          the stream to write to
+   * @return the number of submissions written
+   * @throws SQLException
+   *           if reading the submissions fails
+   * @throws IOException
+   *           if writing to {@code out} fails
+   */
+  public long export(String eventId, Instant from, Instant to, String createdBy, ExportWriter.Format format,
+                     OutputStream out) throws SQLException, IOException {
+    StringBuilder sql = new StringBuilder(SELECT_SUBMISSIONS_SQL);
+    List<Object> parameters = new ArrayList<>();
+    if (eventId != null) {
+      sql.append(" AND s.event_id = ?");
+      parameters.add(eventId);
+    }
+    if (from != null) {
+      sql.append(" AND s.submitted_at >= ?");
+      parameters.add(Timestamp.from(from));
+    }
+    if (to != null) {
+      sql.append(" AND s.submitted_at < ?");
+      parameters.add(Timestamp.from(to));
+    }
+    if (createdBy != null) {
+      sql.append(" AND q.created_by = ?");
+      parameters.add(createdBy);
+    }
+
+    ExportWriter writer = new ExportWriter(format, out, COLUMNS);
+    long rows = 0;
+    try (Connection connection = dataSource.getConnection()) {
+      // PostgreSQL only uses a cursor inside a transaction
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement(
+          sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+        statement.setFetchSize(fetchSize(connection));
+        for (int i = 0; i < parameters.size(); i++) {
+          statement.setObject(i + 1, parameters.get(i));
+        }
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            Timestamp submittedAt = rs.getTimestamp(9);
+            writer.row(
+                rs.getString(1),
+                rs.getString(2),
+                rs.getString(3),
+                intOrNull(rs, 4),
+                intOrNull(rs, 5),
+                intOrNull(rs, 6),
+                rs.getBoolean(7),
+                rs.getString(8),
+                submittedAt == null ? null : submittedAt.toInstant().toString()
+            );
+            rows++;
+          }
+        } catch (IOException e) {
+          // The client went away; closing a streaming result set would otherwise read all remaining rows
+          statement.cancel();
+          throw e;
+        }
+      } finally {
+        connection.rollback();
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+    writer.flush();
+    return rows;
+  }
+
+  private static Integer intOrNull(ResultSet rs, int column) throws SQLException {
+    int value = rs.getInt(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  /**
+   * Returns the fetch size that makes the driver stream rows. MySQL Connector/J only streams with
+   * {@code Integer.MIN_VALUE}; MariaDB Connector/J and the other drivers fetch that many rows per round trip.
+   */
+  static int fetchSize(Connection connection) throws SQLException {
+    String product = connection.getMetaData().getDatabaseProductName();
+    String driver = connection.getMetaData().getDriverName();
+    if (product != null && product.toLowerCase(Locale.ROOT).contains("mysql")
+        && driver != null && !driver.toLowerCase(Locale.ROOT).contains("mariadb")) {
+      return Integer.MIN_VALUE;
+    }
+    return FETCH_SIZE;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.quiz.plugin.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, outcomes and database work per quiz service operation, published in the Prometheus text format.
+ *
+ * <p>JDBC statements and DB sessions count toward the outermost operation on the current thread. Work done
+ * outside of any operation, such as purging expired idempotency results, is published as operation
+ * {@value #BACKGROUND}.
+ */
+public final class QuizMetrics {
+
+  public static final String BACKGROUND = "background";
+
+  private static final QuizMetrics INSTANCE = new QuizMetrics();
+
+  private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+
+  private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+  private final OperationMetrics background = operation(BACKGROUND);
+
+  private QuizMetrics() {
+  }
+
+  public static QuizMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts timing an operation. The sample must be closed; one closed without an outcome counts as failed.
+   */
+  public Sample start(String operation) {
+    Sample outer = CURRENT.get();
+    Sample sample = new Sample(operation(operation), outer == null);
+    if (outer == null) {
+      CURRENT.set(sample);
+    }
+    return sample;
+  }
+
+  public static void countStatement() {
+    Sample sample = CURRENT.get();
+    if (sample != null) {
+      sample.statements++;
+    } else {
+      INSTANCE.background.statements.increment();
+    }
+  }
+
+  public static void countSession() {
+    Sample sample = CURRENT.get();
+    if (sample != null) {
+      sample.sessions++;
+    } else {
+      INSTANCE.background.sessions.increment();
+    }
+  }
+
+  /** Appends all operation metrics in the Prometheus text exposition format. */
+  public void writePrometheus(StringBuilder out) {
+    Map<String, OperationMetrics> sorted = new TreeMap<>(operations);
+
+    out.append("# HELP quiz_operation_duration_seconds Latency of quiz service operations.\n");
+    out.append("# TYPE quiz_operation_duration_seconds histogram\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      if (BACKGROUND.equals(entry.getKey())) {
+        continue;
+      }
+      String label = "operation=\"" + entry.getKey() + "\"";
+      LatencyHistogram latency = entry.getValue().latency;
+      long[] counts = latency.cumulativeCounts();
+      for (int i = 0; i < LatencyHistogram.BOUNDS_SECONDS.length; i++) {
+        sample(out, "quiz_operation_duration_seconds_bucket",
+            label + ",le=\"" + LatencyHistogram.BOUNDS_SECONDS[i] + "\"", counts[i]);
+      }
+      sample(out, "quiz_operation_duration_seconds_bucket", label + ",le=\"+Inf\"", counts[counts.length - 1]);
+      out.append("quiz_operation_duration_seconds_sum{").append(label).append("} ")
+          .append(String.format(Locale.ROOT, "%.6f", latency.sumSeconds())).append('\n');
+      sample(out, "quiz_operation_duration_seconds_count", label, counts[counts.length - 1]);
+    }
+
+    out.append("# HELP quiz_operations_total Completed quiz service operations by outcome.\n");
+    out.append("# TYPE quiz_operations_total counter\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      if (BACKGROUND.equals(entry.getKey())) {
+        continue;
+      }
+      String label = "operation=\"" + entry.getKey() + "\"";
+      sample(out, "quiz_operations_total", label + ",outcome=\"success\"", entry.getValue().successes.sum());
+      sample(out, "quiz_operations_total", label + ",outcome=\"failure\"", entry.getValue().failures.sum());
+    }
+
+    out.append("# HELP quiz_jdbc_statements_total JDBC statements executed, by operation.\n");
+    out.append("# TYPE quiz_jdbc_statements_total counter\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      sample(out, "quiz_jdbc_statements_total", "operation=\"" + entry.getKey() + "\"",
+          entry.getValue().statements.sum());
+    }
+
+    out.append("# HELP quiz_db_sessions_total DB sessions opened, by operation.\n");
+    out.append("# TYPE quiz_db_sessions_total counter\n");
+    for (Map.Entry<String, OperationMetrics> entry : sorted.entrySet()) {
+      sample(out, "quiz_db_sessions_total", "operation=\"" + entry.getKey() + "\"",
+          entry.getValue().sessions.sum());
+    }
+  }
+
+  private OperationMetrics operation(String name) {
+    OperationMetrics metrics = operations.get(name);
+    return metrics != null ? metrics : operations.computeIfAbsent(name, key -> new OperationMetrics());
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, long value) {
+    out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+  }
+
+  /**
+   * One running operation. Not thread-safe; it belongs to the thread that started it.
+   */
+  public static final class Sample implements AutoCloseable {
+
+    private final OperationMetrics metrics;
+    private final boolean outermost;
+    private final long startNanos = System.nanoTime();
+    private long statements;
+    private long sessions;
+    private boolean finished;
+
+    private Sample(OperationMetrics metrics, boolean outermost) {
+      this.metrics = metrics;
+      this.outermost = outermost;
+    }
+
+    public void succeeded() {
+      finish(metrics.successes);
+    }
+
+    public void failed() {
+      finish(metrics.failures);
+    }
+
+    @Override
+    public void close() {
+      failed();
+    }
+
+    private void finish(LongAdder outcome) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      metrics.latency.record(System.nanoTime() - startNanos);
+      outcome.increment();
+      if (outermost) {
+        CURRENT.remove();
+        metrics.statements.add(statements);
+        metrics.sessions.add(sessions);
+      }
+    }
+  }
+}
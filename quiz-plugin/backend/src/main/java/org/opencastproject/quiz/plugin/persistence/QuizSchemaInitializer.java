@@ -34,15 +34,15 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Locale;
 
 import javax.sql.DataSource;
 
 /**
- * Initializes the quiz schema in MariaDB/MySQL if it does not exist.
+ * Initializes the quiz schema in MariaDB/MySQL, PostgreSQL or H2 if it does not exist.
  */
 @Component(
     service = QuizSchemaInitializer.class,
@@ -54,50 +54,73 @@ public class QuizSchemaInitializer {
 
   private static final Logger logger = LoggerFactory.getLogger(QuizSchemaInitializer.class);
 
+  // Statements hold type placeholders such as ${identity}, filled in by SchemaDdl.render. Non-unique indexes
+  // are created separately, as only MariaDB accepts them inside CREATE TABLE.
   private static final String CREATE_TABLE_QUIZ =
       "CREATE TABLE IF NOT EXISTS oc_quiz ("
-          + "id BIGINT NOT NULL AUTO_INCREMENT,"
+          + "id ${identity},"
           + "event_id VARCHAR(128) NOT NULL,"
           + "title VARCHAR(512) NOT NULL,"
           + "description VARCHAR(4096),"
-          + "is_active TINYINT(1) DEFAULT 0,"
+          + "is_active ${boolean},"
           + "created_by VARCHAR(255),"
-          + "created_at DATETIME,"
-          + "updated_at DATETIME,"
+          + "created_at ${timestamp},"
+          + "updated_at ${timestamp},"
           + "PRIMARY KEY (id),"
-          + "UNIQUE KEY uq_oc_quiz_event_id (event_id)"
-          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+          + "CONSTRAINT uq_oc_quiz_event_id UNIQUE (event_id)"
+          + ")${tableOptions}";
 
   private static final String CREATE_TABLE_QUESTION =
       "CREATE TABLE IF NOT EXISTS oc_quiz_question ("
-          + "id BIGINT NOT NULL AUTO_INCREMENT,"
+          + "id ${identity},"
           + "quiz_id BIGINT NOT NULL,"
           + "position INT,"
           + "question_text VARCHAR(4096),"
           + "question_type VARCHAR(64),"
-          + "options_json LONGTEXT,"
-          + "correct_answer_json LONGTEXT,"
+          + "options_json ${text},"
+          + "correct_answer_json ${text},"
           + "points INT,"
-          + "PRIMARY KEY (id),"
-          + "KEY idx_oc_quiz_question_quiz_id (quiz_id)"
-          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+          + "PRIMARY KEY (id)"
+          + ")${tableOptions}";
 
   private static final String CREATE_TABLE_SUBMISSION =
       "CREATE TABLE IF NOT EXISTS oc_quiz_submission ("
-          + "id BIGINT NOT NULL AUTO_INCREMENT,"
+          + "id ${identity},"
           + "quiz_id BIGINT NOT NULL,"
           + "event_id VARCHAR(128) NOT NULL,"
           + "user_id VARCHAR(255),"
           + "score INT,"
           + "max_score INT,"
           + "percentage INT,"
-          + "success TINYINT(1) DEFAULT 0,"
-          + "answers_json LONGTEXT,"
-          + "submitted_at DATETIME,"
-          + "PRIMARY KEY (id),"
-          + "KEY idx_oc_quiz_submission_quiz_id (quiz_id),"
-          + "KEY idx_oc_quiz_submission_event_id (event_id)"
-          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+          + "success ${boolean},"
+          + "answers_json ${text},"
+          + "submitted_at ${timestamp},"
+          + "PRIMARY KEY (id)"
+          + ")${tableOptions}";
+
+  private static final String CREATE_TABLE_IDEMPOTENCY =
+      "CREATE TABLE IF NOT EXISTS oc_quiz_idempotency ("
+          + "request_key CHAR(64) NOT NULL,"
+          + "result_json ${text} NOT NULL,"
+          + "created_at ${timestamp} NOT NULL,"
+          + "PRIMARY KEY (request_key)"
+          + ")${tableOptions}";
+
+  /** Table, index name and columns of the B-tree indexes. */
+  private static final String[][] INDEXES = {
+      { "oc_quiz_question", "idx_oc_quiz_question_quiz_id", "quiz_id" },
+      { "oc_quiz_submission", "idx_oc_quiz_submission_quiz_id", "quiz_id" },
+      { "oc_quiz_submission", "idx_oc_quiz_submission_event_id", "event_id" }
+  };
+
+  // Submissions and idempotency keys are inserted in time order, which BRIN indexes summarize in a few pages
+  private static final String CREATE_BRIN_SUBMITTED_AT =
+      "CREATE INDEX IF NOT EXISTS idx_oc_quiz_submission_submitted_at_brin "
+          + "ON oc_quiz_submission USING BRIN (submitted_at)";
+
+  private static final String CREATE_BRIN_IDEMPOTENCY_CREATED_AT =
+      "CREATE INDEX IF NOT EXISTS idx_oc_quiz_idempotency_created_at_brin "
+          + "ON oc_quiz_idempotency USING BRIN (created_at)";
 
   private static final String ADD_FK_QUESTION =
       "ALTER TABLE oc_quiz_question "
@@ -133,15 +156,29 @@ public class QuizSchemaInitializer {
     try (Connection connection = dataSource.getConnection()) {
       DatabaseMetaData meta = connection.getMetaData();
       String productName = meta.getDatabaseProductName();
-      if (!isMariaDbOrMySql(productName)) {
+      SchemaDdl ddl = SchemaDdl.of(productName);
+      if (ddl == null) {
         logger.warn("Quiz schema auto-create skipped: unsupported database {}", productName);
         return;
       }
 
       try (Statement statement = connection.createStatement()) {
-        statement.execute(CREATE_TABLE_QUIZ);
-        statement.execute(CREATE_TABLE_QUESTION);
-        statement.execute(CREATE_TABLE_SUBMISSION);
+        statement.execute(ddl.render(CREATE_TABLE_QUIZ));
+        statement.execute(ddl.render(CREATE_TABLE_QUESTION));
+        statement.execute(ddl.render(CREATE_TABLE_SUBMISSION));
+        statement.execute(ddl.render(CREATE_TABLE_IDEMPOTENCY));
+      }
+      for (String[] index : INDEXES) {
+        ensureIndex(connection, index[0], index[1], ddl.createIndex(index[1], index[0], index[2]));
+      }
+      if (ddl == SchemaDdl.POSTGRESQL) {
+        ensureIndex(connection, "oc_quiz_submission", "idx_oc_quiz_submission_submitted_at_brin",
+            CREATE_BRIN_SUBMITTED_AT);
+        ensureIndex(connection, "oc_quiz_idempotency", "idx_oc_quiz_idempotency_created_at_brin",
+            CREATE_BRIN_IDEMPOTENCY_CREATED_AT);
+      } else {
+        ensureIndex(connection, "oc_quiz_idempotency", "idx_oc_quiz_idempotency_created_at",
+            ddl.createIndex("idx_oc_quiz_idempotency_created_at", "oc_quiz_idempotency", "created_at"));
       }
 
       ensureConstraint(connection, "oc_quiz_question", "FK_oc_quiz_question_quiz_id", ADD_FK_QUESTION);
@@ -153,14 +190,6 @@ public class QuizSchemaInitializer {
     }
   }
 
-  private boolean isMariaDbOrMySql(String productName) {
-    if (productName == null) {
-      return false;
-    }
-    String normalized = productName.toLowerCase();
-    return normalized.contains("mariadb") || normalized.contains("mysql");
-  }
-
   private void ensureConstraint(Connection connection, String table, String constraintName, String ddl)
       throws SQLException {
     if (constraintExists(connection, table, constraintName)) {
@@ -177,33 +206,86 @@ public class QuizSchemaInitializer {
     }
   }
 
+  /**
+   * Creates an index unless the table already has one with that name.
+   *
+   * @param connection database connection
+   * @param table indexed table
+   * @param index index name
+   * @param ddl statement that creates the index
+   * @throws SQLException if the index cannot be looked up or created
+   */
+  private void ensureIndex(Connection connection, String table, String index, String ddl) throws SQLException {
+    if (indexExists(connection, table, index)) {
+      return;
+    }
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    }
+    logger.info("Added index {} to {}", index, table);
+  }
+
+  // The checks below use the JDBC metadata, which every database answers for the current catalog and schema
+
+  private boolean indexExists(Connection connection, String table, String index) throws SQLException {
+    DatabaseMetaData meta = connection.getMetaData();
+    try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(),
+        storedName(meta, table), false, true)) {
+      while (rs.next()) {
+        if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
   private boolean constraintExists(Connection connection, String table, String constraintName)
       throws SQLException {
-    String sql = "SELECT COUNT(*) FROM information_schema.table_constraints "
-        + "WHERE constraint_schema = DATABASE() AND table_name = ? AND constraint_name = ?";
-    try (PreparedStatement ps = connection.prepareStatement(sql)) {
-      ps.setString(1, table);
-      ps.setString(2, constraintName);
-      try (ResultSet rs = ps.executeQuery()) {
-        rs.next();
-        return rs.getInt(1) > 0;
+    DatabaseMetaData meta = connection.getMetaData();
+    try (ResultSet rs = meta.getImportedKeys(connection.getCatalog(), connection.getSchema(),
+        storedName(meta, table))) {
+      while (rs.next()) {
+        if (constraintName.equalsIgnoreCase(rs.getString("FK_NAME"))) {
+          return true;
+        }
       }
+      return false;
     }
   }
 
+  /**
+   * Returns a name as the database stores it when unquoted: upper case on H2, lower case on PostgreSQL.
+   *
+   * @param meta database metadata
+   * @param name table or index name
+   * @return the stored form of the name
+   * @throws SQLException if the metadata cannot be read
+   */
+  private static String storedName(DatabaseMetaData meta, String name) throws SQLException {
+    if (meta.storesUpperCaseIdentifiers()) {
+      return name.toUpperCase(Locale.ROOT);
+    }
+    return meta.storesLowerCaseIdentifiers() ? name.toLowerCase(Locale.ROOT) : name;
+  }
+
   private boolean isDuplicateConstraintError(SQLException e) {
+    // PostgreSQL duplicate_object, H2 CONSTRAINT_ALREADY_EXISTS, MariaDB errno 121
+    if ("42710".equals(e.getSQLState()) || "90045".equals(e.getSQLState())) {
+      return true;
+    }
     String message = e.getMessage();
     return message != null && message.contains("Duplicate key") && message.contains("errno: 121");
   }
 
   @ObjectClassDefinition(
       name = "Quiz Plugin Schema",
-      description = "Auto-creates quiz tables for MariaDB/MySQL"
+      description = "Auto-creates quiz tables for MariaDB/MySQL, PostgreSQL and H2"
   )
   public @interface QuizSchemaConfig {
     @AttributeDefinition(
         name = "Auto-create schema",
-        description = "Create quiz tables and constraints if missing (MariaDB/MySQL only)"
+        description = "Create quiz tables, indexes and constraints if missing"
     )
     boolean autoCreate() default true;
   }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.quiz.plugin.persistence;
+
+import java.util.Locale;
+
+/**
+ * Column types, table options and index statements of the databases the schema initializer supports.
+ */
+enum SchemaDdl {
+  MARIADB,
+  POSTGRESQL,
+  H2;
+
+  /**
+   * Returns the DDL flavour of a database.
+   *
+   * @param productName the JDBC database product name
+   * @return the flavour, or {@code null} if the database is not supported
+   */
+  static SchemaDdl of(String productName) {
+    if (productName == null) {
+      return null;
+    }
+    String normalized = productName.toLowerCase(Locale.ROOT);
+    if (normalized.contains("mariadb") || normalized.contains("mysql")) {
+      return MARIADB;
+    }
+    if (normalized.contains("postgresql")) {
+      return POSTGRESQL;
+    }
+    if (normalized.equals("h2")) {
+      return H2;
+    }
+    return null;
+  }
+
+  /**
+   * Replaces the type placeholders of a statement: {@code ${identity}}, {@code ${boolean}},
+   * {@code ${timestamp}}, {@code ${text}} and {@code ${tableOptions}}.
+   *
+   * @param template statement with placeholders
+   * @return the statement for this database
+   */
+  String render(String template) {
+    return template
+        .replace("${identity}", identity())
+        .replace("${boolean}", bool())
+        .replace("${timestamp}", timestamp())
+        .replace("${text}", text())
+        .replace("${tableOptions}", tableOptions());
+  }
+
+  String identity() {
+    return this == MARIADB ? "BIGINT NOT NULL AUTO_INCREMENT" : "BIGINT GENERATED BY DEFAULT AS IDENTITY";
+  }
+
+  /** A boolean mapped by JPA. */
+  String bool() {
+    return this == MARIADB ? "TINYINT(1) DEFAULT 0" : "BOOLEAN DEFAULT FALSE";
+  }
+
+  String timestamp() {
+    return this == MARIADB ? "DATETIME" : "TIMESTAMP";
+  }
+
+  String text() {
+    switch (this) {
+      case MARIADB:
+        return "LONGTEXT";
+      case POSTGRESQL:
+        return "TEXT";
+      default:
+        // Native queries read it as a string, which a CLOB would not be
+        return "VARCHAR(1000000)";
+    }
+  }
+
+  String tableOptions() {
+    return this == MARIADB ? " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4" : "";
+  }
+
+  /**
+   * Returns the statement that creates a B-tree index.
+   *
+   * @param name index name
+   * @param table indexed table
+   * @param columns comma-separated column list
+   * @return the statement for this database
+   */
+  String createIndex(String name, String table, String columns) {
+    String ifNotExists = this == MARIADB ? "" : "IF NOT EXISTS ";
+    return "CREATE INDEX " + ifNotExists + name + " ON " + table + " (" + columns + ")";
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.quiz.plugin.rest;
+
+import org.opencastproject.quiz.plugin.export.ExportWriter;
+import org.opencastproject.quiz.plugin.export.QuizSubmissionExporter;
+import org.opencastproject.security.api.SecurityConstants;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.jaxrs.whiteboard.propertytypes.JaxrsResource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+import javax.sql.DataSource;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams quiz submissions as CSV or NDJSON.
+ *
+ * <p>
+ * Administrators may export the submissions of every quiz, other users only those of the quizzes they created.
+ */
+@Path("/quiz-plugin/export")
+@Component(
+    immediate = true,
+    service = QuizExportResource.class,
+    property = {
+        "service.description=Quiz Plugin Export",
+        "opencast.service.type=org.opencastproject.quiz.plugin.rest.QuizExportResource",
+        "opencast.service.path=/quiz-plugin/export"
+    }
+)
+@JaxrsResource
+public class QuizExportResource {
+
+  private static final Logger logger = LoggerFactory.getLogger(QuizExportResource.class);
+
+  @Reference(target = "(osgi.jndi.service.name=jdbc/opencast)")
+  private DataSource dataSource;
+
+  @Reference
+  private SecurityService securityService;
+
+  private QuizSubmissionExporter exporter;
+
+  @Activate
+  public void activate() {
+    exporter = new QuizSubmissionExporter(dataSource);
+  }
+
+  /**
+   * Streams the submissions matching the given filters.
+   *
+   * @param format
+   *          {@code csv} or {@code ndjson}
+   * @param eventId
+   *          the event of the quiz to export, or none for all quizzes
+   * @param from
+   *          the first submission time included, as ISO-8601 instant or date
+   * @param to
+   *          the first submission time excluded, as ISO-8601 instant or date
+   * @return the streamed export
+   */
+  @GET
+  @Path("submissions")
+  @Produces({ "text/csv", "application/x-ndjson" })
+  public Response exportSubmissions(
+      @QueryParam("format") @DefaultValue("csv") String format,
+      @QueryParam("eventId") String eventId,
+      @QueryParam("from") String from,
+      @QueryParam("to") String to) {
+    ExportWriter.Format exportFormat = ExportWriter.Format.of(format);
+    if (exportFormat == null) {
+      throw badRequest("Unknown export format: " + format);
+    }
+    String event = eventId == null || eventId.trim().isEmpty() ? null : eventId.trim();
+    Instant fromTime = parseTime("from", from);
+    Instant toTime = parseTime("to", to);
+    String createdBy = exportingCreator();
+
+    StreamingOutput body = out -> {
+      try {
+        long rows = exporter.export(event, fromTime, toTime, createdBy, exportFormat, out);
+        logger.debug("Exported {} quiz submissions", rows);
+      } catch (SQLException e) {
+        // The status line is already sent; the client sees a truncated download
+        logger.error("Failed to export quiz submissions", e);
+        throw new WebApplicationException(e);
+      }
+    };
+    String fileName = "quiz-submissions" + (event == null ? "" : "-" + event.replaceAll("[^A-Za-z0-9_-]", "_"))
+        + "." + exportFormat.extension();
+    return Response.ok(body, exportFormat.mediaType())
+        .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+        .header("Cache-Control", "no-store")
+        .build();
+  }
+
+  /** Returns the user whose quizzes may be exported, or {@code null} for administrators. */
+  private String exportingCreator() {
+    User user = securityService.getUser();
+    String username = user == null ? null : user.getUsername();
+    if (username == null || username.trim().isEmpty() || "anonymous".equalsIgnoreCase(username)) {
+      throw new WebApplicationException(Response.Status.FORBIDDEN);
+    }
+    return user.hasRole(SecurityConstants.GLOBAL_ADMIN_ROLE) ? null : username;
+  }
+
+  /** Accepts an ISO-8601 instant or a date, which stands for its start in UTC. */
+  static Instant parseTime(String name, String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return null;
+    }
+    String trimmed = value.trim();
+    try {
+      return trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay(ZoneOffset.UTC).toInstant()
+          : Instant.parse(trimmed);
+    } catch (DateTimeParseException e) {
+      throw badRequest("Invalid " + name + " time: " + value);
+    }
+  }
+
+  private static WebApplicationException badRequest(String message) {
+    return new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+        .type("text/plain")
+        .entity(message)
+        .build());
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.quiz.plugin.rest;
+
+import org.opencastproject.quiz.plugin.metrics.QuizMetrics;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.jaxrs.whiteboard.propertytypes.JaxrsResource;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * REST endpoint publishing the quiz plugin metrics.
+ *
+ * The response uses the Prometheus text exposition format, so the endpoint can be scraped directly.
+ */
+@Path("/quiz-plugin/metrics")
+@Component(
+    immediate = true,
+    service = QuizMetricsResource.class,
+    property = {
+        "service.description=Quiz Plugin Metrics",
+        "opencast.service.type=org.opencastproject.quiz.plugin.rest.QuizMetricsResource",
+        "opencast.service.path=/quiz-plugin/metrics"
+    }
+)
+@JaxrsResource
+public class QuizMetricsResource {
+
+  static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+  @GET
+  @Produces(PROMETHEUS_TEXT)
+  public String metrics() {
+    StringBuilder out = new StringBuilder(4096);
+    QuizMetrics.getInstance().writePrometheus(out);
+    return out.toString();
+  }
+}
@@ -42,7 +42,11 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -150,6 +154,44 @@ public class ConvexQuizDataStore implements QuizDataStore {
     }
   }
 
+  @Override
+  public Map<String, QuizInfo> getQuizInfos(Collection<String> eventIds) {
+    Map<String, QuizInfo> infos = new LinkedHashMap<>();
+    Map<String, JsonObject> quizzes = queryQuizzes(eventIds);
+    for (String eventId : eventIds) {
+      if (quizzes == null) {
+        infos.put(eventId, getQuizInfo(eventId));
+        continue;
+      }
+      JsonObject quiz = quizzes.get(eventId);
+      infos.put(eventId, quiz == null
+          ? new QuizInfo(false, null, false, null, null)
+          : new QuizInfo(
+            true,
+            quiz.get("_id").getAsString(),
+            quiz.get("isActive").getAsBoolean(),
+            quiz.get("title").getAsString(),
+            quiz.getAsJsonArray("questions").size()
+          ));
+    }
+    return infos;
+  }
+
+  @Override
+  public Map<String, QuizDefinition> getQuizDefinitions(Collection<String> eventIds) {
+    Map<String, QuizDefinition> definitions = new LinkedHashMap<>();
+    Map<String, JsonObject> quizzes = queryQuizzes(eventIds);
+    for (String eventId : eventIds) {
+      if (quizzes == null) {
+        definitions.put(eventId, getQuizDefinition(eventId));
+        continue;
+      }
+      JsonObject quiz = quizzes.get(eventId);
+      definitions.put(eventId, quiz == null ? null : convertJsonToQuizDefinition(quiz));
+    }
+    return definitions;
+  }
+
   @Override
   public QuizDefinition createQuiz(String eventId, QuizInput quizInput, String userId) {
     try {
@@ -259,6 +301,65 @@ public class ConvexQuizDataStore implements QuizDataStore {
     }
   }
 
+  /**
+   * Loads the quizzes of several events with one call to the Convex query {@code quiz:getQuizzes}.
+   *
+   * @return quizzes by event id, or null if the batched query is not available and callers should fall back to
+   *         single lookups
+   */
+  private Map<String, JsonObject> queryQuizzes(Collection<String> eventIds) {
+    try {
+      String url = convexUrl + "api/query";
+
+      JsonArray ids = new JsonArray();
+      for (String eventId : new LinkedHashSet<>(eventIds)) {
+        ids.add(eventId);
+      }
+
+      JsonObject payload = new JsonObject();
+      payload.addProperty("path", "quiz:getQuizzes");
+      JsonObject args = new JsonObject();
+      args.add("eventIds", ids);
+      payload.add("args", args);
+
+      HttpRequest request = HttpRequest.newBuilder()
+          .uri(URI.create(url))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(payload)))
+          .timeout(Duration.ofSeconds(30))
+          .build();
+
+      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+      if (response.statusCode() != 200) {
+        logger.warn("Convex batched quiz query returned {}; falling back to single lookups", response.statusCode());
+        return null;
+      }
+
+      JsonObject result = gson.fromJson(response.body(), JsonObject.class);
+      if (result.has("status") && !"success".equals(result.get("status").getAsString())) {
+        logger.warn("Convex batched quiz query failed; falling back to single lookups");
+        return null;
+      }
+
+      Map<String, JsonObject> quizzes = new LinkedHashMap<>();
+      if (result.has("value") && result.get("value").isJsonArray()) {
+        JsonArray values = result.getAsJsonArray("value");
+        for (int i = 0; i < values.size(); i++) {
+          if (values.get(i).isJsonObject()) {
+            JsonObject quiz = values.get(i).getAsJsonObject();
+            quizzes.put(quiz.get("eventId").getAsString(), quiz);
+          }
+        }
+      }
+      return quizzes;
+
+    } catch (Exception e) {
+      logger.error("Failed to get quizzes from Convex for " + eventIds.size() + " events", e);
+      return null;
+    }
+  }
+
   private JsonArray convertQuestionsToJson(List<org.opencastproject.quiz.plugin.type.input.QuestionInput> questions) {
     JsonArray array = new JsonArray();
     for (org.opencastproject.quiz.plugin.type.input.QuestionInput q : questions) {
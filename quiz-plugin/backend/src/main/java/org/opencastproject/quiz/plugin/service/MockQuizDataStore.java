@@ -30,7 +30,9 @@ import org.opencastproject.quiz.plugin.type.input.QuizAnswersInput;
 import org.opencastproject.quiz.plugin.type.input.QuizInput;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -74,6 +76,24 @@ public class MockQuizDataStore implements QuizDataStore {
     return null;
   }
 
+  @Override
+  public Map<String, QuizInfo> getQuizInfos(Collection<String> eventIds) {
+    Map<String, QuizInfo> infos = new LinkedHashMap<>();
+    for (String eventId : eventIds) {
+      infos.put(eventId, getQuizInfo(eventId));
+    }
+    return infos;
+  }
+
+  @Override
+  public Map<String, QuizDefinition> getQuizDefinitions(Collection<String> eventIds) {
+    Map<String, QuizDefinition> definitions = new LinkedHashMap<>();
+    for (String eventId : eventIds) {
+      definitions.put(eventId, getQuizDefinition(eventId));
+    }
+    return definitions;
+  }
+
   @Override
   public QuizDefinition createQuiz(String eventId, QuizInput quizInput, String userId) {
     String id = UUID.randomUUID().toString();
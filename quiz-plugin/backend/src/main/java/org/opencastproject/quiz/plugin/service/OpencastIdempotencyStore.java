@@ -0,0 +1,98 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.quiz.plugin.service;
+
+import org.opencastproject.db.DBSession;
+import org.opencastproject.db.DBSessionFactory;
+import org.opencastproject.quiz.plugin.metrics.QuizMetrics;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Keeps idempotent mutation results in oc_quiz_idempotency.
+ */
+final class OpencastIdempotencyStore implements IdempotencyCache.Backing {
+
+  private static final String SELECT_RESULT_SQL =
+      "SELECT result_json FROM oc_quiz_idempotency WHERE request_key = ? AND created_at >= ?";
+
+  private static final String INSERT_RESULT_SQL =
+      "INSERT INTO oc_quiz_idempotency (request_key, result_json, created_at) VALUES (?, ?, ?)";
+
+  private static final String PURGE_SQL = "DELETE FROM oc_quiz_idempotency WHERE created_at < ?";
+
+  private final DBSessionFactory dbSessionFactory;
+  private final EntityManagerFactory entityManagerFactory;
+
+  OpencastIdempotencyStore(DBSessionFactory dbSessionFactory, EntityManagerFactory entityManagerFactory) {
+    this.dbSessionFactory = dbSessionFactory;
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  @Override
+  public String load(String key, long notBefore) {
+    try (DBSession session = openSession()) {
+      return session.exec(em -> {
+        List<?> rows = em.createNativeQuery(SELECT_RESULT_SQL)
+            .setParameter(1, key)
+            .setParameter(2, new Timestamp(notBefore))
+            .setMaxResults(1)
+            .getResultList();
+        return rows.isEmpty() || rows.get(0) == null ? null : rows.get(0).toString();
+      });
+    }
+  }
+
+  @Override
+  public void save(String key, String json) {
+    try (DBSession session = openSession()) {
+      session.execTx(em -> {
+        em.createNativeQuery(INSERT_RESULT_SQL)
+            .setParameter(1, key)
+            .setParameter(2, json)
+            .setParameter(3, new Timestamp(System.currentTimeMillis()))
+            .executeUpdate();
+      });
+    }
+  }
+
+  @Override
+  public int purgeBefore(long createdBefore) {
+    try (DBSession session = openSession()) {
+      return session.execTx(em -> {
+        int purged = em.createNativeQuery(PURGE_SQL)
+            .setParameter(1, new Timestamp(createdBefore))
+            .executeUpdate();
+        return purged;
+      });
+    }
+  }
+
+  private DBSession openSession() {
+    QuizMetrics.countSession();
+    return dbSessionFactory.createSession(entityManagerFactory);
+  }
+}
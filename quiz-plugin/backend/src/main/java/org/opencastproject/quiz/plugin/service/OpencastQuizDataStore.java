@@ -24,6 +24,7 @@ package org.opencastproject.quiz.plugin.service;
 import org.opencastproject.db.DBSession;
 import org.opencastproject.db.DBSessionFactory;
 import org.opencastproject.quiz.plugin.QuizInfo;
+import org.opencastproject.quiz.plugin.metrics.QuizMetrics;
 import org.opencastproject.quiz.plugin.persistence.QuizEntity;
 import org.opencastproject.quiz.plugin.persistence.QuizQuestionEntity;
 import org.opencastproject.quiz.plugin.persistence.QuizSubmissionEntity;
@@ -44,8 +45,11 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -60,6 +64,8 @@ public class OpencastQuizDataStore implements QuizDataStore {
 
   private static final Logger logger = LoggerFactory.getLogger(OpencastQuizDataStore.class);
 
+  private static final int IN_LIST_BATCH_SIZE = 500;
+
   private static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() { } .getType();
 
   private final DBSessionFactory dbSessionFactory;
@@ -73,7 +79,7 @@ public class OpencastQuizDataStore implements QuizDataStore {
 
   @Override
   public QuizInfo getQuizInfo(String eventId) {
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    try (DBSession session = openSession()) {
       return session.exec(em -> {
         QuizEntity quiz = findActiveQuizByEventId(em, eventId);
         if (quiz == null) {
@@ -90,7 +96,7 @@ public class OpencastQuizDataStore implements QuizDataStore {
 
   @Override
   public QuizDefinition getQuizDefinition(String eventId) {
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    try (DBSession session = openSession()) {
       return session.exec(em -> {
         QuizEntity quiz = findActiveQuizByEventId(em, eventId);
         return quiz == null ? null : toQuizDefinition(quiz);
@@ -101,13 +107,74 @@ public class OpencastQuizDataStore implements QuizDataStore {
     }
   }
 
+  @Override
+  public Map<String, QuizInfo> getQuizInfos(Collection<String> eventIds) {
+    List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(eventIds));
+    Map<String, QuizInfo> infos = new LinkedHashMap<>();
+    try (DBSession session = openSession()) {
+      session.exec(em -> {
+        for (int from = 0; from < distinctIds.size(); from += IN_LIST_BATCH_SIZE) {
+          TypedQuery<Object[]> query = em.createQuery(
+              "SELECT q.id, q.eventId, q.title, SIZE(q.questions) FROM QuizEntity q "
+                  + "WHERE q.eventId IN :eventIds AND q.active = true",
+              Object[].class
+          );
+          query.setParameter("eventIds",
+              distinctIds.subList(from, Math.min(distinctIds.size(), from + IN_LIST_BATCH_SIZE)));
+          for (Object[] row : query.getResultList()) {
+            infos.put((String) row[1],
+                new QuizInfo(true, String.valueOf(row[0]), true, (String) row[2], ((Number) row[3]).intValue()));
+          }
+        }
+        return null;
+      });
+    } catch (Exception e) {
+      logger.error("Failed to fetch quiz info for {} events", distinctIds.size(), e);
+    }
+
+    for (String eventId : eventIds) {
+      infos.putIfAbsent(eventId, new QuizInfo(false, null, false, null, null));
+    }
+    return infos;
+  }
+
+  @Override
+  public Map<String, QuizDefinition> getQuizDefinitions(Collection<String> eventIds) {
+    List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(eventIds));
+    Map<String, QuizDefinition> definitions = new LinkedHashMap<>();
+    try (DBSession session = openSession()) {
+      session.exec(em -> {
+        for (int from = 0; from < distinctIds.size(); from += IN_LIST_BATCH_SIZE) {
+          TypedQuery<QuizEntity> query = em.createQuery(
+              "SELECT DISTINCT q FROM QuizEntity q LEFT JOIN FETCH q.questions "
+                  + "WHERE q.eventId IN :eventIds AND q.active = true",
+              QuizEntity.class
+          );
+          query.setParameter("eventIds",
+              distinctIds.subList(from, Math.min(distinctIds.size(), from + IN_LIST_BATCH_SIZE)));
+          for (QuizEntity quiz : query.getResultList()) {
+            definitions.put(quiz.getEventId(), toQuizDefinition(quiz));
+          }
+        }
+        return null;
+      });
+    } catch (Exception e) {
+      logger.error("Failed to fetch quiz definitions for {} events", distinctIds.size(), e);
+    }
+
+    for (String eventId : eventIds) {
+      definitions.putIfAbsent(eventId, null);
+    }
+    return definitions;
+  }
+
   @Override
   public QuizDefinition createQuiz(String eventId, QuizInput quizInput, String userId) {
     if (quizInput == null || quizInput.getQuestions() == null || quizInput.getQuestions().isEmpty()) {
       throw new IllegalArgumentException("Quiz must have at least one question");
     }
 
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    try (DBSession session = openSession()) {
       return session.execTx(em -> {
         QuizEntity existing = findQuizByEventId(em, eventId);
         if (existing != null) {
@@ -158,7 +225,7 @@ public class OpencastQuizDataStore implements QuizDataStore {
       throw new IllegalArgumentException("Quiz answers list is null or empty");
     }
 
-    try (DBSession session = dbSessionFactory.createSession(entityManagerFactory)) {
+    try (DBSession session = openSession()) {
       return session.execTx(em -> {
         QuizEntity quiz = findActiveQuizByEventId(em, eventId);
         if (quiz == null) {
@@ -336,4 +403,8 @@ public class OpencastQuizDataStore implements QuizDataStore {
     return correctAnswer.equals(submittedAnswer);
   }
 
+  private DBSession openSession() {
+    QuizMetrics.countSession();
+    return dbSessionFactory.createSession(entityManagerFactory);
+  }
 }
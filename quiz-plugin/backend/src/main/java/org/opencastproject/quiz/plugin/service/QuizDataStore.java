@@ -27,6 +27,9 @@ import org.opencastproject.quiz.plugin.type.QuizSubmissionResult;
 import org.opencastproject.quiz.plugin.type.input.QuizAnswersInput;
 import org.opencastproject.quiz.plugin.type.input.QuizInput;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Interface for quiz data storage.
  *
@@ -41,6 +44,16 @@ public interface QuizDataStore {
 
   QuizDefinition getQuizDefinition(String eventId);
 
+  /**
+   * Batched variant of {@link #getQuizInfo(String)}. The result contains an entry for every requested event.
+   */
+  Map<String, QuizInfo> getQuizInfos(Collection<String> eventIds);
+
+  /**
+   * Batched variant of {@link #getQuizDefinition(String)}. Events without an active quiz map to null.
+   */
+  Map<String, QuizDefinition> getQuizDefinitions(Collection<String> eventIds);
+
   QuizDefinition createQuiz(String eventId, QuizInput quizInput, String userId);
 
   QuizSubmissionResult submitQuiz(String eventId, QuizAnswersInput answersInput, String userId);
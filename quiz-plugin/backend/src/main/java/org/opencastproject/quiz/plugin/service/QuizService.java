@@ -22,6 +22,7 @@
 package org.opencastproject.quiz.plugin.service;
 
 import org.opencastproject.quiz.plugin.QuizInfo;
+import org.opencastproject.quiz.plugin.metrics.QuizMetrics;
 import org.opencastproject.quiz.plugin.type.QuizDefinition;
 import org.opencastproject.quiz.plugin.type.QuizSubmissionResult;
 import org.opencastproject.quiz.plugin.type.input.QuizAnswersInput;
@@ -44,6 +45,11 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 import javax.persistence.EntityManagerFactory;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
 /**
  * Service for quiz operations.
  *
@@ -77,6 +83,10 @@ public final class QuizService {
 
   private QuizDataStore dataStore;
 
+  private volatile IdempotencyCache idempotencyCache;
+
+  private final QuizMetrics metrics = QuizMetrics.getInstance();
+
   public QuizService() {
     configureFromEnvironment();
   }
@@ -103,32 +113,70 @@ public final class QuizService {
    * Gets quiz information for an event.
    */
   public QuizInfo getQuizInfo(String eventId) {
-    try {
-      return dataStore.getQuizInfo(eventId);
+    try (QuizMetrics.Sample sample = metrics.start("getQuizInfo")) {
+      QuizInfo info = dataStore.getQuizInfo(eventId);
+      sample.succeeded();
+      return info;
     } catch (Exception e) {
       logger.error("Failed to get quiz info for event: " + eventId, e);
       return new QuizInfo(false, null, false, null, null);
     }
   }
 
+  /**
+   * Gets quiz information for several events at once.
+   */
+  public Map<String, QuizInfo> getQuizInfos(Collection<String> eventIds) {
+    try (QuizMetrics.Sample sample = metrics.start("getQuizInfos")) {
+      Map<String, QuizInfo> infos = dataStore.getQuizInfos(eventIds);
+      sample.succeeded();
+      return infos;
+    } catch (Exception e) {
+      logger.error("Failed to get quiz info for " + eventIds.size() + " events", e);
+      Map<String, QuizInfo> infos = new LinkedHashMap<>();
+      for (String eventId : eventIds) {
+        infos.put(eventId, new QuizInfo(false, null, false, null, null));
+      }
+      return infos;
+    }
+  }
+
   /**
    * Gets the full quiz definition for an event (including questions).
    */
   public QuizDefinition getQuizDefinition(String eventId) {
-    try {
-      return dataStore.getQuizDefinition(eventId);
+    try (QuizMetrics.Sample sample = metrics.start("getQuizDefinition")) {
+      QuizDefinition quiz = dataStore.getQuizDefinition(eventId);
+      sample.succeeded();
+      return quiz;
     } catch (Exception e) {
       logger.error("Failed to get quiz definition for event: " + eventId, e);
       return null;
     }
   }
 
+  /**
+   * Gets the full quiz definitions of several events at once.
+   */
+  public Map<String, QuizDefinition> getQuizDefinitions(Collection<String> eventIds) {
+    try (QuizMetrics.Sample sample = metrics.start("getQuizDefinitions")) {
+      Map<String, QuizDefinition> quizzes = dataStore.getQuizDefinitions(eventIds);
+      sample.succeeded();
+      return quizzes;
+    } catch (Exception e) {
+      logger.error("Failed to get quiz definitions for " + eventIds.size() + " events", e);
+      return new LinkedHashMap<>();
+    }
+  }
+
   /**
    * Creates a new quiz.
    */
   public QuizDefinition createQuiz(String eventId, QuizInput quizInput, String userId) {
-    try {
-      return dataStore.createQuiz(eventId, quizInput, userId);
+    try (QuizMetrics.Sample sample = metrics.start("createQuiz")) {
+      QuizDefinition quiz = dataStore.createQuiz(eventId, quizInput, userId);
+      sample.succeeded();
+      return quiz;
     } catch (Exception e) {
       logger.error("Failed to create quiz for event: " + eventId, e);
       throw new RuntimeException("Failed to create quiz: " + e.getMessage(), e);
@@ -139,15 +187,33 @@ public final class QuizService {
    * Submits quiz answers.
    */
   public QuizSubmissionResult submitQuiz(String eventId, QuizAnswersInput answersInput, String userId) {
-    try {
-      return dataStore.submitQuiz(eventId, answersInput, userId);
+    try (QuizMetrics.Sample sample = metrics.start("submitQuiz")) {
+      QuizSubmissionResult result = dataStore.submitQuiz(eventId, answersInput, userId);
+      sample.succeeded();
+      return result;
     } catch (Exception e) {
       logger.error("Failed to submit quiz for event: " + eventId, e);
       throw new RuntimeException("Failed to submit quiz: " + e.getMessage(), e);
     }
   }
 
+  /**
+   * Runs a mutation once per client request id.
+   *
+   * A retry carrying the same request id (for the same operation and user) returns the result of the first call
+   * without running the mutation again. Without a request id the mutation simply runs.
+   */
+  public <T> T runOnce(String operation, String userId, String requestId, Class<T> resultType,
+                       Supplier<T> action) {
+    IdempotencyCache cache = idempotencyCache;
+    if (cache == null || requestId == null || requestId.trim().isEmpty()) {
+      return action.get();
+    }
+    return cache.execute(operation, userId, requestId.trim(), resultType, action);
+  }
+
   private void configureFromConfig(QuizServiceConfig config) {
+    IdempotencyCache.Backing idempotencyBacking = null;
     String store = config.store();
     if (store == null) {
       store = "opencast";
@@ -179,9 +245,14 @@ public final class QuizService {
         } else {
           logger.info("Initializing QuizService with Opencast JPA backend");
           dataStore = new OpencastQuizDataStore(dbSessionFactory, entityManagerFactory);
+          idempotencyBacking = new OpencastIdempotencyStore(dbSessionFactory, entityManagerFactory);
         }
         break;
     }
+
+    idempotencyCache = config.idempotencyEnabled()
+        ? new IdempotencyCache(config.idempotencyMaxEntries(), config.idempotencyTtlMs(), idempotencyBacking)
+        : null;
   }
 
   private void configureFromEnvironment() {
@@ -211,6 +282,24 @@ public final class QuizService {
         description = "Convex deployment URL (only used when store=convex)"
     )
     String convexUrl() default "";
+
+    @AttributeDefinition(
+        name = "Idempotent mutations",
+        description = "Return the first result for mutations retried with the same requestId"
+    )
+    boolean idempotencyEnabled() default true;
+
+    @AttributeDefinition(
+        name = "Idempotency cache maximum entries",
+        description = "Number of mutation results kept in memory; older ones are read from oc_quiz_idempotency"
+    )
+    int idempotencyMaxEntries() default 10000;
+
+    @AttributeDefinition(
+        name = "Idempotency TTL",
+        description = "Milliseconds a mutation result is kept for retries"
+    )
+    long idempotencyTtlMs() default 86400000L;
   }
 
 }